@@ -0,0 +1,129 @@
+package com.ldbbd.xparser.benchmarks;
+
+import com.ldbbd.xparser.async.AsyncParseService;
+import com.ldbbd.xparser.factories.XSqlParserFactory;
+import com.ldbbd.xparser.parsers.CalciteParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a burst of statements from many concurrent callers, through {@link AsyncParseService}
+ * and the naive way, with one thread per request that parses and ends.
+ *
+ * <p>One operation is one burst: every caller submits one statement at once and the operation
+ * ends when all of them are parsed. The reported time is the time per burst, after each iteration
+ * the p50 and p99 latency of the requests of the last burst, from submission to completion, and
+ * the throughput of that burst are printed.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncParseBenchmark {
+
+    private static final String DIALECT = "xsql";
+
+    private static final String SQL =
+            "CREATE TABLE IF NOT EXISTS orders (\n"
+                    + "  order_id BIGINT NOT NULL COMMENT 'key',\n"
+                    + "  customer_id BIGINT,\n"
+                    + "  amount DECIMAL(10, 2),\n"
+                    + "  order_time TIMESTAMP(3),\n"
+                    + "  WATERMARK FOR order_time AS order_time - INTERVAL '5' SECOND,\n"
+                    + "  PRIMARY KEY (order_id) NOT ENFORCED\n"
+                    + ") PARTITIONED BY (customer_id) WITH ('connector' = 'kafka')";
+
+    @Param({"10000"})
+    public int callers;
+
+    private CalciteParser parser;
+    private AsyncParseService service;
+    private long[] latencies;
+    private long burstNanos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        parser = new XSqlParserFactory().createCalciteParser();
+        // Admits every caller of a burst, so none is rejected and the latencies are comparable.
+        service =
+                AsyncParseService.builder()
+                        .dialect(DIALECT, parser)
+                        .maxInFlight(callers)
+                        .admissionTimeout(Duration.ofMinutes(1))
+                        .build();
+        latencies = new long[callers];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        final long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf(
+                "%n  p50 %.2f ms, p99 %.2f ms, %.0f requests/s%n",
+                sorted[sorted.length / 2] / 1e6,
+                sorted[(int) (sorted.length * 0.99)] / 1e6,
+                callers * 1e9 / burstNanos);
+    }
+
+    /** The callers submit to the service and are not blocked while their statements are parsed. */
+    @Benchmark
+    public void service() {
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[callers];
+        final long burst = System.nanoTime();
+        for (int i = 0; i < callers; i++) {
+            final int caller = i;
+            final long start = System.nanoTime();
+            futures[i] =
+                    service.parseAsync(DIALECT, SQL)
+                            .whenComplete(
+                                    (node, e) -> latencies[caller] = System.nanoTime() - start);
+        }
+        CompletableFuture.allOf(futures).join();
+        burstNanos = System.nanoTime() - burst;
+    }
+
+    /** Every caller is a thread of its own that parses its statement and ends. */
+    @Benchmark
+    public void threadPerRequest() throws InterruptedException {
+        final Thread[] threads = new Thread[callers];
+        final long burst = System.nanoTime();
+        for (int i = 0; i < callers; i++) {
+            final int caller = i;
+            final long start = System.nanoTime();
+            threads[i] =
+                    new Thread(
+                            () -> {
+                                parser.parse(SQL);
+                                latencies[caller] = System.nanoTime() - start;
+                            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        burstNanos = System.nanoTime() - burst;
+    }
+}
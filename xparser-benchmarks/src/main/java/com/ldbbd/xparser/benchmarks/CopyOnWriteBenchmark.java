@@ -0,0 +1,77 @@
+package com.ldbbd.xparser.benchmarks;
+
+import ddl.XSqlCreateTable;
+import ddl.XSqlTableColumn.SqlRegularColumn;
+import extended.SqlNodeCopier;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xparser.impl.XSqlParserImpl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Changes the type of one column of a cached CREATE TABLE, with a full copy of the tree and with
+ * {@link SqlNodeCopier#replace}, which shares the other columns. Run with {@code -prof gc} for the
+ * allocation per change.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CopyOnWriteBenchmark {
+
+    @Param({"10", "1000"})
+    public int columns;
+
+    private XSqlCreateTable table;
+    private SqlRegularColumn column;
+    private SqlRegularColumn replacement;
+
+    @Setup
+    public void setUp() throws SqlParseException {
+        final StringBuilder sql = new StringBuilder("CREATE TABLE t (");
+        for (int i = 0; i < columns; i++) {
+            sql.append(i == 0 ? "" : ", ").append('c').append(i).append(" BIGINT COMMENT 'c'");
+        }
+        sql.append(')');
+        table =
+                (XSqlCreateTable)
+                        SqlParser.create(
+                                        sql.toString(),
+                                        SqlParser.config()
+                                                .withParserFactory(XSqlParserImpl.FACTORY))
+                                .parseStmt();
+        column = (SqlRegularColumn) table.getColumnList().get(columns / 2);
+        replacement = column.withType(column.getType().withNullable(false));
+    }
+
+    /** Copies every node, then changes the copied column in place. */
+    @Benchmark
+    public SqlNode fullCopy() {
+        final XSqlCreateTable copy = (XSqlCreateTable) SqlNodeCopier.copy(table);
+        final SqlRegularColumn copied =
+                (SqlRegularColumn) copy.getColumnList().get(columns / 2);
+        copied.setType(copied.getType().withNullable(false));
+        return copy;
+    }
+
+    /** Copies the path from the root to the column only. */
+    @Benchmark
+    public SqlNode copyOnWrite() {
+        return SqlNodeCopier.replace(table, column, replacement);
+    }
+}
@@ -0,0 +1,98 @@
+package com.ldbbd.xparser.benchmarks;
+
+import com.ldbbd.xparser.parsers.SqlTokenScanner;
+import com.ldbbd.xparser.parsers.SqlTokenScanner.TokenType;
+import org.apache.calcite.sql.parser.SqlAbstractParserImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import xparser.impl.XSqlKeywords;
+import xparser.impl.XSqlParserImpl;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifies the words of a DDL statement as reserved keywords, with the generated perfect hash
+ * table of the xsql dialect and the way Calcite does, by upper casing the word and asking the
+ * parser's {@link SqlAbstractParserImpl.Metadata}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KeywordLookupBenchmark {
+
+    private static final String SQL =
+            "CREATE TABLE IF NOT EXISTS orders (\n"
+                    + "  order_id BIGINT NOT NULL COMMENT 'key',\n"
+                    + "  customer_id BIGINT,\n"
+                    + "  amount DECIMAL(10, 2),\n"
+                    + "  currency VARCHAR,\n"
+                    + "  order_time TIMESTAMP(3),\n"
+                    + "  tags ARRAY<VARCHAR>,\n"
+                    + "  total AS amount * 2,\n"
+                    + "  WATERMARK FOR order_time AS order_time - INTERVAL '5' SECOND,\n"
+                    + "  PRIMARY KEY (order_id) NOT ENFORCED\n"
+                    + ") PARTITIONED BY (currency) WITH ('connector' = 'kafka')";
+
+    private SqlAbstractParserImpl.Metadata metadata;
+    private int[] starts;
+    private int[] ends;
+
+    @Setup
+    public void setUp() {
+        metadata = XSqlParserImpl.FACTORY.getParser(new StringReader("")).getMetadata();
+        final List<int[]> words = new ArrayList<>();
+        final SqlTokenScanner scanner = new SqlTokenScanner(SQL);
+        TokenType type;
+        while ((type = scanner.next()) != TokenType.EOF) {
+            if (type == TokenType.WORD) {
+                words.add(new int[] {scanner.tokenStart(), scanner.tokenEnd()});
+            }
+        }
+        starts = new int[words.size()];
+        ends = new int[words.size()];
+        for (int i = 0; i < words.size(); i++) {
+            starts[i] = words.get(i)[0];
+            ends[i] = words.get(i)[1];
+        }
+    }
+
+    /** The generated table, on the ranges of the statement. */
+    @Benchmark
+    public int perfectHash() {
+        int reserved = 0;
+        for (int i = 0; i < starts.length; i++) {
+            if (XSqlKeywords.isReservedKeyword(SQL, starts[i], ends[i])) {
+                reserved++;
+            }
+        }
+        return reserved;
+    }
+
+    /** Calcite's parser metadata, on upper cased copies of the words. */
+    @Benchmark
+    public int calciteMetadata() {
+        int reserved = 0;
+        for (int i = 0; i < starts.length; i++) {
+            final String word = SQL.substring(starts[i], ends[i]).toUpperCase(Locale.ROOT);
+            if (metadata.isReservedWord(word)) {
+                reserved++;
+            }
+        }
+        return reserved;
+    }
+}
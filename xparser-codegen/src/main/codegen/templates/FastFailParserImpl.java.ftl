@@ -0,0 +1,288 @@
+<#--
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+-->
+<#--
+  Generates the fast fail variant of a dialect's parser next to it, e.g.
+  XSqlFastFailParserImpl for XSqlParserImpl.
+-->
+<#assign fastFailClass = parser.class?remove_ending("ParserImpl") + "FastFailParserImpl">
+<@pp.dropOutputFile />
+<@pp.changeOutputFile name=parser.package?replace(".", "/") + "/" + fastFailClass + ".java" />
+package ${parser.package};
+
+import org.apache.calcite.sql.parser.SqlAbstractParserImpl;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.sql.parser.SqlParserImplFactory;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.sql.parser.SqlParserUtil;
+import org.apache.calcite.sql.validate.SqlConformance;
+import org.apache.calcite.sql.validate.SqlConformanceEnum;
+import org.apache.calcite.util.SourceStringReader;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ${parser.class}} whose syntax errors are cheap to raise, for services that must stay
+ * responsive under a storm of malformed statements.
+ *
+ * <p>The generated parser collects the expected tokens of a syntax error by replaying every
+ * lookahead of the failed parse, and the error message lists all of them, often hundreds. This
+ * variant differs in three ways:
+ *
+ * <ul>
+ *   <li>The expected tokens are cached by the kind of the failing token, the kinds of the up to
+ *       {@value #WINDOW} tokens before it and the conformance, which stand in for the state the
+ *       parser failed in. Statements that fail alike, e.g. the same statement sent again or one
+ *       that differs only in identifiers and literals, reuse them.
+ *   <li>The message is only formatted when it is read, an error that is merely counted or
+ *       mapped to an error code never formats it.
+ *   <li>The exceptions carry no stack trace, the failing token and its position are all there
+ *       is to know about a syntax error.
+ * </ul>
+ *
+ * <p>Messages, positions and expected tokens are the same as those of {@link ${parser.class}},
+ * unless two statements read the same kinds of tokens for a whole window before failing but
+ * differ before it, e.g. in how deep the window is nested; the second then reports the expected
+ * tokens of the first. The cached expected token sequences are shared and must not be modified.
+ * Lexical errors are reported as usual.
+ *
+ * <p>The parser keeps the kinds of the last tokens it read, not the tokens themselves, so a parse
+ * retains nothing of the statement once it is done.
+ */
+public class ${fastFailClass} extends ${parser.class} {
+
+    /** {@link SqlParserImplFactory} implementation for creating the parser. */
+    public static final SqlParserImplFactory FACTORY = new SqlParserImplFactory() {
+        @Override
+        public SqlAbstractParserImpl getParser(Reader reader) {
+            final ${fastFailClass} parser = new ${fastFailClass}(reader);
+            if (reader instanceof SourceStringReader) {
+                parser.setOriginalSql(((SourceStringReader) reader).getSourceString());
+            }
+            return parser;
+        }
+    };
+
+    /** Failures whose expected tokens are cached, the cache is emptied when it is full. */
+    private static final int MAX_CACHED_FAILURES = 1024;
+
+    /** Tokens before the failing one whose kinds are part of the cache key. */
+    private static final int WINDOW = 32;
+
+    /** Kinds of tokens the parser remembers, a power of two. */
+    private static final int RECENT = 256;
+
+    private static final Map<Failure, int[][]> EXPECTED_TOKENS = new ConcurrentHashMap<>();
+
+    /** The kinds of the last {@value #RECENT} tokens read, including lookahead, as a ring. */
+    private final int[] recentKinds = new int[RECENT];
+
+    /** The number of tokens read from the statement. */
+    private long read;
+
+    private SqlConformance conformance = SqlConformanceEnum.DEFAULT;
+
+    public ${fastFailClass}(Reader reader) {
+        super(reader);
+        token_source = new RecordingTokenManager(jj_input_stream);
+    }
+
+    @Override
+    public void ReInit(Reader reader) {
+        super.ReInit(reader);
+        read = 0;
+    }
+
+    @Override
+    public void setConformance(SqlConformance conformance) {
+        super.setConformance(conformance);
+        this.conformance = conformance;
+    }
+
+    @Override
+    public ParseException generateParseException() {
+        final Failure failure = failure();
+        int[][] expected = failure == null ? null : EXPECTED_TOKENS.get(failure);
+        if (expected == null) {
+            try {
+                expected = cleanupParseException(super.generateParseException())
+                        .expectedTokenSequences;
+            } catch (ParseException e) {
+                throw new AssertionError(e);
+            }
+            if (failure != null) {
+                if (EXPECTED_TOKENS.size() >= MAX_CACHED_FAILURES) {
+                    EXPECTED_TOKENS.clear();
+                }
+                EXPECTED_TOKENS.put(failure, expected);
+            }
+        }
+        return new FastFailParseException(token, expected, tokenImage);
+    }
+
+    /**
+     * Returns the cache key of the current failure, or null if the parser read too far ahead of
+     * the failing token to remember the kinds before it.
+     */
+    private Failure failure() {
+        // The failing token and the tokens read ahead of it are chained to the current token.
+        long ahead = 0;
+        for (Token t = token.next; t != null && t.next != null; t = t.next) {
+            ahead++;
+        }
+        final long failing = read - 1 - ahead;
+        final long first = Math.max(0, failing - WINDOW);
+        if (failing < 0 || read - first > RECENT) {
+            return null;
+        }
+        final int[] kinds = new int[(int) (failing - first + 1)];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = recentKinds[(int) ((first + i) & (RECENT - 1))];
+        }
+        return new Failure(kinds, conformance);
+    }
+
+    @Override
+    public SqlParseException normalizeException(Throwable ex) {
+        if (!(ex instanceof FastFailParseException)) {
+            return super.normalizeException(ex);
+        }
+        return new FastFailSqlParseException((FastFailParseException) ex, getMetadata());
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** Records the kind of every token the parser reads. */
+    private final class RecordingTokenManager extends ${parser.class}TokenManager {
+        RecordingTokenManager(SimpleCharStream stream) {
+            super(stream);
+        }
+
+        @Override
+        public Token getNextToken() {
+            final Token t = super.getNextToken();
+            recentKinds[(int) (read++ & (RECENT - 1))] = t.kind;
+            return t;
+        }
+    }
+
+    /** The kinds of the failing token and the tokens before it, up to a window. */
+    private static final class Failure {
+        private final int[] kinds;
+        private final SqlConformance conformance;
+        private final int hash;
+
+        Failure(int[] kinds, SqlConformance conformance) {
+            this.kinds = kinds;
+            this.conformance = conformance;
+            this.hash = 31 * Arrays.hashCode(kinds) + conformance.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Failure)) {
+                return false;
+            }
+            final Failure that = (Failure) o;
+            return hash == that.hash
+                    && conformance.equals(that.conformance)
+                    && Arrays.equals(kinds, that.kinds);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /** A {@link ParseException} without a stack trace. */
+    private static final class FastFailParseException extends ParseException {
+        private static final long serialVersionUID = 1L;
+
+        FastFailParseException(Token currentToken, int[][] expected, String[] tokenImage) {
+            super(currentToken, expected, tokenImage);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /** A {@link SqlParseException} without a stack trace that formats its message lazily. */
+    private static final class FastFailSqlParseException extends SqlParseException {
+        private static final long serialVersionUID = 1L;
+
+        private final FastFailParseException parseException;
+        private final Metadata metadata;
+        private volatile String message;
+
+        FastFailSqlParseException(FastFailParseException ex, Metadata metadata) {
+            super(
+                    null,
+                    new SqlParserPos(
+                            ex.currentToken.next.beginLine,
+                            ex.currentToken.next.beginColumn,
+                            ex.currentToken.next.endLine,
+                            ex.currentToken.next.endColumn),
+                    ex.expectedTokenSequences,
+                    ex.tokenImage,
+                    ex);
+            this.parseException = ex;
+            this.metadata = metadata;
+        }
+
+        @Override
+        public String getMessage() {
+            String message = this.message;
+            if (message == null) {
+                message = format();
+                this.message = message;
+            }
+            return message;
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+        /** Formats the message like {@code convertException} of the generated parser. */
+        private String format() {
+            final String message = parseException.getMessage();
+            final Token token = parseException.currentToken.next;
+            if (!token.image.equals("1")
+                    && metadata.isKeyword(token.image)
+                    && SqlParserUtil.allowsIdentifier(
+                            parseException.tokenImage, parseException.expectedTokenSequences)) {
+                return String.format(
+                        "Incorrect syntax near the keyword '%s' at line %d, column %d.\n%s",
+                        token.image,
+                        token.beginLine,
+                        token.beginColumn,
+                        message.substring(message.indexOf("Was expecting")));
+            }
+            return message;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+<#--
+ Licensed to the Apache Software Foundation (ASF) under one
+ or more contributor license agreements.  See the NOTICE file
+ distributed with this work for additional information
+ regarding copyright ownership.  The ASF licenses this file
+ to you under the Apache License, Version 2.0 (the
+ "License"); you may not use this file except in compliance
+ with the License.  You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+-->
+<#--
+  Generates the keyword table of a dialect next to its parser, e.g. XSqlKeywords for
+  XSqlParserImpl. The keywords are the token images of Calcite's Parser.jj plus the keywords of
+  Parser.tdd, the non-reserved keywords of Parser.tdd are looked up by token name, as a token name
+  may differ from its image, e.g. MORE_.
+
+  The minimal perfect hash is computed here, hash and displace: a keyword hashes to a bucket, and
+  the seed of the bucket places it into a slot. The buckets are placed largest first, each with the
+  first seed which places all its keywords into free slots. FreeMarker has no bitwise operators
+  and computes remainders in longs, so every step is written in additions, multiplications and
+  remainders that stay below 2^63, and matches the int arithmetic of the generated class.
+-->
+<#assign keywordsClass = parser.class?remove_ending("ParserImpl") + "Keywords">
+<#assign TWO_32 = 4294967296>
+<#assign TWO_16 = 65536>
+<#-- Odd, and below 2^31 so that a product with a hash fits in a long. -->
+<#assign MULTIPLIER = 1540483477>
+<#assign MAX_SEED = 65536>
+<#function charCode c>
+  <#if c == "_"><#return 95></#if>
+  <#if c == "-"><#return 45></#if>
+  <#local digit = "0123456789"?index_of(c)>
+  <#if digit gte 0><#return 48 + digit></#if>
+  <#return 65 + "ABCDEFGHIJKLMNOPQRSTUVWXYZ"?index_of(c)>
+</#function>
+<#-- String.hashCode of the keyword, as an unsigned int. -->
+<#function hash word>
+  <#local h = 0>
+  <#list 0..<word?length as i>
+    <#local h = (h * 31 + charCode(word[i])) % TWO_32>
+  </#list>
+  <#return h>
+</#function>
+<#-- (a * b) mod 2^32 of two unsigned ints, in two halves to stay below 2^63. -->
+<#function mulMod32 a b>
+  <#local high = (b - b % TWO_16) / TWO_16>
+  <#return (a * (b % TWO_16) + (a * high) % TWO_16 * TWO_16) % TWO_32>
+</#function>
+<#-- The slot of a hash, the high bits of the seeded hash scaled to the table size. -->
+<#function slot h seed size>
+  <#local scaled = mulMod32(h, seed) * size>
+  <#return (scaled - scaled % TWO_32) / TWO_32>
+</#function>
+<#function toInt unsigned>
+  <#if unsigned gte TWO_32 / 2><#return unsigned - TWO_32></#if>
+  <#return unsigned>
+</#function>
+<#-- The keywords and the names of their tokens. -->
+<#assign calciteGrammar><#include "/Parser.jj" parse=false></#assign>
+<#assign images = pp.newWritableHash()>
+<#list calciteGrammar?matches(r'<\s*(\w+)\s*:\s*"([A-Za-z][A-Z0-9_\-]*)"\s*>') as token>
+  <@pp.set hash=images key=token?groups[1] value=token?groups[2] />
+</#list>
+<#list parser.keywords!default.parser.keywords as keyword>
+  <@pp.set hash=images key=keyword value=keyword />
+</#list>
+<#assign nonReserved = pp.newWritableHash()>
+<#list (parser.nonReservedKeywords!default.parser.nonReservedKeywords) + (parser.nonReservedKeywordsToAdd!default.parser.nonReservedKeywordsToAdd) as keyword>
+  <#if !images[keyword]??>
+    <#stop "Non-reserved keyword ${keyword} is no token of ${parser.class}">
+  </#if>
+  <@pp.set hash=nonReserved key=images[keyword] value=true />
+</#list>
+<#assign keywordSet = pp.newWritableHash()>
+<#list images?values as image>
+  <@pp.set hash=keywordSet key=image value=true />
+</#list>
+<#assign keywords = keywordSet?keys?sort>
+<#assign size = keywords?size>
+<#-- Hash and displace. -->
+<#assign buckets = 1>
+<#list 1..16 as i><#if buckets * 2 lte size / 2><#assign buckets = buckets * 2></#if></#list>
+<#assign hashes = pp.newWritableHash()>
+<#assign byHash = pp.newWritableHash()>
+<#assign byBucket = pp.newWritableHash()>
+<#list 0..<buckets as bucket>
+  <@pp.set hash=byBucket key=bucket?c value=pp.newWritableSequence() />
+</#list>
+<#list keywords as keyword>
+  <#assign h = hash(keyword)>
+  <#if byHash[h?c]??>
+    <#stop "Keywords ${byHash[h?c]} and ${keyword} have the same hash">
+  </#if>
+  <@pp.set hash=byHash key=h?c value=keyword />
+  <@pp.set hash=hashes key=keyword value=h />
+  <@pp.add seq=byBucket[(h % buckets)?c] value=keyword />
+</#list>
+<#assign maxBucketSize = 0>
+<#list 0..<buckets as bucket>
+  <#if byBucket[bucket?c]?size gt maxBucketSize><#assign maxBucketSize = byBucket[bucket?c]?size></#if>
+</#list>
+<#assign seeds = pp.newWritableHash()>
+<#assign table = pp.newWritableHash()>
+<#list maxBucketSize..1 as bucketSize>
+  <#list 0..<buckets as bucket>
+    <#assign members = byBucket[bucket?c]>
+    <#if members?size == bucketSize>
+      <#assign placed = false>
+      <#list 0..<MAX_SEED as attempt>
+        <#assign seed = (MULTIPLIER * (2 * attempt + 1)) % TWO_32>
+        <#assign taken = pp.newWritableHash()>
+        <#assign fits = true>
+        <#list members as keyword>
+          <#assign s = slot(hashes[keyword], seed, size)?c>
+          <#if table[s]?? || taken[s]??>
+            <#assign fits = false>
+            <#break>
+          </#if>
+          <@pp.set hash=taken key=s value=keyword />
+        </#list>
+        <#if fits>
+          <#list taken?keys as s>
+            <@pp.set hash=table key=s value=taken[s] />
+          </#list>
+          <@pp.set hash=seeds key=bucket?c value=seed />
+          <#assign placed = true>
+          <#break>
+        </#if>
+      </#list>
+      <#if !placed>
+        <#stop "Cannot place the keywords ${members?join(\", \")} of ${parser.class}">
+      </#if>
+    </#if>
+  </#list>
+</#list>
+<#assign maxLength = 0>
+<#list keywords as keyword>
+  <#if keyword?length gt maxLength><#assign maxLength = keyword?length></#if>
+</#list>
+<@pp.dropOutputFile />
+<@pp.changeOutputFile name=parser.package?replace(".", "/") + "/" + keywordsClass + ".java" />
+package ${parser.package};
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keyword table of {@link ${parser.class}}, generated from the dialect's Parser.tdd.
+ *
+ * <p>Keywords are looked up in a minimal perfect hash table computed by the build, so classifying
+ * a word is one hash and a constant number of character comparisons, ignores case and does not
+ * allocate.
+ */
+public final class ${keywordsClass} {
+
+    /** The keywords in upper case, each in the slot the perfect hash maps it to. */
+    private static final String[] KEYWORDS = {
+<#list 0..<size as i>
+        "${table[i?c]}",
+</#list>
+    };
+
+    /** Whether the keyword in the same slot of {@link #KEYWORDS} is reserved. */
+    private static final boolean[] RESERVED = {
+<#list 0..<size as i>
+        ${(!nonReserved[table[i?c]]??)?c},
+</#list>
+    };
+
+    /** The multiplier of each bucket, which places its keywords into distinct slots. */
+    private static final int[] SEEDS = {
+<#list 0..<buckets as bucket>
+        ${toInt(seeds[bucket?c]!0)?c},
+</#list>
+    };
+
+    private static final int MAX_LENGTH = ${maxLength};
+
+    private static final List<String> SORTED_KEYWORDS;
+
+    static {
+        final String[] sorted = KEYWORDS.clone();
+        Arrays.sort(sorted);
+        SORTED_KEYWORDS = Collections.unmodifiableList(Arrays.asList(sorted));
+    }
+
+    private ${keywordsClass}() {}
+
+    /** Returns whether the word is a keyword of the dialect, ignoring case. */
+    public static boolean isKeyword(CharSequence word) {
+        return isKeyword(word, 0, word.length());
+    }
+
+    /** Returns whether {@code word[start, end)} is a keyword of the dialect, ignoring case. */
+    public static boolean isKeyword(CharSequence word, int start, int end) {
+        return lookup(word, start, end) >= 0;
+    }
+
+    /** Returns whether the word is a reserved keyword, which must be quoted as identifier. */
+    public static boolean isReservedKeyword(CharSequence word) {
+        return isReservedKeyword(word, 0, word.length());
+    }
+
+    /** Returns whether {@code word[start, end)} is a reserved keyword, ignoring case. */
+    public static boolean isReservedKeyword(CharSequence word, int start, int end) {
+        final int slot = lookup(word, start, end);
+        return slot >= 0 && RESERVED[slot];
+    }
+
+    /** Returns whether the word is a keyword which can also be used as identifier. */
+    public static boolean isNonReservedKeyword(CharSequence word) {
+        return isNonReservedKeyword(word, 0, word.length());
+    }
+
+    /** Returns whether {@code word[start, end)} is a non-reserved keyword, ignoring case. */
+    public static boolean isNonReservedKeyword(CharSequence word, int start, int end) {
+        final int slot = lookup(word, start, end);
+        return slot >= 0 && !RESERVED[slot];
+    }
+
+    /** Returns all keywords in upper case and alphabetical order, e.g. for completion. */
+    public static List<String> keywords() {
+        return SORTED_KEYWORDS;
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private static int lookup(CharSequence word, int start, int end) {
+        final int length = end - start;
+        if (length <= 0 || length > MAX_LENGTH) {
+            return -1;
+        }
+        final int slot = slot(hash(word, start, end));
+        final String keyword = KEYWORDS[slot];
+        if (keyword.length() != length) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            if (fold(word.charAt(start + i)) != keyword.charAt(i)) {
+                return -1;
+            }
+        }
+        return slot;
+    }
+
+    /** Returns the slot of a keyword hash: the high bits of the seeded hash, scaled. */
+    private static int slot(int hash) {
+        final int seeded = hash * SEEDS[hash & (SEEDS.length - 1)];
+        return (int) (((seeded & 0xFFFFFFFFL) * KEYWORDS.length) >>> 32);
+    }
+
+    /** {@link String#hashCode()} of the upper cased word. */
+    private static int hash(CharSequence word, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + fold(word.charAt(i));
+        }
+        return h;
+    }
+
+    /** Upper cases ASCII letters, keywords are ASCII only. */
+    private static char fold(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
+}
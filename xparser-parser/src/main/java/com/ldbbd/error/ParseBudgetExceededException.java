@@ -0,0 +1,19 @@
+package com.ldbbd.error;
+
+import com.ldbbd.xparser.parsers.ParseBudget;
+
+/** Thrown when parsing a statement exceeds a limit of its {@link ParseBudget}. */
+public class ParseBudgetExceededException extends SqlParserException {
+
+    private final ParseBudget.Limit limit;
+
+    public ParseBudgetExceededException(ParseBudget.Limit limit, String message) {
+        super(message);
+        this.limit = limit;
+    }
+
+    /** Returns the limit which was exceeded. */
+    public ParseBudget.Limit getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,13 @@
+package com.ldbbd.error;
+
+/** Exception encapsulating a failure while parsing a SQL string. */
+public class SqlParserException extends RuntimeException {
+
+    public SqlParserException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public SqlParserException(String message) {
+        super(message);
+    }
+}
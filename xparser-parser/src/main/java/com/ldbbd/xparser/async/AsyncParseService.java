@@ -0,0 +1,480 @@
+package com.ldbbd.xparser.async;
+
+import com.ldbbd.error.SqlValidateException;
+import com.ldbbd.xparser.converter.SqlToCURDConverter;
+import com.ldbbd.xparser.interfaces.Converter;
+import com.ldbbd.xparser.operations.Operation;
+import com.ldbbd.xparser.parsers.CalciteParser;
+import com.ldbbd.xparser.parsers.SqlInput;
+import extended.ExtendedSqlNode;
+import org.apache.calcite.sql.SqlNode;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Asynchronous facade over the dialect parsers for callers that must not block, e.g. a gateway
+ * serving many concurrent sessions.
+ *
+ * <p>Every dialect gets its own lane: a fixed set of worker threads that only ever run that
+ * dialect's parser, so one dialect's load cannot starve the others and the generated parser code
+ * stays hot on its threads. On JDK 21+ the lanes can optionally be replaced by one virtual thread
+ * per task, see {@link Builder#useVirtualThreads(boolean)}.
+ *
+ * <p>The number of requests admitted but not yet completed is bounded by {@link
+ * Builder#maxInFlight(int)}, and so are the work queues of the lanes. Submitting never blocks the
+ * caller: a request that cannot be admitted right away waits for admission off the caller's thread
+ * until the admission timeout expires, and then fails with a {@link RejectedExecutionException}.
+ * At most as many requests wait for admission as may be in flight, further requests are rejected
+ * right away. This gives callers backpressure instead of an unbounded work queue.
+ */
+public final class AsyncParseService implements AutoCloseable {
+
+    private final Map<String, Lane> lanes;
+    private final Converter converter;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final long admissionTimeoutNanos;
+    private final ExecutorService virtualThreadExecutor;
+
+    /** Requests waiting for admission, in arrival order, guarded by itself. */
+    private final Deque<Admission<?>> waiting = new ArrayDeque<>();
+    private final AtomicInteger waitingCount = new AtomicInteger();
+
+    /** Expires the admission timeouts, null if requests are rejected right away. */
+    private final ScheduledExecutorService admissionTimer;
+
+    private AsyncParseService(Builder builder) {
+        this.converter = builder.converter;
+        this.maxInFlight = builder.maxInFlight;
+        this.inFlight = new Semaphore(builder.maxInFlight);
+        this.admissionTimeoutNanos = builder.admissionTimeout.toNanos();
+        this.admissionTimer = admissionTimeoutNanos > 0 ? newAdmissionTimer() : null;
+        this.virtualThreadExecutor =
+                builder.useVirtualThreads ? newVirtualThreadPerTaskExecutor() : null;
+        Map<String, Lane> lanes = new HashMap<>();
+        builder.dialects.forEach(
+                (dialect, parser) ->
+                        lanes.put(
+                                dialect,
+                                new Lane(
+                                        parser,
+                                        virtualThreadExecutor != null
+                                                ? virtualThreadExecutor
+                                                : newLaneExecutor(
+                                                        dialect,
+                                                        builder.parallelism,
+                                                        builder.maxInFlight))));
+        this.lanes = Collections.unmodifiableMap(lanes);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Parses a statement of the given dialect. The returned node is not yet validated.
+     *
+     * <p>Cancelling the returned future also cancels the parse if it is already running, see
+     * {@link CalciteParser#parse(String, java.util.function.BooleanSupplier)}.
+     *
+     * @param dialect the registered dialect identifier
+     * @param statement the SQL statement to parse
+     * @return a future of the parsed node, failing with a {@link
+     *     com.ldbbd.error.SqlParserException} if the statement is invalid or exceeds the parse
+     *     budget of the dialect
+     */
+    public CompletableFuture<SqlNode> parseAsync(String dialect, String statement) {
+        final Lane lane = lane(dialect);
+        return submit(lane, cancellation -> lane.parser.parse(statement, cancellation));
+    }
+
+    /**
+     * Parses a statement of the given dialect right from its characters or UTF-8 bytes, see
+     * {@link SqlInput}. The returned node is not yet validated.
+     *
+     * <p>The input must not change until the returned future completes.
+     *
+     * @see #parseAsync(String, String)
+     */
+    public CompletableFuture<SqlNode> parseAsync(String dialect, SqlInput input) {
+        final Lane lane = lane(dialect);
+        return submit(lane, cancellation -> lane.parser.parse(input, cancellation));
+    }
+
+    /**
+     * Validates a parsed node of the given dialect without changing it, see {@link
+     * ExtendedSqlNode#validated()}, so the node may be cached and validated by many requests at
+     * once. Nodes that carry no extended validation rules complete unchanged.
+     *
+     * @return a future of the validated node, which is a normalized copy of the given node if
+     *     validation normalizes it, failing with the validation exception
+     */
+    public CompletableFuture<SqlNode> validateAsync(String dialect, SqlNode sqlNode) {
+        return submit(
+                lane(dialect),
+                cancellation ->
+                        sqlNode instanceof ExtendedSqlNode
+                                ? ((ExtendedSqlNode) sqlNode).validated()
+                                : sqlNode);
+    }
+
+    /**
+     * Converts a parsed node of the given dialect into an {@link Operation}.
+     *
+     * @return a future of the operation, failing with a {@link SqlValidateException} if the
+     *     statement is not supported
+     */
+    public CompletableFuture<Operation> convertAsync(String dialect, SqlNode sqlNode) {
+        return submit(
+                lane(dialect),
+                cancellation ->
+                        converter
+                                .convert(sqlNode)
+                                .orElseThrow(
+                                        () ->
+                                                new SqlValidateException(
+                                                        sqlNode.getParserPosition(),
+                                                        "Unsupported statement: "
+                                                                + sqlNode.getKind())));
+    }
+
+    /** Returns the number of admitted requests which have not completed yet. */
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /** Returns the number of requests waiting for admission. */
+    public int getWaiting() {
+        return waitingCount.get();
+    }
+
+    /** Rejects the requests waiting for admission and stops accepting new ones. */
+    @Override
+    public void close() {
+        if (admissionTimer != null) {
+            admissionTimer.shutdownNow();
+        }
+        final List<Admission<?>> rejected;
+        synchronized (waiting) {
+            rejected = new ArrayList<>(waiting);
+            waiting.clear();
+            waitingCount.set(0);
+        }
+        rejected.forEach(admission -> admission.reject("Parse service is closed"));
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+        } else {
+            lanes.values().forEach(lane -> lane.executor.shutdown());
+        }
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private Lane lane(String dialect) {
+        Lane lane = lanes.get(dialect);
+        if (lane == null) {
+            throw new IllegalArgumentException(
+                    "Unknown dialect " + dialect + ", registered dialects are " + lanes.keySet());
+        }
+        return lane;
+    }
+
+    private <T> CompletableFuture<T> submit(Lane lane, Task<T> task) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final Admission<T> admission = new Admission<>(lane, task, future);
+        if (inFlight.tryAcquire()) {
+            dispatch(admission);
+        } else if (admissionTimer == null) {
+            admission.reject("Too many in-flight parse requests, limit is " + maxInFlight);
+        } else {
+            await(admission);
+        }
+        return future;
+    }
+
+    /** Parks a request until a permit is released or its admission timeout expires. */
+    private void await(Admission<?> admission) {
+        synchronized (waiting) {
+            if (waiting.size() >= maxInFlight) {
+                admission.reject(
+                        "Too many parse requests waiting for admission, limit is " + maxInFlight);
+                return;
+            }
+            waiting.add(admission);
+            waitingCount.incrementAndGet();
+        }
+        try {
+            admission.timeout =
+                    admissionTimer.schedule(
+                            () -> expire(admission), admissionTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Closed concurrently.
+            expire(admission);
+            return;
+        }
+        admission.future.whenComplete(
+                (result, failure) -> {
+                    if (admission.future.isCancelled()) {
+                        expire(admission);
+                    }
+                });
+        // A permit released before the request was parked must not be missed.
+        admitWaiting();
+    }
+
+    private void expire(Admission<?> admission) {
+        synchronized (waiting) {
+            if (!waiting.remove(admission)) {
+                return;
+            }
+            waitingCount.decrementAndGet();
+        }
+        admission.reject(
+                "Too many in-flight parse requests, limit is "
+                        + maxInFlight
+                        + ", not admitted within "
+                        + Duration.ofNanos(admissionTimeoutNanos));
+    }
+
+    /** Hands released permits to the waiting requests, oldest first. */
+    private void admitWaiting() {
+        List<Admission<?>> admitted = null;
+        synchronized (waiting) {
+            while (!waiting.isEmpty() && inFlight.tryAcquire()) {
+                if (admitted == null) {
+                    admitted = new ArrayList<>();
+                }
+                admitted.add(waiting.poll());
+                waitingCount.decrementAndGet();
+            }
+        }
+        if (admitted != null) {
+            admitted.forEach(this::dispatch);
+        }
+    }
+
+    private void release() {
+        inFlight.release();
+        if (waitingCount.get() > 0) {
+            admitWaiting();
+        }
+    }
+
+    private <T> void dispatch(Admission<T> admission) {
+        if (admission.timeout != null) {
+            admission.timeout.cancel(false);
+        }
+        final CompletableFuture<T> future = admission.future;
+        try {
+            admission.lane.executor.execute(
+                    () -> {
+                        // Release before completing, dependent stages run on this thread and
+                        // may submit follow-up requests.
+                        final T result;
+                        try {
+                            if (future.isDone()) {
+                                // Cancelled while queued.
+                                release();
+                                return;
+                            }
+                            result = admission.task.call(future::isCancelled);
+                        } catch (Throwable t) {
+                            release();
+                            future.completeExceptionally(t);
+                            return;
+                        }
+                        release();
+                        future.complete(result);
+                    });
+        } catch (RejectedExecutionException e) {
+            release();
+            future.completeExceptionally(e);
+        }
+    }
+
+    private static ScheduledExecutorService newAdmissionTimer() {
+        final ScheduledThreadPoolExecutor timer =
+                new ScheduledThreadPoolExecutor(
+                        1,
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "xparser-admission-timer");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private static ExecutorService newLaneExecutor(
+            String dialect, int parallelism, int maxInFlight) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ThreadFactory threadFactory =
+                runnable -> {
+                    Thread thread =
+                            new Thread(
+                                    runnable,
+                                    "xparser-" + dialect + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        // The in-flight semaphore keeps the queue below its capacity.
+        return new ThreadPoolExecutor(
+                parallelism,
+                parallelism,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(maxInFlight),
+                threadFactory);
+    }
+
+    /**
+     * Creates {@code Executors.newVirtualThreadPerTaskExecutor()} when running on JDK 21+, or
+     * returns null if virtual threads are not available. The method is looked up at runtime as
+     * the module is compiled for Java 8.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            MethodHandle factory =
+                    MethodHandles.publicLookup()
+                            .findStatic(
+                                    Executors.class,
+                                    "newVirtualThreadPerTaskExecutor",
+                                    MethodType.methodType(ExecutorService.class));
+            return (ExecutorService) factory.invoke();
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /** A unit of work, polling the given flag if it supports cooperative cancellation. */
+    @FunctionalInterface
+    private interface Task<T> {
+        T call(BooleanSupplier cancellation) throws Exception;
+    }
+
+    /** A submitted request, admitted right away or waiting for admission. */
+    private static final class Admission<T> {
+        private final Lane lane;
+        private final Task<T> task;
+        private final CompletableFuture<T> future;
+        private volatile ScheduledFuture<?> timeout;
+
+        private Admission(Lane lane, Task<T> task, CompletableFuture<T> future) {
+            this.lane = lane;
+            this.task = task;
+            this.future = future;
+        }
+
+        private void reject(String message) {
+            future.completeExceptionally(new RejectedExecutionException(message));
+        }
+    }
+
+    /** The parser of one dialect together with the threads it runs on. */
+    private static final class Lane {
+        private final CalciteParser parser;
+        private final ExecutorService executor;
+
+        private Lane(CalciteParser parser, ExecutorService executor) {
+            this.parser = parser;
+            this.executor = executor;
+        }
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** Builder for {@link AsyncParseService}. */
+    public static final class Builder {
+        private final Map<String, CalciteParser> dialects = new LinkedHashMap<>();
+        private Converter converter = new SqlToCURDConverter();
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int maxInFlight = 1024;
+        private Duration admissionTimeout = Duration.ZERO;
+        private boolean useVirtualThreads = false;
+
+        private Builder() {}
+
+        /** Registers the parser of a dialect, e.g. {@code xsql}. */
+        public Builder dialect(String dialect, CalciteParser parser) {
+            dialects.put(requireNonNull(dialect), requireNonNull(parser));
+            return this;
+        }
+
+        /** Sets the converter used by {@link #convertAsync}, default is {@link SqlToCURDConverter}. */
+        public Builder converter(Converter converter) {
+            this.converter = requireNonNull(converter);
+            return this;
+        }
+
+        /** Sets the number of worker threads per dialect, default is the number of cores. */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /** Sets the maximum number of admitted but not yet completed requests. */
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight <= 0) {
+                throw new IllegalArgumentException("Max in-flight must be positive: " + maxInFlight);
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Sets how long a request waits for admission when {@link #maxInFlight(int)} is reached
+         * before it is rejected, default is to reject immediately. The caller does not wait, the
+         * returned future completes once the request is admitted and run, or rejected.
+         */
+        public Builder admissionTimeout(Duration admissionTimeout) {
+            this.admissionTimeout = requireNonNull(admissionTimeout);
+            return this;
+        }
+
+        /**
+         * Runs each request on its own virtual thread instead of the per-dialect lanes. Falls back
+         * to the lanes if the JVM does not support virtual threads.
+         */
+        public Builder useVirtualThreads(boolean useVirtualThreads) {
+            this.useVirtualThreads = useVirtualThreads;
+            return this;
+        }
+
+        public AsyncParseService build() {
+            if (dialects.isEmpty()) {
+                throw new IllegalStateException("At least one dialect must be registered");
+            }
+            return new AsyncParseService(this);
+        }
+    }
+}
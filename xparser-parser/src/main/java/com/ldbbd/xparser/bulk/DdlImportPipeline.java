@@ -0,0 +1,482 @@
+package com.ldbbd.xparser.bulk;
+
+import com.ldbbd.xparser.converter.SqlToCURDConverter;
+import com.ldbbd.xparser.interfaces.Converter;
+import com.ldbbd.xparser.operations.Operation;
+import com.ldbbd.xparser.parsers.CalciteParser;
+import com.ldbbd.xparser.parsers.SqlInput;
+import extended.ExtendedSqlNode;
+import org.apache.calcite.sql.SqlNode;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Imports a directory of DDL files, e.g. to bootstrap a catalog from tens of thousands of {@code
+ * .sql} files.
+ *
+ * <p>Every file passes the {@link Stage stages} enumerate, read, parse, validate, convert and
+ * sink. Each stage runs on its own threads and hands the file over to the next stage through a
+ * bounded queue, so the stages overlap and the slow ones can be given more threads, see {@link
+ * Builder#parallelism(Stage, int)}. A full queue blocks the stage before it, which bounds the
+ * number of files held in memory by the queue capacities no matter how large the directory is.
+ *
+ * <p>A file that fails in any stage is dropped and reported as an {@link ImportFailure}, the
+ * other files go on. A file is converted as a whole, the sink gets all operations of a file or
+ * none. The files reach the sink in no particular order.
+ *
+ * <p>Usage:
+ *
+ * <pre>{@code
+ * DdlImportPipeline pipeline =
+ *         DdlImportPipeline.builder()
+ *                 .parser(new CalciteParser(config))
+ *                 .sink((file, operations) -> catalog.register(operations))
+ *                 .parallelism(DdlImportPipeline.Stage.PARSE, 8)
+ *                 .build();
+ * ImportReport report = pipeline.run(Paths.get("ddl"));
+ * }</pre>
+ */
+public final class DdlImportPipeline {
+
+    /** The stages of an import, in pipeline order. */
+    public enum Stage {
+        /** Walks the directory tree for files to import, always a single thread. */
+        ENUMERATE,
+        /** Reads the bytes of a file. */
+        READ,
+        /** Parses the statements of a file, see {@link CalciteParser#parseStatements}. */
+        PARSE,
+        /** Validates the statements of a file, see {@link ExtendedSqlNode#validated()}. */
+        VALIDATE,
+        /** Converts the statements of a file into {@link Operation}s. */
+        CONVERT,
+        /** Hands the operations of a file to the {@link OperationSink}. */
+        SINK
+    }
+
+    /** Receives the operations of the imported files, e.g. to register them in a catalog. */
+    @FunctionalInterface
+    public interface OperationSink {
+
+        /**
+         * Accepts the operations of one file, in statement order. Called from {@link
+         * Builder#parallelism(Stage, int) SINK parallelism} threads at a time, a single thread by
+         * default.
+         *
+         * @throws Exception to fail the file
+         */
+        void accept(Path file, List<Operation> operations) throws Exception;
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    /** Marks the end of the files, one per thread of the receiving stage. */
+    private static final Item END = new Item(null);
+
+    private final CalciteParser parser;
+    private final Converter converter;
+    private final OperationSink sink;
+    private final String include;
+    private final Map<Stage, Integer> parallelism;
+    private final int queueCapacity;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile @Nullable Run lastRun;
+
+    private DdlImportPipeline(Builder builder) {
+        this.parser = requireNonNull(builder.parser, "parser");
+        this.converter = builder.converter;
+        this.sink = requireNonNull(builder.sink, "sink");
+        this.include = builder.include;
+        this.parallelism = new EnumMap<>(builder.parallelism);
+        this.queueCapacity = builder.queueCapacity;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Imports the files below a directory, blocking until all of them passed the pipeline. The
+     * pipeline runs one import at a time.
+     *
+     * @param root the directory to import, or a single file
+     * @return the outcome of the import, including the files that failed
+     * @throws NoSuchFileException if the root does not exist
+     * @throws InterruptedException if the calling thread is interrupted, the import is aborted
+     */
+    public ImportReport run(Path root) throws IOException, InterruptedException {
+        if (!Files.exists(root)) {
+            throw new NoSuchFileException(root.toString());
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An import is already running");
+        }
+        final Run run = new Run(root);
+        lastRun = run;
+        final ExecutorService executor =
+                Executors.newFixedThreadPool(run.threads, newThreadFactory());
+        try {
+            final CompletionService<Void> workers = new ExecutorCompletionService<>(executor);
+            workers.submit(run::enumerate);
+            for (int i = 1; i < STAGES.length; i++) {
+                final StageState state = run.stages.get(STAGES[i]);
+                for (int j = 0; j < state.parallelism; j++) {
+                    workers.submit(() -> run.work(state));
+                }
+            }
+            for (int i = 0; i < run.threads; i++) {
+                try {
+                    workers.take().get();
+                } catch (ExecutionException e) {
+                    // Failures of single files are reported, anything else aborts the import.
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException("DDL import failed", cause);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            running.set(false);
+        }
+        run.end();
+        return run.report();
+    }
+
+    /**
+     * Returns the metrics of the running import, or of the last one if none is running. Can be
+     * polled from any thread, e.g. to watch the queue depths.
+     */
+    public Map<Stage, StageMetrics> metrics() {
+        final Run run = lastRun;
+        return run == null ? Collections.emptyMap() : run.metrics();
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private static ThreadFactory newThreadFactory() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread =
+                    new Thread(runnable, "xparser-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /** Runs one stage on a file, throws to fail the file. */
+    private void process(Stage stage, Item item) throws Exception {
+        switch (stage) {
+            case READ:
+                item.input = SqlInput.utf8(ByteBuffer.wrap(Files.readAllBytes(item.file)));
+                break;
+            case PARSE:
+                item.statements =
+                        parser.parseStatements(requireNonNull(item.input), null).getList();
+                item.input = null;
+                break;
+            case VALIDATE:
+                final List<SqlNode> statements = requireNonNull(item.statements);
+                for (int i = 0; i < statements.size(); i++) {
+                    if (statements.get(i) instanceof ExtendedSqlNode) {
+                        statements.set(i, ((ExtendedSqlNode) statements.get(i)).validated());
+                    }
+                }
+                break;
+            case CONVERT:
+                item.operations = converter.convertAll(requireNonNull(item.statements));
+                item.statements = null;
+                break;
+            case SINK:
+                sink.accept(item.file, requireNonNull(item.operations));
+                break;
+            default:
+                throw new AssertionError(stage);
+        }
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** A file on its way through the pipeline, each stage fills in what the next one needs. */
+    private static final class Item {
+        private final Path file;
+        private @Nullable SqlInput input;
+        private @Nullable List<SqlNode> statements;
+        private @Nullable List<Operation> operations;
+
+        private Item(Path file) {
+            this.file = file;
+        }
+    }
+
+    /** The threads and the input queue of one stage of a run, with its counters. */
+    private static final class StageState {
+        private final Stage stage;
+        private final int parallelism;
+        private final @Nullable BlockingQueue<Item> input;
+        private final AtomicInteger running;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+        private StageState(Stage stage, int parallelism, int queueCapacity) {
+            this.stage = stage;
+            this.parallelism = parallelism;
+            this.input = stage == Stage.ENUMERATE ? null : new ArrayBlockingQueue<>(queueCapacity);
+            this.running = new AtomicInteger(parallelism);
+        }
+
+        private void put(Item item) throws InterruptedException {
+            final BlockingQueue<Item> queue = requireNonNull(input);
+            queue.put(item);
+            final int depth = queue.size();
+            if (depth > maxQueueDepth.get()) {
+                maxQueueDepth.accumulateAndGet(depth, Math::max);
+            }
+        }
+
+        private StageMetrics metrics(long elapsedNanos) {
+            return new StageMetrics(
+                    stage,
+                    parallelism,
+                    processed.get(),
+                    failed.get(),
+                    busyNanos.get(),
+                    elapsedNanos,
+                    input == null ? 0 : input.size(),
+                    maxQueueDepth.get());
+        }
+    }
+
+    /** One import, from the enumeration of the root to the report. */
+    private final class Run {
+        private final Path root;
+        private final Map<Stage, StageState> stages = new EnumMap<>(Stage.class);
+        private final int threads;
+        private final ConcurrentLinkedQueue<ImportFailure> failures =
+                new ConcurrentLinkedQueue<>();
+        private final AtomicLong statements = new AtomicLong();
+        private final long startNanos = System.nanoTime();
+        private volatile long endNanos;
+
+        private Run(Path root) {
+            this.root = root;
+            int threads = 0;
+            for (Stage stage : STAGES) {
+                final StageState state =
+                        new StageState(stage, parallelism.get(stage), queueCapacity);
+                stages.put(stage, state);
+                threads += state.parallelism;
+            }
+            this.threads = threads;
+        }
+
+        /** Feeds the files below the root into the read queue. */
+        private Void enumerate() throws InterruptedException {
+            final StageState state = stages.get(Stage.ENUMERATE);
+            final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + include);
+            try (Stream<Path> files = Files.walk(root)) {
+                final Iterator<Path> iterator = files.iterator();
+                long start = System.nanoTime();
+                while (iterator.hasNext()) {
+                    final Path file = iterator.next();
+                    final Path relative =
+                            file.equals(root) ? file.getFileName() : root.relativize(file);
+                    if (!Files.isRegularFile(file) || !matcher.matches(relative)) {
+                        continue;
+                    }
+                    state.busyNanos.addAndGet(System.nanoTime() - start);
+                    state.processed.incrementAndGet();
+                    next(Stage.ENUMERATE).put(new Item(file));
+                    start = System.nanoTime();
+                }
+            } catch (IOException | UncheckedIOException e) {
+                // Files found so far are still imported.
+                state.failed.incrementAndGet();
+                failures.add(new ImportFailure(root, Stage.ENUMERATE, e));
+            }
+            finish(state);
+            return null;
+        }
+
+        /** Runs a stage on the files of its input queue until the stage before it finished. */
+        private Void work(StageState state) throws InterruptedException {
+            final BlockingQueue<Item> input = requireNonNull(state.input);
+            while (true) {
+                final Item item = input.take();
+                if (item == END) {
+                    break;
+                }
+                final long start = System.nanoTime();
+                boolean passed;
+                try {
+                    process(state.stage, item);
+                    passed = true;
+                } catch (Exception | StackOverflowError e) {
+                    passed = false;
+                    failures.add(new ImportFailure(item.file, state.stage, e));
+                }
+                state.busyNanos.addAndGet(System.nanoTime() - start);
+                if (!passed) {
+                    state.failed.incrementAndGet();
+                } else if (state.stage == Stage.SINK) {
+                    state.processed.incrementAndGet();
+                    statements.addAndGet(requireNonNull(item.operations).size());
+                } else {
+                    state.processed.incrementAndGet();
+                    next(state.stage).put(item);
+                }
+            }
+            finish(state);
+            return null;
+        }
+
+        /** Ends the next stage once the last thread of the given stage is done. */
+        private void finish(StageState state) throws InterruptedException {
+            if (state.running.decrementAndGet() == 0 && state.stage != Stage.SINK) {
+                final StageState next = next(state.stage);
+                for (int i = 0; i < next.parallelism; i++) {
+                    next.put(END);
+                }
+            }
+        }
+
+        private StageState next(Stage stage) {
+            return stages.get(STAGES[stage.ordinal() + 1]);
+        }
+
+        private void end() {
+            endNanos = System.nanoTime();
+        }
+
+        private Map<Stage, StageMetrics> metrics() {
+            final long end = endNanos;
+            final long elapsed = (end == 0 ? System.nanoTime() : end) - startNanos;
+            final Map<Stage, StageMetrics> metrics = new EnumMap<>(Stage.class);
+            stages.forEach((stage, state) -> metrics.put(stage, state.metrics(elapsed)));
+            return Collections.unmodifiableMap(metrics);
+        }
+
+        private ImportReport report() {
+            final Map<Stage, StageMetrics> metrics = metrics();
+            return new ImportReport(
+                    metrics.get(Stage.ENUMERATE).getProcessed(),
+                    metrics.get(Stage.SINK).getProcessed(),
+                    statements.get(),
+                    new ArrayList<>(failures),
+                    metrics,
+                    Duration.ofNanos(endNanos - startNanos));
+        }
+    }
+
+    /** Builder for {@link DdlImportPipeline}. */
+    public static final class Builder {
+        private @Nullable CalciteParser parser;
+        private Converter converter = new SqlToCURDConverter();
+        private @Nullable OperationSink sink;
+        private String include = "**.sql";
+        private final Map<Stage, Integer> parallelism = new EnumMap<>(Stage.class);
+        private int queueCapacity = 256;
+
+        private Builder() {
+            final int cores = Runtime.getRuntime().availableProcessors();
+            parallelism.put(Stage.ENUMERATE, 1);
+            parallelism.put(Stage.READ, 2);
+            parallelism.put(Stage.PARSE, cores);
+            parallelism.put(Stage.VALIDATE, Math.max(1, cores / 4));
+            parallelism.put(Stage.CONVERT, Math.max(1, cores / 4));
+            parallelism.put(Stage.SINK, 1);
+        }
+
+        /** Sets the parser of the dialect the files are written in. */
+        public Builder parser(CalciteParser parser) {
+            this.parser = requireNonNull(parser);
+            return this;
+        }
+
+        /** Sets the converter of the parsed statements, default is {@link SqlToCURDConverter}. */
+        public Builder converter(Converter converter) {
+            this.converter = requireNonNull(converter);
+            return this;
+        }
+
+        /** Sets the receiver of the converted operations. */
+        public Builder sink(OperationSink sink) {
+            this.sink = requireNonNull(sink);
+            return this;
+        }
+
+        /**
+         * Sets the glob the paths of the files to import must match, relative to the root, default
+         * is {@code **.sql}.
+         */
+        public Builder include(String glob) {
+            this.include = requireNonNull(glob);
+            return this;
+        }
+
+        /**
+         * Sets the number of threads of a stage. Defaults are the number of cores for {@link
+         * Stage#PARSE}, a quarter of it for {@link Stage#VALIDATE} and {@link Stage#CONVERT}, two
+         * for {@link Stage#READ} and one for {@link Stage#SINK}, so that the sink needs not be
+         * thread safe. {@link Stage#ENUMERATE} always runs on a single thread.
+         */
+        public Builder parallelism(Stage stage, int parallelism) {
+            if (stage == Stage.ENUMERATE) {
+                throw new IllegalArgumentException("Enumeration always runs on a single thread");
+            }
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+            }
+            this.parallelism.put(stage, parallelism);
+            return this;
+        }
+
+        /** Sets the capacity of the queue in front of every stage, default is 256 files. */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException(
+                        "Queue capacity must be positive: " + queueCapacity);
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public DdlImportPipeline build() {
+            return new DdlImportPipeline(this);
+        }
+    }
+}
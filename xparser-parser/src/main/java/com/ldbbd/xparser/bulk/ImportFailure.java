@@ -0,0 +1,39 @@
+package com.ldbbd.xparser.bulk;
+
+import java.nio.file.Path;
+
+/**
+ * A file the {@link DdlImportPipeline} could not import. A failure only ever drops its own file,
+ * the other files of the import go on.
+ */
+public final class ImportFailure {
+
+    private final Path file;
+    private final DdlImportPipeline.Stage stage;
+    private final Throwable cause;
+
+    ImportFailure(Path file, DdlImportPipeline.Stage stage, Throwable cause) {
+        this.file = file;
+        this.stage = stage;
+        this.cause = cause;
+    }
+
+    /** Returns the failed file, or the root directory if enumerating it failed. */
+    public Path getFile() {
+        return file;
+    }
+
+    /** Returns the stage the file failed in. */
+    public DdlImportPipeline.Stage getStage() {
+        return stage;
+    }
+
+    public Throwable getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return file + " failed in " + stage + ": " + cause;
+    }
+}
@@ -0,0 +1,71 @@
+package com.ldbbd.xparser.bulk;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/** The outcome of a {@link DdlImportPipeline#run} over a directory. */
+public final class ImportReport {
+
+    private final long files;
+    private final long imported;
+    private final long statements;
+    private final List<ImportFailure> failures;
+    private final Map<DdlImportPipeline.Stage, StageMetrics> metrics;
+    private final Duration elapsed;
+
+    ImportReport(
+            long files,
+            long imported,
+            long statements,
+            List<ImportFailure> failures,
+            Map<DdlImportPipeline.Stage, StageMetrics> metrics,
+            Duration elapsed) {
+        this.files = files;
+        this.imported = imported;
+        this.statements = statements;
+        this.failures = Collections.unmodifiableList(failures);
+        this.metrics = Collections.unmodifiableMap(metrics);
+        this.elapsed = elapsed;
+    }
+
+    /** Returns the number of files found. */
+    public long getFiles() {
+        return files;
+    }
+
+    /** Returns the number of files whose operations were handed to the sink. */
+    public long getImported() {
+        return imported;
+    }
+
+    /** Returns the number of statements of the imported files. */
+    public long getStatements() {
+        return statements;
+    }
+
+    public List<ImportFailure> getFailures() {
+        return failures;
+    }
+
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    /** Returns the metrics of every stage, in pipeline order. */
+    public Map<DdlImportPipeline.Stage, StageMetrics> getMetrics() {
+        return metrics;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Imported %d of %d files (%d statements) in %d ms, %d failed",
+                imported, files, statements, elapsed.toMillis(), failures.size());
+    }
+}
@@ -0,0 +1,100 @@
+package com.ldbbd.xparser.bulk;
+
+/**
+ * A snapshot of the metrics of one stage of a {@link DdlImportPipeline}.
+ *
+ * <p>The stage with the highest {@link #getUtilization() utilization} and a full input queue is
+ * the bottleneck of an import, giving it more threads is what speeds the import up.
+ */
+public final class StageMetrics {
+
+    private final DdlImportPipeline.Stage stage;
+    private final int parallelism;
+    private final long processed;
+    private final long failed;
+    private final long busyNanos;
+    private final long elapsedNanos;
+    private final int queueDepth;
+    private final int maxQueueDepth;
+
+    StageMetrics(
+            DdlImportPipeline.Stage stage,
+            int parallelism,
+            long processed,
+            long failed,
+            long busyNanos,
+            long elapsedNanos,
+            int queueDepth,
+            int maxQueueDepth) {
+        this.stage = stage;
+        this.parallelism = parallelism;
+        this.processed = processed;
+        this.failed = failed;
+        this.busyNanos = busyNanos;
+        this.elapsedNanos = elapsedNanos;
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    public DdlImportPipeline.Stage getStage() {
+        return stage;
+    }
+
+    /** Returns the number of threads of the stage. */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /** Returns the number of files the stage passed on, failed files excluded. */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /** Returns the number of files that failed in the stage. */
+    public long getFailed() {
+        return failed;
+    }
+
+    /** Returns the time the threads of the stage spent working, summed over all threads. */
+    public long getBusyNanos() {
+        return busyNanos;
+    }
+
+    /** Returns the number of files per second the stage completed since the import started. */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : (processed + failed) * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns the share of the time its threads were busy since the import started, between 0 and
+     * 1. The rest of the time they were waiting for input or for room in the next queue.
+     */
+    public double getUtilization() {
+        return elapsedNanos == 0 ? 0 : (double) busyNanos / elapsedNanos / parallelism;
+    }
+
+    /** Returns the number of files waiting in the input queue of the stage. */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /** Returns the highest number of files that waited in the input queue of the stage. */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s: (parallelism: %d, processed: %d, failed: %d, throughput: %.1f/s,"
+                        + " utilization: %.0f%%, queue: %d, max queue: %d)",
+                stage,
+                parallelism,
+                processed,
+                failed,
+                getThroughput(),
+                getUtilization() * 100,
+                queueDepth,
+                maxQueueDepth);
+    }
+}
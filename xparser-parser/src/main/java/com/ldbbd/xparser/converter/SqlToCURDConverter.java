@@ -1,5 +1,303 @@
 package com.ldbbd.xparser.converter;
 
-public class SqlToCURDConverter {
-    //在这里应该是放入对应操
+import com.ldbbd.xparser.interfaces.Converter;
+import com.ldbbd.xparser.operations.Operation;
+import com.ldbbd.xparser.operations.ddl.AlterOperation;
+import com.ldbbd.xparser.operations.ddl.CreateTableOperation;
+import com.ldbbd.xparser.operations.ddl.DropOperation;
+import com.ldbbd.xparser.operations.dml.InsertOperation;
+import ddl.XSqlCreateTable;
+import ddl.XSqlDropTable;
+import ddl.XSqlPartitionSpec;
+import ddl.XSqlTableColumn;
+import ddl.XSqlTableColumn.SqlComputedColumn;
+import ddl.XSqlTableColumn.SqlMetadataColumn;
+import ddl.XSqlTableColumn.SqlRegularColumn;
+import ddl.XSqlTableOption;
+import ddl.constraints.XSqlTableConstraint;
+import dml.XSqlRichInsert;
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlCharStringLiteral;
+import org.apache.calcite.sql.SqlDrop;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlInsert;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.sql.SqlSetOption;
+import org.apache.calcite.sql.util.SqlBasicVisitor;
+import org.apache.calcite.util.NlsString;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Converts parsed statements into CURD {@link Operation}s.
+ *
+ * <p>Dispatch goes through two tables that are built once per class load: the extended nodes of
+ * this project are looked up by their class, any other node by its {@link SqlKind}. Converting a
+ * statement is one or two lookups plus the conversion itself. The converter keeps no state and one
+ * instance can be shared by all threads.
+ */
+public class SqlToCURDConverter implements Converter {
+
+    /** Converts one kind of statement, returns null if the node is not supported. */
+    @FunctionalInterface
+    private interface NodeConverter {
+        @Nullable
+        Operation convert(SqlNode node);
+    }
+
+    /** Converters of the extended nodes, by exact class. */
+    private static final Map<Class<? extends SqlNode>, NodeConverter> CONVERTERS_BY_CLASS =
+            new HashMap<>();
+
+    /** Converters of any other node, by kind. */
+    private static final Map<SqlKind, NodeConverter> CONVERTERS = new EnumMap<>(SqlKind.class);
+
+    static {
+        CONVERTERS_BY_CLASS.put(
+                XSqlCreateTable.class, node -> convertCreateTable((XSqlCreateTable) node));
+        CONVERTERS_BY_CLASS.put(
+                XSqlDropTable.class, node -> convertDropTable((XSqlDropTable) node));
+        CONVERTERS_BY_CLASS.put(
+                XSqlRichInsert.class,
+                node ->
+                        convertInsert(
+                                (SqlInsert) node,
+                                ((XSqlRichInsert) node).getPartitionSpec(),
+                                ((XSqlRichInsert) node).isOverwrite()));
+
+        CONVERTERS.put(
+                SqlKind.INSERT,
+                node -> convertInsert((SqlInsert) node, XSqlPartitionSpec.EMPTY, false));
+        CONVERTERS.put(SqlKind.SET_OPTION, SqlToCURDConverter::convertSetOption);
+        for (SqlKind kind : SqlKind.DDL) {
+            if (kind.name().startsWith("DROP_")) {
+                CONVERTERS.put(kind, SqlToCURDConverter::convertDrop);
+            } else if (kind.name().startsWith("ALTER_")) {
+                CONVERTERS.put(kind, SqlToCURDConverter::convertAlter);
+            }
+        }
+    }
+
+    @Override
+    public Optional<Operation> convert(SqlNode sqlNode) {
+        NodeConverter converter = CONVERTERS_BY_CLASS.get(sqlNode.getClass());
+        if (converter == null) {
+            converter = CONVERTERS.get(sqlNode.getKind());
+        }
+        if (converter == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(converter.convert(sqlNode));
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    /** Convert CREATE TABLE statement. */
+    private static Operation convertCreateTable(XSqlCreateTable createTable) {
+        List<CreateTableOperation.Column> columns =
+                new ArrayList<>(createTable.getColumnList().size());
+        for (SqlNode column : createTable.getColumnList()) {
+            columns.add(((XSqlTableColumn) column).accept(COLUMN_CONVERTER));
+        }
+
+        List<String> primaryKey = Collections.emptyList();
+        for (XSqlTableConstraint constraint : createTable.getFullConstraints()) {
+            if (constraint.isPrimaryKey()) {
+                primaryKey = Arrays.asList(constraint.getColumnNames());
+                break;
+            }
+        }
+
+        Map<String, String> options = new LinkedHashMap<>();
+        for (SqlNode property : createTable.getPropertyList()) {
+            XSqlTableOption option = (XSqlTableOption) property;
+            options.put(option.getKeyString(), option.getValueString());
+        }
+
+        return new CreateTableOperation(
+                createTable.getTableName().names,
+                columns,
+                primaryKey,
+                createTable.getPartitionSpec().getKeys(),
+                options,
+                createTable.getTimeAttributes(),
+                createTable.getComment().map(SqlToCURDConverter::stringValue).orElse(null),
+                createTable.isIfNotExists(),
+                createTable.isTemporary());
+    }
+
+    /** Convert INSERT, INSERT OVERWRITE and UPSERT statements. */
+    private static Operation convertInsert(
+            SqlInsert insert, XSqlPartitionSpec partitionSpec, boolean overwrite) {
+        SqlIdentifier targetTable = tableIdentifier(insert.getTargetTable());
+        if (targetTable == null) {
+            return null;
+        }
+        List<String> targetColumns = Collections.emptyList();
+        SqlNodeList columnList = insert.getTargetColumnList();
+        if (columnList != null) {
+            targetColumns = new ArrayList<>(columnList.size());
+            for (SqlNode column : columnList) {
+                targetColumns.add(String.join(".", ((SqlIdentifier) column).names));
+            }
+        }
+        return InsertOperation.of(
+                targetTable.names,
+                targetColumns,
+                partitionSpec,
+                insert.getSource(),
+                insert.isUpsert(),
+                overwrite);
+    }
+
+    /** Convert DROP TABLE statement. */
+    private static Operation convertDropTable(XSqlDropTable dropTable) {
+        return new DropOperation(
+                SqlKind.DROP_TABLE,
+                dropTable.getTableName().names,
+                dropTable.getIfExists(),
+                dropTable.isTemporary());
+    }
+
+    /**
+     * Convert DROP statements of other object types. Only {@link XSqlDropTable} knows TEMPORARY,
+     * the other {@link SqlDrop}s are never temporary.
+     */
+    private static Operation convertDrop(SqlNode node) {
+        if (!(node instanceof SqlDrop)) {
+            return null;
+        }
+        SqlIdentifier identifier = firstIdentifier((SqlCall) node);
+        if (identifier == null) {
+            return null;
+        }
+        return new DropOperation(
+                node.getKind(), identifier.names, ((SqlDrop) node).ifExists, false);
+    }
+
+    /** Convert ALTER statements of all object types. */
+    private static Operation convertAlter(SqlNode node) {
+        SqlIdentifier identifier = firstIdentifier((SqlCall) node);
+        if (identifier == null) {
+            return null;
+        }
+        OptionCollector options = new OptionCollector();
+        for (SqlNode operand : ((SqlCall) node).getOperandList()) {
+            if (operand != null) {
+                operand.accept(options);
+            }
+        }
+        return new AlterOperation(node.getKind(), identifier.names, options.properties);
+    }
+
+    /** Convert {@code [ALTER scope] SET name = value} and {@code RESET name} statements. */
+    private static Operation convertSetOption(SqlNode node) {
+        SqlSetOption setOption = (SqlSetOption) node;
+        SqlNode value = setOption.getValue();
+        Map<String, String> properties =
+                value == null
+                        ? Collections.emptyMap()
+                        : Collections.singletonMap(
+                                String.join(".", setOption.getName().names), literalValue(value));
+        return new AlterOperation(SqlKind.SET_OPTION, setOption.getName().names, properties);
+    }
+
+    private static final XSqlTableColumn.ColumnVisitor<CreateTableOperation.Column>
+            COLUMN_CONVERTER =
+                    new XSqlTableColumn.ColumnVisitor<CreateTableOperation.Column>() {
+                        @Override
+                        public CreateTableOperation.Column visit(SqlRegularColumn column) {
+                            return CreateTableOperation.Column.regular(
+                                    column.getName().getSimple(),
+                                    column.getType(),
+                                    comment(column));
+                        }
+
+                        @Override
+                        public CreateTableOperation.Column visit(SqlMetadataColumn column) {
+                            return CreateTableOperation.Column.metadata(
+                                    column.getName().getSimple(),
+                                    column.getType(),
+                                    column.getMetadataAlias().orElse(null),
+                                    column.isVirtual(),
+                                    comment(column));
+                        }
+
+                        @Override
+                        public CreateTableOperation.Column visit(SqlComputedColumn column) {
+                            return CreateTableOperation.Column.computed(
+                                    column.getName().getSimple(),
+                                    column.getExpr(),
+                                    comment(column));
+                        }
+                    };
+
+    private static @Nullable String comment(XSqlTableColumn column) {
+        return column.getComment()
+                .map(comment -> ((NlsString) SqlLiteral.value(comment)).getValue())
+                .orElse(null);
+    }
+
+    private static String stringValue(SqlCharStringLiteral literal) {
+        return literal.getValueAs(NlsString.class).getValue();
+    }
+
+    private static String literalValue(SqlNode node) {
+        if (node.getKind() == SqlKind.LITERAL) {
+            // Character literals unquote to their value.
+            return ((SqlLiteral) node).toValue();
+        }
+        return node.toString();
+    }
+
+    /** Returns the table identifier of an INSERT target, which might be extended or hinted. */
+    private static @Nullable SqlIdentifier tableIdentifier(SqlNode target) {
+        switch (target.getKind()) {
+            case IDENTIFIER:
+                return (SqlIdentifier) target;
+            case EXTEND:
+            case TABLE_REF:
+                return tableIdentifier(((SqlCall) target).operand(0));
+            default:
+                return null;
+        }
+    }
+
+    private static @Nullable SqlIdentifier firstIdentifier(SqlCall call) {
+        for (SqlNode operand : call.getOperandList()) {
+            if (operand != null && operand.getKind() == SqlKind.IDENTIFIER) {
+                return (SqlIdentifier) operand;
+            }
+        }
+        return null;
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** Collects the {@link XSqlTableOption}s of the operand lists of an ALTER statement. */
+    private static final class OptionCollector extends SqlBasicVisitor<Void> {
+
+        private final Map<String, String> properties = new LinkedHashMap<>();
+
+        @Override
+        public Void visit(SqlCall call) {
+            if (call.getOperator() == XSqlTableOption.OPERATOR) {
+                XSqlTableOption option = (XSqlTableOption) call;
+                properties.put(option.getKeyString(), option.getValueString());
+            }
+            return null;
+        }
+    }
 }
@@ -0,0 +1,331 @@
+package com.ldbbd.xparser.extensions;
+
+import com.ldbbd.xparser.interfaces.Converter;
+import com.ldbbd.xparser.operations.Operation;
+import com.ldbbd.xparser.parsers.SqlTokenScanner;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.parser.SqlParser;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The {@link StatementExtension}s of a parser, looked up by the leading keywords of a statement.
+ *
+ * <p>Extensions can be registered and unregistered while parsers are running: registration swaps
+ * an immutable keyword trie, lookups read it without locking and parses that started before keep
+ * the trie they started with.
+ *
+ * <p>Statements pay for the lookup only as far as they resemble an extension. An empty registry
+ * costs one volatile read. Otherwise the first token is scanned and dismissed by its first letter
+ * unless an extension starts with the same letter, and only then compared keyword by keyword
+ * with the children of the trie. A lookup allocates nothing but the scanner.
+ */
+public final class ExtensionRegistry {
+
+    private volatile Trie trie = Trie.EMPTY;
+
+    /** Creates an empty registry. */
+    public ExtensionRegistry() {}
+
+    /**
+     * Creates a registry of the extensions registered in {@code
+     * META-INF/services/com.ldbbd.xparser.extensions.StatementExtension} for a class loader.
+     *
+     * @throws IllegalStateException if two extensions are registered under the same keywords
+     */
+    public static ExtensionRegistry discover(ClassLoader classLoader) {
+        final ExtensionRegistry registry = new ExtensionRegistry();
+        for (StatementExtension extension :
+                ServiceLoader.load(StatementExtension.class, classLoader)) {
+            registry.register(extension);
+        }
+        return registry;
+    }
+
+    /**
+     * Registers an extension under its {@link StatementExtension#keywords() keywords}.
+     *
+     * @throws IllegalArgumentException if the keywords are empty or not upper case ASCII words
+     * @throws IllegalStateException if another extension is registered under the same keywords
+     */
+    public synchronized void register(StatementExtension extension) {
+        final List<String> keywords = checkKeywords(extension);
+        final StatementExtension previous = trie.get(keywords);
+        if (previous != null) {
+            throw new IllegalStateException(
+                    String.format(
+                            "Statement %s is registered by both %s and %s",
+                            String.join(" ", keywords),
+                            previous.getClass().getName(),
+                            extension.getClass().getName()));
+        }
+        trie = trie.with(keywords, 0, extension);
+    }
+
+    /** Unregisters an extension, returns whether it was registered. */
+    public synchronized boolean unregister(StatementExtension extension) {
+        final List<String> keywords = extension.keywords();
+        if (trie.get(keywords) != extension) {
+            return false;
+        }
+        trie = trie.with(keywords, 0, null);
+        return true;
+    }
+
+    /** Whether no extension is registered. */
+    public boolean isEmpty() {
+        return trie.isEmpty();
+    }
+
+    /** Returns the registered extensions. */
+    public List<StatementExtension> getExtensions() {
+        final List<StatementExtension> extensions = new ArrayList<>();
+        trie.collect(extensions);
+        return Collections.unmodifiableList(extensions);
+    }
+
+    /**
+     * Returns the extension of a statement, or null if it does not start with the keywords of
+     * any extension.
+     */
+    public @Nullable StatementExtension lookup(CharSequence sql) {
+        final Trie trie = this.trie;
+        if (trie.isEmpty()) {
+            return null;
+        }
+        final SqlTokenScanner scanner = new SqlTokenScanner(sql);
+        scanner.next();
+        final Trie match = trie.match(scanner);
+        return match == null ? null : match.extension;
+    }
+
+    /**
+     * Parses the statement between {@code start} and {@code end} of a script with its extension,
+     * or returns null if it does not start with the keywords of any extension.
+     *
+     * @param sql the script the statement is part of
+     * @param config the config of the dialect, for quoting and casing of identifiers
+     * @throws com.ldbbd.error.SqlParserException if the extension fails to parse the statement
+     */
+    public @Nullable SqlNode parse(CharSequence sql, int start, int end, SqlParser.Config config) {
+        final SqlTokenScanner scanner = new SqlTokenScanner(sql, config);
+        final StatementExtension extension = match(scanner, start, end);
+        if (extension == null) {
+            return null;
+        }
+        // The scanner stopped at the first token after the matched keywords.
+        return extension.parse(
+                new StatementReader(sql, start, end, scanner.tokenStart(), config));
+    }
+
+    /**
+     * Returns whether the statement between {@code start} and {@code end} of a script starts with
+     * the keywords of an extension, i.e. whether {@link #parse} would parse it. Only the leading
+     * words are read, so the script can be any view of the statement that keeps its ASCII
+     * characters, e.g. undecoded UTF-8 bytes.
+     */
+    public boolean matches(CharSequence sql, int start, int end, SqlParser.Config config) {
+        return match(new SqlTokenScanner(sql, config), start, end) != null;
+    }
+
+    /**
+     * Returns a converter that converts the nodes of the registered extensions, and all other
+     * nodes with the given converter.
+     */
+    public Converter converter(Converter converter) {
+        requireNonNull(converter);
+        return node -> {
+            final Optional<Operation> operation = converter.convert(node);
+            if (operation.isPresent()) {
+                return operation;
+            }
+            for (StatementExtension extension : getExtensions()) {
+                final Optional<Operation> converted = extension.convert(node);
+                if (converted.isPresent()) {
+                    return converted;
+                }
+            }
+            return Optional.empty();
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "ExtensionRegistry" + getExtensions();
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private @Nullable StatementExtension match(SqlTokenScanner scanner, int start, int end) {
+        final Trie trie = this.trie;
+        if (trie.isEmpty()) {
+            return null;
+        }
+        scanner.reset(start);
+        scanner.next();
+        final Trie match = trie.match(scanner);
+        if (match == null || scanner.tokenStart() > end) {
+            return null;
+        }
+        return requireNonNull(match.extension);
+    }
+
+    private static List<String> checkKeywords(StatementExtension extension) {
+        final List<String> keywords = requireNonNull(extension.keywords());
+        if (keywords.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Statement extension " + extension.getClass().getName() + " has no keywords");
+        }
+        for (String keyword : keywords) {
+            if (!isUpperCaseWord(keyword)) {
+                throw new IllegalArgumentException(
+                        String.format(
+                                "Keyword '%s' of statement extension %s is not an upper case ASCII"
+                                        + " word",
+                                keyword, extension.getClass().getName()));
+            }
+        }
+        return keywords;
+    }
+
+    /**
+     * Whether the scanner reads a keyword as one word token that equals it in upper case. Keywords
+     * are ASCII, so that statements can be matched before their bytes are decoded.
+     */
+    private static boolean isUpperCaseWord(@Nullable String keyword) {
+        if (keyword == null || keyword.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (keyword.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        final SqlTokenScanner scanner = new SqlTokenScanner(keyword);
+        scanner.next();
+        return scanner.isWord(keyword)
+                && scanner.next() == SqlTokenScanner.TokenType.EOF
+                && keyword.equals(keyword.toUpperCase(Locale.ROOT));
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /**
+     * An immutable node of the keyword trie. Every update copies the path from the root to the
+     * changed node and shares all other nodes.
+     */
+    private static final class Trie {
+
+        static final Trie EMPTY = new Trie(new String[0], new Trie[0], null);
+
+        private final String[] keywords;
+        private final Trie[] children;
+        private final @Nullable StatementExtension extension;
+
+        /** Upper case first letters A to Z of the children, bit 26 for any other character. */
+        private final long firstLetters;
+
+        private Trie(String[] keywords, Trie[] children, @Nullable StatementExtension extension) {
+            this.keywords = keywords;
+            this.children = children;
+            this.extension = extension;
+            long firstLetters = 0;
+            for (String keyword : keywords) {
+                firstLetters |= letterBit(keyword.charAt(0));
+            }
+            this.firstLetters = firstLetters;
+        }
+
+        boolean isEmpty() {
+            return children.length == 0 && extension == null;
+        }
+
+        /**
+         * Matches the longest keyword path from the current token of the scanner. Returns the
+         * node of the matched extension with the scanner on the first token after its keywords,
+         * or null.
+         */
+        @Nullable
+        Trie match(SqlTokenScanner scanner) {
+            if (scanner.tokenType() != SqlTokenScanner.TokenType.WORD
+                    || (firstLetters & letterBit(scanner.firstChar())) == 0) {
+                return extension == null ? null : this;
+            }
+            for (int i = 0; i < keywords.length; i++) {
+                if (scanner.isWord(keywords[i])) {
+                    final int start = scanner.tokenStart();
+                    scanner.next();
+                    final Trie match = children[i].match(scanner);
+                    if (match != null) {
+                        return match;
+                    }
+                    scanner.reset(start);
+                    scanner.next();
+                    break;
+                }
+            }
+            return extension == null ? null : this;
+        }
+
+        @Nullable
+        StatementExtension get(List<String> path) {
+            Trie node = this;
+            for (String keyword : path) {
+                final int i = Arrays.asList(node.keywords).indexOf(keyword);
+                if (i < 0) {
+                    return null;
+                }
+                node = node.children[i];
+            }
+            return node.extension;
+        }
+
+        /** Returns a copy with the extension of a path replaced, null removes it. */
+        Trie with(List<String> path, int depth, @Nullable StatementExtension extension) {
+            if (depth == path.size()) {
+                return new Trie(keywords, children, extension);
+            }
+            final String keyword = path.get(depth);
+            final int i = Arrays.asList(keywords).indexOf(keyword);
+            final Trie child = (i < 0 ? EMPTY : children[i]).with(path, depth + 1, extension);
+            final List<String> newKeywords = new ArrayList<>(Arrays.asList(keywords));
+            final List<Trie> newChildren = new ArrayList<>(Arrays.asList(children));
+            if (i >= 0 && child.isEmpty()) {
+                newKeywords.remove(i);
+                newChildren.remove(i);
+            } else if (i >= 0) {
+                newChildren.set(i, child);
+            } else if (!child.isEmpty()) {
+                newKeywords.add(keyword);
+                newChildren.add(child);
+            }
+            return new Trie(
+                    newKeywords.toArray(new String[0]),
+                    newChildren.toArray(new Trie[0]),
+                    this.extension);
+        }
+
+        void collect(List<StatementExtension> extensions) {
+            if (extension != null) {
+                extensions.add(extension);
+            }
+            for (Trie child : children) {
+                child.collect(extensions);
+            }
+        }
+
+        private static long letterBit(char c) {
+            final char upper = Character.toUpperCase(c);
+            return upper >= 'A' && upper <= 'Z' ? 1L << (upper - 'A') : 1L << 26;
+        }
+    }
+}
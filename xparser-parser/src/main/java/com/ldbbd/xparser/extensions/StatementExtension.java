@@ -0,0 +1,63 @@
+package com.ldbbd.xparser.extensions;
+
+import com.ldbbd.xparser.operations.Operation;
+import org.apache.calcite.sql.SqlNode;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A statement that is parsed at runtime, without regenerating the parser of a dialect, e.g. a
+ * company specific {@code OPTIMIZE TABLE t} or {@code COMPACT t}.
+ *
+ * <p>An extension is registered with an {@link ExtensionRegistry} under its leading {@link
+ * #keywords() keywords}. Statements starting with them are handed to {@link
+ * #parse(StatementReader)} instead of the generated parser; all other statements never see the
+ * extension. Extensions are discovered from {@code
+ * META-INF/services/com.ldbbd.xparser.extensions.StatementExtension} or registered by hand.
+ *
+ * <p>Usage:
+ *
+ * <pre>{@code
+ * public class CompactExtension implements StatementExtension {
+ *     public List<String> keywords() {
+ *         return Collections.singletonList("COMPACT");
+ *     }
+ *
+ *     public SqlNode parse(StatementReader reader) {
+ *         SqlIdentifier table = reader.identifier();
+ *         reader.end();
+ *         return new SqlCompact(reader.getStatementPosition(), table);
+ *     }
+ * }
+ * }</pre>
+ *
+ * <p>Implementations must be thread safe, one instance parses the statements of all threads.
+ */
+public interface StatementExtension {
+
+    /**
+     * Returns the leading keywords of the statement in upper case, e.g. {@code [OPTIMIZE,
+     * TABLE]}. Keywords are matched ignoring case. If the keywords of one extension are a prefix
+     * of those of another, the longest match wins.
+     */
+    List<String> keywords();
+
+    /**
+     * Parses the rest of a statement whose leading keywords were matched and consumed already.
+     * The returned node is not yet validated.
+     *
+     * @throws com.ldbbd.error.SqlParserException if the statement is malformed, see {@link
+     *     StatementReader#error(String)}
+     */
+    SqlNode parse(StatementReader reader);
+
+    /**
+     * Converts a node parsed by this extension into an {@link Operation}.
+     *
+     * @return the converted operation, or empty if the node was not parsed by this extension
+     */
+    default Optional<Operation> convert(SqlNode node) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,333 @@
+package com.ldbbd.xparser.extensions;
+
+import com.ldbbd.error.SqlParserException;
+import com.ldbbd.xparser.parsers.SqlTokenScanner;
+import com.ldbbd.xparser.parsers.SqlTokenScanner.TokenType;
+import ddl.XSqlTableOption;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.sql.parser.SqlParserUtil;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A cursor over the tokens of one statement, for the hand written recursive descent parser of a
+ * {@link StatementExtension}.
+ *
+ * <p>The reader is positioned on the first token after the leading keywords of the extension.
+ * Methods named after a construct, e.g. {@link #identifier()}, consume it or fail with a {@link
+ * SqlParserException} in the format of the generated parsers; methods starting with {@code is}
+ * only look at the current token and {@code try} methods consume the tokens only if they match.
+ * Identifiers follow the quoting and casing of the dialect's {@link SqlParser.Config}, positions
+ * are those of the statement within the whole script.
+ *
+ * <p>A reader is not thread safe, it lives for the parse of one statement.
+ */
+public final class StatementReader {
+
+    private final CharSequence sql;
+    private final int offset;
+    private final SqlParser.Config config;
+    private final SqlTokenScanner scanner;
+    private final int statementStart;
+
+    /** End of the last consumed token, relative to {@link #offset}. */
+    private int consumedEnd;
+
+    // A line start the positions are counted from, moves forward with the tokens.
+    private int anchorOffset;
+    private int anchorLine = 1;
+
+    /**
+     * Creates a reader of the statement between {@code start} and {@code end} whose leading
+     * keywords end at {@code bodyStart}, all relative to the whole script.
+     */
+    StatementReader(
+            CharSequence sql, int start, int end, int bodyStart, SqlParser.Config config) {
+        this.sql = sql;
+        this.offset = start;
+        this.config = config;
+        this.scanner = new SqlTokenScanner(sql.subSequence(start, end), config);
+        scanner.next();
+        this.statementStart = scanner.tokenStart();
+        this.consumedEnd = bodyStart - start;
+        scanner.reset(consumedEnd);
+        scanner.next();
+    }
+
+    // ~ Lookahead --------------------------------------------------------------
+
+    /** Whether the statement has no more tokens. */
+    public boolean atEnd() {
+        return scanner.tokenType() == TokenType.EOF;
+    }
+
+    /** Whether the current token is the given keyword, ignoring case. */
+    public boolean isKeyword(String upperCaseKeyword) {
+        return scanner.isWord(upperCaseKeyword);
+    }
+
+    /** Whether the current token is the given symbol. */
+    public boolean isSymbol(char symbol) {
+        return scanner.isSymbol(symbol);
+    }
+
+    /** Returns the type of the current token. */
+    public TokenType tokenType() {
+        return scanner.tokenType();
+    }
+
+    /** Consumes the given keywords if the next tokens are these keywords, in this order. */
+    public boolean tryKeywords(String... upperCaseKeywords) {
+        final int start = scanner.tokenStart();
+        for (String keyword : upperCaseKeywords) {
+            if (!scanner.isWord(keyword)) {
+                scanner.reset(start);
+                scanner.next();
+                return false;
+            }
+            consume();
+        }
+        return true;
+    }
+
+    /** Consumes the given symbol if it is the current token. */
+    public boolean trySymbol(char symbol) {
+        if (!scanner.isSymbol(symbol)) {
+            return false;
+        }
+        consume();
+        return true;
+    }
+
+    // ~ Constructs -------------------------------------------------------------
+
+    /** Consumes the given keywords, in this order. */
+    public void keywords(String... upperCaseKeywords) {
+        for (String keyword : upperCaseKeywords) {
+            if (!scanner.isWord(keyword)) {
+                throw error("\"" + keyword + "\"");
+            }
+            consume();
+        }
+    }
+
+    /** Consumes the given symbol. */
+    public void symbol(char symbol) {
+        if (!trySymbol(symbol)) {
+            throw error("\"" + symbol + "\"");
+        }
+    }
+
+    /** Consumes a simple or compound identifier, e.g. {@code db.t} or {@code `my table`}. */
+    public SqlIdentifier identifier() {
+        final int start = scanner.tokenStart();
+        final List<String> names = new ArrayList<>(2);
+        final List<SqlParserPos> positions = new ArrayList<>(2);
+        do {
+            positions.add(tokenPosition());
+            names.add(identifierSegment());
+        } while (trySymbol('.'));
+        return new SqlIdentifier(names, null, position(start, consumedEnd), positions);
+    }
+
+    /** Consumes a character string literal, e.g. {@code 'it''s'}. */
+    public SqlLiteral stringLiteral() {
+        if (scanner.tokenType() != TokenType.STRING) {
+            throw error("<STRING>");
+        }
+        final SqlLiteral literal =
+                SqlLiteral.createCharString(SqlParserUtil.parseString(text()), tokenPosition());
+        consume();
+        return literal;
+    }
+
+    /** Consumes an unsigned numeric literal, e.g. {@code 42}, {@code 0.5} or {@code 1e3}. */
+    public SqlLiteral numericLiteral() {
+        if (scanner.tokenType() != TokenType.NUMBER) {
+            throw error("<NUMBER>");
+        }
+        final String text = text();
+        final SqlParserPos pos = tokenPosition();
+        final SqlLiteral literal;
+        try {
+            literal =
+                    text.indexOf('e') >= 0 || text.indexOf('E') >= 0
+                            ? SqlLiteral.createApproxNumeric(text, pos)
+                            : SqlLiteral.createExactNumeric(text, pos);
+        } catch (NumberFormatException e) {
+            throw error("<NUMBER>");
+        }
+        consume();
+        return literal;
+    }
+
+    /** Consumes a string, numeric, boolean or {@code NULL} literal. */
+    public SqlLiteral literal() {
+        switch (scanner.tokenType()) {
+            case STRING:
+                return stringLiteral();
+            case NUMBER:
+                return numericLiteral();
+            default:
+                final SqlParserPos pos = tokenPosition();
+                if (tryKeywords("TRUE")) {
+                    return SqlLiteral.createBoolean(true, pos);
+                } else if (tryKeywords("FALSE")) {
+                    return SqlLiteral.createBoolean(false, pos);
+                } else if (tryKeywords("NULL")) {
+                    return SqlLiteral.createNull(pos);
+                }
+                throw error("<LITERAL>");
+        }
+    }
+
+    /**
+     * Consumes a parenthesized list of {@code 'key' = 'value'} properties, the syntax of the
+     * {@code WITH} clause of {@code CREATE TABLE}.
+     *
+     * @return the properties as {@link XSqlTableOption}s
+     */
+    public SqlNodeList propertyList() {
+        final int start = scanner.tokenStart();
+        symbol('(');
+        final List<SqlNode> properties = new ArrayList<>();
+        if (!isSymbol(')')) {
+            do {
+                final int propertyStart = scanner.tokenStart();
+                final SqlLiteral key = stringLiteral();
+                symbol('=');
+                final SqlLiteral value = stringLiteral();
+                properties.add(
+                        new XSqlTableOption(key, value, position(propertyStart, consumedEnd)));
+            } while (trySymbol(','));
+        }
+        symbol(')');
+        return new SqlNodeList(properties, position(start, consumedEnd));
+    }
+
+    /** Checks that the statement has no more tokens. */
+    public void end() {
+        if (!atEnd()) {
+            throw error("<EOF>");
+        }
+    }
+
+    // ~ Positions and errors ---------------------------------------------------
+
+    /** Returns the position of the statement, from its first keyword to the last read token. */
+    public SqlParserPos getStatementPosition() {
+        return position(statementStart, consumedEnd);
+    }
+
+    /** Returns the position of the current token. */
+    public SqlParserPos tokenPosition() {
+        return atEnd()
+                ? position(consumedEnd, consumedEnd)
+                : position(scanner.tokenStart(), scanner.tokenEnd());
+    }
+
+    /**
+     * Returns the error of an unexpected current token, to be thrown by the extension.
+     *
+     * @param expected what was expected instead, e.g. {@code "TABLE"} or {@code <IDENTIFIER>}
+     */
+    public SqlParserException error(String expected) {
+        final SqlParserPos pos = tokenPosition();
+        return new SqlParserException(
+                String.format(
+                        "SQL parse failed. Encountered \"%s\" at line %d, column %d.%n"
+                                + "Was expecting:%n    %s",
+                        atEnd() ? "<EOF>" : text(),
+                        pos.getLineNum(),
+                        pos.getColumnNum(),
+                        expected));
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private void consume() {
+        consumedEnd = scanner.tokenEnd();
+        scanner.next();
+    }
+
+    private String text() {
+        return scanner.text();
+    }
+
+    private String identifierSegment() {
+        final String text = text();
+        final String name;
+        switch (scanner.tokenType()) {
+            case WORD:
+                name = SqlParserUtil.strip(text, null, null, null, config.unquotedCasing());
+                break;
+            case QUOTED_IDENTIFIER:
+                name = quotedIdentifier(text);
+                break;
+            default:
+                name = null;
+        }
+        if (name == null) {
+            throw error("<IDENTIFIER>");
+        }
+        consume();
+        return name;
+    }
+
+    /** Unquotes an identifier in the quoting the dialect is configured with, null otherwise. */
+    private @Nullable String quotedIdentifier(String text) {
+        final String open;
+        final String close;
+        switch (config.quoting()) {
+            case DOUBLE_QUOTE:
+                open = "\"";
+                close = "\"";
+                break;
+            case BACK_TICK:
+                open = "`";
+                close = "`";
+                break;
+            case BRACKET:
+                open = "[";
+                close = "]";
+                break;
+            default:
+                return null;
+        }
+        if (text.length() < 2 || !text.startsWith(open) || !text.endsWith(close)) {
+            return null;
+        }
+        return SqlParserUtil.strip(text, open, close, close + close, config.quotedCasing());
+    }
+
+    /**
+     * Returns the position of a range of the statement. Like the generated parsers, the end
+     * column is the one of the last character and a tab counts as one column.
+     */
+    private SqlParserPos position(int start, int end) {
+        final int[] from = lineAndColumn(offset + start);
+        final int[] to = lineAndColumn(offset + Math.max(start, end - 1));
+        return new SqlParserPos(from[0], from[1], to[0], to[1]);
+    }
+
+    private int[] lineAndColumn(int target) {
+        if (target < anchorOffset) {
+            anchorOffset = 0;
+            anchorLine = 1;
+        }
+        for (int i = anchorOffset; i < target; i++) {
+            if (sql.charAt(i) == '\n') {
+                anchorOffset = i + 1;
+                anchorLine++;
+            }
+        }
+        return new int[] {anchorLine, target - anchorOffset + 1};
+    }
+}
@@ -0,0 +1,136 @@
+package com.ldbbd.xparser.factories;
+
+import com.ldbbd.xparser.converter.SqlToCURDConverter;
+import com.ldbbd.xparser.extensions.ExtensionRegistry;
+import com.ldbbd.xparser.extensions.StatementExtension;
+import com.ldbbd.xparser.impls.DialectParserImpl;
+import com.ldbbd.xparser.interfaces.Parser;
+import com.ldbbd.xparser.interfaces.ParserFactory;
+import com.ldbbd.xparser.parsers.CalciteParser;
+import com.ldbbd.xparser.parsers.ParseBudget;
+import com.ldbbd.xparser.parsers.StatementClassifier.Keywords;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.parser.SqlParserImplFactory;
+
+import javax.annotation.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link ParserFactory} of a dialect whose parser is generated from a {@code Parser.tdd}.
+ *
+ * <p>Every dialect generates its parser into a package and class of its own, e.g. {@code
+ * xparser.spark.parser.impl.SparkSqlParserImpl}, so the parsers of all dialects can be loaded
+ * side by side in one JVM. The generated class is looked up by name the first time it is needed,
+ * so this module does not depend on the dialect modules: a dialect is {@link #isAvailable()
+ * available} once its module is on the class path.
+ *
+ * <p>All parsers created by one factory share its {@link #getExtensions() extensions}, statements
+ * registered there are understood by these parsers right away.
+ */
+public abstract class GeneratedParserFactory implements ParserFactory {
+
+    private final String identifier;
+    private final String parserClassName;
+
+    private volatile @Nullable SqlParserImplFactory parserImplFactory;
+    private volatile @Nullable ExtensionRegistry extensions;
+
+    protected GeneratedParserFactory(String identifier, String parserClassName) {
+        this.identifier = requireNonNull(identifier);
+        this.parserClassName = requireNonNull(parserClassName);
+    }
+
+    @Override
+    public String factoryIdentifier() {
+        return identifier;
+    }
+
+    /** Returns the fully qualified name of the generated parser class. */
+    public String getParserClassName() {
+        return parserClassName;
+    }
+
+    /** Returns whether the generated parser class of the dialect is on the class path. */
+    public boolean isAvailable() {
+        try {
+            parserImplFactory();
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the {@code FACTORY} of the generated parser class.
+     *
+     * @throws IllegalStateException if the generated parser class is not on the class path
+     */
+    public SqlParserImplFactory parserImplFactory() {
+        SqlParserImplFactory factory = this.parserImplFactory;
+        if (factory == null) {
+            try {
+                final Class<?> parserClass =
+                        Class.forName(parserClassName, true, getClass().getClassLoader());
+                factory = (SqlParserImplFactory) parserClass.getField("FACTORY").get(null);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                throw new IllegalStateException(
+                        String.format(
+                                "Parser %s of dialect %s is not on the class path",
+                                parserClassName, identifier),
+                        e);
+            }
+            this.parserImplFactory = factory;
+        }
+        return factory;
+    }
+
+    /** Returns the parser configuration of the dialect, e.g. its quoting and casing. */
+    public SqlParser.Config config() {
+        return SqlParser.config().withParserFactory(parserImplFactory());
+    }
+
+    /**
+     * Returns the {@link StatementExtension}s of the dialect's parsers, initially those
+     * registered in {@code META-INF/services/com.ldbbd.xparser.extensions.StatementExtension}.
+     */
+    public ExtensionRegistry getExtensions() {
+        ExtensionRegistry extensions = this.extensions;
+        if (extensions == null) {
+            synchronized (this) {
+                extensions = this.extensions;
+                if (extensions == null) {
+                    extensions = ExtensionRegistry.discover(getClass().getClassLoader());
+                    this.extensions = extensions;
+                }
+            }
+        }
+        return extensions;
+    }
+
+    /**
+     * Returns the keyword table of the dialect, e.g. for completion hints, or null if the factory
+     * knows none.
+     */
+    public @Nullable Keywords keywords() {
+        return null;
+    }
+
+    /** Creates a parser of the dialect without a {@link ParseBudget}. */
+    public CalciteParser createCalciteParser() {
+        return createCalciteParser(ParseBudget.UNLIMITED);
+    }
+
+    /** Creates a parser of the dialect. */
+    public CalciteParser createCalciteParser(ParseBudget budget) {
+        return new CalciteParser(config(), budget, getExtensions());
+    }
+
+    @Override
+    public Parser create(Context context) {
+        return new DialectParserImpl(
+                createCalciteParser(),
+                getExtensions().converter(new SqlToCURDConverter()),
+                keywords());
+    }
+}
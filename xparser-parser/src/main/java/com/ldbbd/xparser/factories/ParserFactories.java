@@ -0,0 +1,65 @@
+package com.ldbbd.xparser.factories;
+
+import com.ldbbd.xparser.interfaces.ParserFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Discovers the {@link ParserFactory}s registered in {@code
+ * META-INF/services/com.ldbbd.xparser.interfaces.ParserFactory}.
+ *
+ * <p>This module registers the {@code xsql} dialect only. The flink and spark grammars are not
+ * compiled into parsers, their modules lack the AST classes the grammars build. {@link
+ * GeneratedParserFactory Generated parsers} whose class is not on the class path are left out, so
+ * the discovered dialects are the ones a process can actually serve.
+ */
+public final class ParserFactories {
+
+    private ParserFactories() {}
+
+    /** Returns the available factories by identifier, in registration order. */
+    public static Map<String, ParserFactory> discover() {
+        return discover(ParserFactories.class.getClassLoader());
+    }
+
+    /** Returns the available factories registered for the given class loader, by identifier. */
+    public static Map<String, ParserFactory> discover(ClassLoader classLoader) {
+        final Map<String, ParserFactory> factories = new LinkedHashMap<>();
+        for (ParserFactory factory : ServiceLoader.load(ParserFactory.class, classLoader)) {
+            if (factory instanceof GeneratedParserFactory
+                    && !((GeneratedParserFactory) factory).isAvailable()) {
+                continue;
+            }
+            final ParserFactory previous =
+                    factories.putIfAbsent(factory.factoryIdentifier(), factory);
+            if (previous != null) {
+                throw new IllegalStateException(
+                        String.format(
+                                "Dialect %s is registered by both %s and %s",
+                                factory.factoryIdentifier(),
+                                previous.getClass().getName(),
+                                factory.getClass().getName()));
+            }
+        }
+        return Collections.unmodifiableMap(factories);
+    }
+
+    /**
+     * Returns the available factory of a dialect.
+     *
+     * @throws IllegalArgumentException if the dialect is not available
+     */
+    public static ParserFactory find(String identifier) {
+        final Map<String, ParserFactory> factories = discover();
+        final ParserFactory factory = factories.get(identifier);
+        if (factory == null) {
+            throw new IllegalArgumentException(
+                    "Unknown dialect " + identifier + ", available dialects are "
+                            + factories.keySet());
+        }
+        return factory;
+    }
+}
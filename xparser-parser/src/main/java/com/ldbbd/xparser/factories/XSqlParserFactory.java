@@ -0,0 +1,26 @@
+package com.ldbbd.xparser.factories;
+
+import com.ldbbd.xparser.parsers.StatementClassifier.Keywords;
+import org.apache.calcite.sql.parser.SqlParserImplFactory;
+import xparser.impl.XSqlParserImpl;
+
+/** Factory of the {@code xsql} dialect parser. */
+public class XSqlParserFactory extends GeneratedParserFactory {
+
+    public static final String IDENTIFIER = "xsql";
+
+    public XSqlParserFactory() {
+        super(IDENTIFIER, XSqlParserImpl.class.getName());
+    }
+
+    @Override
+    public SqlParserImplFactory parserImplFactory() {
+        // A dependency of this module, no need to look it up.
+        return XSqlParserImpl.FACTORY;
+    }
+
+    @Override
+    public Keywords keywords() {
+        return Keywords.XSQL;
+    }
+}
@@ -0,0 +1,136 @@
+package com.ldbbd.xparser.format;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a script read from a {@link Reader} into its semicolon separated statements, one
+ * statement at a time, so that only the current statement is held in memory.
+ *
+ * <p>Semicolons in string literals, quoted identifiers and comments do not separate statements.
+ * Segments without any token, e.g. a comment after the last statement, are skipped.
+ */
+final class ScriptSplitter {
+
+    private enum State {
+        CODE,
+        STRING,
+        DOUBLE_QUOTED,
+        BACK_QUOTED,
+        LINE_COMMENT,
+        BLOCK_COMMENT
+    }
+
+    private final Reader reader;
+    private final char[] chunk = new char[8192];
+    private int chunkLength;
+    private int chunkPos;
+
+    /** Line of the next character of the script. */
+    private int line = 1;
+
+    /** Line of the first token of the statement read last. */
+    private int statementLine;
+
+    ScriptSplitter(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next statement without its semicolon.
+     *
+     * @param statement cleared and filled with the text of the statement, including the comments
+     *     and line breaks before its first token
+     * @return false if the script has no more statements
+     */
+    boolean next(StringBuilder statement) throws IOException {
+        statement.setLength(0);
+        State state = State.CODE;
+        boolean hasTokens = false;
+        // A '-' or '/' that may start a comment, it is a token unless the next character says so.
+        boolean pendingToken = false;
+        char previous = 0;
+        while (true) {
+            if (chunkPos == chunkLength) {
+                chunkLength = reader.read(chunk);
+                chunkPos = 0;
+                if (chunkLength < 0) {
+                    chunkLength = 0;
+                    hasTokens |= pendingToken;
+                    return hasTokens;
+                }
+            }
+            final char c = chunk[chunkPos++];
+            if (c == '\n') {
+                line++;
+            }
+            switch (state) {
+                case CODE:
+                    if (pendingToken) {
+                        pendingToken = false;
+                        if ((previous == '-' && c == '-') || (previous == '/' && c == '*')) {
+                            state = c == '-' ? State.LINE_COMMENT : State.BLOCK_COMMENT;
+                            statement.append(c);
+                            // So that the '*' of "/*/" does not close the comment.
+                            previous = 0;
+                            continue;
+                        }
+                        hasTokens = markToken(hasTokens, c == '\n' ? line - 1 : line);
+                    }
+                    if (c == ';') {
+                        if (hasTokens) {
+                            return true;
+                        }
+                        // An empty statement, e.g. of ";;".
+                        statement.setLength(0);
+                        previous = c;
+                        continue;
+                    }
+                    if (c == '-' || c == '/') {
+                        pendingToken = true;
+                    } else if (!Character.isWhitespace(c)) {
+                        hasTokens = markToken(hasTokens, line);
+                        if (c == '\'') {
+                            state = State.STRING;
+                        } else if (c == '"') {
+                            state = State.DOUBLE_QUOTED;
+                        } else if (c == '`') {
+                            state = State.BACK_QUOTED;
+                        }
+                    }
+                    break;
+                case STRING:
+                    state = c == '\'' ? State.CODE : state;
+                    break;
+                case DOUBLE_QUOTED:
+                    state = c == '"' ? State.CODE : state;
+                    break;
+                case BACK_QUOTED:
+                    state = c == '`' ? State.CODE : state;
+                    break;
+                case LINE_COMMENT:
+                    state = c == '\n' ? State.CODE : state;
+                    break;
+                case BLOCK_COMMENT:
+                    state = previous == '*' && c == '/' ? State.CODE : state;
+                    break;
+                default:
+                    throw new AssertionError(state);
+            }
+            statement.append(c);
+            previous = c;
+        }
+    }
+
+    /** Returns the line of the first token of the statement read last. */
+    int getStatementLine() {
+        return statementLine;
+    }
+
+    private boolean markToken(boolean hasTokens, int tokenLine) {
+        if (!hasTokens) {
+            statementLine = tokenLine;
+        }
+        return true;
+    }
+}
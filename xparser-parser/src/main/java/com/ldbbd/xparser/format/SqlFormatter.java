@@ -0,0 +1,197 @@
+package com.ldbbd.xparser.format;
+
+import com.ldbbd.error.SqlParserException;
+import com.ldbbd.xparser.parsers.CalciteParser;
+import com.ldbbd.xparser.parsers.SqlInput;
+import org.apache.calcite.sql.SqlDialect;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlWriterConfig;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.pretty.SqlPrettyWriter;
+import types.XSqlCollectionStyle;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Pretty prints SQL scripts, e.g. for display or to diff DDL files.
+ *
+ * <p>A script is read, parsed and written one statement at a time: the formatter holds the text,
+ * the tree and the formatted output of the current statement only, so its memory is bounded by
+ * the largest statement and not by the script. Every statement is unparsed through {@link
+ * SqlPrettyWriter} with the configured {@link Builder#indentation(int) indentation}, {@link
+ * Builder#keywordsLowerCase(boolean) keyword case} and {@link
+ * Builder#collectionStyle(XSqlCollectionStyle) collection style}, quoting identifiers the way
+ * the parser expects them. Statements are terminated by a semicolon and separated by an empty
+ * line. Comments are not kept.
+ *
+ * <p>Usage:
+ *
+ * <pre>{@code
+ * SqlFormatter formatter =
+ *         SqlFormatter.builder(new CalciteParser(config)).keywordsLowerCase(true).build();
+ * try (Reader in = Files.newBufferedReader(script); Writer out = Files.newBufferedWriter(target)) {
+ *     formatter.format(in, out);
+ * }
+ * }</pre>
+ *
+ * <p>A formatter is thread safe, every call of {@link #format(Reader, Writer)} uses a writer of
+ * its own.
+ */
+public final class SqlFormatter {
+
+    private final CalciteParser parser;
+    private final SqlWriterConfig writerConfig;
+    private final XSqlCollectionStyle collectionStyle;
+
+    private SqlFormatter(Builder builder) {
+        this.parser = builder.parser;
+        this.writerConfig =
+                SqlPrettyWriter.config()
+                        .withDialect(dialectOf(parser.getConfig()))
+                        .withIndentation(builder.indentation)
+                        .withKeywordsLowerCase(builder.keywordsLowerCase);
+        this.collectionStyle = builder.collectionStyle;
+    }
+
+    public static Builder builder(CalciteParser parser) {
+        return new Builder(parser);
+    }
+
+    /**
+     * Formats the statements of a script.
+     *
+     * @param script the script to read, it is not closed
+     * @param out the writer to write the formatted statements to, it is neither flushed nor closed
+     * @return the number of formatted statements
+     * @throws SqlParserException if a statement fails to parse, after the statements before it
+     *     were written
+     * @throws IOException if reading the script or writing the output fails
+     */
+    public int format(Reader script, Writer out) throws IOException {
+        final ScriptSplitter splitter = new ScriptSplitter(script);
+        final StringBuilder statement = new StringBuilder();
+        final StringBuilder formatted = new StringBuilder();
+        final char[] chunk = new char[8192];
+        int count = 0;
+        while (splitter.next(statement)) {
+            final SqlNode node;
+            try {
+                node = parser.parse(SqlInput.of(statement));
+            } catch (SqlParserException e) {
+                throw new SqlParserException(
+                        String.format(
+                                "Failed to format statement %d at line %d. %s",
+                                count + 1, splitter.getStatementLine(), e.getMessage()),
+                        e);
+            }
+            // A writer per statement, SqlInsert#unparse leaves its frame open and reset() does
+            // not pop frames. The buffer is shared.
+            formatted.setLength(0);
+            node.unparse(new StyledWriter(writerConfig, formatted, collectionStyle), 0, 0);
+            if (count > 0) {
+                out.write('\n');
+            }
+            for (int i = 0; i < formatted.length(); i += chunk.length) {
+                final int end = Math.min(formatted.length(), i + chunk.length);
+                formatted.getChars(i, end, chunk, 0);
+                out.write(chunk, 0, end - i);
+            }
+            out.write(";\n");
+            count++;
+        }
+        return count;
+    }
+
+    /** Formats the statements of a script held in memory, see {@link #format(Reader, Writer)}. */
+    public String format(String script) {
+        final StringWriter out = new StringWriter(script.length());
+        try {
+            format(new StringReader(script), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /** Formats one parsed statement, without a terminating semicolon. */
+    public String format(SqlNode statement) {
+        final StringBuilder formatted = new StringBuilder();
+        statement.unparse(new StyledWriter(writerConfig, formatted, collectionStyle), 0, 0);
+        return formatted.toString();
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    /** Returns a dialect that quotes identifiers the way the parser reads them. */
+    private static SqlDialect dialectOf(SqlParser.Config config) {
+        return new SqlDialect(
+                SqlDialect.EMPTY_CONTEXT.withIdentifierQuoteString(config.quoting().string));
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** A {@link SqlPrettyWriter} that unparses collection types in one style. */
+    private static final class StyledWriter extends SqlPrettyWriter
+            implements XSqlCollectionStyle.Styled {
+        private final XSqlCollectionStyle collectionStyle;
+
+        StyledWriter(
+                SqlWriterConfig config, StringBuilder buf, XSqlCollectionStyle collectionStyle) {
+            super(config, buf);
+            this.collectionStyle = collectionStyle;
+        }
+
+        @Override
+        public XSqlCollectionStyle getCollectionStyle() {
+            return collectionStyle;
+        }
+    }
+
+    /** Builder for {@link SqlFormatter}. */
+    public static final class Builder {
+        private final CalciteParser parser;
+        private int indentation = 4;
+        private boolean keywordsLowerCase;
+        private XSqlCollectionStyle collectionStyle = XSqlCollectionStyle.AS_PARSED;
+
+        private Builder(CalciteParser parser) {
+            this.parser = requireNonNull(parser);
+        }
+
+        /** Sets the number of spaces per indentation level, default is 4. */
+        public Builder indentation(int indentation) {
+            if (indentation < 0) {
+                throw new IllegalArgumentException(
+                        "Indentation must not be negative: " + indentation);
+            }
+            this.indentation = indentation;
+            return this;
+        }
+
+        /** Sets whether keywords are written in lower case, default is upper case. */
+        public Builder keywordsLowerCase(boolean keywordsLowerCase) {
+            this.keywordsLowerCase = keywordsLowerCase;
+            return this;
+        }
+
+        /**
+         * Sets the style of collection and row types, default is the style each type was parsed
+         * in.
+         */
+        public Builder collectionStyle(XSqlCollectionStyle collectionStyle) {
+            this.collectionStyle = requireNonNull(collectionStyle);
+            return this;
+        }
+
+        public SqlFormatter build() {
+            return new SqlFormatter(this);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ldbbd.xparser.impls;
+
+import com.ldbbd.error.SqlParserException;
+import com.ldbbd.xparser.interfaces.Converter;
+import com.ldbbd.xparser.interfaces.Parser;
+import com.ldbbd.xparser.operations.Operation;
+import com.ldbbd.xparser.parsers.CalciteParser;
+import com.ldbbd.xparser.parsers.SqlInput;
+import com.ldbbd.xparser.parsers.StatementClassifier.Keywords;
+import extended.ExtendedSqlNode;
+import org.apache.calcite.sql.SqlNode;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The {@link Parser} of a dialect: parses with the generated parser of the dialect, validates the
+ * extended nodes and converts the statements into {@link Operation}s.
+ *
+ * <p>Holds no state of its own, one instance can be shared by all threads.
+ */
+public class DialectParserImpl implements Parser {
+
+    private final CalciteParser calciteParser;
+    private final Converter converter;
+    private final @Nullable Keywords keywords;
+
+    public DialectParserImpl(CalciteParser calciteParser, Converter converter) {
+        this(calciteParser, converter, null);
+    }
+
+    /**
+     * Creates the parser of a dialect.
+     *
+     * @param keywords the keyword table of the dialect, which completion hints are taken from, or
+     *     null for no completion hints
+     */
+    public DialectParserImpl(
+            CalciteParser calciteParser, Converter converter, @Nullable Keywords keywords) {
+        this.calciteParser = requireNonNull(calciteParser);
+        this.converter = requireNonNull(converter);
+        this.keywords = keywords;
+    }
+
+    @Override
+    public List<Operation> parse(String statement) {
+        final List<SqlNode> parsed =
+                calciteParser.parseStatements(SqlInput.of(statement), null).getList();
+        final List<SqlNode> validated = new ArrayList<>(parsed.size());
+        try {
+            for (SqlNode node : parsed) {
+                validated.add(
+                        node instanceof ExtendedSqlNode
+                                ? ((ExtendedSqlNode) node).validated()
+                                : node);
+            }
+            return converter.convertAll(validated);
+        } catch (error.SqlValidateException | com.ldbbd.error.SqlValidateException e) {
+            throw new SqlParserException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Completes the word before the cursor to the keywords of the dialect, in alphabetical
+     * order. An empty word completes to all keywords.
+     */
+    @Override
+    public String[] getCompletionHints(String statement, int position) {
+        if (position < 0 || position > statement.length()) {
+            throw new IndexOutOfBoundsException(
+                    "Position " + position + " is not within the statement");
+        }
+        if (keywords == null) {
+            return new String[0];
+        }
+        int start = position;
+        while (start > 0 && isWordPart(statement.charAt(start - 1))) {
+            start--;
+        }
+        final String prefix = statement.substring(start, position).toUpperCase(Locale.ROOT);
+        final List<String> all = keywords.keywords();
+        int from = Collections.binarySearch(all, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = from;
+        while (to < all.size() && all.get(to).startsWith(prefix)) {
+            to++;
+        }
+        return all.subList(from, to).toArray(new String[0]);
+    }
+
+    public CalciteParser getCalciteParser() {
+        return calciteParser;
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
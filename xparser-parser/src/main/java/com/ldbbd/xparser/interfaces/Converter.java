@@ -1,9 +1,41 @@
 package com.ldbbd.xparser.interfaces;
 
+import com.ldbbd.error.SqlValidateException;
 import com.ldbbd.xparser.operations.Operation;
+import org.apache.calcite.sql.SqlNode;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
+/** Converts parsed {@link SqlNode}s into {@link Operation}s. */
 public interface Converter {
-    public Optional<Operation>convert();
+
+    /**
+     * Converts a parsed statement into an {@link Operation}.
+     *
+     * @param sqlNode the parsed, and if required validated, statement
+     * @return the converted operation, or empty if the statement is not supported
+     */
+    Optional<Operation> convert(SqlNode sqlNode);
+
+    /**
+     * Converts a batch of parsed statements, keeping their order.
+     *
+     * @param sqlNodes the parsed statements
+     * @return one operation per statement
+     * @throws SqlValidateException if any statement is not supported
+     */
+    default List<Operation> convertAll(List<SqlNode> sqlNodes) throws SqlValidateException {
+        final List<Operation> operations = new ArrayList<>(sqlNodes.size());
+        for (SqlNode sqlNode : sqlNodes) {
+            Optional<Operation> operation = convert(sqlNode);
+            if (!operation.isPresent()) {
+                throw new SqlValidateException(
+                        sqlNode.getParserPosition(), "Unsupported statement: " + sqlNode.getKind());
+            }
+            operations.add(operation.get());
+        }
+        return operations;
+    }
 }
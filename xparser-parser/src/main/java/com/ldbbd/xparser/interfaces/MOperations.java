@@ -1,7 +1,13 @@
 package com.ldbbd.xparser.interfaces;
 
-public interface MOperations {
-
+import java.util.List;
 
+/**
+ * Marker of the CURD category an {@link com.ldbbd.xparser.operations.Operation} belongs to, see
+ * {@link com.ldbbd.xparser.interfaces.operations}.
+ */
+public interface MOperations {
 
+    /** Returns the fully qualified name of the object this operation acts on. */
+    List<String> getTargetIdentifier();
 }
@@ -3,9 +3,9 @@ package com.ldbbd.xparser.interfaces.operations;
 
 import com.ldbbd.xparser.interfaces.MOperations;
 
+/** Operations that create a new catalog object, e.g. {@code CREATE TABLE}. */
 public interface MCreateOperation extends MOperations {
 
-
-
-
+    /** Whether the operation is a no-op if the object already exists. */
+    boolean isIgnoreIfExists();
 }
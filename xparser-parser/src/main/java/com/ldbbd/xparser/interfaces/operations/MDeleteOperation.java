@@ -1,5 +1,10 @@
 package com.ldbbd.xparser.interfaces.operations;
 
 import com.ldbbd.xparser.interfaces.MOperations;
+
+/** Operations that remove a catalog object, e.g. {@code DROP TABLE}. */
 public interface  MDeleteOperation extends   MOperations{
+
+    /** Whether the operation is a no-op if the object does not exist. */
+    boolean isIfExists();
 }
@@ -2,5 +2,6 @@ package com.ldbbd.xparser.interfaces.operations;
 
 import com.ldbbd.xparser.interfaces.MOperations;
 
+/** Operations that replace the content of an existing object, e.g. {@code INSERT OVERWRITE}. */
 public interface MReplaceOperation extends MOperations{
 }
@@ -2,5 +2,6 @@ package com.ldbbd.xparser.interfaces.operations;
 
 import com.ldbbd.xparser.interfaces.MOperations;
 
+/** Operations that modify an existing object or its data, e.g. {@code INSERT} or {@code ALTER}. */
 public interface MUpdateOPeration extends MOperations{
 }
@@ -1,7 +1,38 @@
 package com.ldbbd.xparser.operations;
 
-import java.util.Optional;
+import org.apache.calcite.sql.SqlKind;
 
-public class Operation {
+/**
+ * Base class of all operations produced by the parser. An operation is the immutable, parser
+ * independent description of a single statement and is what gets handed over to execution.
+ *
+ * <p>Operations never share nodes with the parse tree they were converted from: the {@link
+ * org.apache.calcite.sql.SqlNode}s they expose, like the source query of an insert, are deep copies
+ * taken on construction, so changing the parse tree afterwards does not change the operation. The
+ * exposed nodes must be treated as read only, copy them with {@link extended.SqlNodeCopier#copy}
+ * to change them. Operations can then be cached and shared between threads freely.
+ */
+public abstract class Operation {
 
+    private final SqlKind kind;
+
+    protected Operation(SqlKind kind) {
+        this.kind = kind;
+    }
+
+    /** Returns the kind of the statement this operation was converted from. */
+    public SqlKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns a string that summarizes this operation for printing to a console. An
+     * implementation might skip very specific properties.
+     */
+    public abstract String asSummaryString();
+
+    @Override
+    public String toString() {
+        return asSummaryString();
+    }
 }
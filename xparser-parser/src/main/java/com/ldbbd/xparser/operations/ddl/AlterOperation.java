@@ -0,0 +1,47 @@
+package com.ldbbd.xparser.operations.ddl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ldbbd.xparser.interfaces.operations.MUpdateOPeration;
+import com.ldbbd.xparser.operations.Operation;
+import org.apache.calcite.sql.SqlKind;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operation to describe an ALTER statement, e.g. ALTER TABLE or ALTER VIEW, and the {@code SET}
+ * option statements which Calcite models as {@link SqlKind#SET_OPTION}.
+ *
+ * <p>The altered object type is given by {@link #getKind()}, the changed properties are kept as
+ * plain strings so that the operation does not reference the parse tree.
+ */
+public final class AlterOperation extends Operation implements MUpdateOPeration {
+
+    private final List<String> identifier;
+    private final Map<String, String> properties;
+
+    public AlterOperation(SqlKind kind, List<String> identifier, Map<String, String> properties) {
+        super(kind);
+        this.identifier = ImmutableList.copyOf(identifier);
+        this.properties = ImmutableMap.copyOf(properties);
+    }
+
+    @Override
+    public List<String> getTargetIdentifier() {
+        return identifier;
+    }
+
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    @Override
+    public String asSummaryString() {
+        return String.format(
+                "%s: (identifier: [%s], properties: %s)",
+                getKind().sql.replace('_', ' '),
+                String.join(".", identifier),
+                properties);
+    }
+}
@@ -0,0 +1,215 @@
+package com.ldbbd.xparser.operations.ddl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ldbbd.xparser.interfaces.operations.MCreateOperation;
+import com.ldbbd.xparser.operations.Operation;
+import ddl.XSqlTimeAttributes;
+import extended.SqlNodeCopier;
+import org.apache.calcite.sql.SqlDataTypeSpec;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlNode;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/** Operation to describe a CREATE TABLE statement. */
+public final class CreateTableOperation extends Operation implements MCreateOperation {
+
+    private final List<String> tableIdentifier;
+    private final List<Column> columns;
+    private final List<String> primaryKey;
+    private final List<String> partitionKeys;
+    private final Map<String, String> options;
+    private final XSqlTimeAttributes timeAttributes;
+    private final @Nullable String comment;
+    private final boolean ignoreIfExists;
+    private final boolean isTemporary;
+
+    public CreateTableOperation(
+            List<String> tableIdentifier,
+            List<Column> columns,
+            List<String> primaryKey,
+            List<String> partitionKeys,
+            Map<String, String> options,
+            XSqlTimeAttributes timeAttributes,
+            @Nullable String comment,
+            boolean ignoreIfExists,
+            boolean isTemporary) {
+        super(SqlKind.CREATE_TABLE);
+        this.tableIdentifier = ImmutableList.copyOf(tableIdentifier);
+        this.columns = ImmutableList.copyOf(columns);
+        this.primaryKey = ImmutableList.copyOf(primaryKey);
+        this.partitionKeys = ImmutableList.copyOf(partitionKeys);
+        this.options = ImmutableMap.copyOf(options);
+        this.timeAttributes = requireNonNull(timeAttributes);
+        this.comment = comment;
+        this.ignoreIfExists = ignoreIfExists;
+        this.isTemporary = isTemporary;
+    }
+
+    @Override
+    public List<String> getTargetIdentifier() {
+        return tableIdentifier;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /** Returns the primary key columns, empty if the table declares no primary key. */
+    public List<String> getPrimaryKey() {
+        return primaryKey;
+    }
+
+    public List<String> getPartitionKeys() {
+        return partitionKeys;
+    }
+
+    public Map<String, String> getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns the rowtime, watermark delay and processing time columns of the table, {@link
+     * XSqlTimeAttributes#NONE} if it declares none.
+     */
+    public XSqlTimeAttributes getTimeAttributes() {
+        return timeAttributes;
+    }
+
+    public Optional<String> getComment() {
+        return Optional.ofNullable(comment);
+    }
+
+    @Override
+    public boolean isIgnoreIfExists() {
+        return ignoreIfExists;
+    }
+
+    public boolean isTemporary() {
+        return isTemporary;
+    }
+
+    @Override
+    public String asSummaryString() {
+        return String.format(
+                "CREATE %sTABLE: (identifier: [%s], columns: %s, primaryKey: %s, "
+                        + "partitionKeys: %s, options: %s, ignoreIfExists: %s)",
+                isTemporary ? "TEMPORARY " : "",
+                String.join(".", tableIdentifier),
+                columns,
+                primaryKey,
+                partitionKeys,
+                options,
+                ignoreIfExists);
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** Kinds of columns a table can declare. */
+    public enum ColumnKind {
+        /** A regular, physical column. */
+        REGULAR,
+        /** A column derived from metadata. */
+        METADATA,
+        /** A column derived from an expression. */
+        COMPUTED
+    }
+
+    /**
+     * Immutable description of a single column of a {@link CreateTableOperation}. The type and the
+     * expression are private copies of the parsed ones, see {@link Operation}.
+     */
+    public static final class Column {
+
+        private final String name;
+        private final ColumnKind kind;
+        private final @Nullable SqlDataTypeSpec type;
+        private final @Nullable SqlNode expression;
+        private final @Nullable String metadataAlias;
+        private final boolean isVirtual;
+        private final @Nullable String comment;
+
+        private Column(
+                String name,
+                ColumnKind kind,
+                @Nullable SqlDataTypeSpec type,
+                @Nullable SqlNode expression,
+                @Nullable String metadataAlias,
+                boolean isVirtual,
+                @Nullable String comment) {
+            this.name = requireNonNull(name, "Column name should not be null");
+            this.kind = kind;
+            this.type = type == null ? null : (SqlDataTypeSpec) SqlNodeCopier.copy(type);
+            this.expression = expression == null ? null : SqlNodeCopier.copy(expression);
+            this.metadataAlias = metadataAlias;
+            this.isVirtual = isVirtual;
+            this.comment = comment;
+        }
+
+        public static Column regular(String name, SqlDataTypeSpec type, @Nullable String comment) {
+            return new Column(name, ColumnKind.REGULAR, type, null, null, false, comment);
+        }
+
+        public static Column metadata(
+                String name,
+                SqlDataTypeSpec type,
+                @Nullable String metadataAlias,
+                boolean isVirtual,
+                @Nullable String comment) {
+            return new Column(
+                    name, ColumnKind.METADATA, type, null, metadataAlias, isVirtual, comment);
+        }
+
+        public static Column computed(String name, SqlNode expression, @Nullable String comment) {
+            return new Column(name, ColumnKind.COMPUTED, null, expression, null, false, comment);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public ColumnKind getKind() {
+            return kind;
+        }
+
+        /** Returns the declared type, empty for computed columns. It must not be changed. */
+        public Optional<SqlDataTypeSpec> getType() {
+            return Optional.ofNullable(type);
+        }
+
+        /** Returns the expression of a computed column. It must not be changed. */
+        public Optional<SqlNode> getExpression() {
+            return Optional.ofNullable(expression);
+        }
+
+        public Optional<String> getMetadataAlias() {
+            return Optional.ofNullable(metadataAlias);
+        }
+
+        public boolean isVirtual() {
+            return isVirtual;
+        }
+
+        public Optional<String> getComment() {
+            return Optional.ofNullable(comment);
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case COMPUTED:
+                    return name + " AS " + expression;
+                case METADATA:
+                    return name + " " + type + " METADATA" + (isVirtual ? " VIRTUAL" : "");
+                default:
+                    return name + " " + type;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ldbbd.xparser.operations.ddl;
+
+import com.google.common.collect.ImmutableList;
+import com.ldbbd.xparser.interfaces.operations.MDeleteOperation;
+import com.ldbbd.xparser.operations.Operation;
+import org.apache.calcite.sql.SqlKind;
+
+import java.util.List;
+
+/**
+ * Operation to describe a DROP statement, e.g. DROP TABLE or DROP VIEW. The dropped object type
+ * is given by {@link #getKind()}.
+ */
+public final class DropOperation extends Operation implements MDeleteOperation {
+
+    private final List<String> identifier;
+    private final boolean ifExists;
+    private final boolean isTemporary;
+
+    public DropOperation(
+            SqlKind kind, List<String> identifier, boolean ifExists, boolean isTemporary) {
+        super(kind);
+        this.identifier = ImmutableList.copyOf(identifier);
+        this.ifExists = ifExists;
+        this.isTemporary = isTemporary;
+    }
+
+    @Override
+    public List<String> getTargetIdentifier() {
+        return identifier;
+    }
+
+    @Override
+    public boolean isIfExists() {
+        return ifExists;
+    }
+
+    public boolean isTemporary() {
+        return isTemporary;
+    }
+
+    @Override
+    public String asSummaryString() {
+        return String.format(
+                "%s: (identifier: [%s], IfExists: [%s], isTemporary: [%s])",
+                getKind().sql.replace('_', ' '),
+                String.join(".", identifier),
+                ifExists,
+                isTemporary);
+    }
+}
@@ -0,0 +1,153 @@
+package com.ldbbd.xparser.operations.dml;
+
+import com.google.common.collect.ImmutableList;
+import com.ldbbd.xparser.interfaces.operations.MReplaceOperation;
+import com.ldbbd.xparser.interfaces.operations.MUpdateOPeration;
+import com.ldbbd.xparser.operations.Operation;
+import ddl.XSqlPartitionSpec;
+import extended.SqlNodeCopier;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlNode;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Operation to describe an INSERT, INSERT OVERWRITE or UPSERT statement.
+ *
+ * <p>INSERT adds to the target and is an {@link MUpdateOPeration}, INSERT OVERWRITE and UPSERT
+ * replace data of the target, all of it or the rows of the same key, and are {@link
+ * MReplaceOperation}s.
+ *
+ * <p>The source query is kept as a {@link SqlNode} because its planning is not the concern of
+ * the parser. It is a private copy of the parsed query, see {@link Operation}: Calcite's query
+ * nodes are mutable and the validator rewrites them in place, e.g. it expands the select list of
+ * {@code SELECT *}, so validating the parsed statement would otherwise change an operation that
+ * might already be cached or used by another thread.
+ */
+public abstract class InsertOperation extends Operation {
+
+    private final List<String> targetIdentifier;
+    private final List<String> targetColumns;
+    private final XSqlPartitionSpec staticPartitions;
+    private final SqlNode source;
+    private final boolean isUpsert;
+    private final boolean isOverwrite;
+
+    private InsertOperation(
+            List<String> targetIdentifier,
+            List<String> targetColumns,
+            XSqlPartitionSpec staticPartitions,
+            SqlNode source,
+            boolean isUpsert,
+            boolean isOverwrite) {
+        super(SqlKind.INSERT);
+        if (isUpsert && isOverwrite) {
+            throw new IllegalArgumentException("An UPSERT does not overwrite");
+        }
+        this.targetIdentifier = ImmutableList.copyOf(targetIdentifier);
+        this.targetColumns = ImmutableList.copyOf(targetColumns);
+        this.staticPartitions = requireNonNull(staticPartitions);
+        this.source = SqlNodeCopier.copy(requireNonNull(source));
+        this.isUpsert = isUpsert;
+        this.isOverwrite = isOverwrite;
+    }
+
+    /**
+     * Creates the operation of an insert, a {@link MReplaceOperation} if it is an UPSERT or an
+     * INSERT OVERWRITE, a {@link MUpdateOPeration} otherwise.
+     */
+    public static InsertOperation of(
+            List<String> targetIdentifier,
+            List<String> targetColumns,
+            XSqlPartitionSpec staticPartitions,
+            SqlNode source,
+            boolean isUpsert,
+            boolean isOverwrite) {
+        if (isUpsert || isOverwrite) {
+            return new Replace(
+                    targetIdentifier,
+                    targetColumns,
+                    staticPartitions,
+                    source,
+                    isUpsert,
+                    isOverwrite);
+        }
+        return new Append(targetIdentifier, targetColumns, staticPartitions, source);
+    }
+
+    public List<String> getTargetIdentifier() {
+        return targetIdentifier;
+    }
+
+    /** Returns the explicitly listed target columns, empty if the statement lists none. */
+    public List<String> getTargetColumns() {
+        return targetColumns;
+    }
+
+    /**
+     * Returns the static partitions of {@code PARTITION (...)}, {@link XSqlPartitionSpec#EMPTY}
+     * if the statement has none. {@link XSqlPartitionSpec#appendPath} renders their path.
+     */
+    public XSqlPartitionSpec getStaticPartitions() {
+        return staticPartitions;
+    }
+
+    /** Returns the source query, which must not be changed. */
+    public SqlNode getSource() {
+        return source;
+    }
+
+    public boolean isUpsert() {
+        return isUpsert;
+    }
+
+    public boolean isOverwrite() {
+        return isOverwrite;
+    }
+
+    @Override
+    public String asSummaryString() {
+        return String.format(
+                "%s: (identifier: [%s], partition: %s, columns: %s)",
+                isUpsert ? "UPSERT INTO" : isOverwrite ? "INSERT OVERWRITE" : "INSERT INTO",
+                String.join(".", targetIdentifier),
+                staticPartitions.toPath(),
+                targetColumns);
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** An INSERT INTO, which adds to the target. */
+    private static final class Append extends InsertOperation implements MUpdateOPeration {
+
+        private Append(
+                List<String> targetIdentifier,
+                List<String> targetColumns,
+                XSqlPartitionSpec staticPartitions,
+                SqlNode source) {
+            super(targetIdentifier, targetColumns, staticPartitions, source, false, false);
+        }
+    }
+
+    /** An INSERT OVERWRITE or UPSERT, which replaces data of the target. */
+    private static final class Replace extends InsertOperation implements MReplaceOperation {
+
+        private Replace(
+                List<String> targetIdentifier,
+                List<String> targetColumns,
+                XSqlPartitionSpec staticPartitions,
+                SqlNode source,
+                boolean isUpsert,
+                boolean isOverwrite) {
+            super(
+                    targetIdentifier,
+                    targetColumns,
+                    staticPartitions,
+                    source,
+                    isUpsert,
+                    isOverwrite);
+        }
+    }
+}
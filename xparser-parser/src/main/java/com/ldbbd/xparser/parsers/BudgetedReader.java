@@ -0,0 +1,41 @@
+package com.ldbbd.xparser.parsers;
+
+import org.apache.calcite.util.SourceStringReader;
+
+/**
+ * The reader the generated token manager pulls a {@link String} statement from when a {@link
+ * ParseBudget} is in effect.
+ *
+ * <p>It hands out the statement in small chunks and checks its {@link ParseGuard} on every read
+ * and whenever the generated parser runs it.
+ *
+ * <p>It extends {@link SourceStringReader} so that the generated parser still knows the original
+ * SQL for error messages.
+ */
+final class BudgetedReader extends SourceStringReader implements Runnable {
+
+    private final ParseGuard guard;
+
+    BudgetedReader(String sql, ParseGuard guard) {
+        super(sql);
+        this.guard = guard;
+    }
+
+    /** Checks the guard, called by the generated parser while it parses. */
+    @Override
+    public void run() {
+        guard.check();
+    }
+
+    @Override
+    public int read() throws java.io.IOException {
+        guard.check();
+        return super.read();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws java.io.IOException {
+        guard.check();
+        return super.read(cbuf, off, Math.min(len, ParseGuard.CHUNK_SIZE));
+    }
+}
@@ -1,53 +1,368 @@
 package com.ldbbd.xparser.parsers;
 
+import com.ldbbd.error.ParseBudgetExceededException;
+import com.ldbbd.error.SqlParserException;
+import com.ldbbd.xparser.extensions.ExtensionRegistry;
+import com.ldbbd.xparser.extensions.StatementExtension;
 import org.apache.calcite.sql.SqlIdentifier;
 import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
 import org.apache.calcite.sql.parser.SqlAbstractParserImpl;
 import org.apache.calcite.sql.parser.SqlParseException;
 import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.parser.SqlParserPos;
 import org.apache.calcite.util.SourceStringReader;
 
+import javax.annotation.Nullable;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static java.util.Objects.requireNonNull;
 
 public class CalciteParser {
     private final SqlParser.Config config;
+    private final ParseBudget budget;
+    private final ExtensionRegistry extensions;
 
     public CalciteParser(SqlParser.Config config) {
+        this(config, ParseBudget.UNLIMITED);
+    }
+
+    public CalciteParser(SqlParser.Config config, ParseBudget budget) {
+        this(config, budget, new ExtensionRegistry());
+    }
+
+    /**
+     * Creates a parser that hands statements starting with the keywords of a {@link
+     * StatementExtension} to the extension instead of the generated parser. The registry may be
+     * shared by several parsers and changed while they parse.
+     */
+    public CalciteParser(
+            SqlParser.Config config, ParseBudget budget, ExtensionRegistry extensions) {
         this.config = config;
+        this.budget = budget;
+        this.extensions = requireNonNull(extensions);
+    }
+
+    /**
+     * Parses a SQL statement into a {@link SqlNode}. The {@link SqlNode} is not yet validated.
+     *
+     * @param sql a sql string to parse
+     * @return a parsed sql node
+     * @throws SqlParserException if an exception is thrown when parsing the statement
+     */
+    public SqlNode parse(String sql) {
+        return parse(sql, null);
+    }
+
+    /**
+     * Parses a SQL statement into a {@link SqlNode} under the {@link ParseBudget} of this parser.
+     * The {@link SqlNode} is not yet validated.
+     *
+     * @param sql a sql string to parse
+     * @param cancellation cooperative cancellation flag polled while parsing, or null if the
+     *     parse can not be cancelled
+     * @return a parsed sql node
+     * @throws ParseBudgetExceededException if the statement exceeds the budget or the parse is
+     *     cancelled
+     * @throws SqlParserException if an exception is thrown when parsing the statement
+     */
+    public SqlNode parse(String sql, @Nullable BooleanSupplier cancellation) {
+        return parse(SqlInput.of(sql), cancellation);
+    }
+
+    /**
+     * Parses a SQL statement into a {@link SqlNode} without copying its text into a {@link
+     * String} first, see {@link SqlInput}. The {@link SqlNode} is not yet validated.
+     *
+     * @param input the statement to parse
+     * @return a parsed sql node
+     * @throws SqlParserException if an exception is thrown when parsing the statement
+     */
+    public SqlNode parse(SqlInput input) {
+        return parse(input, null);
+    }
+
+    /**
+     * Parses a SQL statement into a {@link SqlNode} under the {@link ParseBudget} of this parser,
+     * without copying its text into a {@link String} first. The {@link SqlNode} is not yet
+     * validated.
+     *
+     * @param input the statement to parse
+     * @param cancellation cooperative cancellation flag polled while parsing, or null if the
+     *     parse can not be cancelled
+     * @return a parsed sql node
+     * @throws ParseBudgetExceededException if the statement exceeds the budget or the parse is
+     *     cancelled
+     * @throws SqlParserException if an exception is thrown when parsing the statement
+     */
+    public SqlNode parse(SqlInput input, @Nullable BooleanSupplier cancellation) {
+        return parseStatement(input, cancellation, budget.requiresPreScan());
+    }
+
+    /**
+     * Parses a SQL statement like {@link #parse(SqlInput, BooleanSupplier)} and returns it
+     * together with its {@link StatementComplexity}. The complexity is collected by the pass over
+     * the tokens that checks the {@link ParseBudget}, which this parse runs in any case, so it
+     * costs neither a walk of the tree nor a second pass.
+     *
+     * @param input the statement to parse
+     * @param cancellation cooperative cancellation flag polled while parsing, or null if the
+     *     parse can not be cancelled
+     * @return the parsed sql node and its complexity
+     * @throws ParseBudgetExceededException if the statement exceeds the budget or the parse is
+     *     cancelled
+     * @throws SqlParserException if an exception is thrown when parsing the statement
+     */
+    public ParseResult parseWithComplexity(
+            SqlInput input, @Nullable BooleanSupplier cancellation) {
+        final StatementComplexity complexity = estimateComplexity(input);
+        return new ParseResult(parseStatement(input, cancellation, false), complexity);
+    }
+
+    /**
+     * Estimates the {@link StatementComplexity} of a SQL statement without parsing it, e.g. to
+     * reject or queue an expensive statement before any parser time is spent on it. The estimate
+     * takes microseconds, about as long as reading the statement.
+     *
+     * @param input the statement to estimate
+     * @return the complexity of the statement
+     * @throws ParseBudgetExceededException if the statement has more tokens or is nested deeper
+     *     than the budget allows
+     */
+    public StatementComplexity estimateComplexity(SqlInput input) {
+        return ComplexityScanner.scan(input.scanChars(), budget, config);
+    }
+
+    /**
+     * Parses a script of semicolon separated SQL statements under the {@link ParseBudget} of this
+     * parser, e.g. the content of a DDL file. The budget applies to the script as a whole. The
+     * {@link SqlNode}s are not yet validated.
+     *
+     * <p>Statements of {@link StatementExtension}s are parsed by their extension and do not count
+     * against the budget.
+     *
+     * @param input the statements to parse
+     * @param cancellation cooperative cancellation flag polled while parsing, or null if the
+     *     parse can not be cancelled
+     * @return the parsed statements, in script order
+     * @throws ParseBudgetExceededException if the script exceeds the budget or the parse is
+     *     cancelled
+     * @throws SqlParserException if an exception is thrown when parsing the statements
+     */
+    public SqlNodeList parseStatements(SqlInput input, @Nullable BooleanSupplier cancellation) {
+        if (extensions.isEmpty()) {
+            return parse(input, cancellation, SqlParser::parseStmtList, budget.requiresPreScan());
+        }
+        return parseScriptWithExtensions(input, cancellation);
+    }
+
+    public ParseBudget getBudget() {
+        return budget;
+    }
+
+    /** Returns the statement extensions of this parser, which can be changed while it parses. */
+    public ExtensionRegistry getExtensions() {
+        return extensions;
+    }
+
+    /**
+     * Parses a SQL expression into a {@link SqlNode}. The {@link SqlNode} is not yet validated.
+     *
+     * @param sqlExpression a SQL expression string to parse
+     * @return a parsed SQL node
+     * @throws SqlParserException if an exception is thrown when parsing the statement
+     */
+    public SqlNode parseExpression(String sqlExpression) {
+        try {
+            final SqlParser parser = SqlParser.create(sqlExpression, config);
+            return parser.parseExpression();
+        } catch (SqlParseException e) {
+            throw new ParseFailedException(e);
+        }
+    }
+
+    public SqlParser.Config getConfig() {
+        return config;
+    }
+
+    private <T> T parse(
+            SqlInput input,
+            @Nullable BooleanSupplier cancellation,
+            ParseMethod<T> method,
+            boolean preScan) {
+        try {
+            if (preScan) {
+                ComplexityScanner.scan(input.scanChars(), budget, config);
+            }
+            if (budget.getMaxWallTimeNanos() < 0 && cancellation == null) {
+                return method.parse(SqlParser.create(input.reader(), config));
+            }
+            return method.parse(
+                    SqlParser.create(input.reader(new ParseGuard(budget, cancellation)), config));
+        } catch (SqlParseException e) {
+            // Failures of the input itself, e.g. an exceeded budget or malformed UTF-8.
+            for (Throwable t = e.getCause(); t != null; t = t.getCause()) {
+                if (t instanceof SqlParserException) {
+                    throw (SqlParserException) t;
+                }
+            }
+            throw new ParseFailedException(e);
+        }
+    }
+
+    private SqlNode parseStatement(
+            SqlInput input, @Nullable BooleanSupplier cancellation, boolean preScan) {
+        // Only statements of an extension are decoded for it.
+        if (!extensions.isEmpty()) {
+            final CharSequence scanChars = input.scanChars();
+            if (extensions.matches(scanChars, 0, scanChars.length(), config)) {
+                final CharSequence chars = input.chars();
+                final SqlNode node = extensions.parse(chars, 0, chars.length(), config);
+                if (node != null) {
+                    return node;
+                }
+            }
+        }
+        return parse(input, cancellation, SqlParser::parseStmt, preScan);
+    }
+
+    /**
+     * Parses a script some of whose statements may belong to extensions. Extension statements are
+     * parsed one by one, then blanked out of the script, keeping line breaks, so that all other
+     * statements are parsed in one go with their original positions. Scripts without extension
+     * statements are parsed right away, without decoding byte input.
+     */
+    private SqlNodeList parseScriptWithExtensions(
+            SqlInput input, @Nullable BooleanSupplier cancellation) {
+        if (!hasExtensionStatement(input.scanChars())) {
+            return parse(input, cancellation, SqlParser::parseStmtList, budget.requiresPreScan());
+        }
+        final CharSequence chars = input.chars();
+        final SqlTokenScanner scanner = new SqlTokenScanner(chars, config);
+        // One slot per statement, null for those of the generated parser.
+        final List<SqlNode> statements = new ArrayList<>();
+        StringBuilder blanked = null;
+        int generated = 0;
+        int start = 0;
+        boolean empty = true;
+        while (true) {
+            final SqlTokenScanner.TokenType type = scanner.next();
+            if (type != SqlTokenScanner.TokenType.EOF && !scanner.isSymbol(';')) {
+                empty = false;
+                continue;
+            }
+            final int end = scanner.tokenStart();
+            if (!empty) {
+                final SqlNode node = extensions.parse(chars, start, end, config);
+                statements.add(node);
+                if (node == null) {
+                    generated++;
+                } else {
+                    if (blanked == null) {
+                        blanked = new StringBuilder(chars);
+                    }
+                    blank(blanked, start, scanner.tokenEnd());
+                }
+            }
+            if (type == SqlTokenScanner.TokenType.EOF) {
+                break;
+            }
+            start = scanner.tokenEnd();
+            empty = true;
+        }
+        if (blanked == null) {
+            return parse(input, cancellation, SqlParser::parseStmtList, budget.requiresPreScan());
+        }
+
+        final List<SqlNode> parsed =
+                generated == 0
+                        ? new ArrayList<>()
+                        : parse(
+                                        SqlInput.of(blanked.toString()),
+                                        cancellation,
+                                        SqlParser::parseStmtList,
+                                        budget.requiresPreScan())
+                                .getList();
+        if (parsed.size() != generated) {
+            throw new SqlParserException(
+                    String.format(
+                            "SQL parse failed. The script splits into %d statements, but the"
+                                    + " parser found %d.",
+                            generated, parsed.size()));
+        }
+        int next = 0;
+        for (int i = 0; i < statements.size(); i++) {
+            if (statements.get(i) == null) {
+                statements.set(i, parsed.get(next++));
+            }
+        }
+        return new SqlNodeList(statements, SqlParserPos.ZERO);
+    }
+
+    /** Whether any statement of a script starts with the keywords of an extension. */
+    private boolean hasExtensionStatement(CharSequence script) {
+        final SqlTokenScanner scanner = new SqlTokenScanner(script, config);
+        int start = 0;
+        boolean empty = true;
+        while (true) {
+            final SqlTokenScanner.TokenType type = scanner.next();
+            if (type != SqlTokenScanner.TokenType.EOF && !scanner.isSymbol(';')) {
+                empty = false;
+                continue;
+            }
+            if (!empty && extensions.matches(script, start, scanner.tokenStart(), config)) {
+                return true;
+            }
+            if (type == SqlTokenScanner.TokenType.EOF) {
+                return false;
+            }
+            start = scanner.tokenEnd();
+            empty = true;
+        }
+    }
+
+    /** Replaces a range of the script with spaces, except for line breaks. */
+    private static void blank(StringBuilder script, int start, int end) {
+        for (int i = start; i < end; i++) {
+            final char c = script.charAt(i);
+            if (c != '\n' && c != '\r') {
+                script.setCharAt(i, ' ');
+            }
+        }
+    }
+
+    /** One of the parse methods of {@link SqlParser}. */
+    @FunctionalInterface
+    private interface ParseMethod<T> {
+        T parse(SqlParser parser) throws SqlParseException;
+    }
+
+    /**
+     * A syntax error of the generated parser. The message is formatted when it is first read,
+     * e.g. not at all for errors that are only counted, see the {@code FastFailParserImpl}
+     * variants of the generated parsers.
+     */
+    private static final class ParseFailedException extends SqlParserException {
+        private volatile @Nullable String message;
+
+        ParseFailedException(SqlParseException cause) {
+            super(null, cause);
+        }
+
+        @Override
+        public String getMessage() {
+            String message = this.message;
+            if (message == null) {
+                message = "SQL parse failed. " + getCause().getMessage();
+                this.message = message;
+            }
+            return message;
+        }
     }
 
-//    /**
-//     * Parses a SQL statement into a {@link SqlNode}. The {@link SqlNode} is not yet validated.
-//     *
-//     * @param sql a sql string to parse
-//     * @return a parsed sql node
-//     * @throws SqlParserException if an exception is thrown when parsing the statement
-//     */
-//    public SqlNode parse(String sql) {
-//        try {
-//            SqlParser parser = SqlParser.create(sql, config);
-//            return parser.parseStmt();
-//        } catch (SqlParseException e) {
-//            throw new SqlParserException("SQL parse failed. " + e.getMessage(), e);
-//        }
-//    }
-//
-//    /**
-//     * Parses a SQL expression into a {@link SqlNode}. The {@link SqlNode} is not yet validated.
-//     *
-//     * @param sqlExpression a SQL expression string to parse
-//     * @return a parsed SQL node
-//     * @throws SqlParserException if an exception is thrown when parsing the statement
-//     */
-//    public SqlNode parseExpression(String sqlExpression) {
-//        try {
-//            final SqlParser parser = SqlParser.create(sqlExpression, config);
-//            return parser.parseExpression();
-//        } catch (SqlParseException e) {
-//            throw new SqlParserException("SQL parse failed. " + e.getMessage(), e);
-//        }
-//    }
-//
 //    /**
 //     * Parses a SQL string as an identifier into a {@link SqlIdentifier}.
 //     *
@@ -0,0 +1,69 @@
+package com.ldbbd.xparser.parsers;
+
+import javax.annotation.Nullable;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * A reader over a {@link CharSequence}, e.g. a {@link StringBuilder} or a {@link CharBuffer},
+ * which copies the characters straight into the buffer of the generated token manager instead of
+ * materializing a {@link String} first.
+ *
+ * <p>The sequence must not change while it is read.
+ */
+final class CharSequenceReader extends Reader implements Runnable {
+
+    private final CharSequence chars;
+    private final int length;
+    private final @Nullable CharBuffer buffer;
+    private final @Nullable ParseGuard guard;
+
+    private int pos;
+
+    CharSequenceReader(CharSequence chars, @Nullable ParseGuard guard) {
+        this.chars = chars;
+        this.length = chars.length();
+        // A private view, the position of the caller's buffer is left alone.
+        this.buffer = chars instanceof CharBuffer ? ((CharBuffer) chars).duplicate() : null;
+        this.guard = guard;
+    }
+
+    /** Checks the guard, if any, called by the generated parser while it parses. */
+    @Override
+    public void run() {
+        if (guard != null) {
+            guard.check();
+        }
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) {
+        if (guard != null) {
+            guard.check();
+            len = Math.min(len, ParseGuard.CHUNK_SIZE);
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+        final int n = Math.min(len, length - pos);
+        if (buffer != null) {
+            buffer.get(cbuf, off, n);
+        } else if (chars instanceof String) {
+            ((String) chars).getChars(pos, pos + n, cbuf, off);
+        } else if (chars instanceof StringBuilder) {
+            ((StringBuilder) chars).getChars(pos, pos + n, cbuf, off);
+        } else {
+            for (int i = 0; i < n; i++) {
+                cbuf[off + i] = chars.charAt(pos + i);
+            }
+        }
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public void close() {}
+}
@@ -0,0 +1,72 @@
+package com.ldbbd.xparser.parsers;
+
+import org.apache.calcite.sql.SqlKind;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The kind, target and flags of a statement as read by the {@link StatementClassifier}, without
+ * parsing it.
+ *
+ * <p>The kind is the {@link SqlKind} of the node {@link CalciteParser#parse(String)} returns for
+ * the statement, so that routing on {@link SqlKind#DDL}, {@link SqlKind#DML} or {@link
+ * SqlKind#QUERY} works the same with and without a parse.
+ */
+public final class ClassifiedStatement {
+
+    /** Options of a statement which are visible in its leading tokens. */
+    public enum Flag {
+        /** {@code CREATE OR REPLACE ...} */
+        OR_REPLACE,
+        /** {@code CREATE TEMPORARY ...} or {@code DROP TEMPORARY ...} */
+        TEMPORARY,
+        /** {@code CREATE ... IF NOT EXISTS} */
+        IF_NOT_EXISTS,
+        /** {@code DROP ... IF EXISTS} */
+        IF_EXISTS,
+        /** {@code UPSERT INTO ...} rather than {@code INSERT INTO ...} */
+        UPSERT
+    }
+
+    private final SqlKind kind;
+    private final List<String> target;
+    private final Set<Flag> flags;
+
+    ClassifiedStatement(SqlKind kind, List<String> target, Set<Flag> flags) {
+        this.kind = kind;
+        this.target = Collections.unmodifiableList(target);
+        this.flags = Collections.unmodifiableSet(flags);
+    }
+
+    /** Returns the kind of the node a parse of the statement returns. */
+    public SqlKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the names of the compound identifier the statement operates on, e.g. the table of
+     * {@code CREATE TABLE}, {@code INSERT INTO} or {@code DROP TABLE} or the option of {@code
+     * SET}, or an empty list for queries and {@code EXPLAIN}.
+     *
+     * <p>The names are cased and unquoted like the names of the {@link
+     * org.apache.calcite.sql.SqlIdentifier} the parser creates.
+     */
+    public List<String> getTarget() {
+        return target;
+    }
+
+    public Set<Flag> getFlags() {
+        return flags;
+    }
+
+    public boolean hasFlag(Flag flag) {
+        return flags.contains(flag);
+    }
+
+    @Override
+    public String toString() {
+        return kind + (target.isEmpty() ? "" : " " + String.join(".", target)) + " " + flags;
+    }
+}
@@ -0,0 +1,457 @@
+package com.ldbbd.xparser.parsers;
+
+import com.ldbbd.error.ParseBudgetExceededException;
+import org.apache.calcite.sql.parser.SqlParser;
+
+import java.util.Arrays;
+
+/**
+ * Checks the token count and nesting depth of a statement against a {@link ParseBudget} and
+ * estimates its {@link StatementComplexity}, in one linear pass over its tokens, so that oversized
+ * statements never reach the backtracking lookahead of the generated parser.
+ *
+ * <p>Nesting counts parentheses, brackets and the angle brackets of {@code ROW<...>}, {@code
+ * MAP<...>} and {@code ARRAY<...>} types, as well as chained postfix collection types such as
+ * {@code INT ARRAY ARRAY}. Brackets are symbols unless the dialect quotes identifiers with them,
+ * then {@code [a]} is one identifier token and does not nest.
+ *
+ * <p>The complexity is tracked on a stack of frames, one for the statement and one per open
+ * parenthesis or angle bracket, which remember what the frame is: a query, its {@code FROM}
+ * clause, an {@code IN} list, a {@code VALUES} clause, a row or collection type or the column
+ * list of {@code CREATE TABLE}. Words are told apart by their first letter before they are
+ * compared, so a token costs a few comparisons.
+ */
+final class ComplexityScanner {
+
+    // Flags of a frame.
+    private static final int QUERY = 1;
+    private static final int FROM = 1 << 1;
+    private static final int IN_LIST = 1 << 2;
+    private static final int VALUES = 1 << 3;
+    private static final int TYPE = 1 << 4;
+    private static final int COLUMNS = 1 << 5;
+    private static final int ANGLE = 1 << 6;
+
+    // Words the complexity depends on.
+    private static final int OTHER = 0;
+    private static final int SELECT = 1;
+    private static final int FROM_WORD = 2;
+    private static final int CLAUSE = 3;
+    private static final int JOIN = 4;
+    private static final int IN = 5;
+    private static final int VALUES_WORD = 6;
+    private static final int ROW = 7;
+    private static final int MAP = 8;
+    private static final int COLLECTION = 9;
+    private static final int NOT_NULL = 10;
+    private static final int AS = 11;
+    private static final int CREATE = 12;
+    private static final int TABLE = 13;
+    private static final int CONSTRAINT = 14;
+    private static final int STRUCTURAL = 15;
+
+    // States of CREATE TABLE.
+    private static final int NO_TABLE = 0;
+    private static final int CREATE_SEEN = 1;
+    private static final int AWAITING_COLUMNS = 2;
+    private static final int TABLE_DONE = 3;
+
+    private final SqlTokenScanner scanner;
+    private final int maxTokens;
+    private final int maxDepth;
+
+    private int[] flags = new int[16];
+    private int[] items = new int[16];
+    private int top;
+
+    private int tokens;
+    private int nodes;
+    private int joins;
+    private int queryFrames;
+    private int subqueryDepth;
+    private int maxInListSize;
+    private int valuesRows;
+    private int typeFrames;
+    private int typeNestingDepth;
+    private int columns;
+    private int createTable = NO_TABLE;
+    private boolean expectColumn;
+    private boolean rowIsType;
+
+    private ComplexityScanner(CharSequence sql, ParseBudget budget, SqlParser.Config config) {
+        this.scanner = new SqlTokenScanner(sql, config);
+        this.maxTokens = budget.getMaxTokens();
+        this.maxDepth = budget.getMaxNestingDepth();
+    }
+
+    /**
+     * Scans a statement.
+     *
+     * @param config the config the statement is parsed with, for quoting
+     * @throws ParseBudgetExceededException if the statement has more tokens or is nested deeper
+     *     than the budget allows
+     */
+    static StatementComplexity scan(CharSequence sql, ParseBudget budget, SqlParser.Config config) {
+        return new ComplexityScanner(sql, budget, config).scan();
+    }
+
+    private StatementComplexity scan() {
+        int depth = 0;
+        int angleDepth = 0;
+        int postfixCollections = 0;
+        // Postfix collection types whose depth counts once the token after them is known.
+        int pendingPostfix = 0;
+        boolean previousIsTypeConstructor = false;
+        int previousWord = OTHER;
+        SqlTokenScanner.TokenType type;
+        while ((type = scanner.next()) != SqlTokenScanner.TokenType.EOF) {
+            if (maxTokens >= 0 && tokens >= maxTokens) {
+                throw new ParseBudgetExceededException(
+                        ParseBudget.Limit.TOKENS,
+                        "SQL statement exceeds the maximum of " + maxTokens + " tokens.");
+            }
+            tokens++;
+            final boolean isSymbol = type == SqlTokenScanner.TokenType.SYMBOL;
+            final int word = type == SqlTokenScanner.TokenType.WORD ? word() : OTHER;
+            if (pendingPostfix > 0) {
+                // ARRAY[...], ARRAY(...) and MULTISET[...] construct values. A bracket quoted
+                // identifier after a type is not a symbol and counts the type.
+                if (!(isSymbol && (scanner.firstChar() == '(' || scanner.firstChar() == '['))) {
+                    typeNestingDepth = Math.max(typeNestingDepth, typeFrames + pendingPostfix);
+                }
+                pendingPostfix = 0;
+            }
+            if (expectColumn && !(isSymbol && scanner.firstChar() == ',')) {
+                expectColumn = false;
+                if (word != CONSTRAINT && !(isSymbol && scanner.firstChar() == ')')) {
+                    columns++;
+                }
+            }
+            boolean isTypeConstructor = false;
+            if (isSymbol) {
+                switch (scanner.firstChar()) {
+                    case '(':
+                    case '[':
+                        depth++;
+                        open(previousWord);
+                        break;
+                    case ')':
+                    case ']':
+                        depth = Math.max(0, depth - 1);
+                        close();
+                        break;
+                    case '<':
+                        if (previousIsTypeConstructor) {
+                            depth++;
+                            angleDepth++;
+                            push(ANGLE | TYPE);
+                        } else {
+                            nodes++;
+                        }
+                        break;
+                    case '>':
+                        if (angleDepth > 0) {
+                            angleDepth--;
+                            depth--;
+                            if ((flags[top] & ANGLE) != 0) {
+                                pop();
+                            }
+                        } else {
+                            nodes++;
+                        }
+                        break;
+                    case ',':
+                        comma();
+                        break;
+                    case '+':
+                    case '-':
+                    case '*':
+                    case '/':
+                    case '%':
+                    case '=':
+                    case '|':
+                        nodes++;
+                        break;
+                    default:
+                        break;
+                }
+                // Any symbol, including the '<' of the prefix form ARRAY<...>, ends a chain of
+                // postfix collection types.
+                postfixCollections = 0;
+            } else {
+                if (word == OTHER
+                        || word == IN
+                        || word == NOT_NULL
+                        || word == ROW
+                        || word == MAP
+                        || word == COLLECTION) {
+                    nodes++;
+                }
+                onWord(word, previousWord);
+                if (word == COLLECTION) {
+                    isTypeConstructor = true;
+                    pendingPostfix = ++postfixCollections;
+                } else if (word == ROW || word == MAP) {
+                    isTypeConstructor = true;
+                    postfixCollections = 0;
+                } else if (word != NOT_NULL) {
+                    postfixCollections = 0;
+                }
+            }
+            if (maxDepth >= 0 && depth + postfixCollections > maxDepth) {
+                throw new ParseBudgetExceededException(
+                        ParseBudget.Limit.NESTING_DEPTH,
+                        "SQL statement exceeds the maximum nesting depth of " + maxDepth + ".");
+            }
+            previousIsTypeConstructor = isTypeConstructor;
+            previousWord = word;
+        }
+        if (pendingPostfix > 0) {
+            typeNestingDepth = Math.max(typeNestingDepth, typeFrames + pendingPostfix);
+        }
+        while (top > 0) {
+            pop();
+        }
+        return new StatementComplexity(
+                tokens,
+                nodes,
+                joins,
+                subqueryDepth,
+                maxInListSize,
+                valuesRows,
+                typeNestingDepth,
+                columns);
+    }
+
+    private void onWord(int word, int previousWord) {
+        switch (word) {
+            case SELECT:
+                if ((flags[top] & QUERY) == 0) {
+                    flags[top] |= QUERY;
+                    queryFrames++;
+                    subqueryDepth = Math.max(subqueryDepth, queryFrames - 1);
+                }
+                // IN (SELECT ...) is a subquery, not a list.
+                flags[top] &= ~(FROM | IN_LIST);
+                break;
+            case FROM_WORD:
+                // Not the FROM of EXTRACT(... FROM ...) or DELETE FROM.
+                if ((flags[top] & QUERY) != 0) {
+                    flags[top] |= FROM;
+                }
+                break;
+            case CLAUSE:
+                flags[top] &= ~FROM;
+                break;
+            case JOIN:
+                joins++;
+                break;
+            case VALUES_WORD:
+                flags[top] |= VALUES;
+                break;
+            case ROW:
+                rowIsType = (flags[top] & (COLUMNS | TYPE)) != 0 || previousWord == AS;
+                break;
+            case CREATE:
+                if (tokens == 1) {
+                    createTable = CREATE_SEEN;
+                }
+                break;
+            case TABLE:
+                if (createTable == CREATE_SEEN && top == 0) {
+                    createTable = AWAITING_COLUMNS;
+                }
+                break;
+            default:
+                break;
+        }
+        // CREATE TABLE ... AS SELECT, LIKE or WITH (...) without a column list.
+        if (createTable == AWAITING_COLUMNS
+                && (word == AS
+                        || word == SELECT
+                        || scanner.isWord("LIKE")
+                        || scanner.isWord("WITH"))) {
+            createTable = TABLE_DONE;
+        }
+    }
+
+    /** Opens a parenthesis or bracket. */
+    private void open(int previousWord) {
+        if ((flags[top] & VALUES) != 0) {
+            valuesRows++;
+        }
+        int frame = 0;
+        if (previousWord == IN) {
+            frame |= IN_LIST;
+        } else if (previousWord == ROW && rowIsType) {
+            frame |= TYPE;
+        }
+        if (createTable == AWAITING_COLUMNS && top == 0) {
+            createTable = TABLE_DONE;
+            frame |= COLUMNS;
+            expectColumn = true;
+        }
+        push(frame);
+    }
+
+    /** Closes a parenthesis or bracket, and any angle bracket left open in it. */
+    private void close() {
+        while (top > 0) {
+            final boolean angle = (flags[top] & ANGLE) != 0;
+            pop();
+            if (!angle) {
+                break;
+            }
+        }
+    }
+
+    private void comma() {
+        final int frame = flags[top];
+        if ((frame & FROM) != 0) {
+            joins++;
+        }
+        if ((frame & IN_LIST) != 0) {
+            items[top]++;
+        }
+        if ((frame & COLUMNS) != 0) {
+            expectColumn = true;
+        }
+    }
+
+    private void push(int frame) {
+        if (++top == flags.length) {
+            flags = Arrays.copyOf(flags, top * 2);
+            items = Arrays.copyOf(items, top * 2);
+        }
+        flags[top] = frame;
+        items[top] = 1;
+        if ((frame & TYPE) != 0) {
+            typeFrames++;
+            typeNestingDepth = Math.max(typeNestingDepth, typeFrames);
+        }
+    }
+
+    private void pop() {
+        final int frame = flags[top];
+        if ((frame & QUERY) != 0) {
+            queryFrames--;
+        }
+        if ((frame & IN_LIST) != 0) {
+            maxInListSize = Math.max(maxInListSize, items[top]);
+        }
+        if ((frame & TYPE) != 0) {
+            typeFrames--;
+        }
+        top--;
+    }
+
+    /** Returns which of the words the complexity depends on the current word token is. */
+    private int word() {
+        switch (Character.toUpperCase(scanner.firstChar())) {
+            case 'A':
+                if (scanner.isWord("AS")) {
+                    return AS;
+                }
+                if (scanner.isWord("ARRAY")) {
+                    return COLLECTION;
+                }
+                return scanner.isWord("ALL") ? STRUCTURAL : OTHER;
+            case 'B':
+                return scanner.isWord("BY") ? STRUCTURAL : OTHER;
+            case 'C':
+                if (scanner.isWord("CREATE")) {
+                    return CREATE;
+                }
+                if (scanner.isWord("CONSTRAINT") || scanner.isWord("CHECK")) {
+                    return CONSTRAINT;
+                }
+                return scanner.isWord("CROSS") ? STRUCTURAL : OTHER;
+            case 'D':
+                return scanner.isWord("DISTINCT") ? STRUCTURAL : OTHER;
+            case 'E':
+                return scanner.isWord("EXCEPT") ? CLAUSE : OTHER;
+            case 'F':
+                if (scanner.isWord("FROM")) {
+                    return FROM_WORD;
+                }
+                if (scanner.isWord("FETCH")) {
+                    return CLAUSE;
+                }
+                if (scanner.isWord("FOREIGN")) {
+                    return CONSTRAINT;
+                }
+                return scanner.isWord("FULL") ? STRUCTURAL : OTHER;
+            case 'G':
+                return scanner.isWord("GROUP") ? CLAUSE : OTHER;
+            case 'H':
+                return scanner.isWord("HAVING") ? CLAUSE : OTHER;
+            case 'I':
+                if (scanner.isWord("IN")) {
+                    return IN;
+                }
+                if (scanner.isWord("INTERSECT")) {
+                    return CLAUSE;
+                }
+                return scanner.isWord("INNER")
+                                || scanner.isWord("INTO")
+                                || scanner.isWord("INSERT")
+                        ? STRUCTURAL
+                        : OTHER;
+            case 'J':
+                return scanner.isWord("JOIN") ? JOIN : OTHER;
+            case 'L':
+                if (scanner.isWord("LIMIT")) {
+                    return CLAUSE;
+                }
+                if (scanner.isWord("LIKE")) {
+                    return (flags[top] & COLUMNS) != 0 ? CONSTRAINT : OTHER;
+                }
+                return scanner.isWord("LEFT") ? STRUCTURAL : OTHER;
+            case 'M':
+                if (scanner.isWord("MAP")) {
+                    return MAP;
+                }
+                if (scanner.isWord("MULTISET")) {
+                    return COLLECTION;
+                }
+                return scanner.isWord("MINUS") ? CLAUSE : OTHER;
+            case 'N':
+                return scanner.isWord("NOT") || scanner.isWord("NULL") ? NOT_NULL : OTHER;
+            case 'O':
+                if (scanner.isWord("ORDER") || scanner.isWord("OFFSET")) {
+                    return CLAUSE;
+                }
+                return scanner.isWord("ON") || scanner.isWord("OUTER") ? STRUCTURAL : OTHER;
+            case 'P':
+                return scanner.isWord("PRIMARY") || scanner.isWord("PERIOD") ? CONSTRAINT : OTHER;
+            case 'Q':
+                return scanner.isWord("QUALIFY") ? CLAUSE : OTHER;
+            case 'R':
+                if (scanner.isWord("ROW")) {
+                    return ROW;
+                }
+                return scanner.isWord("RIGHT") ? STRUCTURAL : OTHER;
+            case 'S':
+                return scanner.isWord("SELECT") ? SELECT : OTHER;
+            case 'T':
+                return scanner.isWord("TABLE") ? TABLE : OTHER;
+            case 'U':
+                if (scanner.isWord("UNION")) {
+                    return CLAUSE;
+                }
+                return scanner.isWord("UNIQUE") ? CONSTRAINT : OTHER;
+            case 'V':
+                return scanner.isWord("VALUES") ? VALUES_WORD : OTHER;
+            case 'W':
+                if (scanner.isWord("WHERE") || scanner.isWord("WINDOW")) {
+                    return CLAUSE;
+                }
+                if (scanner.isWord("WATERMARK")) {
+                    return CONSTRAINT;
+                }
+                return scanner.isWord("WITH") ? STRUCTURAL : OTHER;
+            default:
+                return OTHER;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ldbbd.xparser.parsers;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/** The scores of the dialects of a statement as computed by the {@link DialectDetector}. */
+public final class DetectedDialect {
+
+    private final Map<String, Integer> scores;
+    private final List<String> ranking;
+
+    DetectedDialect(Map<String, Integer> scores) {
+        this.scores = Collections.unmodifiableMap(scores);
+        final List<String> ranking = new ArrayList<>(scores.keySet());
+        // Stable, so dialects with equal scores keep the order of the map.
+        ranking.sort((a, b) -> Integer.compare(scores.get(b), scores.get(a)));
+        this.ranking = Collections.unmodifiableList(ranking);
+    }
+
+    /** Returns the dialect with the highest score, or null if no dialect scored at all. */
+    public @Nullable String getDialect() {
+        return scores.get(ranking.get(0)) > 0 ? ranking.get(0) : null;
+    }
+
+    /**
+     * Returns how far the best dialect is ahead of the next one, between 0 and 1: 0 if they are
+     * tied or nothing was found, 1 if no other dialect scored at all.
+     */
+    public double getConfidence() {
+        final int best = scores.get(ranking.get(0));
+        final int next = ranking.size() > 1 ? scores.get(ranking.get(1)) : 0;
+        return best == 0 ? 0 : (double) (best - next) / best;
+    }
+
+    /** Returns all dialects, best first. */
+    public List<String> getRanking() {
+        return ranking;
+    }
+
+    public Map<String, Integer> getScores() {
+        return scores;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s (confidence: %.2f, scores: %s)", getDialect(), getConfidence(), scores);
+    }
+}
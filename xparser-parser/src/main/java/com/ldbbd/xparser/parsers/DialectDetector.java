@@ -0,0 +1,139 @@
+package com.ldbbd.xparser.parsers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Guesses the dialect of a statement from cheap token features, without parsing it.
+ *
+ * <p>One pass of the {@link SqlTokenScanner} scores every dialect by the constructs only it
+ * supports, e.g. {@code STATEMENT SET} for flink or {@code USING parquet}, {@code OPTIONS (...)}
+ * and typed {@code PARTITIONED BY} columns for spark. Constructs shared by several dialects, e.g.
+ * back ticks, {@code WATERMARK FOR} or {@code METADATA} columns, score all of them and so add
+ * nothing to the {@link DetectedDialect#getConfidence() confidence}. Statements of the subset
+ * that flink and xsql share, e.g. a plain {@code CREATE TABLE ... WITH (...)}, cannot be told
+ * apart and are detected with a confidence of 0, see {@link SpeculativeParser}.
+ *
+ * <p>Detection is a single pass over the tokens that allocates nothing per token, a few
+ * microseconds for a typical DDL statement.
+ */
+public final class DialectDetector {
+
+    public static final String FLINK = "flink";
+    public static final String SPARK = "spark";
+    public static final String XSQL = "xsql";
+
+    private DialectDetector() {}
+
+    /** Detects the dialect of a statement. */
+    public static DetectedDialect detect(CharSequence sql) {
+        final SqlTokenScanner scanner = new SqlTokenScanner(sql);
+        boolean backTicks = false;
+        boolean doubleQuotes = false;
+        int flink = 0;
+        int spark = 0;
+        int xsql = 0;
+        while (scanner.next() != SqlTokenScanner.TokenType.EOF) {
+            if (scanner.tokenType() == SqlTokenScanner.TokenType.QUOTED_IDENTIFIER) {
+                backTicks |= scanner.firstChar() == '`';
+                doubleQuotes |= scanner.firstChar() == '"';
+            } else if (scanner.tokenType() != SqlTokenScanner.TokenType.WORD) {
+                continue;
+            } else if (scanner.isWord("STATEMENT") && isFollowedByWord(scanner, "SET")) {
+                flink += 4;
+            } else if (scanner.isWord("METADATA")
+                    || (scanner.isWord("WATERMARK") && isFollowedByWord(scanner, "FOR"))) {
+                flink += 2;
+                xsql += 2;
+            } else if (scanner.isWord("USING")) {
+                // USING parquet, not the USING (columns) of a join.
+                if (isFollowedBy(scanner, SqlTokenScanner.TokenType.WORD)) {
+                    spark += 4;
+                }
+            } else if (scanner.isWord("TBLPROPERTIES")
+                    || (scanner.isWord("STORED") && isFollowedByWord(scanner, "AS"))
+                    || (scanner.isWord("LATERAL") && isFollowedByWord(scanner, "VIEW"))
+                    || (scanner.isWord("CLUSTERED") && isFollowedByWord(scanner, "BY"))) {
+                spark += 3;
+            } else if ((scanner.isWord("OPTIONS") && isFollowedBySymbol(scanner, '('))
+                    || (scanner.isWord("LOCATION")
+                            && isFollowedBy(scanner, SqlTokenScanner.TokenType.STRING))) {
+                spark += 2;
+            } else if (scanner.isWord("PARTITIONED") && isFollowedByWord(scanner, "BY")) {
+                // PARTITIONED BY (a INT) declares columns, PARTITIONED BY (a, b) references them.
+                if (isTypedPartitionColumn(scanner)) {
+                    spark += 2;
+                } else {
+                    flink += 1;
+                    xsql += 1;
+                }
+            } else if (scanner.isWord("WITH") && isFollowedBySymbol(scanner, '(')) {
+                // WITH ('connector' = '...'), not the WITH name AS (...) of a query.
+                flink += 1;
+                xsql += 1;
+            }
+        }
+        if (backTicks) {
+            flink += 1;
+            spark += 1;
+        }
+        if (doubleQuotes) {
+            // Quoted identifiers of standard SQL, flink and spark read them as strings.
+            xsql += 2;
+        }
+        final Map<String, Integer> scores = new LinkedHashMap<>();
+        scores.put(FLINK, flink);
+        scores.put(SPARK, spark);
+        scores.put(XSQL, xsql);
+        return new DetectedDialect(scores);
+    }
+
+    /** Detects the dialect of a statement given as characters or UTF-8 bytes. */
+    public static DetectedDialect detect(SqlInput input) {
+        return detect(input.chars());
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private static boolean isFollowedByWord(SqlTokenScanner scanner, String upperCaseKeyword) {
+        final int start = scanner.tokenStart();
+        scanner.next();
+        final boolean followed = scanner.isWord(upperCaseKeyword);
+        restore(scanner, start);
+        return followed;
+    }
+
+    private static boolean isFollowedBySymbol(SqlTokenScanner scanner, char symbol) {
+        final int start = scanner.tokenStart();
+        scanner.next();
+        final boolean followed = scanner.isSymbol(symbol);
+        restore(scanner, start);
+        return followed;
+    }
+
+    private static boolean isFollowedBy(SqlTokenScanner scanner, SqlTokenScanner.TokenType type) {
+        final int start = scanner.tokenStart();
+        final boolean followed = scanner.next() == type;
+        restore(scanner, start);
+        return followed;
+    }
+
+    /** Moves the scanner back to the token at the given offset, which becomes current again. */
+    private static void restore(SqlTokenScanner scanner, int tokenStart) {
+        scanner.reset(tokenStart);
+        scanner.next();
+    }
+
+    /** Returns whether {@code PARTITIONED BY (} at the scanner is followed by a column type. */
+    private static boolean isTypedPartitionColumn(SqlTokenScanner scanner) {
+        final int start = scanner.tokenStart();
+        scanner.next();
+        scanner.next();
+        boolean typed = scanner.isSymbol('(');
+        typed &= scanner.next() == SqlTokenScanner.TokenType.WORD
+                || scanner.tokenType() == SqlTokenScanner.TokenType.QUOTED_IDENTIFIER;
+        typed &= scanner.next() == SqlTokenScanner.TokenType.WORD;
+        restore(scanner, start);
+        return typed;
+    }
+}
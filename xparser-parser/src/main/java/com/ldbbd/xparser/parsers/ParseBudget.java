@@ -0,0 +1,105 @@
+package com.ldbbd.xparser.parsers;
+
+import java.time.Duration;
+
+/**
+ * Resource limits for parsing a single statement, protecting a shared service against
+ * pathological input such as deeply nested {@code ROW<...>} types or huge {@code IN} lists.
+ *
+ * <p>Token count and nesting depth are checked by a linear pre-scan before the generated parser
+ * runs, so an oversized statement is rejected before any lookahead is spent on it. Wall time and
+ * cancellation are checked while the parser consumes its input.
+ *
+ * <p>A budget is immutable and can be shared by all parses.
+ */
+public final class ParseBudget {
+
+    /** A budget without any limit, parsing with it has no overhead. */
+    public static final ParseBudget UNLIMITED = builder().build();
+
+    /** The limits a parse can exceed. */
+    public enum Limit {
+        TOKENS,
+        NESTING_DEPTH,
+        WALL_TIME,
+        CANCELLED
+    }
+
+    private final int maxTokens;
+    private final int maxNestingDepth;
+    private final long maxWallTimeNanos;
+
+    private ParseBudget(int maxTokens, int maxNestingDepth, long maxWallTimeNanos) {
+        this.maxTokens = maxTokens;
+        this.maxNestingDepth = maxNestingDepth;
+        this.maxWallTimeNanos = maxWallTimeNanos;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Returns the maximum number of tokens of a statement, or -1 if unlimited. */
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    /**
+     * Returns the maximum depth of nested parentheses, brackets and angle brackets of collection
+     * and row types, or -1 if unlimited.
+     */
+    public int getMaxNestingDepth() {
+        return maxNestingDepth;
+    }
+
+    /** Returns the maximum time a single parse may take in nanoseconds, or -1 if unlimited. */
+    public long getMaxWallTimeNanos() {
+        return maxWallTimeNanos;
+    }
+
+    /** Whether the token count or the nesting depth is limited. */
+    public boolean requiresPreScan() {
+        return maxTokens >= 0 || maxNestingDepth >= 0;
+    }
+
+    public boolean isUnlimited() {
+        return !requiresPreScan() && maxWallTimeNanos < 0;
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** Builder for {@link ParseBudget}, every limit is unlimited unless set. */
+    public static final class Builder {
+        private int maxTokens = -1;
+        private int maxNestingDepth = -1;
+        private long maxWallTimeNanos = -1;
+
+        private Builder() {}
+
+        public Builder maxTokens(int maxTokens) {
+            this.maxTokens = checkPositive(maxTokens, "Max tokens");
+            return this;
+        }
+
+        public Builder maxNestingDepth(int maxNestingDepth) {
+            this.maxNestingDepth = checkPositive(maxNestingDepth, "Max nesting depth");
+            return this;
+        }
+
+        public Builder maxWallTime(Duration maxWallTime) {
+            this.maxWallTimeNanos = checkPositive(maxWallTime.toNanos(), "Max wall time");
+            return this;
+        }
+
+        public ParseBudget build() {
+            return new ParseBudget(maxTokens, maxNestingDepth, maxWallTimeNanos);
+        }
+
+        private static <T extends Number> T checkPositive(T value, String name) {
+            if (value.longValue() <= 0) {
+                throw new IllegalArgumentException(name + " must be positive: " + value);
+            }
+            return value;
+        }
+    }
+}
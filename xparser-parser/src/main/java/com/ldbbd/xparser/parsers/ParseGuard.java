@@ -0,0 +1,45 @@
+package com.ldbbd.xparser.parsers;
+
+import com.ldbbd.error.ParseBudgetExceededException;
+
+import javax.annotation.Nullable;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Checks the wall time limit of a {@link ParseBudget} and the cancellation flag of one parse.
+ *
+ * <p>The readers the generated token manager pulls the statement from call {@link #check()} on
+ * every read and hand out at most {@link #CHUNK_SIZE} characters at once. They also implement
+ * {@link Runnable} to run the check for the generated parser, which the build patches to run its
+ * reader every 64 tokens it scans or consumes, see the {@code guard-generated-parsers} execution
+ * of the root pom. So the checks also run while the parser backtracks over tokens that were read
+ * before, where it pulls no input at all.
+ */
+final class ParseGuard {
+
+    /** Maximum number of characters handed out per read while a guard is in effect. */
+    static final int CHUNK_SIZE = 256;
+
+    private final long deadlineNanos;
+    private final @Nullable BooleanSupplier cancellation;
+
+    ParseGuard(ParseBudget budget, @Nullable BooleanSupplier cancellation) {
+        this.deadlineNanos =
+                budget.getMaxWallTimeNanos() < 0
+                        ? Long.MAX_VALUE
+                        : System.nanoTime() + budget.getMaxWallTimeNanos();
+        this.cancellation = cancellation;
+    }
+
+    /** Checks the cancellation flag and the deadline, throws if either is hit. */
+    void check() {
+        if (cancellation != null && cancellation.getAsBoolean()) {
+            throw new ParseBudgetExceededException(
+                    ParseBudget.Limit.CANCELLED, "SQL parse was cancelled.");
+        }
+        if (deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos > 0) {
+            throw new ParseBudgetExceededException(
+                    ParseBudget.Limit.WALL_TIME, "SQL parse exceeded its maximum wall time.");
+        }
+    }
+}
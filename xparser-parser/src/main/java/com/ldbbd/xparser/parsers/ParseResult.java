@@ -0,0 +1,45 @@
+package com.ldbbd.xparser.parsers;
+
+import extended.SqlReferences;
+import org.apache.calcite.sql.SqlNode;
+
+import javax.annotation.Nullable;
+
+/**
+ * A statement parsed by {@link CalciteParser#parseWithComplexity}, with its complexity and the
+ * tables and columns it references.
+ */
+public final class ParseResult {
+
+    private final SqlNode node;
+    private final StatementComplexity complexity;
+    private volatile @Nullable SqlReferences references;
+
+    ParseResult(SqlNode node, StatementComplexity complexity) {
+        this.node = node;
+        this.complexity = complexity;
+    }
+
+    /** Returns the parsed node, which is not yet validated. */
+    public SqlNode getNode() {
+        return node;
+    }
+
+    /** Returns the complexity of the statement, estimated while it was read. */
+    public StatementComplexity getComplexity() {
+        return complexity;
+    }
+
+    /**
+     * Returns the tables and columns the statement references, e.g. for an authorization check.
+     * They are collected on first use and kept with the result.
+     */
+    public SqlReferences getReferences() {
+        SqlReferences references = this.references;
+        if (references == null) {
+            references = SqlReferences.of(node);
+            this.references = references;
+        }
+        return references;
+    }
+}
@@ -0,0 +1,42 @@
+package com.ldbbd.xparser.parsers;
+
+import org.apache.calcite.sql.SqlNode;
+
+/** A statement parsed by the {@link SpeculativeParser}, together with its dialect. */
+public final class ParsedStatement {
+
+    private final SqlNode node;
+    private final String dialect;
+    private final DetectedDialect detection;
+    private final boolean speculative;
+
+    ParsedStatement(SqlNode node, String dialect, DetectedDialect detection, boolean speculative) {
+        this.node = node;
+        this.dialect = dialect;
+        this.detection = detection;
+        this.speculative = speculative;
+    }
+
+    /** Returns the parsed node, which is not yet validated. */
+    public SqlNode getNode() {
+        return node;
+    }
+
+    /** Returns the dialect whose parser parsed the statement. */
+    public String getDialect() {
+        return dialect;
+    }
+
+    /** Returns the dialect scores the parser was chosen by. */
+    public DetectedDialect getDetection() {
+        return detection;
+    }
+
+    /**
+     * Returns whether the statement was parsed by several dialects in parallel, rather than by
+     * the detected dialect alone.
+     */
+    public boolean isSpeculative() {
+        return speculative;
+    }
+}
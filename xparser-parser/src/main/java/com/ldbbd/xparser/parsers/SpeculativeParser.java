@@ -0,0 +1,248 @@
+package com.ldbbd.xparser.parsers;
+
+import com.ldbbd.error.SqlParserException;
+import org.apache.calcite.sql.SqlNode;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Parses statements of unknown dialect, e.g. from clients that send flink and spark SQL without
+ * a dialect tag.
+ *
+ * <p>The {@link DialectDetector} guesses the dialect first. If it is confident enough, only the
+ * parser of that dialect runs. Otherwise the parsers of all registered dialects run in parallel,
+ * the first one to succeed wins and the others are cancelled through the cancellation flag of
+ * {@link CalciteParser#parse(SqlInput, java.util.function.BooleanSupplier)}. A confident guess
+ * whose parse fails falls back to the parallel parse of the other dialects.
+ *
+ * <p>When a statement is valid in several dialects, e.g. a {@code CREATE TABLE} of the subset
+ * that flink and xsql share, the result of the parallel parse is the dialect that finished first,
+ * which may differ between calls.
+ */
+public final class SpeculativeParser implements AutoCloseable {
+
+    private final Map<String, CalciteParser> dialects;
+    private final double minConfidence;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    private SpeculativeParser(Builder builder) {
+        this.dialects = new LinkedHashMap<>(builder.dialects);
+        this.minConfidence = builder.minConfidence;
+        this.ownsExecutor = builder.executor == null;
+        this.executor = ownsExecutor ? newSpeculationExecutor(dialects.size()) : builder.executor;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Parses a statement of unknown dialect, see {@link #parse(SqlInput)}. */
+    public ParsedStatement parse(String sql) {
+        return parse(SqlInput.of(sql));
+    }
+
+    /**
+     * Parses a statement of unknown dialect. The returned node is not yet validated.
+     *
+     * @return the parsed node together with its dialect
+     * @throws SqlParserException if no registered dialect can parse the statement, with the
+     *     failure of the best ranked dialect as cause and the others as suppressed exceptions
+     */
+    public ParsedStatement parse(SqlInput input) {
+        final DetectedDialect detection = DialectDetector.detect(input);
+        final List<String> candidates = new ArrayList<>(dialects.size());
+        for (String dialect : detection.getRanking()) {
+            if (dialects.containsKey(dialect)) {
+                candidates.add(dialect);
+            }
+        }
+        for (String dialect : dialects.keySet()) {
+            if (!candidates.contains(dialect)) {
+                candidates.add(dialect);
+            }
+        }
+
+        final String guess = detection.getDialect();
+        final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        if (guess != null
+                && detection.getConfidence() >= minConfidence
+                && dialects.containsKey(guess)) {
+            try {
+                return new ParsedStatement(
+                        dialects.get(guess).parse(input), guess, detection, false);
+            } catch (SqlParserException e) {
+                failures.put(guess, e);
+            }
+        }
+        return speculate(input, detection, candidates, failures);
+    }
+
+    /** Returns the identifiers of the registered dialects. */
+    public List<String> getDialects() {
+        return new ArrayList<>(dialects.keySet());
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    /** Parses with all candidates that did not fail yet in parallel, the first success wins. */
+    private ParsedStatement speculate(
+            SqlInput input,
+            DetectedDialect detection,
+            List<String> candidates,
+            Map<String, Throwable> failures) {
+        final List<String> pending = new ArrayList<>(candidates);
+        pending.removeAll(failures.keySet());
+        if (pending.isEmpty()) {
+            throw allFailed(candidates, failures);
+        }
+        final AtomicBoolean decided = new AtomicBoolean();
+        final AtomicInteger running = new AtomicInteger(pending.size());
+        final CompletableFuture<ParsedStatement> winner = new CompletableFuture<>();
+        final List<Future<?>> parses = new ArrayList<>(pending.size());
+        try {
+            for (String dialect : pending) {
+                final CalciteParser parser = dialects.get(dialect);
+                parses.add(
+                        executor.submit(
+                                () -> {
+                                    try {
+                                        final SqlNode node = parser.parse(input, decided::get);
+                                        if (decided.compareAndSet(false, true)) {
+                                            winner.complete(
+                                                    new ParsedStatement(
+                                                            node, dialect, detection, true));
+                                        }
+                                    } catch (Throwable t) {
+                                        failures.put(dialect, t);
+                                    } finally {
+                                        // A no-op if a parser succeeded before.
+                                        if (running.decrementAndGet() == 0) {
+                                            winner.completeExceptionally(
+                                                    allFailed(candidates, failures));
+                                        }
+                                    }
+                                }));
+            }
+            return winner.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SqlParserException("Interrupted while parsing " + pending + ".", e);
+        } catch (ExecutionException e) {
+            throw (SqlParserException) e.getCause();
+        } finally {
+            // Running parsers poll the flag, queued ones never start.
+            decided.set(true);
+            parses.forEach(parse -> parse.cancel(false));
+        }
+    }
+
+    private static SqlParserException allFailed(
+            List<String> candidates, Map<String, Throwable> failures) {
+        Throwable cause = null;
+        for (String dialect : candidates) {
+            final Throwable failure = failures.get(dialect);
+            if (cause == null) {
+                cause = failure;
+            } else if (failure != null) {
+                cause.addSuppressed(failure);
+            }
+        }
+        return new SqlParserException(
+                "SQL parse failed in all dialects "
+                        + candidates
+                        + ". "
+                        + candidates.get(0)
+                        + ": "
+                        + requireNonNull(cause).getMessage(),
+                cause);
+    }
+
+    private static ExecutorService newSpeculationExecutor(int dialects) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ThreadFactory threadFactory =
+                runnable -> {
+                    Thread thread =
+                            new Thread(
+                                    runnable,
+                                    "xparser-speculative-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        return Executors.newFixedThreadPool(
+                Math.max(dialects, Runtime.getRuntime().availableProcessors()), threadFactory);
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** Builder for {@link SpeculativeParser}. */
+    public static final class Builder {
+        private final Map<String, CalciteParser> dialects = new LinkedHashMap<>();
+        private double minConfidence = 0.5;
+        private @Nullable ExecutorService executor;
+
+        private Builder() {}
+
+        /**
+         * Registers the parser of a dialect. The dialects the {@link DialectDetector} knows are
+         * {@link DialectDetector#FLINK}, {@link DialectDetector#SPARK} and {@link
+         * DialectDetector#XSQL}, other dialects only take part in the parallel parse.
+         */
+        public Builder dialect(String dialect, CalciteParser parser) {
+            dialects.put(requireNonNull(dialect), requireNonNull(parser));
+            return this;
+        }
+
+        /**
+         * Sets the {@link DetectedDialect#getConfidence() confidence} from which the detected
+         * dialect is parsed alone, default is 0.5. 0 always trusts the detection if it found
+         * anything, a value above 1 always parses all dialects in parallel.
+         */
+        public Builder minConfidence(double minConfidence) {
+            if (minConfidence < 0) {
+                throw new IllegalArgumentException(
+                        "Min confidence must not be negative: " + minConfidence);
+            }
+            this.minConfidence = minConfidence;
+            return this;
+        }
+
+        /**
+         * Sets the executor of the parallel parses, which is not shut down by {@link #close()}.
+         * Default is a pool of its own with a thread per core, at least one per dialect.
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = requireNonNull(executor);
+            return this;
+        }
+
+        public SpeculativeParser build() {
+            if (dialects.isEmpty()) {
+                throw new IllegalStateException("At least one dialect must be registered");
+            }
+            return new SpeculativeParser(this);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.ldbbd.xparser.parsers;
+
+import com.ldbbd.error.SqlParserException;
+import org.apache.calcite.util.SourceStringReader;
+
+import javax.annotation.Nullable;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The text of a statement to parse, without copying it into a {@link String} first.
+ *
+ * <p>Statements received from the network can be parsed right from the {@link ByteBuffer} they
+ * arrived in, heap or direct. The generated token manager pulls the input through a reader that
+ * decodes the UTF-8 bytes lazily into its own character buffer, so the statement is never
+ * decoded as a whole. Statements that are assembled in memory can be parsed from any {@link
+ * CharSequence}, e.g. a {@link StringBuilder}.
+ *
+ * <p>The token manager still creates a {@link String} image per token, which the AST nodes need
+ * anyway for identifiers and literals.
+ *
+ * <p>The underlying characters or bytes must not change while a statement is parsed. An input can
+ * be parsed more than once, it never changes the position of the given buffer.
+ */
+public final class SqlInput {
+
+    /** The letter {@link #scanChars()} shows for each byte of a non-ASCII character. */
+    static final char NON_ASCII = '\u00AA';
+
+    private final @Nullable CharSequence chars;
+    private final @Nullable ByteBuffer utf8;
+
+    private SqlInput(@Nullable CharSequence chars, @Nullable ByteBuffer utf8) {
+        this.chars = chars;
+        this.utf8 = utf8;
+    }
+
+    /** Creates an input of the characters of a {@link CharSequence}. */
+    public static SqlInput of(CharSequence sql) {
+        return new SqlInput(requireNonNull(sql), null);
+    }
+
+    /** Creates an input of the UTF-8 encoded bytes between the position and the limit. */
+    public static SqlInput utf8(ByteBuffer sql) {
+        return new SqlInput(null, requireNonNull(sql));
+    }
+
+    /**
+     * Returns a reader the generated parser can consume the statement from. A {@link String}
+     * input is read through a {@link SourceStringReader}, so that the parser knows the original
+     * SQL for error messages.
+     */
+    public Reader reader() {
+        return reader(null);
+    }
+
+    /** Returns a reader which checks the given guard on every read, if any. */
+    Reader reader(@Nullable ParseGuard guard) {
+        if (chars instanceof String) {
+            return guard == null
+                    ? new SourceStringReader((String) chars)
+                    : new BudgetedReader((String) chars, guard);
+        } else if (chars != null) {
+            return new CharSequenceReader(chars, guard);
+        } else {
+            return new Utf8ByteBufferReader(requireNonNull(utf8), guard);
+        }
+    }
+
+    /**
+     * Returns the statement as a {@link CharSequence}, for scanners that need random access.
+     *
+     * <p>Byte input that is pure ASCII, which most SQL is, is viewed in place. Any other byte
+     * input is decoded once.
+     *
+     * @throws SqlParserException if byte input is not valid UTF-8
+     */
+    CharSequence chars() {
+        if (chars != null) {
+            return chars;
+        }
+        final ByteBuffer bytes = requireNonNull(utf8);
+        for (int i = bytes.position(); i < bytes.limit(); i++) {
+            if (bytes.get(i) < 0) {
+                try {
+                    return StandardCharsets.UTF_8.newDecoder().decode(bytes.duplicate());
+                } catch (CharacterCodingException e) {
+                    throw new SqlParserException("SQL statement is not valid UTF-8.", e);
+                }
+            }
+        }
+        return new AsciiSequence(bytes, bytes.position(), bytes.remaining());
+    }
+
+    /**
+     * Returns the statement as a {@link CharSequence} for token scanners, without ever decoding
+     * it.
+     *
+     * <p>Byte input is viewed in place, each byte of a multi-byte UTF-8 character as the letter
+     * {@link #NON_ASCII}. Keywords, symbols, quotes and line breaks are ASCII, so a scanner reads
+     * the same tokens as from {@link #chars()} wherever SQL allows non-ASCII characters, i.e. in
+     * literals, quoted identifiers, comments and identifiers. Offsets count bytes, and words with
+     * non-ASCII letters never equal a keyword.
+     */
+    CharSequence scanChars() {
+        if (chars != null) {
+            return chars;
+        }
+        final ByteBuffer bytes = requireNonNull(utf8);
+        return new AsciiSequence(bytes, bytes.position(), bytes.remaining());
+    }
+
+    /** Returns the text of the statement, decoding and copying it. */
+    @Override
+    public String toString() {
+        return chars().toString();
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** A view of ASCII bytes as characters, any other byte reads as {@link #NON_ASCII}. */
+    private static final class AsciiSequence implements CharSequence {
+        private final ByteBuffer bytes;
+        private final int offset;
+        private final int length;
+
+        private AsciiSequence(ByteBuffer bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index " + index + ", length " + length);
+            }
+            return toChar(bytes.get(offset + index));
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException(
+                        "Range [" + start + ", " + end + "), length " + length);
+            }
+            return new AsciiSequence(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            final char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = toChar(bytes.get(offset + i));
+            }
+            return new String(chars);
+        }
+
+        private static char toChar(byte b) {
+            return b < 0 ? NON_ASCII : (char) b;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.ldbbd.xparser.parsers;
+
+import org.apache.calcite.avatica.util.Quoting;
+import org.apache.calcite.sql.parser.SqlParser;
+
+/**
+ * A minimal, allocation free SQL tokenizer over a {@link CharSequence}.
+ *
+ * <p>It only splits the input into words, quoted identifiers, string literals, numbers and
+ * symbols, and skips whitespace and comments. It knows nothing about the grammar of any dialect,
+ * which makes it cheap enough to run ahead of the generated parsers, e.g. to enforce a {@link
+ * ParseBudget}.
+ *
+ * <p>Brackets are symbols, as in {@code ARRAY[1, 2]} or {@code m['key']}, unless the dialect quotes
+ * identifiers with brackets, see {@link #SqlTokenScanner(CharSequence, SqlParser.Config)}.
+ *
+ * <p>Usage:
+ *
+ * <pre>{@code
+ * SqlTokenScanner scanner = new SqlTokenScanner(sql);
+ * while (scanner.next() != SqlTokenScanner.TokenType.EOF) {
+ *     ...
+ * }
+ * }</pre>
+ */
+public final class SqlTokenScanner {
+
+    /** Types of the tokens produced by the scanner. */
+    public enum TokenType {
+        /** An unquoted identifier or keyword. */
+        WORD,
+        /** An identifier quoted with double quotes, back ticks or, if enabled, brackets. */
+        QUOTED_IDENTIFIER,
+        /** A character string literal. */
+        STRING,
+        /** A numeric literal. */
+        NUMBER,
+        /** Any other single character. */
+        SYMBOL,
+        /** End of input. */
+        EOF
+    }
+
+    private final CharSequence sql;
+    private final int length;
+    private final boolean bracketQuoting;
+
+    private int pos;
+    private int tokenStart;
+    private int tokenEnd;
+    private TokenType tokenType;
+
+    /** Creates a scanner that reads brackets as symbols. */
+    public SqlTokenScanner(CharSequence sql) {
+        this(sql, false);
+    }
+
+    /** Creates a scanner that quotes identifiers like the given config of a parser. */
+    public SqlTokenScanner(CharSequence sql, SqlParser.Config config) {
+        this(sql, config.quoting() == Quoting.BRACKET);
+    }
+
+    private SqlTokenScanner(CharSequence sql, boolean bracketQuoting) {
+        this.sql = sql;
+        this.length = sql.length();
+        this.bracketQuoting = bracketQuoting;
+    }
+
+    /** Advances to the next token and returns its type. */
+    public TokenType next() {
+        skipWhitespaceAndComments();
+        tokenStart = pos;
+        if (pos >= length) {
+            tokenEnd = pos;
+            return tokenType = TokenType.EOF;
+        }
+        final char c = sql.charAt(pos);
+        if (c == '\'') {
+            pos = skipQuoted(pos, '\'');
+            tokenType = TokenType.STRING;
+        } else if (c == '"' || c == '`') {
+            pos = skipQuoted(pos, c);
+            tokenType = TokenType.QUOTED_IDENTIFIER;
+        } else if (c == '[' && bracketQuoting) {
+            pos = skipQuoted(pos, ']');
+            tokenType = TokenType.QUOTED_IDENTIFIER;
+        } else if (Character.isDigit(c)
+                || (c == '.' && pos + 1 < length && Character.isDigit(sql.charAt(pos + 1)))) {
+            pos++;
+            while (pos < length && isNumberPart(sql.charAt(pos))) {
+                pos++;
+            }
+            tokenType = TokenType.NUMBER;
+        } else if (Character.isLetter(c) || c == '_' || c == '$') {
+            pos++;
+            while (pos < length && isWordPart(sql.charAt(pos))) {
+                pos++;
+            }
+            tokenType = TokenType.WORD;
+        } else {
+            pos++;
+            tokenType = TokenType.SYMBOL;
+        }
+        tokenEnd = pos;
+        return tokenType;
+    }
+
+    /**
+     * Moves back to an offset of a token read before, e.g. its {@link #tokenStart()}. The next call
+     * of {@link #next()} reads the token at that offset again.
+     */
+    public void reset(int offset) {
+        pos = offset;
+    }
+
+    /** Returns the type of the current token. */
+    public TokenType tokenType() {
+        return tokenType;
+    }
+
+    /** Returns the offset of the first character of the current token. */
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    /** Returns the offset after the last character of the current token. */
+    public int tokenEnd() {
+        return tokenEnd;
+    }
+
+    /** Returns the first character of the current token, e.g. the symbol itself. */
+    public char firstChar() {
+        return sql.charAt(tokenStart);
+    }
+
+    /**
+     * Returns whether the current token is a word equal to the given keyword, ignoring case. The
+     * keyword must be given in upper case.
+     */
+    public boolean isWord(String upperCaseKeyword) {
+        if (tokenType != TokenType.WORD || tokenEnd - tokenStart != upperCaseKeyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < upperCaseKeyword.length(); i++) {
+            if (Character.toUpperCase(sql.charAt(tokenStart + i)) != upperCaseKeyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns whether the current token is the given symbol. */
+    public boolean isSymbol(char symbol) {
+        return tokenType == TokenType.SYMBOL && sql.charAt(tokenStart) == symbol;
+    }
+
+    /** Returns the text of the current token. Unlike the other accessors this allocates. */
+    public String text() {
+        return sql.subSequence(tokenStart, tokenEnd).toString();
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private void skipWhitespaceAndComments() {
+        while (pos < length) {
+            final char c = sql.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '-' && pos + 1 < length && sql.charAt(pos + 1) == '-') {
+                while (pos < length && sql.charAt(pos) != '\n') {
+                    pos++;
+                }
+            } else if (c == '/' && pos + 1 < length && sql.charAt(pos + 1) == '*') {
+                pos += 2;
+                while (pos < length
+                        && !(sql.charAt(pos) == '*'
+                                && pos + 1 < length
+                                && sql.charAt(pos + 1) == '/')) {
+                    pos++;
+                }
+                pos = Math.min(pos + 2, length);
+            } else {
+                return;
+            }
+        }
+    }
+
+    /** Skips a quoted token starting at {@code start}, a doubled quote is an escaped quote. */
+    private int skipQuoted(int start, char closing) {
+        int i = start + 1;
+        while (i < length) {
+            if (sql.charAt(i) == closing) {
+                if (i + 1 < length && sql.charAt(i + 1) == closing) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return length;
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static boolean isNumberPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '.';
+    }
+}
@@ -0,0 +1,453 @@
+package com.ldbbd.xparser.parsers;
+
+import com.ldbbd.xparser.parsers.ClassifiedStatement.Flag;
+import org.apache.calcite.avatica.util.Casing;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.parser.SqlParserUtil;
+import xparser.impl.XSqlKeywords;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Tells the kind, the target and the flags of a statement from its tokens, without parsing it,
+ * e.g. to route statements to different backends.
+ *
+ * <p>DDL, DML, {@code SET} and {@code EXPLAIN} statements are classified from their first few
+ * tokens. Queries take one more linear pass over the tokens outside of parentheses, which decides
+ * between {@code SELECT}, {@code ORDER BY}, {@code WITH} and the set operations. No tree is built,
+ * classifying a statement costs about as much as tokenizing it.
+ *
+ * <p>A classification is exact: whenever a statement parses, the parser returns a node of the
+ * classified kind, on the classified target and with the classified flags. The classifier does
+ * not validate the rest of the statement though, a classified statement may still fail to parse.
+ * A statement whose classification would need more than its tokens, e.g. a quoting style the
+ * parser is not configured for, is not classified.
+ *
+ * <p>Usage:
+ *
+ * <pre>{@code
+ * StatementClassifier classifier = StatementClassifier.forXSql(config);
+ * Optional<ClassifiedStatement> statement = classifier.classify(sql);
+ * if (statement.isPresent() && statement.get().getKind().belongsTo(SqlKind.DDL)) {
+ *     ...
+ * }
+ * }</pre>
+ */
+public final class StatementClassifier {
+
+    private final Keywords keywords;
+    private final SqlParser.Config config;
+
+    /**
+     * Creates a classifier of the statements of a dialect.
+     *
+     * @param keywords the keyword table of the dialect
+     * @param config the config the dialect's statements are parsed with, for quoting and casing
+     *     of identifiers
+     */
+    public StatementClassifier(Keywords keywords, SqlParser.Config config) {
+        this.keywords = requireNonNull(keywords);
+        this.config = requireNonNull(config);
+    }
+
+    /** Creates a classifier of the statements of the xsql dialect. */
+    public static StatementClassifier forXSql(SqlParser.Config config) {
+        return new StatementClassifier(Keywords.XSQL, config);
+    }
+
+    /**
+     * Classifies a statement.
+     *
+     * @return the classification, or empty if the statement is none the classifier knows or it
+     *     can not be classified from its tokens
+     */
+    public Optional<ClassifiedStatement> classify(CharSequence sql) {
+        final SqlTokenScanner scanner = new SqlTokenScanner(sql, config);
+        scanner.next();
+        final EnumSet<Flag> flags = EnumSet.noneOf(Flag.class);
+        final List<String> target;
+        final SqlKind kind;
+        if (scanner.isWord("CREATE")) {
+            kind = SqlKind.CREATE_TABLE;
+            scanner.next();
+            if (scanner.isWord("OR")) {
+                if (scanner.next() != SqlTokenScanner.TokenType.WORD || !scanner.isWord("REPLACE")) {
+                    return Optional.empty();
+                }
+                flags.add(Flag.OR_REPLACE);
+                scanner.next();
+            }
+            if (scanner.isWord("TEMPORARY")) {
+                flags.add(Flag.TEMPORARY);
+                scanner.next();
+            }
+            if (!scanner.isWord("TABLE")) {
+                return Optional.empty();
+            }
+            scanner.next();
+            if (lookingAt(scanner, "IF", "NOT", "EXISTS")) {
+                flags.add(Flag.IF_NOT_EXISTS);
+            }
+            target = compoundIdentifier(scanner);
+        } else if (scanner.isWord("DROP")) {
+            kind = SqlKind.DROP_TABLE;
+            scanner.next();
+            if (scanner.isWord("TEMPORARY")) {
+                flags.add(Flag.TEMPORARY);
+                scanner.next();
+            }
+            if (!scanner.isWord("TABLE")) {
+                return Optional.empty();
+            }
+            scanner.next();
+            if (lookingAt(scanner, "IF", "EXISTS")) {
+                flags.add(Flag.IF_EXISTS);
+            }
+            target = compoundIdentifier(scanner);
+        } else if (scanner.isWord("INSERT") || scanner.isWord("UPSERT")) {
+            kind = SqlKind.INSERT;
+            if (scanner.isWord("UPSERT")) {
+                flags.add(Flag.UPSERT);
+            }
+            scanner.next();
+            target = scanner.isWord("INTO") ? nextCompoundIdentifier(scanner) : null;
+        } else if (scanner.isWord("DELETE")) {
+            kind = SqlKind.DELETE;
+            scanner.next();
+            target = scanner.isWord("FROM") ? nextCompoundIdentifier(scanner) : null;
+        } else if (scanner.isWord("UPDATE")) {
+            kind = SqlKind.UPDATE;
+            target = nextCompoundIdentifier(scanner);
+        } else if (scanner.isWord("MERGE")) {
+            kind = SqlKind.MERGE;
+            scanner.next();
+            target = scanner.isWord("INTO") ? nextCompoundIdentifier(scanner) : null;
+        } else if (scanner.isWord("CALL")) {
+            kind = SqlKind.PROCEDURE_CALL;
+            target = nextCompoundIdentifier(scanner);
+        } else if (scanner.isWord("SET") || scanner.isWord("RESET") || scanner.isWord("ALTER")) {
+            kind = SqlKind.SET_OPTION;
+            target = setOption(scanner);
+        } else if (scanner.isWord("EXPLAIN")) {
+            kind = SqlKind.EXPLAIN;
+            target = Collections.emptyList();
+        } else if (scanner.isWord("DESCRIBE")) {
+            return describe(scanner);
+        } else {
+            return Optional.ofNullable(queryKind(scanner, sql.length()))
+                    .map(k -> new ClassifiedStatement(k, Collections.emptyList(), flags));
+        }
+        return target == null
+                ? Optional.empty()
+                : Optional.of(new ClassifiedStatement(kind, target, flags));
+    }
+
+    /** Classifies a statement, see {@link #classify(CharSequence)}. */
+    public Optional<ClassifiedStatement> classify(SqlInput input) {
+        return classify(input.chars());
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    /**
+     * {@code [ALTER SYSTEM | SESSION] SET name = value} or {@code [ALTER SYSTEM | SESSION] RESET
+     * name | ALL}, the scanner is on the first word.
+     */
+    private @Nullable List<String> setOption(SqlTokenScanner scanner) {
+        if (scanner.isWord("ALTER")) {
+            scanner.next();
+            if (!scanner.isWord("SYSTEM") && !scanner.isWord("SESSION")) {
+                return null;
+            }
+            scanner.next();
+        }
+        if (scanner.isWord("SET")) {
+            return nextCompoundIdentifier(scanner);
+        } else if (scanner.isWord("RESET")) {
+            scanner.next();
+            return scanner.isWord("ALL")
+                    ? Collections.singletonList("ALL")
+                    : compoundIdentifier(scanner);
+        }
+        return null;
+    }
+
+    /**
+     * {@code DESCRIBE DATABASE | CATALOG | SCHEMA name}, {@code DESCRIBE [TABLE] name [column]} or
+     * {@code DESCRIBE [STATEMENT] query}, the scanner is on {@code DESCRIBE}.
+     */
+    private Optional<ClassifiedStatement> describe(SqlTokenScanner scanner) {
+        final SqlKind kind;
+        final List<String> target;
+        scanner.next();
+        final int start = scanner.tokenStart();
+        if (scanner.isWord("DATABASE") || scanner.isWord("CATALOG") || scanner.isWord("SCHEMA")) {
+            // The parser looks ahead two tokens, so the name decides.
+            final List<String> schema = nextCompoundIdentifier(scanner);
+            if (schema != null) {
+                return Optional.of(
+                        new ClassifiedStatement(
+                                SqlKind.DESCRIBE_SCHEMA, schema, EnumSet.noneOf(Flag.class)));
+            }
+            scanner.reset(start);
+            scanner.next();
+        }
+        if (scanner.isWord("TABLE")
+                || scanner.tokenType() == SqlTokenScanner.TokenType.QUOTED_IDENTIFIER
+                || (scanner.tokenType() == SqlTokenScanner.TokenType.WORD
+                        && !keywords.isKeyword(
+                                scanner.text(), 0, scanner.tokenEnd() - scanner.tokenStart()))) {
+            // Only a plain identifier, a non-reserved keyword starts the statement form.
+            if (scanner.isWord("TABLE")) {
+                scanner.next();
+            }
+            kind = SqlKind.DESCRIBE_TABLE;
+            target = compoundIdentifier(scanner);
+        } else {
+            if (scanner.isWord("STATEMENT")) {
+                scanner.next();
+            }
+            if (!startsQueryOrDml(scanner)) {
+                return Optional.empty();
+            }
+            kind = SqlKind.EXPLAIN;
+            target = Collections.emptyList();
+        }
+        return target == null
+                ? Optional.empty()
+                : Optional.of(new ClassifiedStatement(kind, target, EnumSet.noneOf(Flag.class)));
+    }
+
+    private static boolean startsQueryOrDml(SqlTokenScanner scanner) {
+        return scanner.isWord("SELECT")
+                || scanner.isWord("VALUES")
+                || scanner.isWord("TABLE")
+                || scanner.isWord("WITH")
+                || scanner.isSymbol('(')
+                || scanner.isWord("INSERT")
+                || scanner.isWord("UPSERT")
+                || scanner.isWord("DELETE")
+                || scanner.isWord("UPDATE")
+                || scanner.isWord("MERGE");
+    }
+
+    /**
+     * Returns the kind of the query starting at the current token, or null if the statement is
+     * not a query.
+     *
+     * <p>The parser wraps a query with a top level {@code ORDER BY}, {@code LIMIT}, {@code OFFSET}
+     * or {@code FETCH} into an {@code ORDER BY} node, and a query with a {@code WITH} list into a
+     * {@code WITH} node. Otherwise the set operation with the lowest precedence is the root,
+     * {@code UNION} and {@code EXCEPT} bind weaker than {@code INTERSECT} and associate to the left.
+     */
+    private static @Nullable SqlKind queryKind(SqlTokenScanner scanner, int end) {
+        final int start = scanner.tokenStart();
+        final boolean leadingParenthesis = scanner.isSymbol('(');
+        int depth = 0;
+        // End of the parenthesis closing the leading one, as in "(SELECT ...) UNION ...".
+        int leadingGroupEnd = -1;
+        boolean multiset = false;
+        SqlKind setOperation = null;
+        boolean intersect = false;
+        for (SqlTokenScanner.TokenType type = scanner.tokenType();
+                type != SqlTokenScanner.TokenType.EOF && scanner.tokenStart() < end;
+                type = scanner.next()) {
+            if (scanner.isSymbol('(')) {
+                depth++;
+            } else if (scanner.isSymbol(')')) {
+                if (--depth == 0 && leadingParenthesis && leadingGroupEnd < 0) {
+                    leadingGroupEnd = scanner.tokenEnd();
+                }
+            } else if (depth == 0 && type == SqlTokenScanner.TokenType.WORD) {
+                if (scanner.isWord("ORDER")
+                        || scanner.isWord("LIMIT")
+                        || scanner.isWord("OFFSET")
+                        || scanner.isWord("FETCH")) {
+                    return SqlKind.ORDER_BY;
+                } else if (!multiset && scanner.isWord("UNION")) {
+                    setOperation = SqlKind.UNION;
+                } else if (!multiset && (scanner.isWord("EXCEPT") || scanner.isWord("MINUS"))) {
+                    setOperation = SqlKind.EXCEPT;
+                } else if (!multiset && scanner.isWord("INTERSECT")) {
+                    intersect = true;
+                }
+                multiset = scanner.isWord("MULTISET");
+                continue;
+            }
+            multiset = false;
+        }
+        final boolean wholeGroup =
+                leadingGroupEnd >= 0
+                        && (scanner.tokenType() == SqlTokenScanner.TokenType.EOF
+                                || scanner.tokenStart() >= end)
+                        && setOperation == null
+                        && !intersect;
+        scanner.reset(start);
+        scanner.next();
+        if (scanner.isWord("WITH")) {
+            return SqlKind.WITH;
+        } else if (setOperation != null) {
+            return setOperation;
+        } else if (intersect) {
+            return SqlKind.INTERSECT;
+        } else if (scanner.isWord("SELECT")) {
+            return SqlKind.SELECT;
+        } else if (scanner.isWord("VALUES")) {
+            return SqlKind.VALUES;
+        } else if (scanner.isWord("TABLE")) {
+            return SqlKind.EXPLICIT_TABLE;
+        } else if (wholeGroup && isLastToken(scanner, leadingGroupEnd, end)) {
+            // A parenthesized query which is all of the statement is the query itself.
+            scanner.reset(start + 1);
+            scanner.next();
+            return queryKind(scanner, leadingGroupEnd - 1);
+        }
+        return null;
+    }
+
+    /** Whether no token follows the given offset before the end. */
+    private static boolean isLastToken(SqlTokenScanner scanner, int offset, int end) {
+        scanner.reset(offset);
+        return scanner.next() == SqlTokenScanner.TokenType.EOF || scanner.tokenStart() >= end;
+    }
+
+    /** Whether the next tokens are the given words, consumes them only if they are. */
+    private static boolean lookingAt(SqlTokenScanner scanner, String... words) {
+        final int start = scanner.tokenStart();
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) {
+                scanner.next();
+            }
+            if (!scanner.isWord(words[i])) {
+                scanner.reset(start);
+                scanner.next();
+                return false;
+            }
+        }
+        scanner.next();
+        return true;
+    }
+
+    /** Whether the token after the current one is the given symbol, without consuming it. */
+    private static boolean isFollowedBy(SqlTokenScanner scanner, char symbol) {
+        final int start = scanner.tokenStart();
+        scanner.next();
+        final boolean followed = scanner.isSymbol(symbol);
+        scanner.reset(start);
+        scanner.next();
+        return followed;
+    }
+
+    private @Nullable List<String> nextCompoundIdentifier(SqlTokenScanner scanner) {
+        scanner.next();
+        return compoundIdentifier(scanner);
+    }
+
+    /**
+     * Reads a compound identifier starting at the current token, {@code a.b.c}. Returns null if
+     * the tokens are no identifier or the parser would name it differently.
+     */
+    private @Nullable List<String> compoundIdentifier(SqlTokenScanner scanner) {
+        final List<String> names = new ArrayList<>(2);
+        while (true) {
+            final String name = identifierSegment(scanner);
+            if (name == null) {
+                return null;
+            }
+            names.add(name);
+            if (scanner.next() != SqlTokenScanner.TokenType.SYMBOL || !scanner.isSymbol('.')) {
+                return names;
+            }
+            scanner.next();
+        }
+    }
+
+    private @Nullable String identifierSegment(SqlTokenScanner scanner) {
+        final String text = scanner.text();
+        final String name;
+        switch (scanner.tokenType()) {
+            case WORD:
+                if (keywords.isReservedKeyword(text, 0, text.length())
+                        || (text.equalsIgnoreCase("U") && isFollowedBy(scanner, '&'))) {
+                    // Reserved, or the start of a Unicode quoted identifier U&"...".
+                    return null;
+                }
+                name = SqlParserUtil.strip(text, null, null, null, config.unquotedCasing());
+                break;
+            case QUOTED_IDENTIFIER:
+                name = quotedIdentifier(text, config.quotedCasing());
+                break;
+            default:
+                return null;
+        }
+        return name != null && name.length() <= config.identifierMaxLength() ? name : null;
+    }
+
+    /** Unquotes an identifier in the quoting the parser is configured with, null otherwise. */
+    private @Nullable String quotedIdentifier(String text, Casing casing) {
+        final String open;
+        final String close;
+        switch (config.quoting()) {
+            case DOUBLE_QUOTE:
+                open = "\"";
+                close = "\"";
+                break;
+            case BACK_TICK:
+                open = "`";
+                close = "`";
+                break;
+            case BRACKET:
+                open = "[";
+                close = "]";
+                break;
+            default:
+                return null;
+        }
+        if (text.length() < 2 || !text.startsWith(open) || !text.endsWith(close)) {
+            return null;
+        }
+        return SqlParserUtil.strip(text, open, close, close + close, casing);
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** The keyword table of a dialect, e.g. the generated {@code XSqlKeywords}. */
+    public interface Keywords {
+
+        /** The keyword table of the xsql dialect. */
+        Keywords XSQL =
+                new Keywords() {
+                    @Override
+                    public boolean isKeyword(CharSequence word, int start, int end) {
+                        return XSqlKeywords.isKeyword(word, start, end);
+                    }
+
+                    @Override
+                    public boolean isReservedKeyword(CharSequence word, int start, int end) {
+                        return XSqlKeywords.isReservedKeyword(word, start, end);
+                    }
+
+                    @Override
+                    public List<String> keywords() {
+                        return XSqlKeywords.keywords();
+                    }
+                };
+
+        /** Whether the range of a sequence is a keyword of the dialect, ignoring case. */
+        boolean isKeyword(CharSequence word, int start, int end);
+
+        /** Whether the range of a sequence is a reserved keyword of the dialect, ignoring case. */
+        boolean isReservedKeyword(CharSequence word, int start, int end);
+
+        /** All keywords of the dialect in upper case and alphabetical order. */
+        List<String> keywords();
+    }
+}
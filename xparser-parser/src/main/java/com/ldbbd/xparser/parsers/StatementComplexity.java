@@ -0,0 +1,117 @@
+package com.ldbbd.xparser.parsers;
+
+/**
+ * Cheap measures of how expensive a statement is to parse, validate and plan, for admission
+ * control of a shared service before the statement is planned.
+ *
+ * <p>The measures are estimated from the tokens of the statement in the linear pass that also
+ * checks the {@link ParseBudget}, see {@link CalciteParser#estimateComplexity(SqlInput)}. They are
+ * exact for well formed statements of the usual shape, and an estimate otherwise, e.g. for a
+ * {@code ROW(...)} value constructor after {@code AS}, which counts as a row type.
+ */
+public final class StatementComplexity {
+
+    private final int tokenCount;
+    private final int nodeCount;
+    private final int joinCount;
+    private final int subqueryDepth;
+    private final int maxInListSize;
+    private final int valuesRowCount;
+    private final int typeNestingDepth;
+    private final int columnCount;
+
+    StatementComplexity(
+            int tokenCount,
+            int nodeCount,
+            int joinCount,
+            int subqueryDepth,
+            int maxInListSize,
+            int valuesRowCount,
+            int typeNestingDepth,
+            int columnCount) {
+        this.tokenCount = tokenCount;
+        this.nodeCount = nodeCount;
+        this.joinCount = joinCount;
+        this.subqueryDepth = subqueryDepth;
+        this.maxInListSize = maxInListSize;
+        this.valuesRowCount = valuesRowCount;
+        this.typeNestingDepth = typeNestingDepth;
+        this.columnCount = columnCount;
+    }
+
+    /** Returns the number of tokens of the statement. */
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * Returns the number of identifiers, literals, operators and function names of the statement,
+     * i.e. of the tokens that become a node of the tree.
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the number of joins, both {@code JOIN} clauses and tables separated by commas in a
+     * {@code FROM} clause.
+     */
+    public int getJoinCount() {
+        return joinCount;
+    }
+
+    /**
+     * Returns how deep queries are nested in other queries, 0 for a statement without subqueries.
+     */
+    public int getSubqueryDepth() {
+        return subqueryDepth;
+    }
+
+    /** Returns the number of values of the largest {@code IN (...)} list, 0 if there is none. */
+    public int getMaxInListSize() {
+        return maxInListSize;
+    }
+
+    /** Returns the number of rows of all {@code VALUES} clauses. */
+    public int getValuesRowCount() {
+        return valuesRowCount;
+    }
+
+    /**
+     * Returns how deep {@code ROW}, {@code MAP}, {@code ARRAY} and {@code MULTISET} types are
+     * nested, e.g. 2 for {@code MAP<INT, ARRAY<INT>>} and {@code ROW(a INT ARRAY)}.
+     */
+    public int getTypeNestingDepth() {
+        return typeNestingDepth;
+    }
+
+    /**
+     * Returns the number of columns of a {@code CREATE TABLE} statement, without constraints and
+     * watermarks, or 0 for other statements.
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public String toString() {
+        return "StatementComplexity{"
+                + "tokens="
+                + tokenCount
+                + ", nodes="
+                + nodeCount
+                + ", joins="
+                + joinCount
+                + ", subqueryDepth="
+                + subqueryDepth
+                + ", maxInListSize="
+                + maxInListSize
+                + ", valuesRows="
+                + valuesRowCount
+                + ", typeNestingDepth="
+                + typeNestingDepth
+                + ", columns="
+                + columnCount
+                + '}';
+    }
+}
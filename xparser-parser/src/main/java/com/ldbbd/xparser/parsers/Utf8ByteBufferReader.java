@@ -0,0 +1,98 @@
+package com.ldbbd.xparser.parsers;
+
+import com.ldbbd.error.SqlParserException;
+
+import javax.annotation.Nullable;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reader over UTF-8 encoded bytes in a {@link ByteBuffer}, heap or direct.
+ *
+ * <p>The bytes are decoded lazily, straight into the buffer of the generated token manager, as
+ * far as the token manager has consumed the statement. Neither a {@link String} nor a decoded copy
+ * of the whole statement is ever created.
+ *
+ * <p>The bytes between the position and the limit of the buffer are read, without changing its
+ * position. They must not change while they are read. Malformed input fails the parse with a
+ * {@link SqlParserException}.
+ */
+final class Utf8ByteBufferReader extends Reader implements Runnable {
+
+    private final ByteBuffer bytes;
+    private final int start;
+    private final CharsetDecoder decoder =
+            StandardCharsets.UTF_8
+                    .newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private final @Nullable ParseGuard guard;
+
+    /** The low surrogate of a pair whose high surrogate filled the last read, or -1. */
+    private int pendingChar = -1;
+
+    Utf8ByteBufferReader(ByteBuffer bytes, @Nullable ParseGuard guard) {
+        this.bytes = bytes.duplicate();
+        this.start = bytes.position();
+        this.guard = guard;
+    }
+
+    /** Checks the guard, if any, called by the generated parser while it parses. */
+    @Override
+    public void run() {
+        if (guard != null) {
+            guard.check();
+        }
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) {
+        if (guard != null) {
+            guard.check();
+            len = Math.min(len, ParseGuard.CHUNK_SIZE);
+        }
+        if (len == 0) {
+            return 0;
+        }
+        int n = 0;
+        if (pendingChar >= 0) {
+            cbuf[off] = (char) pendingChar;
+            pendingChar = -1;
+            n = 1;
+        }
+        if (n < len && bytes.hasRemaining()) {
+            final CharBuffer out = CharBuffer.wrap(cbuf, off + n, len - n);
+            final CoderResult result = decode(out);
+            n = out.position() - off;
+            if (n == 0 && result.isOverflow()) {
+                // A surrogate pair does not fit into a single char, hand out half of it.
+                final CharBuffer pair = CharBuffer.allocate(2);
+                decode(pair);
+                cbuf[off] = pair.get(0);
+                pendingChar = pair.get(1);
+                n = 1;
+            }
+        }
+        return n == 0 ? -1 : n;
+    }
+
+    @Override
+    public void close() {}
+
+    private CoderResult decode(CharBuffer out) {
+        // The buffer holds the whole statement, so every call sees the end of the input.
+        final CoderResult result = decoder.decode(bytes, out, true);
+        if (result.isError()) {
+            throw new SqlParserException(
+                    "SQL statement is not valid UTF-8 at byte "
+                            + (bytes.position() - start)
+                            + ".");
+        }
+        return result;
+    }
+}
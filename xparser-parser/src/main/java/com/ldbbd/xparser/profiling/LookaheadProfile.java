@@ -0,0 +1,258 @@
+package com.ldbbd.xparser.profiling;
+
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per production statistics of a parser built with JavaCC tracing, see the {@code
+ * lookahead-profiling} profile of the root pom.
+ *
+ * <p>A traced parser prints every production call and return, every consumed token and every
+ * token visited during syntactic lookahead to its trace stream. The profile is an {@link
+ * OutputStream} the trace is printed to, it folds the trace into counters per production as it
+ * is written instead of keeping it.
+ *
+ * <p>A lookahead that succeeds by reaching its limit unwinds with an exception and prints no
+ * return for the productions it was scanning. Such frames are dropped as soon as the parser
+ * consumes a token or calls a production again, which can only happen after the lookahead ended. A
+ * lookahead started right after such a lookahead, before any token is consumed, is counted as
+ * nested in it.
+ *
+ * <p>Not thread safe, the trace of one parser must be written by one thread.
+ */
+public final class LookaheadProfile extends OutputStream {
+
+    private static final String CALL = "Call:   ";
+    private static final String RETURN = "Return: ";
+    private static final String CONSUMED = "Consumed token:";
+    private static final String VISITED = "Visited token:";
+    private static final String LOOKING_AHEAD = "(LOOKING AHEAD...)";
+    private static final String LOOKAHEAD_FAILED = "(LOOKAHEAD FAILED)";
+    private static final String LOOKAHEAD_SUCCEEDED = "(LOOKAHEAD SUCCEEDED)";
+
+    private final Map<String, ProductionStats> productions = new HashMap<>();
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private final StringBuilder line = new StringBuilder();
+
+    @Override
+    public void write(int b) {
+        if (b == '\n') {
+            accept(line);
+            line.setLength(0);
+        } else if (b != '\r') {
+            line.append((char) (b & 0xFF));
+        }
+    }
+
+    /** Ends the trace of one parse, discarding the frames of a parse that failed. */
+    public void endParse() {
+        line.setLength(0);
+        stack.clear();
+    }
+
+    /** Returns the statistics of all productions seen, the most expensive first. */
+    public List<ProductionStats> getProductions() {
+        final List<ProductionStats> result = new ArrayList<>(productions.values());
+        result.sort(
+                Comparator.comparingLong(ProductionStats::getCost)
+                        .reversed()
+                        .thenComparing(ProductionStats::getName));
+        return result;
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    /** Folds one line of the trace into the statistics. */
+    void accept(CharSequence traceLine) {
+        final String s = traceLine.toString().trim();
+        if (s.startsWith(VISITED)) {
+            final Frame top = stack.peek();
+            if (top != null && top.lookahead) {
+                top.stats.scannedTokens++;
+                top.root.scannedTokens++;
+            }
+        } else if (s.startsWith(CONSUMED)) {
+            dropAbandonedLookaheads();
+            final Frame top = stack.peek();
+            if (top != null) {
+                top.stats.consumedTokens++;
+            }
+        } else if (s.startsWith(CALL)) {
+            final String name = s.substring(CALL.length());
+            if (name.endsWith(LOOKING_AHEAD)) {
+                enterLookahead(stats(name, LOOKING_AHEAD));
+            } else {
+                dropAbandonedLookaheads();
+                final ProductionStats stats = stats(name, "");
+                stats.calls++;
+                stack.push(new Frame(stats, false, null));
+            }
+        } else if (s.startsWith(RETURN)) {
+            final String name = s.substring(RETURN.length());
+            if (name.endsWith(LOOKAHEAD_FAILED)) {
+                exitLookahead(true);
+            } else if (name.endsWith(LOOKAHEAD_SUCCEEDED)) {
+                exitLookahead(false);
+            } else {
+                dropAbandonedLookaheads();
+                stack.poll();
+            }
+        }
+    }
+
+    private ProductionStats stats(String name, String suffix) {
+        final String production = name.substring(0, name.length() - suffix.length());
+        return productions.computeIfAbsent(production, ProductionStats::new);
+    }
+
+    private void enterLookahead(ProductionStats stats) {
+        stats.lookaheads++;
+        final Frame top = stack.peek();
+        final ChoicePoint root;
+        if (top != null && top.lookahead) {
+            root = top.root;
+        } else {
+            // An outermost lookahead, charged to the production making the choice.
+            root = new ChoicePoint(top != null ? top.stats : stats);
+            root.choice.choiceLookaheads++;
+        }
+        stack.push(new Frame(stats, true, root));
+    }
+
+    private void exitLookahead(boolean failed) {
+        final Frame frame = stack.poll();
+        if (frame == null || !frame.lookahead) {
+            // Out of sync, e.g. the trace started in the middle of a parse.
+            stack.clear();
+            return;
+        }
+        if (failed) {
+            frame.stats.lookaheadFailures++;
+        }
+        final Frame top = stack.peek();
+        if (top == null || !top.lookahead) {
+            frame.root.finish(failed);
+        }
+    }
+
+    private void dropAbandonedLookaheads() {
+        Frame top;
+        while ((top = stack.peek()) != null && top.lookahead) {
+            stack.poll();
+            final Frame below = stack.peek();
+            if (below == null || !below.lookahead) {
+                top.root.finish(false);
+            }
+        }
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** Counters of one production. */
+    public static final class ProductionStats {
+        private final String name;
+        private long calls;
+        private long consumedTokens;
+        private long lookaheads;
+        private long lookaheadFailures;
+        private long scannedTokens;
+        private long choiceLookaheads;
+        private long choiceScannedTokens;
+        private long choiceBacktracks;
+
+        private ProductionStats(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Number of times the production was parsed. */
+        public long getCalls() {
+            return calls;
+        }
+
+        /** Number of tokens consumed by the production itself. */
+        public long getConsumedTokens() {
+            return consumedTokens;
+        }
+
+        /** Number of times the production was scanned by a syntactic lookahead. */
+        public long getLookaheads() {
+            return lookaheads;
+        }
+
+        /** Number of lookahead scans of the production which did not match. */
+        public long getLookaheadFailures() {
+            return lookaheadFailures;
+        }
+
+        /** Number of tokens visited while scanning the production itself during lookahead. */
+        public long getScannedTokens() {
+            return scannedTokens;
+        }
+
+        /** Number of syntactic lookaheads started by choices within this production. */
+        public long getChoiceLookaheads() {
+            return choiceLookaheads;
+        }
+
+        /**
+         * Number of tokens visited by the lookaheads started within this production, including
+         * those visited in the productions the lookahead descended into.
+         */
+        public long getChoiceScannedTokens() {
+            return choiceScannedTokens;
+        }
+
+        /**
+         * Number of lookaheads started within this production which did not match, so that the
+         * parser had to go back and try the next alternative.
+         */
+        public long getChoiceBacktracks() {
+            return choiceBacktracks;
+        }
+
+        /** The cost productions are ranked by: the tokens visited by their lookaheads. */
+        public long getCost() {
+            return choiceScannedTokens;
+        }
+    }
+
+    /** An outermost lookahead and the production whose choice started it. */
+    private static final class ChoicePoint {
+        private final ProductionStats choice;
+        private long scannedTokens;
+
+        private ChoicePoint(ProductionStats choice) {
+            this.choice = choice;
+        }
+
+        private void finish(boolean failed) {
+            choice.choiceScannedTokens += scannedTokens;
+            if (failed) {
+                choice.choiceBacktracks++;
+            }
+        }
+    }
+
+    /** A production being parsed or scanned. */
+    private static final class Frame {
+        private final ProductionStats stats;
+        private final boolean lookahead;
+        private final ChoicePoint root;
+
+        private Frame(ProductionStats stats, boolean lookahead, ChoicePoint root) {
+            this.stats = stats;
+            this.lookahead = lookahead;
+            this.root = root;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.ldbbd.xparser.profiling;
+
+import org.apache.calcite.sql.parser.SqlAbstractParserImpl;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.parser.SqlParserImplFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Runs a corpus of SQL scripts through a parser built with the {@code lookahead-profiling}
+ * profile and ranks the productions of its grammar by the cost of their syntactic lookahead.
+ *
+ * <p>Usage, with the traced dialect module on the class path:
+ *
+ * <pre>{@code
+ * mvn -pl xparser-codegen,xparser-xsql -Plookahead-profiling clean package
+ * java com.ldbbd.xparser.profiling.LookaheadProfiler xparser.impl.XSqlParserImpl corpus/ --top 20
+ * }</pre>
+ *
+ * <p>Every {@code .sql} file of the given files and directories is parsed as one statement list.
+ * A file that fails to parse is reported and skipped, the statistics of the productions parsed
+ * before the failure are kept.
+ *
+ * <p>The traced parser prints its trace to a stream of its own, see the {@code
+ * trace-generated-parsers} execution of the root pom, so the profiler leaves {@code System.out}
+ * alone.
+ */
+public final class LookaheadProfiler {
+
+    private static final int DEFAULT_TOP = 30;
+
+    private final SqlParser.Config config;
+    private final LookaheadProfile profile = new LookaheadProfile();
+    private final PrintStream trace = new PrintStream(profile, false);
+    private final List<String> failures = new ArrayList<>();
+    private int scripts;
+
+    public LookaheadProfiler(SqlParserImplFactory parserFactory) {
+        requireNonNull(parserFactory);
+        this.config =
+                SqlParser.config()
+                        .withParserFactory(
+                                reader -> {
+                                    final SqlAbstractParserImpl parser =
+                                            parserFactory.getParser(reader);
+                                    setTraceStream(parser, trace);
+                                    return parser;
+                                });
+    }
+
+    /**
+     * Parses a script with the traced parser and folds its trace into the profile.
+     *
+     * @param name the name of the script in the report
+     * @param script the statements to parse
+     * @return whether the script could be parsed
+     */
+    public boolean profile(String name, String script) {
+        scripts++;
+        try {
+            SqlParser.create(script, config).parseStmtList();
+            return true;
+        } catch (SqlParseException e) {
+            failures.add(name + ": " + e.getMessage().split("\n", 2)[0]);
+            return false;
+        } finally {
+            trace.flush();
+            profile.endParse();
+        }
+    }
+
+    public LookaheadProfile getProfile() {
+        return profile;
+    }
+
+    /** Prints the productions ranked by lookahead cost, the {@code top} most expensive only. */
+    public void report(PrintStream out, int top) {
+        out.printf("Profiled %d scripts, %d failed to parse.%n", scripts, failures.size());
+        failures.forEach(failure -> out.println("  " + failure));
+        out.println();
+        out.printf(
+                "%-40s %10s %10s %12s %12s %12s %10s %10s%n",
+                "Production",
+                "Calls",
+                "Choices",
+                "ChoiceScan",
+                "Backtracks",
+                "SelfScan",
+                "Scanned",
+                "Failed");
+        profile.getProductions().stream()
+                .limit(top)
+                .forEach(
+                        p ->
+                                out.printf(
+                                        "%-40s %10d %10d %12d %12d %12d %10d %10d%n",
+                                        p.getName(),
+                                        p.getCalls(),
+                                        p.getChoiceLookaheads(),
+                                        p.getChoiceScannedTokens(),
+                                        p.getChoiceBacktracks(),
+                                        p.getScannedTokens(),
+                                        p.getLookaheads(),
+                                        p.getLookaheadFailures()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println(
+                    "Usage: LookaheadProfiler <parser impl class> <file or directory>... [--top N]");
+            System.exit(1);
+        }
+        int top = DEFAULT_TOP;
+        final List<Path> paths = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if ("--top".equals(args[i]) && i + 1 < args.length) {
+                top = Integer.parseInt(args[++i]);
+            } else {
+                paths.addAll(scripts(Paths.get(args[i])));
+            }
+        }
+        final LookaheadProfiler profiler = new LookaheadProfiler(parserFactory(args[0]));
+        for (Path path : paths) {
+            profiler.profile(
+                    path.toString(), new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        }
+        profiler.report(System.out, top);
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    /** Returns the {@code FACTORY} every generated Calcite parser declares. */
+    private static SqlParserImplFactory parserFactory(String parserImplClass) throws Exception {
+        return (SqlParserImplFactory) Class.forName(parserImplClass).getField("FACTORY").get(null);
+    }
+
+    /**
+     * Points the trace of a parser at the given stream.
+     *
+     * @throws IllegalArgumentException if the parser was generated without tracing
+     */
+    private static void setTraceStream(SqlAbstractParserImpl parser, PrintStream trace) {
+        final Method setter;
+        try {
+            setter = parser.getClass().getMethod("setTraceStream", PrintStream.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(
+                    parser.getClass().getName()
+                            + " was not built with the lookahead-profiling profile",
+                    e);
+        }
+        try {
+            setter.invoke(parser, trace);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Path> scripts(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return Collections.singletonList(path);
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            return files.filter(file -> file.toString().endsWith(".sql"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.ldbbd.xparser.async;
+
+import com.ldbbd.xparser.converter.SqlToCURDConverter;
+import com.ldbbd.xparser.factories.XSqlParserFactory;
+import com.ldbbd.xparser.operations.Operation;
+import com.ldbbd.xparser.parsers.CalciteParser;
+import org.apache.calcite.sql.SqlNode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests for the admission control of {@link AsyncParseService}. */
+class AsyncParseServiceTest {
+
+    private static final String DIALECT = XSqlParserFactory.IDENTIFIER;
+
+    private static final String CREATE_TABLE = "CREATE TABLE t (a INT)";
+
+    private final CalciteParser parser = new XSqlParserFactory().createCalciteParser();
+
+    private final SqlNode node = parser.parse(CREATE_TABLE);
+
+    @Test
+    void testRejectsRightAwayWhenSaturated() throws Exception {
+        final BlockingConverter converter = new BlockingConverter();
+        try (AsyncParseService service = service(converter, 2, Duration.ZERO)) {
+            final CompletableFuture<Operation> first = service.convertAsync(DIALECT, node);
+            final CompletableFuture<Operation> second = service.convertAsync(DIALECT, node);
+            final CompletableFuture<Operation> third = service.convertAsync(DIALECT, node);
+            assertTrue(third.isCompletedExceptionally());
+            assertRejected(third);
+            assertEquals(2, service.getInFlight());
+
+            converter.release.countDown();
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testWaitsForAdmissionOffTheCallerThread() throws Exception {
+        final BlockingConverter converter = new BlockingConverter();
+        try (AsyncParseService service = service(converter, 1, Duration.ofMinutes(1))) {
+            final CompletableFuture<Operation> running = service.convertAsync(DIALECT, node);
+            converter.started.await(10, TimeUnit.SECONDS);
+
+            final long start = System.nanoTime();
+            final CompletableFuture<Operation> waiting = service.convertAsync(DIALECT, node);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+            assertFalse(waiting.isDone());
+            assertEquals(1, service.getWaiting());
+
+            converter.release.countDown();
+            running.get(10, TimeUnit.SECONDS);
+            waiting.get(10, TimeUnit.SECONDS);
+            assertEquals(0, service.getWaiting());
+            assertEquals(2, converter.converted.get());
+        }
+    }
+
+    @Test
+    void testAdmissionTimeoutExpires() throws Exception {
+        final BlockingConverter converter = new BlockingConverter();
+        try (AsyncParseService service = service(converter, 1, Duration.ofMillis(50))) {
+            final CompletableFuture<Operation> running = service.convertAsync(DIALECT, node);
+            final CompletableFuture<Operation> waiting = service.convertAsync(DIALECT, node);
+            assertRejected(waiting);
+            assertEquals(0, service.getWaiting());
+
+            converter.release.countDown();
+            running.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testWaitingRequestsAreBounded() throws Exception {
+        final BlockingConverter converter = new BlockingConverter();
+        try (AsyncParseService service = service(converter, 1, Duration.ofMinutes(1))) {
+            final CompletableFuture<Operation> running = service.convertAsync(DIALECT, node);
+            final CompletableFuture<Operation> waiting = service.convertAsync(DIALECT, node);
+            final CompletableFuture<Operation> rejected = service.convertAsync(DIALECT, node);
+            assertRejected(rejected);
+            assertFalse(waiting.isDone());
+
+            converter.release.countDown();
+            running.get(10, TimeUnit.SECONDS);
+            waiting.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testCloseRejectsWaitingRequests() {
+        final BlockingConverter converter = new BlockingConverter();
+        final CompletableFuture<Operation> waiting;
+        try (AsyncParseService service = service(converter, 1, Duration.ofMinutes(1))) {
+            service.convertAsync(DIALECT, node);
+            waiting = service.convertAsync(DIALECT, node);
+        } finally {
+            converter.release.countDown();
+        }
+        assertRejected(waiting);
+    }
+
+    @Test
+    void testBackpressureUnderLoad() throws Exception {
+        final int maxInFlight = 16;
+        final int requests = 2_000;
+        try (AsyncParseService service =
+                AsyncParseService.builder()
+                        .dialect(DIALECT, parser)
+                        .parallelism(2)
+                        .maxInFlight(maxInFlight)
+                        .admissionTimeout(Duration.ofMillis(1))
+                        .build()) {
+            final AtomicInteger maxObserved = new AtomicInteger();
+            final List<CompletableFuture<SqlNode>> futures = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                futures.add(service.parseAsync(DIALECT, CREATE_TABLE));
+                maxObserved.accumulateAndGet(service.getInFlight(), Math::max);
+                assertTrue(service.getWaiting() <= maxInFlight);
+            }
+            int parsed = 0;
+            int rejected = 0;
+            for (CompletableFuture<SqlNode> future : futures) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                    parsed++;
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof RejectedExecutionException, e.toString());
+                    rejected++;
+                }
+            }
+            assertEquals(requests, parsed + rejected);
+            assertTrue(parsed > 0);
+            assertTrue(maxObserved.get() <= maxInFlight);
+            assertEquals(0, service.getInFlight());
+            assertEquals(0, service.getWaiting());
+        }
+    }
+
+    private AsyncParseService service(
+            BlockingConverter converter, int maxInFlight, Duration admissionTimeout) {
+        return AsyncParseService.builder()
+                .dialect(DIALECT, parser)
+                .converter(converter)
+                .parallelism(1)
+                .maxInFlight(maxInFlight)
+                .admissionTimeout(admissionTimeout)
+                .build();
+    }
+
+    private static void assertRejected(CompletableFuture<?> future) {
+        final ExecutionException e =
+                assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof RejectedExecutionException, e.toString());
+    }
+
+    /** Converts once released, to keep requests in flight. */
+    private static final class BlockingConverter extends SqlToCURDConverter {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger converted = new AtomicInteger();
+
+        @Override
+        public Optional<Operation> convert(SqlNode sqlNode) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            converted.incrementAndGet();
+            return super.convert(sqlNode);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.ldbbd.xparser.bulk;
+
+import com.ldbbd.xparser.bulk.DdlImportPipeline.Stage;
+import com.ldbbd.xparser.converter.SqlToCURDConverter;
+import com.ldbbd.xparser.factories.XSqlParserFactory;
+import com.ldbbd.xparser.operations.Operation;
+import com.ldbbd.xparser.operations.ddl.CreateTableOperation;
+import com.ldbbd.xparser.parsers.CalciteParser;
+import com.ldbbd.xparser.parsers.SqlInput;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests for {@link DdlImportPipeline}. */
+class DdlImportPipelineTest {
+
+    private final CalciteParser parser = new XSqlParserFactory().createCalciteParser();
+
+    @TempDir Path root;
+
+    @Test
+    void testFailuresStayWithTheirFiles() throws Exception {
+        write("good.sql", "CREATE TABLE t1 (a INT); CREATE TABLE t2 (\"été\" INT)");
+        write("nested/good.sql", "CREATE TABLE t3 (a INT)");
+        write("broken.sql", "CREATE TABLE t4 (a INT");
+        write("invalid.sql", "CREATE TABLE t5 (a INT) PARTITIONED BY (a, a)");
+        write("unsupported.sql", "CREATE TABLE t6 (a INT); SELECT 1");
+        write("rejected.sql", "CREATE TABLE rejected (a INT)");
+        write("ignored.txt", "not sql");
+
+        final Map<Path, List<Operation>> imported = new ConcurrentHashMap<>();
+        final ImportReport report =
+                DdlImportPipeline.builder()
+                        .parser(parser)
+                        .sink(
+                                (file, operations) -> {
+                                    if (file.endsWith("rejected.sql")) {
+                                        throw new IllegalStateException("rejected");
+                                    }
+                                    imported.put(root.relativize(file), operations);
+                                })
+                        .build()
+                        .run(root);
+
+        assertEquals(6, report.getFiles());
+        assertEquals(2, report.getImported());
+        assertEquals(3, report.getStatements());
+        assertFalse(report.isSuccessful());
+        assertEquals(
+                Arrays.asList(
+                        "broken.sql PARSE",
+                        "invalid.sql VALIDATE",
+                        "rejected.sql SINK",
+                        "unsupported.sql CONVERT"),
+                report.getFailures().stream()
+                        .map(f -> root.relativize(f.getFile()) + " " + f.getStage())
+                        .sorted()
+                        .collect(Collectors.toList()));
+
+        assertEquals(
+                Arrays.asList("[T1]", "[T2]"),
+                targets(imported.get(root.relativize(root.resolve("good.sql")))));
+        assertEquals(
+                Arrays.asList("[T3]"),
+                targets(imported.get(root.relativize(root.resolve("nested/good.sql")))));
+
+        final Map<Stage, StageMetrics> metrics = report.getMetrics();
+        assertEquals(6, metrics.get(Stage.READ).getProcessed());
+        assertEquals(1, metrics.get(Stage.PARSE).getFailed());
+        assertEquals(1, metrics.get(Stage.VALIDATE).getFailed());
+        assertEquals(1, metrics.get(Stage.CONVERT).getFailed());
+        assertEquals(1, metrics.get(Stage.SINK).getFailed());
+    }
+
+    @Test
+    void testMatchesSequentialImport() throws Exception {
+        final Map<Path, String> files = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            final String sql =
+                    i % 7 == 0
+                            ? "CREATE TABLE t" + i + " (a INT"
+                            : "CREATE TABLE t" + i + " (a INT COMMENT '" + i + "')";
+            files.put(write("dir" + i % 5 + "/f" + i + ".sql", sql), sql);
+        }
+        final Map<Path, List<Operation>> imported = new ConcurrentHashMap<>();
+        final ImportReport report =
+                DdlImportPipeline.builder()
+                        .parser(parser)
+                        .parallelism(Stage.PARSE, 4)
+                        .parallelism(Stage.SINK, 2)
+                        .queueCapacity(4)
+                        .sink(imported::put)
+                        .build()
+                        .run(root);
+
+        final SqlToCURDConverter converter = new SqlToCURDConverter();
+        final Map<Path, List<String>> expected = new HashMap<>();
+        for (Map.Entry<Path, String> file : files.entrySet()) {
+            try {
+                final List<Operation> operations =
+                        converter.convertAll(
+                                parser.parseStatements(SqlInput.of(file.getValue()), null)
+                                        .getList());
+                expected.put(file.getKey(), targets(operations));
+            } catch (RuntimeException e) {
+                // Dropped by the pipeline as well.
+            }
+        }
+        final Map<Path, List<String>> actual = new HashMap<>();
+        imported.forEach((file, operations) -> actual.put(file, targets(operations)));
+        assertEquals(expected, actual);
+        assertEquals(200 - expected.size(), report.getFailures().size());
+        for (StageMetrics stage : report.getMetrics().values()) {
+            assertTrue(stage.getMaxQueueDepth() <= 4, stage.toString());
+        }
+    }
+
+    @Test
+    void testSlowSinkBoundsTheQueues() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            write("f" + i + ".sql", "CREATE TABLE t" + i + " (a INT)");
+        }
+        final CountDownLatch release = new CountDownLatch(1);
+        final DdlImportPipeline pipeline =
+                DdlImportPipeline.builder()
+                        .parser(parser)
+                        .queueCapacity(2)
+                        .sink((file, operations) -> release.await())
+                        .build();
+        final Thread importer =
+                new Thread(
+                        () -> {
+                            try {
+                                pipeline.run(root);
+                            } catch (IOException | InterruptedException e) {
+                                throw new IllegalStateException(e);
+                            }
+                        });
+        importer.start();
+        try {
+            // Upstream stages block once every queue is full.
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (pipeline.metrics().isEmpty()
+                    || pipeline.metrics().get(Stage.SINK).getQueueDepth() < 2) {
+                assertTrue(System.nanoTime() < deadline, "sink queue never filled");
+                Thread.sleep(5);
+            }
+            Thread.sleep(50);
+            final Map<Stage, StageMetrics> metrics = pipeline.metrics();
+            assertTrue(metrics.get(Stage.ENUMERATE).getProcessed() < 50, metrics.toString());
+            for (StageMetrics stage : metrics.values()) {
+                assertTrue(stage.getMaxQueueDepth() <= 2, stage.toString());
+            }
+        } finally {
+            release.countDown();
+            importer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        assertEquals(50, pipeline.metrics().get(Stage.SINK).getProcessed());
+    }
+
+    @Test
+    void testIncludeGlobAndSingleFile() throws Exception {
+        write("a.ddl", "CREATE TABLE a (x INT)");
+        final Path single = write("b.sql", "CREATE TABLE b (x INT)");
+        final List<Path> imported = new ArrayList<>();
+        final DdlImportPipeline pipeline =
+                DdlImportPipeline.builder()
+                        .parser(parser)
+                        .include("*.ddl")
+                        .sink((file, operations) -> imported.add(file))
+                        .build();
+        assertEquals(1, pipeline.run(root).getImported());
+        assertEquals(root.resolve("a.ddl"), imported.get(0));
+
+        final ImportReport report =
+                DdlImportPipeline.builder()
+                        .parser(parser)
+                        .sink((file, operations) -> {})
+                        .build()
+                        .run(single);
+        assertEquals(1, report.getImported());
+        assertTrue(report.isSuccessful());
+
+        assertThrows(NoSuchFileException.class, () -> pipeline.run(root.resolve("missing")));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> DdlImportPipeline.builder().parallelism(Stage.ENUMERATE, 2));
+    }
+
+    private Path write(String name, String sql) throws IOException {
+        final Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, sql.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> targets(List<Operation> operations) {
+        return operations.stream()
+                .map(o -> ((CreateTableOperation) o).getTargetIdentifier().toString())
+                .collect(Collectors.toList());
+    }
+}
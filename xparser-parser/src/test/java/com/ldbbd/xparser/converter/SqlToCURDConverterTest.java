@@ -0,0 +1,288 @@
+package com.ldbbd.xparser.converter;
+
+import com.ldbbd.error.SqlParserException;
+import com.ldbbd.xparser.factories.XSqlParserFactory;
+import com.ldbbd.xparser.interfaces.operations.MReplaceOperation;
+import com.ldbbd.xparser.interfaces.operations.MUpdateOPeration;
+import com.ldbbd.xparser.operations.Operation;
+import com.ldbbd.xparser.operations.ddl.AlterOperation;
+import com.ldbbd.xparser.operations.ddl.CreateTableOperation;
+import com.ldbbd.xparser.operations.ddl.DropOperation;
+import com.ldbbd.xparser.operations.dml.InsertOperation;
+import com.ldbbd.xparser.parsers.CalciteParser;
+import ddl.XSqlCreateTable;
+import ddl.XSqlTableColumn.SqlComputedColumn;
+import ddl.XSqlTableColumn.SqlRegularColumn;
+import ddl.XSqlTableOption;
+import ddl.XSqlTimeAttributes;
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlDrop;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlInsert;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.sql.SqlOperator;
+import org.apache.calcite.sql.SqlSpecialOperator;
+import org.apache.calcite.sql.SqlWriter;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.util.Litmus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests for {@link SqlToCURDConverter}. */
+class SqlToCURDConverterTest {
+
+    private final CalciteParser parser = new XSqlParserFactory().createCalciteParser();
+
+    private final SqlToCURDConverter converter = new SqlToCURDConverter();
+
+    @Test
+    void testConvertCreateTable() {
+        final SqlNode node =
+                parser.parse(
+                        "CREATE TEMPORARY TABLE IF NOT EXISTS db.t (\n"
+                                + "  a INT COMMENT 'key',\n"
+                                + "  b VARCHAR,\n"
+                                + "  c AS a + 1,\n"
+                                + "  PRIMARY KEY (a) NOT ENFORCED\n"
+                                + ") COMMENT 'table' WITH ('connector' = 'kafka')");
+        final CreateTableOperation operation = (CreateTableOperation) convert(node);
+        assertEquals(Arrays.asList("DB", "T"), operation.getTargetIdentifier());
+        assertEquals(Collections.singletonList("A"), operation.getPrimaryKey());
+        assertEquals(Collections.singletonMap("connector", "kafka"), operation.getOptions());
+        assertEquals("table", operation.getComment().orElse(null));
+        assertTrue(operation.isIgnoreIfExists());
+        assertTrue(operation.isTemporary());
+
+        final List<CreateTableOperation.Column> columns = operation.getColumns();
+        assertEquals(3, columns.size());
+        assertEquals(CreateTableOperation.ColumnKind.REGULAR, columns.get(0).getKind());
+        assertEquals("key", columns.get(0).getComment().orElse(null));
+        assertEquals(CreateTableOperation.ColumnKind.COMPUTED, columns.get(2).getKind());
+    }
+
+    @Test
+    void testConvertCreateTableKeepsTimeAttributes() {
+        final XSqlCreateTable node =
+                (XSqlCreateTable)
+                        parser.parse(
+                                "CREATE TABLE t (ts TIMESTAMP(3), pt AS PROCTIME(),"
+                                        + " WATERMARK FOR ts AS ts - INTERVAL '2' SECOND)");
+        final CreateTableOperation operation = (CreateTableOperation) convert(node);
+        assertSame(node.getTimeAttributes(), operation.getTimeAttributes());
+        assertEquals(
+                OptionalLong.of(2000), operation.getTimeAttributes().getWatermarkDelayMillis());
+        assertEquals(
+                XSqlTimeAttributes.NONE,
+                ((CreateTableOperation) convert(parser.parse("CREATE TABLE t (a INT)")))
+                        .getTimeAttributes());
+    }
+
+    @Test
+    void testColumnsDoNotShareTheParseTree() {
+        final XSqlCreateTable node =
+                (XSqlCreateTable) parser.parse("CREATE TABLE t (a INT, b AS a + 1)");
+        final CreateTableOperation operation = (CreateTableOperation) convert(node);
+
+        final SqlRegularColumn parsedColumn = (SqlRegularColumn) node.getColumnList().get(0);
+        final SqlNode type = operation.getColumns().get(0).getType().get();
+        assertNotSame(parsedColumn.getType(), type);
+        assertTrue(parsedColumn.getType().equalsDeep(type, Litmus.IGNORE));
+
+        final SqlComputedColumn parsedComputed = (SqlComputedColumn) node.getColumnList().get(1);
+        final SqlCall expression = (SqlCall) operation.getColumns().get(1).getExpression().get();
+        assertNotSame(parsedComputed.getExpr(), expression);
+        assertTrue(parsedComputed.getExpr().equalsDeep(expression, Litmus.IGNORE));
+
+        // Changing the parse tree in place leaves the operation alone.
+        ((SqlCall) parsedComputed.getExpr())
+                .setOperand(1, SqlLiteral.createExactNumeric("2", SqlParserPos.ZERO));
+        assertEquals("1", expression.operand(1).toString());
+    }
+
+    @Test
+    void testConvertInsert() {
+        final SqlInsert node =
+                (SqlInsert)
+                        parser.parse(
+                                "INSERT INTO t PARTITION (dt = '2020-01-01') (a, b)"
+                                        + " SELECT a, b FROM s");
+        final InsertOperation operation = (InsertOperation) convert(node);
+        assertEquals(Collections.singletonList("T"), operation.getTargetIdentifier());
+        assertEquals(Arrays.asList("A", "B"), operation.getTargetColumns());
+        assertEquals(Collections.singletonList("DT"), operation.getStaticPartitions().getKeys());
+        assertFalse(operation.isUpsert());
+        assertFalse(operation.isOverwrite());
+        assertTrue(operation instanceof MUpdateOPeration);
+        assertFalse(operation instanceof MReplaceOperation);
+        assertNotSame(node.getSource(), operation.getSource());
+        assertTrue(node.getSource().equalsDeep(operation.getSource(), Litmus.IGNORE));
+
+        final InsertOperation plain =
+                (InsertOperation) convert(parser.parse("UPSERT INTO t SELECT * FROM s"));
+        assertTrue(plain.getStaticPartitions().isEmpty());
+        assertTrue(plain.isUpsert());
+        assertTrue(plain instanceof MReplaceOperation);
+        assertFalse(plain instanceof MUpdateOPeration);
+    }
+
+    @Test
+    void testConvertInsertOverwrite() {
+        final InsertOperation operation =
+                (InsertOperation)
+                        convert(
+                                parser.parse(
+                                        "INSERT OVERWRITE t PARTITION (dt = '2020-01-01')"
+                                                + " SELECT a FROM s"));
+        assertTrue(operation.isOverwrite());
+        assertFalse(operation.isUpsert());
+        assertTrue(operation instanceof MReplaceOperation);
+        assertEquals(
+                "INSERT OVERWRITE: (identifier: [T], partition: DT=2020-01-01, columns: [])",
+                operation.asSummaryString());
+
+        final InsertOperation whole =
+                (InsertOperation) convert(parser.parse("INSERT OVERWRITE t SELECT a FROM s"));
+        assertTrue(whole.isOverwrite());
+        assertTrue(whole.getStaticPartitions().isEmpty());
+
+        assertThrows(
+                SqlParserException.class,
+                () -> parser.parse("UPSERT OVERWRITE t SELECT a FROM s"));
+    }
+
+    @Test
+    void testConvertDropTable() {
+        final DropOperation operation =
+                (DropOperation) convert(parser.parse("DROP TEMPORARY TABLE IF EXISTS db.t"));
+        assertEquals(SqlKind.DROP_TABLE, operation.getKind());
+        assertEquals(Arrays.asList("DB", "T"), operation.getTargetIdentifier());
+        assertTrue(operation.isIfExists());
+        assertTrue(operation.isTemporary());
+
+        final DropOperation plain = (DropOperation) convert(parser.parse("DROP TABLE t"));
+        assertFalse(plain.isIfExists());
+        assertFalse(plain.isTemporary());
+    }
+
+    @Test
+    void testConvertGenericDropReadsIfExists() {
+        final DropOperation operation = (DropOperation) convert(new DropView("V", true));
+        assertEquals(SqlKind.DROP_VIEW, operation.getKind());
+        assertEquals(Collections.singletonList("V"), operation.getTargetIdentifier());
+        assertTrue(operation.isIfExists());
+        assertFalse(operation.isTemporary());
+
+        // The flag is read from the node, not from its unparsed keywords.
+        assertFalse(((DropOperation) convert(new DropView("IF EXISTS", false))).isIfExists());
+    }
+
+    @Test
+    void testConvertGenericAlterCollectsOptions() {
+        final SqlNodeList options =
+                new SqlNodeList(
+                        Collections.singletonList(
+                                new XSqlTableOption(
+                                        SqlLiteral.createCharString("k", SqlParserPos.ZERO),
+                                        SqlLiteral.createCharString("v", SqlParserPos.ZERO),
+                                        SqlParserPos.ZERO)),
+                        SqlParserPos.ZERO);
+        final AlterOperation operation =
+                (AlterOperation) convert(new AlterView(identifier("V"), options));
+        assertEquals(SqlKind.ALTER_VIEW, operation.getKind());
+        assertEquals(Collections.singletonMap("k", "v"), operation.getProperties());
+    }
+
+    @Test
+    void testConvertSetOption() {
+        final AlterOperation set = (AlterOperation) convert(parser.parse("SET a.b = 'batch'"));
+        assertEquals(SqlKind.SET_OPTION, set.getKind());
+        assertEquals(Collections.singletonMap("A.B", "batch"), set.getProperties());
+
+        final AlterOperation number = (AlterOperation) convert(parser.parse("SET parallelism = 4"));
+        assertEquals(Collections.singletonMap("PARALLELISM", "4"), number.getProperties());
+
+        final AlterOperation reset = (AlterOperation) convert(parser.parse("RESET x"));
+        assertTrue(reset.getProperties().isEmpty());
+    }
+
+    @Test
+    void testUnsupportedStatement() {
+        assertFalse(converter.convert(parser.parse("SELECT 1")).isPresent());
+    }
+
+    private Operation convert(SqlNode node) {
+        return converter
+                .convert(node)
+                .orElseThrow(() -> new AssertionError("not converted: " + node));
+    }
+
+    private static SqlIdentifier identifier(String name) {
+        return new SqlIdentifier(name, SqlParserPos.ZERO);
+    }
+
+    /** A DROP VIEW node that unparses like Calcite's server DDL nodes. */
+    private static final class DropView extends SqlDrop {
+        private static final SqlOperator OPERATOR =
+                new SqlSpecialOperator("DROP VIEW", SqlKind.DROP_VIEW);
+
+        private final SqlIdentifier name;
+
+        DropView(String name, boolean ifExists) {
+            super(OPERATOR, SqlParserPos.ZERO, ifExists);
+            this.name = identifier(name);
+        }
+
+        @Override
+        public List<SqlNode> getOperandList() {
+            return Collections.singletonList(name);
+        }
+
+        @Override
+        public void unparse(SqlWriter writer, int leftPrec, int rightPrec) {
+            writer.keyword("DROP VIEW");
+            if (ifExists) {
+                writer.keyword("IF EXISTS");
+            }
+            name.unparse(writer, leftPrec, rightPrec);
+        }
+    }
+
+    /** An ALTER VIEW node with an option list. */
+    private static final class AlterView extends SqlCall {
+        private static final SqlOperator OPERATOR =
+                new SqlSpecialOperator("ALTER VIEW", SqlKind.ALTER_VIEW);
+
+        private final SqlIdentifier name;
+        private final SqlNodeList options;
+
+        AlterView(SqlIdentifier name, SqlNodeList options) {
+            super(SqlParserPos.ZERO);
+            this.name = name;
+            this.options = options;
+        }
+
+        @Override
+        public SqlOperator getOperator() {
+            return OPERATOR;
+        }
+
+        @Override
+        public List<SqlNode> getOperandList() {
+            return Arrays.asList(name, options);
+        }
+    }
+}
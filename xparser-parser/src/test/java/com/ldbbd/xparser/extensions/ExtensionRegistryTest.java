@@ -0,0 +1,151 @@
+package com.ldbbd.xparser.extensions;
+
+import com.ldbbd.error.SqlParserException;
+import com.ldbbd.xparser.factories.XSqlParserFactory;
+import com.ldbbd.xparser.parsers.CalciteParser;
+import com.ldbbd.xparser.parsers.SqlInput;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.util.Litmus;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests for {@link ExtensionRegistry} and the extension dispatch of {@link CalciteParser}. */
+class ExtensionRegistryTest {
+
+    private static final String NON_ASCII = "SELECT 'Größe 😀 指标' AS \"列\" FROM t";
+
+    private final CalciteParser parser = new XSqlParserFactory().createCalciteParser();
+
+    private final SqlParser.Config config = parser.getConfig();
+
+    private final Compact compact = new Compact("COMPACT");
+
+    private final Compact compactTable = new Compact("COMPACT", "TABLE");
+
+    @Test
+    void testLongestKeywordsWin() {
+        final ExtensionRegistry registry = new ExtensionRegistry();
+        assertTrue(registry.isEmpty());
+        assertNull(registry.lookup("COMPACT t"));
+        registry.register(compact);
+        registry.register(compactTable);
+        assertSame(compact, registry.lookup("compact t"));
+        assertSame(compactTable, registry.lookup("Compact Table t"));
+        assertSame(compact, registry.lookup("COMPACT tables"));
+        assertNull(registry.lookup("SELECT 1"));
+        assertEquals(Arrays.asList(compact, compactTable), registry.getExtensions());
+
+        assertTrue(registry.unregister(compactTable));
+        assertFalse(registry.unregister(compactTable));
+        assertSame(compact, registry.lookup("COMPACT TABLE t"));
+    }
+
+    @Test
+    void testRejectsInvalidKeywords() {
+        final ExtensionRegistry registry = new ExtensionRegistry();
+        assertThrows(IllegalArgumentException.class, () -> registry.register(new Compact()));
+        assertThrows(
+                IllegalArgumentException.class, () -> registry.register(new Compact("compact")));
+        assertThrows(
+                IllegalArgumentException.class, () -> registry.register(new Compact("GRÖSSE")));
+        assertThrows(
+                IllegalArgumentException.class, () -> registry.register(new Compact("A-B")));
+        registry.register(compact);
+        assertThrows(IllegalStateException.class, () -> registry.register(new Compact("COMPACT")));
+    }
+
+    @Test
+    void testParsesTheStatementsOfExtensions() {
+        parser.getExtensions().register(compact);
+        try {
+            assertEquals("DB.T", parser.parse("COMPACT db.t").toString());
+            assertEquals(SqlKind.SELECT, parser.parse("SELECT 1").getKind());
+            assertThrows(SqlParserException.class, () -> parser.parse("COMPACT t u"));
+        } finally {
+            parser.getExtensions().unregister(compact);
+        }
+    }
+
+    @Test
+    void testMatchesReadsOnlyTheLeadingWords() {
+        final ExtensionRegistry registry = new ExtensionRegistry();
+        registry.register(compactTable);
+        final String script = "SELECT 1; COMPACT TABLE ªª; compact t";
+        assertFalse(registry.matches(script, 0, 8, config));
+        assertTrue(registry.matches(script, 9, 29, config));
+        assertFalse(registry.matches(script, 30, script.length(), config));
+        // A statement ending within the keywords does not match.
+        assertFalse(registry.matches(script, 9, 17, config));
+    }
+
+    @Test
+    void testNonAsciiBytesWithExtensions() {
+        final SqlNode expected = parser.parse(NON_ASCII);
+        parser.getExtensions().register(compact);
+        try {
+            assertTrue(expected.equalsDeep(parser.parse(utf8(NON_ASCII)), Litmus.IGNORE));
+
+            // Extension statements are decoded once they match.
+            final SqlIdentifier table =
+                    (SqlIdentifier) parser.parse(utf8("COMPACT \"Größe\".\"指标\""));
+            assertEquals(Arrays.asList("Größe", "指标"), table.names);
+
+            final SqlNodeList script =
+                    parser.parseStatements(
+                            utf8(NON_ASCII + ";\nCOMPACT \"表\";\n" + NON_ASCII), null);
+            assertEquals(3, script.size());
+            assertTrue(expected.equalsDeep(script.get(0), Litmus.IGNORE));
+            assertEquals("表", ((SqlIdentifier) script.get(1)).getSimple());
+            assertTrue(expected.equalsDeep(script.get(2), Litmus.IGNORE));
+            assertEquals(3, script.get(2).getParserPosition().getLineNum());
+
+            final SqlNodeList plain =
+                    parser.parseStatements(utf8(NON_ASCII + ";" + NON_ASCII), null);
+            assertEquals(2, plain.size());
+            assertTrue(expected.equalsDeep(plain.get(1), Litmus.IGNORE));
+        } finally {
+            parser.getExtensions().unregister(compact);
+        }
+    }
+
+    private static SqlInput utf8(String sql) {
+        return SqlInput.utf8(ByteBuffer.wrap(sql.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** Parses {@code <keywords> <identifier>} into the identifier. */
+    private static final class Compact implements StatementExtension {
+        private final List<String> keywords;
+
+        Compact(String... keywords) {
+            this.keywords = Collections.unmodifiableList(Arrays.asList(keywords));
+        }
+
+        @Override
+        public List<String> keywords() {
+            return keywords;
+        }
+
+        @Override
+        public SqlNode parse(StatementReader reader) {
+            final SqlIdentifier table = reader.identifier();
+            reader.end();
+            return table;
+        }
+    }
+}
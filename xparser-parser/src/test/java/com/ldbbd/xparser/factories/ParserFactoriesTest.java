@@ -0,0 +1,78 @@
+package com.ldbbd.xparser.factories;
+
+import com.ldbbd.xparser.interfaces.ParserFactory;
+import com.ldbbd.xparser.operations.Operation;
+import com.ldbbd.xparser.operations.ddl.CreateTableOperation;
+import com.ldbbd.xparser.parsers.CalciteParser;
+import org.apache.calcite.sql.SqlKind;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests for {@link ParserFactories} and the generated parsers of the dialects. */
+class ParserFactoriesTest {
+
+    private static final String CREATE_TABLE =
+            "CREATE TABLE t (a INT, b VARCHAR) WITH ('connector' = 'kafka')";
+
+    @Test
+    void testEveryRegisteredFactoryParses() {
+        final Set<String> parserClassNames = new HashSet<>();
+        int registered = 0;
+        for (ParserFactory factory : ServiceLoader.load(ParserFactory.class)) {
+            registered++;
+            // Only dialects whose grammar is compiled are registered.
+            final GeneratedParserFactory generated = (GeneratedParserFactory) factory;
+            assertTrue(generated.isAvailable(), generated.getParserClassName());
+
+            final CalciteParser parser = generated.createCalciteParser();
+            assertEquals(generated.getParserClassName(), parserClassName(parser));
+            assertTrue(parserClassNames.add(generated.getParserClassName()));
+            assertEquals(SqlKind.CREATE_TABLE, parser.parse(CREATE_TABLE).getKind());
+
+            final List<Operation> operations =
+                    factory.create(new ParserFactory.DefaultParserContext()).parse(CREATE_TABLE);
+            assertEquals(1, operations.size(), factory.factoryIdentifier());
+            assertTrue(operations.get(0) instanceof CreateTableOperation);
+        }
+        assertEquals(ParserFactories.discover().size(), registered);
+    }
+
+    @Test
+    void testDiscoverAvailableDialects() {
+        final Map<String, ParserFactory> factories = ParserFactories.discover();
+        assertTrue(factories.containsKey(XSqlParserFactory.IDENTIFIER));
+        for (ParserFactory factory : factories.values()) {
+            assertTrue(((GeneratedParserFactory) factory).isAvailable());
+        }
+        final IllegalArgumentException e =
+                assertThrows(IllegalArgumentException.class, () -> ParserFactories.find("hive"));
+        assertTrue(e.getMessage().contains(XSqlParserFactory.IDENTIFIER));
+    }
+
+    @Test
+    void testUnavailableDialect() {
+        final GeneratedParserFactory missing =
+                new GeneratedParserFactory("missing", "xparser.missing.parser.impl.Missing") {};
+        assertFalse(missing.isAvailable());
+        assertThrows(IllegalStateException.class, missing::createCalciteParser);
+    }
+
+    private static String parserClassName(CalciteParser parser) {
+        return parser.getConfig()
+                .parserFactory()
+                .getParser(new StringReader(""))
+                .getClass()
+                .getName();
+    }
+}
@@ -0,0 +1,185 @@
+package com.ldbbd.xparser.format;
+
+import com.ldbbd.error.SqlParserException;
+import com.ldbbd.xparser.factories.XSqlParserFactory;
+import com.ldbbd.xparser.parsers.CalciteParser;
+import com.ldbbd.xparser.parsers.SqlInput;
+import org.apache.calcite.avatica.util.Quoting;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.util.Litmus;
+import org.junit.jupiter.api.Test;
+import types.XSqlCollectionStyle;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests for {@link SqlFormatter} and {@link ScriptSplitter}. */
+class SqlFormatterTest {
+
+    private static final String SCRIPT =
+            "create table t (a int array, b varchar comment 'x;y') with ('k'='v');\n"
+                    + "-- c; d\n"
+                    + " insert into t select a, b from s where a in (1, 2);;\n"
+                    + "INSERT INTO \"T;\" SELECT * FROM s;\n"
+                    + "/* ; */";
+
+    private final CalciteParser parser = new XSqlParserFactory().createCalciteParser();
+
+    private final SqlFormatter formatter = SqlFormatter.builder(parser).build();
+
+    @Test
+    void testFormatsEveryStatement() {
+        assertEquals(
+                "CREATE TABLE \"T\" (\n"
+                        + "  \"A\" INTEGER ARRAY,\n"
+                        + "  \"B\" VARCHAR COMMENT 'x;y'\n"
+                        + ") WITH (\n"
+                        + "  'k' = 'v'\n"
+                        + ");\n"
+                        + "\n"
+                        + "INSERT INTO \"T\"\n"
+                        + "(SELECT \"A\", \"B\"\n"
+                        + "    FROM \"S\"\n"
+                        + "    WHERE \"A\" IN (1, 2));\n"
+                        + "\n"
+                        + "INSERT INTO \"T;\"\n"
+                        + "(SELECT *\n"
+                        + "    FROM \"S\");\n",
+                formatter.format(SCRIPT));
+    }
+
+    @Test
+    void testFormattedScriptParsesAlikeAndIsStable() {
+        final String formatted = formatter.format(SCRIPT);
+        assertEquals(formatted, formatter.format(formatted));
+
+        final SqlNodeList expected = parser.parseStatements(SqlInput.of(SCRIPT), null);
+        final SqlNodeList actual = parser.parseStatements(SqlInput.of(formatted), null);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue(expected.get(i).equalsDeep(actual.get(i), Litmus.IGNORE), formatted);
+        }
+    }
+
+    @Test
+    void testStyle() {
+        final SqlFormatter styled =
+                SqlFormatter.builder(parser)
+                        .indentation(2)
+                        .keywordsLowerCase(true)
+                        .collectionStyle(XSqlCollectionStyle.ANGLE_BRACKETS)
+                        .build();
+        final String formatted = styled.format(SCRIPT);
+        assertTrue(formatted.startsWith("create table \"T\" (\n  \"A\" array< integer >,"));
+        assertTrue(formatted.contains("(select \"A\", \"B\"\n  from \"S\"\n  where"), formatted);
+
+        // Without a style each type keeps the style it was parsed in.
+        assertEquals(
+                "CREATE TABLE \"T\" (\n  \"A\" INTEGER ARRAY\n)",
+                formatter.format(parser.parse("CREATE TABLE t (a INT ARRAY)")));
+
+        // Identifiers are quoted the way the parser reads them.
+        final CalciteParser backTicks =
+                new CalciteParser(parser.getConfig().withQuoting(Quoting.BACK_TICK));
+        assertEquals(
+                "SELECT `A`\nFROM `T`",
+                SqlFormatter.builder(backTicks).build().format(backTicks.parse("SELECT a FROM t")));
+
+        assertThrows(
+                IllegalArgumentException.class, () -> SqlFormatter.builder(parser).indentation(-1));
+    }
+
+    @Test
+    void testRepeatedInsertsKeepTheirIndentation() {
+        final StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            script.append("INSERT INTO t SELECT a FROM s WHERE b = 1;\n");
+        }
+        final String insert =
+                "INSERT INTO \"T\"\n(SELECT \"A\"\n    FROM \"S\"\n    WHERE \"B\" = 1);\n";
+        assertEquals(insert + "\n" + insert + "\n" + insert, formatter.format(script.toString()));
+    }
+
+    @Test
+    void testFailureNamesTheStatementAndItsLine() throws Exception {
+        final StringWriter out = new StringWriter();
+        final SqlParserException e =
+                assertThrows(
+                        SqlParserException.class,
+                        () ->
+                                formatter.format(
+                                        new StringReader(
+                                                "SELECT 1;\n-- ;\n\n  SELECT FROM;\nSELECT 2"),
+                                        out));
+        assertTrue(
+                e.getMessage().startsWith("Failed to format statement 2 at line 4. "),
+                e.getMessage());
+        assertEquals("SELECT 1;\n", out.toString());
+    }
+
+    @Test
+    void testStreamsLargeScripts() throws Exception {
+        final int statements = 5_000;
+        final CountingWriter out = new CountingWriter();
+        assertEquals(statements, formatter.format(new GeneratedScript(statements), out));
+        assertEquals(statements, out.semicolons);
+    }
+
+    /** A script of generated INSERT statements that is never held in memory as a whole. */
+    private static final class GeneratedScript extends Reader {
+        private final int statements;
+        private int statement;
+        private String current = "";
+        private int pos;
+
+        GeneratedScript(int statements) {
+            this.statements = statements;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (pos == current.length()) {
+                if (statement == statements) {
+                    return -1;
+                }
+                current = "INSERT INTO t" + statement++ + " VALUES (1, 'a;b');\n";
+                pos = 0;
+            }
+            final int n = Math.min(length, current.length() - pos);
+            current.getChars(pos, pos + n, buffer, offset);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    /** Counts the statement terminators written and discards the output. */
+    private static final class CountingWriter extends Writer {
+        private int semicolons;
+        private char previous;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (previous == ';' && buffer[i] == '\n') {
+                    semicolons++;
+                }
+                previous = buffer[i];
+            }
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,66 @@
+package com.ldbbd.xparser.impls;
+
+import com.ldbbd.xparser.converter.SqlToCURDConverter;
+import com.ldbbd.xparser.factories.XSqlParserFactory;
+import com.ldbbd.xparser.interfaces.Parser;
+import com.ldbbd.xparser.interfaces.ParserFactory;
+import com.ldbbd.xparser.parsers.StatementClassifier.Keywords;
+import org.junit.jupiter.api.Test;
+import xparser.impl.XSqlKeywords;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests for {@link DialectParserImpl}. */
+class DialectParserImplTest {
+
+    private final Parser parser = new XSqlParserFactory().create(new ParserFactory.DefaultParserContext());
+
+    @Test
+    void testCompletesKeywords() {
+        final String[] hints = parser.getCompletionHints("CREATE TABLE t (a INT) partit", 29);
+        assertTrue(hints.length > 0);
+        assertTrue(Arrays.asList(hints).contains("PARTITIONED"));
+        for (String hint : hints) {
+            assertTrue(hint.startsWith("PARTIT"), hint);
+            assertTrue(XSqlKeywords.isKeyword(hint), hint);
+        }
+    }
+
+    @Test
+    void testCompletesTheWordBeforeTheCursor() {
+        assertArrayEquals(
+                new String[] {"SELECT"}, parser.getCompletionHints("SELEC * FROM t", 5));
+        assertArrayEquals(new String[0], parser.getCompletionHints("SELECT xyz", 10));
+    }
+
+    @Test
+    void testEmptyWordCompletesToAllKeywords() {
+        final String[] hints = parser.getCompletionHints("SELECT ", 7);
+        assertEquals(XSqlKeywords.keywords(), Arrays.asList(hints));
+    }
+
+    @Test
+    void testNoHintsWithoutKeywords() {
+        final DialectParserImpl withoutKeywords =
+                new DialectParserImpl(
+                        new XSqlParserFactory().createCalciteParser(), new SqlToCURDConverter());
+        assertArrayEquals(new String[0], withoutKeywords.getCompletionHints("SEL", 3));
+    }
+
+    @Test
+    void testPositionOutsideTheStatement() {
+        assertThrows(IndexOutOfBoundsException.class, () -> parser.getCompletionHints("SEL", 4));
+        assertThrows(IndexOutOfBoundsException.class, () -> parser.getCompletionHints("SEL", -1));
+    }
+
+    @Test
+    void testXSqlKeywords() {
+        assertEquals(XSqlKeywords.keywords(), Keywords.XSQL.keywords());
+        assertTrue(Keywords.XSQL.isReservedKeyword("x select", 2, 8));
+    }
+}
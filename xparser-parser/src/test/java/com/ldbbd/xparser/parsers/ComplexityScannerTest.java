@@ -0,0 +1,126 @@
+package com.ldbbd.xparser.parsers;
+
+import com.ldbbd.error.ParseBudgetExceededException;
+import com.ldbbd.xparser.factories.XSqlParserFactory;
+import org.apache.calcite.avatica.util.Quoting;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.parser.SqlParserImplFactory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Tests for {@link ComplexityScanner} and the pre-scan of {@link CalciteParser}. */
+class ComplexityScannerTest {
+
+    private final SqlParser.Config config = new XSqlParserFactory().config();
+
+    private final CalciteParser parser = new CalciteParser(config);
+
+    @Test
+    void testQueryComplexity() {
+        final StatementComplexity complexity =
+                estimate(
+                        "SELECT a, b FROM t JOIN u ON t.x = u.x, v WHERE a IN (1, 2, 3)"
+                                + " AND b IN (SELECT c FROM (SELECT c FROM w))");
+        assertEquals(42, complexity.getTokenCount());
+        assertEquals(21, complexity.getNodeCount());
+        assertEquals(2, complexity.getJoinCount());
+        assertEquals(2, complexity.getSubqueryDepth());
+        assertEquals(3, complexity.getMaxInListSize());
+        assertEquals(0, complexity.getColumnCount());
+
+        assertEquals(
+                3,
+                estimate("INSERT INTO t VALUES (1, 'a'), (2, 'b'), (3, 'c')").getValuesRowCount());
+    }
+
+    @Test
+    void testCreateTableComplexity() {
+        final StatementComplexity complexity =
+                estimate(
+                        "CREATE TABLE t (a INT ARRAY ARRAY, b ROW(x INT, y MAP<INT, INT ARRAY>),"
+                                + " c AS a + 1, PRIMARY KEY (a) NOT ENFORCED)");
+        assertEquals(3, complexity.getColumnCount());
+        assertEquals(3, complexity.getTypeNestingDepth());
+        assertEquals(2, estimate("CREATE TABLE t (a INT ARRAY ARRAY)").getTypeNestingDepth());
+        // Value constructors are not types.
+        assertEquals(0, estimate("SELECT ARRAY[ARRAY[1]]").getTypeNestingDepth());
+    }
+
+    @Test
+    void testBracketsNestUnlessTheyQuote() {
+        final ParseBudget budget = ParseBudget.builder().maxNestingDepth(2).build();
+        final String nested = "SELECT " + ParseGuardTest.nestedArray(3);
+        assertEquals(
+                ParseBudget.Limit.NESTING_DEPTH,
+                assertThrows(
+                                ParseBudgetExceededException.class,
+                                () ->
+                                        new CalciteParser(config, budget)
+                                                .estimateComplexity(SqlInput.of(nested)))
+                        .getLimit());
+        assertThrows(
+                ParseBudgetExceededException.class,
+                () ->
+                        new CalciteParser(config, budget)
+                                .estimateComplexity(SqlInput.of("SELECT m[m[m[1]]]")));
+
+        // Bracket quoted identifiers are single tokens.
+        final CalciteParser brackets =
+                new CalciteParser(config.withQuoting(Quoting.BRACKET), budget);
+        assertEquals(
+                4,
+                brackets.estimateComplexity(SqlInput.of("SELECT [a[[b]]] FROM [t]"))
+                        .getTokenCount());
+        // An identifier after a postfix type does not construct a value.
+        assertEquals(
+                1,
+                brackets.estimateComplexity(
+                                SqlInput.of("CREATE TABLE t ([a] INT ARRAY [b] INT)"))
+                        .getTypeNestingDepth());
+    }
+
+    @Test
+    void testPreScanRejectsBracketNestingBeforeParsing() {
+        final AtomicInteger parsers = new AtomicInteger();
+        final SqlParserImplFactory base = config.parserFactory();
+        final CalciteParser counting =
+                new CalciteParser(
+                        config.withParserFactory(
+                                reader -> {
+                                    parsers.incrementAndGet();
+                                    return base.getParser(reader);
+                                }),
+                        ParseBudget.builder().maxNestingDepth(8).build());
+        counting.parse("SELECT " + ParseGuardTest.nestedArray(8));
+        assertEquals(1, parsers.get());
+
+        final ParseBudgetExceededException e =
+                assertThrows(
+                        ParseBudgetExceededException.class,
+                        () -> counting.parse("SELECT " + ParseGuardTest.nestedArray(9)));
+        assertEquals(ParseBudget.Limit.NESTING_DEPTH, e.getLimit());
+        assertEquals(1, parsers.get());
+    }
+
+    @Test
+    void testBytesEstimateLikeCharacters() {
+        final String sql =
+                "SELECT 'Größe', \"指标\" FROM t WHERE a IN ('😀', 'é') -- ünïcode\n"
+                        + "AND b = ARRAY['ä']";
+        final StatementComplexity expected = estimate(sql);
+        final StatementComplexity actual =
+                parser.estimateComplexity(
+                        SqlInput.utf8(ByteBuffer.wrap(sql.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    private StatementComplexity estimate(String sql) {
+        return parser.estimateComplexity(SqlInput.of(sql));
+    }
+}
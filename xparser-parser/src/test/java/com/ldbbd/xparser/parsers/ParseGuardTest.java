@@ -0,0 +1,126 @@
+package com.ldbbd.xparser.parsers;
+
+import com.ldbbd.error.ParseBudgetExceededException;
+import com.ldbbd.xparser.factories.XSqlParserFactory;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests for the {@link ParseBudget} checks of {@link CalciteParser} and {@link ParseGuard}. */
+class ParseGuardTest {
+
+    private static final int COLUMNS = 2_000;
+
+    private final XSqlParserFactory factory = new XSqlParserFactory();
+
+    @Test
+    void testGeneratedParserPollsItsReader() throws Exception {
+        final CountingReader reader = new CountingReader(select(COLUMNS));
+        assertNotNull(SqlParser.create(reader, factory.config()).parseStmt());
+        // The select list alone consumes two tokens per column.
+        assertTrue(reader.runs >= 2 * COLUMNS / 64, "polls: " + reader.runs);
+    }
+
+    @Test
+    void testCancellation() {
+        final CalciteParser parser = factory.createCalciteParser();
+        final AtomicInteger polls = new AtomicInteger();
+        final ParseBudgetExceededException e =
+                assertThrows(
+                        ParseBudgetExceededException.class,
+                        () -> parser.parse(select(COLUMNS), () -> polls.incrementAndGet() > 2));
+        assertEquals(ParseBudget.Limit.CANCELLED, e.getLimit());
+        assertEquals(3, polls.get());
+    }
+
+    @Test
+    void testDeadline() {
+        final CalciteParser parser =
+                factory.createCalciteParser(
+                        ParseBudget.builder().maxWallTime(Duration.ofMillis(20)).build());
+        // Every poll takes a millisecond, the deadline passes halfway through the statement.
+        final ParseBudgetExceededException e =
+                assertThrows(
+                        ParseBudgetExceededException.class,
+                        () ->
+                                parser.parse(
+                                        select(COLUMNS),
+                                        () -> {
+                                            sleep(1);
+                                            return false;
+                                        }));
+        assertEquals(ParseBudget.Limit.WALL_TIME, e.getLimit());
+    }
+
+    @Test
+    void testNoDeadlineWithinBudget() {
+        final CalciteParser parser =
+                factory.createCalciteParser(
+                        ParseBudget.builder().maxWallTime(Duration.ofMinutes(1)).build());
+        final SqlNode node = parser.parse(select(COLUMNS), () -> false);
+        assertNotNull(node);
+    }
+
+    @Test
+    void testNestedArraysExceedNestingDepth() {
+        final CalciteParser parser =
+                factory.createCalciteParser(ParseBudget.builder().maxNestingDepth(8).build());
+        assertNotNull(parser.parse("SELECT " + nestedArray(8)));
+        final ParseBudgetExceededException e =
+                assertThrows(
+                        ParseBudgetExceededException.class,
+                        () -> parser.parse("SELECT " + nestedArray(500)));
+        assertEquals(ParseBudget.Limit.NESTING_DEPTH, e.getLimit());
+    }
+
+    static String select(int columns) {
+        final StringBuilder sql = new StringBuilder("SELECT c0");
+        for (int i = 1; i < columns; i++) {
+            sql.append(", c").append(i);
+        }
+        return sql.append(" FROM t").toString();
+    }
+
+    static String nestedArray(int depth) {
+        final StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sql.append("ARRAY[");
+        }
+        sql.append('1');
+        for (int i = 0; i < depth; i++) {
+            sql.append(']');
+        }
+        return sql.toString();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** A reader that counts how often the parser runs it. */
+    private static final class CountingReader extends StringReader implements Runnable {
+        private int runs;
+
+        CountingReader(String sql) {
+            super(sql);
+        }
+
+        @Override
+        public void run() {
+            runs++;
+        }
+    }
+}
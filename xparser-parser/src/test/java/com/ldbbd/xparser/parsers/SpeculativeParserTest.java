@@ -0,0 +1,198 @@
+package com.ldbbd.xparser.parsers;
+
+import com.ldbbd.error.ParseBudgetExceededException;
+import com.ldbbd.error.SqlParserException;
+import com.ldbbd.xparser.factories.XSqlParserFactory;
+import org.apache.calcite.avatica.util.Quoting;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.parser.SqlParserImplFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests for {@link SpeculativeParser} and {@link DialectDetector}. */
+class SpeculativeParserTest {
+
+    private static final String DOUBLE_QUOTED = "CREATE TABLE \"t\" (a INT) WITH ('k' = 'v')";
+
+    private final SqlParser.Config config = new XSqlParserFactory().config();
+
+    @Test
+    void testDetection() {
+        assertDetected(DialectDetector.SPARK, 1, "CREATE TABLE t (a INT) USING parquet");
+        assertDetected(
+                DialectDetector.SPARK,
+                1,
+                "CREATE TABLE t (a INT) PARTITIONED BY (dt STRING) TBLPROPERTIES ('k' = 'v')");
+        assertDetected(DialectDetector.FLINK, 1, "EXECUTE STATEMENT SET BEGIN END");
+        assertDetected(DialectDetector.XSQL, 2.0 / 3, DOUBLE_QUOTED);
+        assertDetected(
+                DialectDetector.FLINK,
+                0.25,
+                "CREATE TABLE `t` (ts TIMESTAMP(3), WATERMARK FOR ts AS ts)"
+                        + " WITH ('connector' = 'kafka')");
+        // The USING of a join and the WITH of a query are no dialect features.
+        assertDetected(null, 0, "WITH q AS (SELECT 1) SELECT * FROM q JOIN r USING (a)");
+        assertDetected(null, 0, "SELECT 1");
+        assertEquals(
+                DialectDetector.detect(DOUBLE_QUOTED).getScores(),
+                DialectDetector.detect(SqlInput.of(DOUBLE_QUOTED)).getScores());
+    }
+
+    @Test
+    void testConfidentGuessParsesAlone() {
+        final AtomicInteger xsql = new AtomicInteger();
+        final AtomicInteger spark = new AtomicInteger();
+        try (SpeculativeParser parser =
+                SpeculativeParser.builder()
+                        .dialect(DialectDetector.SPARK, counting(config, spark))
+                        .dialect(DialectDetector.XSQL, counting(config, xsql))
+                        .build()) {
+            final ParsedStatement statement = parser.parse(DOUBLE_QUOTED);
+            assertEquals(DialectDetector.XSQL, statement.getDialect());
+            assertFalse(statement.isSpeculative());
+            assertEquals(SqlKind.CREATE_TABLE, statement.getNode().getKind());
+            assertEquals(1, xsql.get());
+            assertEquals(0, spark.get());
+        }
+    }
+
+    @Test
+    void testFailedGuessFallsBackToTheOtherDialects() {
+        // Reads "t" as a string, so the confident guess fails.
+        final CalciteParser backTicks = new CalciteParser(config.withQuoting(Quoting.BACK_TICK));
+        try (SpeculativeParser parser =
+                SpeculativeParser.builder()
+                        .dialect(DialectDetector.XSQL, backTicks)
+                        .dialect(DialectDetector.SPARK, new CalciteParser(config))
+                        .build()) {
+            final ParsedStatement statement = parser.parse(DOUBLE_QUOTED);
+            assertEquals(DialectDetector.SPARK, statement.getDialect());
+            assertTrue(statement.isSpeculative());
+        }
+    }
+
+    @Test
+    void testParallelParseCancelsTheLosers() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final SqlParserImplFactory base = config.parserFactory();
+        final CalciteParser slow =
+                new CalciteParser(
+                        config.withParserFactory(
+                                reader ->
+                                        base.getParser(
+                                                new SlowReader(reader, started, cancelled))));
+        // The winner waits for the loser to read, so that it is cancelled while parsing.
+        final CalciteParser fast =
+                new CalciteParser(
+                        config.withParserFactory(
+                                reader -> {
+                                    await(started);
+                                    return base.getParser(reader);
+                                }));
+        try (SpeculativeParser parser =
+                SpeculativeParser.builder()
+                        .dialect(DialectDetector.XSQL, slow)
+                        .dialect(DialectDetector.SPARK, fast)
+                        .build()) {
+            final ParsedStatement statement = parser.parse("CREATE TABLE t (a INT, b INT)");
+            assertTrue(statement.isSpeculative());
+            assertNull(statement.getDetection().getDialect());
+            assertEquals(DialectDetector.SPARK, statement.getDialect());
+            assertTrue(cancelled.await(10, TimeUnit.SECONDS), "the loser was not cancelled");
+        }
+    }
+
+    @Test
+    void testAllDialectsFail() {
+        try (SpeculativeParser parser =
+                SpeculativeParser.builder()
+                        .dialect(DialectDetector.XSQL, new CalciteParser(config))
+                        .dialect(DialectDetector.SPARK, new CalciteParser(config))
+                        .dialect("other", new CalciteParser(config))
+                        .minConfidence(0)
+                        .build()) {
+            final SqlParserException e =
+                    assertThrows(
+                            SqlParserException.class,
+                            () -> parser.parse("CREATE TABLE t (a INT) USING parquet"));
+            final String prefix = "SQL parse failed in all dialects [spark, xsql, other]. spark: ";
+            assertTrue(e.getMessage().startsWith(prefix), e.getMessage());
+            assertTrue(e.getCause() instanceof SqlParserException, e.toString());
+            assertEquals(2, e.getCause().getSuppressed().length);
+            assertEquals(
+                    Arrays.asList(DialectDetector.XSQL, DialectDetector.SPARK, "other"),
+                    parser.getDialects());
+        }
+        assertThrows(IllegalStateException.class, () -> SpeculativeParser.builder().build());
+    }
+
+    private static void assertDetected(String dialect, double confidence, String sql) {
+        final DetectedDialect detection = DialectDetector.detect(sql);
+        assertEquals(dialect, detection.getDialect(), detection.toString());
+        assertEquals(confidence, detection.getConfidence(), 1e-9, detection.toString());
+    }
+
+    private static CalciteParser counting(SqlParser.Config config, AtomicInteger parses) {
+        final SqlParserImplFactory base = config.parserFactory();
+        return new CalciteParser(
+                config.withParserFactory(
+                        reader -> {
+                            parses.incrementAndGet();
+                            return base.getParser(reader);
+                        }));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hands out one character at a time, slowly, and records the start and the cancellation of
+     * its parse.
+     */
+    private static final class SlowReader extends FilterReader {
+        private final CountDownLatch started;
+        private final CountDownLatch cancelled;
+
+        SlowReader(Reader in, CountDownLatch started, CountDownLatch cancelled) {
+            super(in);
+            this.started = started;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            started.countDown();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                return super.read(buffer, offset, Math.min(length, 1));
+            } catch (ParseBudgetExceededException e) {
+                cancelled.countDown();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.ldbbd.xparser.parsers;
+
+import com.ldbbd.error.SqlParserException;
+import com.ldbbd.xparser.factories.XSqlParserFactory;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.util.Litmus;
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests for {@link SqlInput} and its readers. */
+class SqlInputTest {
+
+    private static final String ASCII =
+            "CREATE TABLE t (a INT COMMENT 'id', b VARCHAR) WITH ('connector' = 'kafka')";
+
+    private static final String NON_ASCII =
+            "CREATE TABLE t (a INT COMMENT 'Größe 😀 指标', b VARCHAR)";
+
+    private final CalciteParser parser = new XSqlParserFactory().createCalciteParser();
+
+    @Test
+    void testAllInputsParseAlike() {
+        for (String sql : new String[] {ASCII, NON_ASCII}) {
+            final SqlNode expected = parser.parse(sql);
+            assertParses(expected, SqlInput.of(sql));
+            assertParses(expected, SqlInput.of(new StringBuilder(sql)));
+            assertParses(expected, SqlInput.of(CharBuffer.wrap(sql)));
+            assertParses(expected, SqlInput.utf8(utf8(sql, false)));
+            assertParses(expected, SqlInput.utf8(utf8(sql, true)));
+        }
+    }
+
+    @Test
+    void testBufferIsLeftAlone() {
+        final ByteBuffer bytes = utf8("xx" + NON_ASCII + "yy", true);
+        bytes.position(2).limit(bytes.limit() - 2);
+        final SqlInput input = SqlInput.utf8(bytes);
+        final SqlNode first = parser.parse(input);
+        assertEquals(2, bytes.position());
+        assertTrue(first.equalsDeep(parser.parse(input), Litmus.IGNORE));
+        assertTrue(first.equalsDeep(parser.parse(NON_ASCII), Litmus.IGNORE));
+    }
+
+    @Test
+    void testMalformedUtf8() {
+        final ByteBuffer bytes = ByteBuffer.wrap(new byte[] {'S', 'E', 'L', (byte) 0xC3});
+        assertThrows(SqlParserException.class, () -> parser.parse(SqlInput.utf8(bytes)));
+        assertThrows(SqlParserException.class, () -> SqlInput.utf8(bytes).chars());
+    }
+
+    @Test
+    void testAsciiBytesAreViewedInPlace() {
+        final CharSequence chars = SqlInput.utf8(utf8(ASCII, true)).chars();
+        assertFalse(chars instanceof String);
+        assertEquals(ASCII, chars.toString());
+        assertEquals("TABLE", chars.subSequence(7, 12).toString());
+        assertEquals(NON_ASCII, SqlInput.utf8(utf8(NON_ASCII, false)).chars().toString());
+    }
+
+    @Test
+    void testScanCharsViewBytesWithoutDecoding() {
+        final CharSequence scanChars = SqlInput.utf8(utf8(NON_ASCII, true)).scanChars();
+        assertFalse(scanChars instanceof String);
+        assertEquals(NON_ASCII.getBytes(StandardCharsets.UTF_8).length, scanChars.length());
+
+        // The scanner reads the same tokens as from the decoded statement.
+        final SqlTokenScanner expected = new SqlTokenScanner(NON_ASCII);
+        final SqlTokenScanner actual = new SqlTokenScanner(scanChars);
+        SqlTokenScanner.TokenType type;
+        do {
+            type = expected.next();
+            assertEquals(type, actual.next());
+        } while (type != SqlTokenScanner.TokenType.EOF);
+
+        final String chars = "SELECT 'é'";
+        assertSame(chars, SqlInput.of(chars).scanChars());
+    }
+
+    @Test
+    void testReaderSplitsSurrogatePairs() throws Exception {
+        final String sql = "😀a😀";
+        final Reader reader = SqlInput.utf8(utf8(sql, false)).reader();
+        final StringBuilder read = new StringBuilder();
+        final char[] buffer = new char[1];
+        int n;
+        while ((n = reader.read(buffer, 0, 1)) > 0) {
+            read.append(buffer, 0, n);
+        }
+        assertEquals(sql, read.toString());
+    }
+
+    private void assertParses(SqlNode expected, SqlInput input) {
+        final SqlNode actual = parser.parse(input);
+        assertTrue(expected.equalsDeep(actual, Litmus.IGNORE), input.toString());
+    }
+
+    private static ByteBuffer utf8(String sql, boolean direct) {
+        final byte[] bytes = sql.getBytes(StandardCharsets.UTF_8);
+        if (!direct) {
+            return ByteBuffer.wrap(bytes);
+        }
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,67 @@
+package com.ldbbd.xparser.parsers;
+
+import org.apache.calcite.avatica.util.Quoting;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Tests for {@link SqlTokenScanner}. */
+class SqlTokenScannerTest {
+
+    @Test
+    void testTokenTypes() {
+        assertEquals(
+                Arrays.asList(
+                        "WORD SELECT",
+                        "QUOTED_IDENTIFIER \"a b\"",
+                        "SYMBOL ,",
+                        "QUOTED_IDENTIFIER `c`",
+                        "SYMBOL ,",
+                        "STRING 'it''s'",
+                        "SYMBOL ,",
+                        "NUMBER 1.5e3",
+                        "WORD FROM",
+                        "WORD t"),
+                tokens(
+                        new SqlTokenScanner(
+                                "SELECT \"a b\", `c`, -- comment\n 'it''s', /* x */ 1.5e3 FROM t")));
+    }
+
+    @Test
+    void testBracketsAreSymbols() {
+        assertEquals(
+                Arrays.asList(
+                        "WORD ARRAY",
+                        "SYMBOL [",
+                        "WORD ARRAY",
+                        "SYMBOL [",
+                        "NUMBER 1",
+                        "SYMBOL ]",
+                        "SYMBOL ]"),
+                tokens(new SqlTokenScanner("ARRAY[ARRAY[1]]")));
+        assertEquals(
+                Arrays.asList("WORD m", "SYMBOL [", "STRING 'k'", "SYMBOL ]"),
+                tokens(new SqlTokenScanner("m['k']", SqlParser.config())));
+    }
+
+    @Test
+    void testBracketQuoting() {
+        final SqlParser.Config config = SqlParser.config().withQuoting(Quoting.BRACKET);
+        assertEquals(
+                Arrays.asList("WORD SELECT", "QUOTED_IDENTIFIER [a b]", "WORD FROM", "WORD t"),
+                tokens(new SqlTokenScanner("SELECT [a b] FROM t", config)));
+    }
+
+    private static List<String> tokens(SqlTokenScanner scanner) {
+        final List<String> tokens = new ArrayList<>();
+        while (scanner.next() != SqlTokenScanner.TokenType.EOF) {
+            tokens.add(scanner.tokenType() + " " + scanner.text());
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,147 @@
+package com.ldbbd.xparser.parsers;
+
+import com.ldbbd.xparser.factories.XSqlParserFactory;
+import com.ldbbd.xparser.parsers.ClassifiedStatement.Flag;
+import org.apache.calcite.avatica.util.Casing;
+import org.apache.calcite.avatica.util.Quoting;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/** Tests for {@link StatementClassifier}. */
+class StatementClassifierTest {
+
+    private final XSqlParserFactory factory = new XSqlParserFactory();
+
+    private final CalciteParser parser = factory.createCalciteParser();
+
+    private final StatementClassifier classifier = StatementClassifier.forXSql(factory.config());
+
+    @Test
+    void testDdl() {
+        check(
+                "CREATE OR REPLACE TEMPORARY TABLE IF NOT EXISTS db.\"t\" (a INT)",
+                SqlKind.CREATE_TABLE,
+                Arrays.asList("DB", "t"),
+                Flag.OR_REPLACE,
+                Flag.TEMPORARY,
+                Flag.IF_NOT_EXISTS);
+        check("create table t (a int)", SqlKind.CREATE_TABLE, Collections.singletonList("T"));
+        check(
+                "DROP TEMPORARY TABLE IF EXISTS t",
+                SqlKind.DROP_TABLE,
+                Collections.singletonList("T"),
+                Flag.TEMPORARY,
+                Flag.IF_EXISTS);
+    }
+
+    @Test
+    void testDml() {
+        check(
+                "INSERT INTO db.t SELECT * FROM s",
+                SqlKind.INSERT,
+                Arrays.asList("DB", "T"));
+        check(
+                "UPSERT INTO t VALUES (1)",
+                SqlKind.INSERT,
+                Collections.singletonList("T"),
+                Flag.UPSERT);
+        check("DELETE FROM t WHERE a = 1", SqlKind.DELETE, Collections.singletonList("T"));
+        check("UPDATE t SET a = 1", SqlKind.UPDATE, Collections.singletonList("T"));
+    }
+
+    @Test
+    void testSetOption() {
+        check("SET a.b = 'c'", SqlKind.SET_OPTION, Arrays.asList("A", "B"));
+        check("RESET ALL", SqlKind.SET_OPTION, Collections.singletonList("ALL"));
+        check("ALTER SESSION RESET x", SqlKind.SET_OPTION, Collections.singletonList("X"));
+    }
+
+    @Test
+    void testQueries() {
+        check("SELECT 1", SqlKind.SELECT, Collections.emptyList());
+        check("VALUES (1)", SqlKind.VALUES, Collections.emptyList());
+        check("SELECT a FROM t ORDER BY a", SqlKind.ORDER_BY, Collections.emptyList());
+        check("SELECT 1 UNION SELECT 2", SqlKind.UNION, Collections.emptyList());
+        check(
+                "SELECT 1 UNION SELECT 2 INTERSECT SELECT 3",
+                SqlKind.UNION,
+                Collections.emptyList());
+        check("SELECT 1 INTERSECT SELECT 2", SqlKind.INTERSECT, Collections.emptyList());
+        check("(SELECT 1) EXCEPT SELECT 2", SqlKind.EXCEPT, Collections.emptyList());
+        check("((SELECT 1 UNION SELECT 2))", SqlKind.UNION, Collections.emptyList());
+        check(
+                "SELECT * FROM (SELECT 1 UNION SELECT 2)",
+                SqlKind.SELECT,
+                Collections.emptyList());
+        check("WITH q AS (SELECT 1) SELECT * FROM q", SqlKind.WITH, Collections.emptyList());
+        check("EXPLAIN PLAN FOR SELECT 1", SqlKind.EXPLAIN, Collections.emptyList());
+    }
+
+    @Test
+    void testDescribe() {
+        check("DESCRIBE DATABASE db", SqlKind.DESCRIBE_SCHEMA, Collections.singletonList("DB"));
+        check("DESCRIBE t", SqlKind.DESCRIBE_TABLE, Collections.singletonList("T"));
+        check("DESCRIBE SELECT 1", SqlKind.EXPLAIN, Collections.emptyList());
+    }
+
+    @Test
+    void testIdentifiersFollowTheConfig() {
+        final SqlParser.Config config =
+                factory.config()
+                        .withQuoting(Quoting.BRACKET)
+                        .withUnquotedCasing(Casing.TO_LOWER);
+        final ClassifiedStatement statement =
+                StatementClassifier.forXSql(config)
+                        .classify("DROP TABLE Db.[My Table]")
+                        .get();
+        assertEquals(Arrays.asList("db", "My Table"), statement.getTarget());
+        assertEquals(SqlKind.DROP_TABLE, statement.getKind());
+    }
+
+    @Test
+    void testUtf8Input() {
+        final ByteBuffer sql =
+                ByteBuffer.wrap(
+                        "INSERT INTO \"t\u00e9\" VALUES ('\u00e9')"
+                                .getBytes(StandardCharsets.UTF_8));
+        final ClassifiedStatement statement = classifier.classify(SqlInput.utf8(sql)).get();
+        assertEquals(SqlKind.INSERT, statement.getKind());
+        assertEquals(Collections.singletonList("t\u00e9"), statement.getTarget());
+    }
+
+    @Test
+    void testNotClassified() {
+        assertFalse(classifier.classify("").isPresent());
+        assertFalse(classifier.classify("CREATE VIEW v AS SELECT 1").isPresent());
+        assertFalse(classifier.classify("CREATE OR t").isPresent());
+        assertFalse(classifier.classify("INSERT t").isPresent());
+        assertFalse(classifier.classify("GRANT ALL ON t TO u").isPresent());
+    }
+
+    /** Checks the classification, and that it agrees with the parser. */
+    private void check(String sql, SqlKind kind, List<String> target, Flag... flags) {
+        final ClassifiedStatement statement =
+                classifier.classify(sql).orElseThrow(() -> new AssertionError(sql));
+        assertEquals(kind, statement.getKind(), sql);
+        assertEquals(target, statement.getTarget(), sql);
+        final EnumSet<Flag> expectedFlags = EnumSet.noneOf(Flag.class);
+        expectedFlags.addAll(Arrays.asList(flags));
+        assertEquals(expectedFlags, statement.getFlags(), sql);
+        assertEquals(parser.parse(sql).getKind(), statement.getKind(), sql);
+        final ClassifiedStatement fromInput = classifier.classify(SqlInput.of(sql)).get();
+        assertEquals(statement.getKind(), fromInput.getKind(), sql);
+        assertEquals(statement.getTarget(), fromInput.getTarget(), sql);
+        assertEquals(statement.getFlags(), fromInput.getFlags(), sql);
+    }
+}
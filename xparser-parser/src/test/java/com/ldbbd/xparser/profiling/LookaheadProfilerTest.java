@@ -0,0 +1,76 @@
+package com.ldbbd.xparser.profiling;
+
+import com.ldbbd.xparser.profiling.LookaheadProfile.ProductionStats;
+import org.junit.jupiter.api.Test;
+import xparser.impl.XSqlParserImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Tests for {@link LookaheadProfiler} and {@link LookaheadProfile}. */
+class LookaheadProfilerTest {
+
+    @Test
+    void testProfileFoldsTrace() {
+        final LookaheadProfile profile = new LookaheadProfile();
+        final PrintStream trace = new PrintStream(profile, true);
+        trace.println("Call:   SqlStmt");
+        trace.println("  Call:   SqlInsert(LOOKING AHEAD...)");
+        trace.println("    Visited token: <INSERT at line 1 column 1>; Expected token: <UPSERT>");
+        trace.println("  Return: SqlInsert(LOOKAHEAD FAILED)");
+        trace.println("  Call:   SqlQuery(LOOKING AHEAD...)");
+        trace.println("    Visited token: <SELECT at line 1 column 1>; Expected token: <SELECT>");
+        trace.println("    Visited token: <1 at line 1 column 8>; Expected token: <1>");
+        trace.println("  Return: SqlQuery(LOOKAHEAD SUCCEEDED)");
+        trace.println("  Call:   SqlQuery");
+        trace.println("    Consumed token: <\"SELECT\" at line 1 column 1>");
+        trace.println("  Return: SqlQuery");
+        trace.println("Return: SqlStmt");
+        profile.endParse();
+
+        final ProductionStats stmt = profile.getProductions().get(0);
+        assertEquals("SqlStmt", stmt.getName());
+        assertEquals(1, stmt.getCalls());
+        assertEquals(2, stmt.getChoiceLookaheads());
+        assertEquals(3, stmt.getChoiceScannedTokens());
+        assertEquals(1, stmt.getChoiceBacktracks());
+
+        final ProductionStats query = stats(profile, "SqlQuery");
+        assertEquals(1, query.getCalls());
+        assertEquals(1, query.getLookaheads());
+        assertEquals(0, query.getLookaheadFailures());
+        assertEquals(2, query.getScannedTokens());
+        assertEquals(1, query.getConsumedTokens());
+        assertEquals(1, stats(profile, "SqlInsert").getLookaheadFailures());
+    }
+
+    @Test
+    void testRejectsParserWithoutTracing() {
+        final PrintStream out = System.out;
+        final LookaheadProfiler profiler = new LookaheadProfiler(XSqlParserImpl.FACTORY);
+        assertThrows(IllegalArgumentException.class, () -> profiler.profile("a.sql", "SELECT 1"));
+        assertSame(out, System.out);
+    }
+
+    @Test
+    void testReport() {
+        final LookaheadProfiler profiler = new LookaheadProfiler(XSqlParserImpl.FACTORY);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        profiler.report(new PrintStream(bytes, true), 10);
+        assertEquals(
+                "Profiled 0 scripts, 0 failed to parse.",
+                new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\\R")[0]);
+    }
+
+    private static ProductionStats stats(LookaheadProfile profile, String name) {
+        return profile.getProductions().stream()
+                .filter(p -> p.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(name));
+    }
+}
@@ -1,6 +1,6 @@
-package xparser.sql.parser;
+package xparser.spark.parser;
 
-import xparser.sql.parser.error.SqlValidateException;
+import xparser.spark.parser.error.SqlValidateException;
 
 /**
  * An remark interface which should be inherited by extended sql nodes which are not supported by
@@ -1,9 +1,9 @@
-package xparser.sql.parser.ddl;
+package xparser.spark.parser.ddl;
 
 import org.apache.calcite.sql.*;
 import org.apache.calcite.sql.parser.SqlParserPos;
-import xparser.sql.parser.ExtendedSqlNode;
-import xparser.sql.parser.error.SqlValidateException;
+import xparser.spark.parser.ExtendedSqlNode;
+import xparser.spark.parser.error.SqlValidateException;
 
 import javax.annotation.Nonnull;
 import java.util.List;
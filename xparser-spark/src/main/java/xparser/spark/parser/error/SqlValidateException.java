@@ -16,13 +16,13 @@
  * limitations under the License.
  */
 
-package xparser.sql.parser.error;
+package xparser.spark.parser.error;
 
 import org.apache.calcite.sql.parser.SqlParserPos;
 
 /**
  * SQL parse Exception. This exception mainly throws during {@link
- * xparser.sql.parser.ExtendedSqlNode} validation.
+ * xparser.spark.parser.ExtendedSqlNode} validation.
  */
 public class SqlValidateException extends Exception {
 
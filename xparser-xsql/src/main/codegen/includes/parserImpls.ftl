@@ -38,6 +38,44 @@ SqlCreate SqlCreateExtended(Span s, boolean replace) :
     }
 }
 
+SqlDrop SqlDropExtended(Span s, boolean replace) :
+{
+    final SqlDrop drop;
+    boolean isTemporary = false;
+}
+{
+    [
+        <TEMPORARY> { isTemporary = true; }
+    ]
+    (
+        drop = XSqlDropTable(s, replace, isTemporary)
+    )
+    {
+        return drop;
+    }
+}
+
+/**
+ * "XSqlDropTable" is used by dropping table
+ *   DROP [TEMPORARY] TABLE [IF EXISTS] table_name
+ */
+SqlDrop XSqlDropTable(Span s, boolean replace, boolean isTemporary) :
+{
+    SqlIdentifier tableName = null;
+    boolean ifExists = false;
+}
+{
+    <TABLE>
+
+    ifExists = IfExistsOpt()
+
+    tableName = CompoundIdentifier()
+
+    {
+         return new XSqlDropTable(s.pos(), tableName, ifExists, isTemporary);
+    }
+}
+
 boolean IfExistsOpt() :
 {
 }
@@ -79,13 +117,34 @@ void TableColumn(TableCreationContext context):
     TypedColumn(context)
   |
    constraint = TableConstraint(){
-         context.constraints.add(constraint)
+         context.constraints.add(constraint);
   }
   |
    ComputedColumn(context)
+  |
+   Watermark(context)
 )
 }
 
+/** Parses {@code WATERMARK FOR rowtime_column AS watermark_strategy}. */
+void Watermark(TableCreationContext context) :
+{
+            SqlIdentifier eventTimeColumnName;
+            SqlParserPos pos;
+            SqlNode watermarkStrategy;
+}
+{
+            <WATERMARK> {pos = getPos();} <FOR>
+            eventTimeColumnName = CompoundIdentifier()
+            <AS>
+            watermarkStrategy = Expression(ExprContext.ACCEPT_NON_QUERY) {
+                if (context.watermark != null) {
+                    throw new ParseException("Multiple WATERMARK statements is not supported yet.");
+                }
+                context.watermark = new XSqlWatermark(pos, eventTimeColumnName, watermarkStrategy);
+            }
+}
+
 /** Parses {@code column_name AS expr [COMMENT 'comment']}. */
 void ComputedColumn(TableCreationContext context) :
 {
@@ -153,7 +212,7 @@ SqlLiteral enforcement;
 
 
 /** Parses a table constraint for CREATE TABLE. */
-SqlTableConstraint TableConstraint() :
+XSqlTableConstraint TableConstraint() :
 {
            SqlIdentifier constraintName = null;
            final SqlLiteral uniqueSpec;
@@ -202,32 +261,31 @@ SqlDataTypeSpec ExtendedDataType() :
                )*
                nullable = NullableOptDefaultTrue()
                {
-               return new SqlDataTypeSpec(typeName, s.end(this)).withNullable(nullable);
+               return new SqlDataTypeSpec(XSqlTypeNameSpecs.intern(typeName), s.end(this))
+                       .withNullable(nullable);
                }
 }
 
-/**For RegularColumn**/
-void RegularColumn(List<SqlNode> list) :
+/** Parses the rest of a regular column after its name and type: {@code [constraint] [COMMENT 'comment']}. */
+void RegularColumn(TableCreationContext context, SqlIdentifier name, SqlDataTypeSpec type) :
 {
-                   SqlIdentifier name;
-                   SqlDataTypeSpec type;
+                   XSqlTableConstraint constraint = null;
                    SqlNode comment = null;
 }
 {
-                   name = SimpleIdentifier()
-                   type = ExtendedDataType()
+                   [ constraint = ColumnConstraint(name) ]
                    [
                    <COMMENT>
                        comment = StringLiteral()
                        ]
                        {
-                       SqlTableColumn regularColumn = new XSqlTableColumn.SqlRegularColumn(
+                       XSqlTableColumn regularColumn = new XSqlTableColumn.SqlRegularColumn(
                        getPos(),
                        name,
                        comment,
                        type,
-                       null);
-                       list.add(regularColumn);
+                       constraint);
+                       context.columnList.add(regularColumn);
                        }
  }
 
@@ -261,6 +319,88 @@ SqlTypeNameSpec ExtendedCollectionsTypeName(
                }
 }
 
+/**
+* Parse a "name1 type1 [ NULL | NOT NULL ] [ comment ]
+* [, name2 type2 [ NULL | NOT NULL ] [ comment ] ]* ..." list.
+* The comment and NULL syntax does not belong to standard SQL.
+*/
+void ExtendedFieldNameTypeCommaList(
+        List<SqlIdentifier> fieldNames,
+        List<SqlDataTypeSpec> fieldTypes,
+        List<SqlCharStringLiteral> comments) :
+{
+    SqlIdentifier fName;
+    SqlDataTypeSpec fType;
+}
+{
+    [
+        fName = SimpleIdentifier()
+        fType = ExtendedDataType()
+        {
+            fieldNames.add(fName);
+            fieldTypes.add(fType);
+        }
+        (
+            <QUOTED_STRING> {
+                String p = SqlParserUtil.parseString(token.image);
+                comments.add(SqlLiteral.createCharString(p, getPos()));
+            }
+        |
+            { comments.add(null); }
+        )
+    ]
+    (
+        <COMMA>
+        fName = SimpleIdentifier()
+        fType = ExtendedDataType()
+        {
+            fieldNames.add(fName);
+            fieldTypes.add(fType);
+        }
+        (
+            <QUOTED_STRING> {
+                String p = SqlParserUtil.parseString(token.image);
+                comments.add(SqlLiteral.createCharString(p, getPos()));
+            }
+        |
+            { comments.add(null); }
+        )
+    )*
+}
+
+/**
+* Parse a ROW type, both ROW(name1 type1, name2 type2) and ROW<name1 type1, name2 type2>.
+* Different with Calcite's #RowTypeName, the fields are nullable unless they are declared
+* NOT NULL and can have comments, so ROW(a INT) and ROW(a INT NOT NULL) are different types.
+*/
+SqlTypeNameSpec ExtendedSqlRowTypeName() :
+{
+    List<SqlIdentifier> fieldNames = new ArrayList<SqlIdentifier>();
+    List<SqlDataTypeSpec> fieldTypes = new ArrayList<SqlDataTypeSpec>();
+    List<SqlCharStringLiteral> comments = new ArrayList<SqlCharStringLiteral>();
+    final boolean unparseAsStandard;
+}
+{
+    <ROW>
+    (
+        <NE> { unparseAsStandard = false; }
+    |
+        <LT> ExtendedFieldNameTypeCommaList(fieldNames, fieldTypes, comments) <GT>
+        { unparseAsStandard = false; }
+    |
+        <LPAREN> ExtendedFieldNameTypeCommaList(fieldNames, fieldTypes, comments) <RPAREN>
+        { unparseAsStandard = true; }
+    )
+    {
+        return new XExtendedSqlRowTypeNameSpec(
+            getPos(),
+            fieldNames,
+            fieldTypes,
+            comments,
+            unparseAsStandard);
+    }
+}
+
 
 
 
@@ -395,6 +535,7 @@ SqlCreate XSqlCreateTable(Span s, boolean replace, boolean isTemporary) :
                 SqlCharStringLiteral comment = null;
                 SqlNodeList propertyList = SqlNodeList.EMPTY;
                 SqlNodeList partitionColumns = SqlNodeList.EMPTY;
+                XSqlWatermark watermark = null;
                 SqlParserPos pos = startPos;
       }
                 {
@@ -413,6 +554,7 @@ SqlCreate XSqlCreateTable(Span s, boolean replace, boolean isTemporary) :
                             pos = pos.plus(getPos());
                             columnList = new SqlNodeList(ctx.columnList, pos);
                             constraints = ctx.constraints;
+                            watermark = ctx.watermark;
                             }
                     <RPAREN>
                                 ]
@@ -430,15 +572,116 @@ SqlCreate XSqlCreateTable(Span s, boolean replace, boolean isTemporary) :
                                         ]
 
                                     {
-                                            return new XSqlCreateTable(startPos.plus(getPos()),
+                                            return new XSqlCreateTable(XSqlCreateTable.OPERATOR,
+                                                                startPos.plus(getPos()),
+                                                                replace,
+                                                                ifNotExists,
                                                                 tableName,
                                                                 columnList,
-                                                                constraints,
                                                                 propertyList,
+                                                                constraints,
                                                                 partitionColumns,
+                                                                watermark,
                                                                 comment,
-                                                                tableLike,
-                                                                isTemporary,
-                                                                ifNotExists);
+                                                                isTemporary);
                                        }
  }
+
+/**
+ * Parses an INSERT statement with optional static partitions.
+ *   { INSERT | UPSERT } { INTO | OVERWRITE } table_name
+ *   PARTITION (key = literal [, ...]) [ (column, ...) ] query
+ */
+SqlNode XSqlRichInsert() :
+{
+    final List<SqlLiteral> keywords = new ArrayList<SqlLiteral>();
+    final SqlNodeList keywordList;
+    boolean overwrite = false;
+    SqlNode table;
+    SqlNodeList extendList = null;
+    SqlNode source;
+    XSqlPartitionSpec partitionSpec = XSqlPartitionSpec.EMPTY;
+    SqlNodeList columnList = null;
+    final Span s;
+}
+{
+    (
+        <INSERT>
+    |
+        <UPSERT> { keywords.add(SqlInsertKeyword.UPSERT.symbol(getPos())); }
+    )
+    { s = span(); }
+    SqlInsertKeywords(keywords) {
+        keywordList = new SqlNodeList(keywords, s.addAll(keywords).pos());
+    }
+    (
+        <INTO>
+    |
+        <OVERWRITE> {
+            if (keywordList.getList().contains(SqlInsertKeyword.UPSERT.symbol(SqlParserPos.ZERO))) {
+                throw new ParseException("OVERWRITE is only used with INSERT.");
+            }
+            overwrite = true;
+        }
+    )
+    table = TableRefWithHintsOpt()
+    [
+        LOOKAHEAD(5)
+        [ <EXTEND> ]
+        extendList = ExtendList() {
+            table = extend(table, extendList);
+        }
+    ]
+    [
+        <PARTITION> partitionSpec = PartitionSpec()
+    ]
+    [
+        LOOKAHEAD(2)
+        { final Pair<SqlNodeList, SqlNodeList> p; }
+        p = ParenthesizedCompoundIdentifierList() {
+            if (p.right.size() > 0) {
+                table = extend(table, p.right);
+            }
+            if (p.left.size() > 0) {
+                columnList = p.left;
+            }
+        }
+    ]
+    source = OrderedQueryOrExpr(ExprContext.ACCEPT_QUERY) {
+        return new XSqlRichInsert(s.end(source), keywordList, table, source,
+            columnList, partitionSpec, overwrite);
+    }
+}
+
+/**
+ * Parses a partition specification straight into an {@link XSqlPartitionSpec},
+ * e.g. (dt = '2026-10-19', hr = 3).
+ */
+XSqlPartitionSpec PartitionSpec() :
+{
+    final XSqlPartitionSpec.Builder builder = XSqlPartitionSpec.builder();
+}
+{
+    <LPAREN>
+    PartitionValue(builder)
+    (
+        <COMMA> PartitionValue(builder)
+    )*
+    <RPAREN>
+    {
+        return builder.build();
+    }
+}
+
+void PartitionValue(XSqlPartitionSpec.Builder builder) :
+{
+    SqlIdentifier key;
+    SqlNode value;
+}
+{
+    key = SimpleIdentifier() <EQ> value = Literal() {
+        if (!builder.add(key.getSimple(), value)) {
+            throw new ParseException("Duplicate partition key " + key.getSimple());
+        }
+    }
+}
@@ -22,7 +22,8 @@ import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
 
 /**
- * A factory for creating {@link RelDataType} instances including Flink-specific extensions.
+ * A factory for creating {@link RelDataType} instances including Flink-specific extensions, see
+ * {@link XSqlRelTypeFactory} for the implementation.
  *
  * <p>This interface exists because the parser module has no access to the planner's type factory.
  */
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package calcite;
+
+import org.apache.calcite.rel.type.RelDataTypeImpl;
+import org.apache.calcite.sql.type.SqlTypeName;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The {@link org.apache.calcite.rel.type.RelDataType} of a RAW type such as {@code
+ * RAW('org.my.Class', 'sW3Djsds...')}.
+ *
+ * <p>The serializer snapshot is kept in its Base64 form and only decoded the first time {@link
+ * #getSerializerSnapshot()} is called, most types are derived for validation only and never need
+ * it.
+ */
+public final class RawRelDataType extends RelDataTypeImpl {
+
+    private final String className;
+    private final String serializerString;
+    private final boolean nullable;
+
+    /** The decoded snapshot, shared by the nullable and NOT NULL variant of the type. */
+    private final SerializerSnapshot serializerSnapshot;
+
+    RawRelDataType(String className, String serializerString, boolean nullable) {
+        this(className, serializerString, nullable, new SerializerSnapshot());
+    }
+
+    private RawRelDataType(
+            String className,
+            String serializerString,
+            boolean nullable,
+            SerializerSnapshot serializerSnapshot) {
+        this.className = requireNonNull(className);
+        this.serializerString = requireNonNull(serializerString);
+        this.nullable = nullable;
+        this.serializerSnapshot = serializerSnapshot;
+        computeDigest();
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    /** Returns the Base64 encoded serializer snapshot as written in the SQL text. */
+    public String getSerializerString() {
+        return serializerString;
+    }
+
+    /**
+     * Returns the decoded serializer snapshot as a read only buffer. The snapshot is decoded once
+     * per type and shared by all callers.
+     *
+     * @throws IllegalArgumentException if the serializer string is not valid Base64
+     */
+    public ByteBuffer getSerializerSnapshot() {
+        byte[] snapshot = serializerSnapshot.decoded;
+        if (snapshot == null) {
+            try {
+                snapshot =
+                        Base64.getDecoder()
+                                .decode(serializerString.getBytes(StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(
+                        "Invalid serializer snapshot of RAW type " + className + ".", e);
+            }
+            serializerSnapshot.decoded = snapshot;
+        }
+        return ByteBuffer.wrap(snapshot).asReadOnlyBuffer();
+    }
+
+    /** Whether the serializer snapshot has been decoded already. */
+    public boolean isSerializerSnapshotDecoded() {
+        return serializerSnapshot.decoded != null;
+    }
+
+    /** Returns the decoded serializer snapshot, null if it has not been decoded yet. */
+    byte[] decodedSerializerSnapshot() {
+        return serializerSnapshot.decoded;
+    }
+
+    @Override
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    @Override
+    public SqlTypeName getSqlTypeName() {
+        return SqlTypeName.OTHER;
+    }
+
+    /**
+     * Returns a copy of this type with the given nullability. The copy shares the snapshot of this
+     * type, whichever of the two decodes it first.
+     */
+    RawRelDataType createWithNullability(boolean nullable) {
+        if (nullable == this.nullable) {
+            return this;
+        }
+        return new RawRelDataType(className, serializerString, nullable, serializerSnapshot);
+    }
+
+    @Override
+    protected void generateTypeString(StringBuilder sb, boolean withDetail) {
+        sb.append("RAW('").append(className).append('\'');
+        if (withDetail) {
+            sb.append(", '").append(serializerString).append('\'');
+        }
+        sb.append(')');
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /**
+     * The lazily decoded serializer snapshot. Two threads may both decode it, they decode the
+     * same bytes and either result is kept.
+     */
+    private static final class SerializerSnapshot {
+        private volatile byte[] decoded;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package calcite;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeSystem;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The {@link ExtendedRelTypeFactory} of the parser module, a {@link JavaTypeFactoryImpl} that can
+ * also create {@link RawRelDataType RAW types}.
+ *
+ * <p>Tables often carry large RAW serializer snapshots in their DDL, and the same snapshot is
+ * derived every time a statement referencing the table is validated. RAW types are therefore
+ * cached by class name and serializer string. The cache is bounded and safe for concurrent use,
+ * and a cached type only decodes its snapshot when asked for it, see {@link
+ * RawRelDataType#getSerializerSnapshot()}.
+ */
+public class XSqlRelTypeFactory extends JavaTypeFactoryImpl implements ExtendedRelTypeFactory {
+
+    /** Default maximum number of cached RAW types. */
+    public static final int DEFAULT_RAW_TYPE_CACHE_SIZE = 1024;
+
+    private final Cache<RawTypeKey, RawRelDataType> rawTypes;
+
+    public XSqlRelTypeFactory() {
+        this(RelDataTypeSystem.DEFAULT, DEFAULT_RAW_TYPE_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a type factory.
+     *
+     * @param typeSystem the type system
+     * @param rawTypeCacheSize the maximum number of cached RAW types
+     */
+    public XSqlRelTypeFactory(RelDataTypeSystem typeSystem, int rawTypeCacheSize) {
+        super(typeSystem);
+        this.rawTypes = CacheBuilder.newBuilder().maximumSize(rawTypeCacheSize).build();
+    }
+
+    @Override
+    public RelDataType createRawType(String className, String serializerString) {
+        return rawTypes.asMap()
+                .computeIfAbsent(
+                        new RawTypeKey(className, serializerString),
+                        key ->
+                                (RawRelDataType)
+                                        canonize(
+                                                new RawRelDataType(
+                                                        key.className,
+                                                        key.serializerString,
+                                                        true)));
+    }
+
+    @Override
+    public RelDataType createTypeWithNullability(RelDataType type, boolean nullable) {
+        if (type instanceof RawRelDataType) {
+            return canonize(((RawRelDataType) type).createWithNullability(nullable));
+        }
+        return super.createTypeWithNullability(type, nullable);
+    }
+
+    /** Returns the number of cached RAW types. */
+    long rawTypeCacheSize() {
+        rawTypes.cleanUp();
+        return rawTypes.size();
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** Cache key of a RAW type, the hash codes of both strings are cached by the strings. */
+    private static final class RawTypeKey {
+        private final String className;
+        private final String serializerString;
+
+        private RawTypeKey(String className, String serializerString) {
+            this.className = requireNonNull(className);
+            this.serializerString = requireNonNull(serializerString);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RawTypeKey)) {
+                return false;
+            }
+            final RawTypeKey that = (RawTypeKey) o;
+            return className.equals(that.className)
+                    && serializerString.equals(that.serializerString);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * className.hashCode() + serializerString.hashCode();
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package ddl;
 
 import ddl.constraints.XSqlTableConstraint;
+import ddl.options.XSqlOptionSchema;
+import ddl.options.XSqlTableOptions;
 import error.SqlValidateException;
+import extended.CopyOnWriteSqlNode;
 import extended.ExtendedSqlNode;
+import extended.HashedSqlNode;
+import extended.ReferencingSqlNode;
+import extended.SqlNodeHashes;
+import extended.SqlReferences;
 import org.apache.calcite.sql.*;
 import org.apache.calcite.sql.parser.SqlParserPos;
 import org.apache.calcite.util.ImmutableNullableList;
+import org.apache.calcite.util.Litmus;
 import ddl.XSqlTableColumn.*;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -16,7 +25,8 @@ import java.util.stream.Collectors;
  * This class will be used to parser new sql.
  * @XCreateTable: Base parsering for create operation
  */
-public class XSqlCreateTable extends SqlCreate implements ExtendedSqlNode {
+public class XSqlCreateTable extends SqlCreate
+        implements ExtendedSqlNode, CopyOnWriteSqlNode, HashedSqlNode, ReferencingSqlNode {
     public static final SqlSpecialOperator OPERATOR =
             new SqlSpecialOperator("CREATE TABLE", SqlKind.CREATE_TABLE);
 
@@ -32,12 +42,41 @@ public class XSqlCreateTable extends SqlCreate implements ExtendedSqlNode {
     private final SqlNodeList partitionKeyList;
 
 
+    private final @Nullable XSqlWatermark watermark;
+
     private final SqlCharStringLiteral comment;
 
 //    private final SqlTableLike tableLike;
 
     private final boolean isTemporary;
 
+    /** The time attributes, analyzed when the statement is built. */
+    private final XSqlTimeAttributes timeAttributes;
+
+    /** The partition keys, read when the statement is built. */
+    private final XSqlPartitionSpec partitionSpec;
+
+    /** The options decoded last, with the schema they were decoded by. */
+    private volatile @Nullable XSqlTableOptions options;
+
+    /** The created table and columns, with the columns they were collected from. */
+    private volatile @Nullable CollectedReferences references;
+
+    public XSqlCreateTable(SqlOperator operator,
+                           SqlParserPos pos,
+                           boolean replace,
+                           boolean ifNotExists,
+                           SqlIdentifier tableName,
+                           SqlNodeList columnList,
+                           SqlNodeList propertyList,
+                           List<XSqlTableConstraint> tableConstraints,
+                           SqlNodeList partitionKeyList,
+                           SqlCharStringLiteral comment,
+                           boolean isTemporary) {
+        this(operator, pos, replace, ifNotExists, tableName, columnList, propertyList,
+                tableConstraints, partitionKeyList, null, comment, isTemporary);
+    }
+
     public XSqlCreateTable(SqlOperator operator,
                            SqlParserPos pos,
                            boolean replace,
@@ -47,16 +86,38 @@ public class XSqlCreateTable extends SqlCreate implements ExtendedSqlNode {
                            SqlNodeList propertyList,
                            List<XSqlTableConstraint> tableConstraints,
                            SqlNodeList partitionKeyList,
+                           @Nullable XSqlWatermark watermark,
                            SqlCharStringLiteral comment,
                            boolean isTemporary) {
+        this(operator, pos, replace, ifNotExists, tableName, columnList, propertyList,
+                tableConstraints, partitionKeyList, watermark, comment, isTemporary,
+                XSqlTimeAttributes.analyze(columnList.getList(), watermark));
+    }
+
+    private XSqlCreateTable(SqlOperator operator,
+                            SqlParserPos pos,
+                            boolean replace,
+                            boolean ifNotExists,
+                            SqlIdentifier tableName,
+                            SqlNodeList columnList,
+                            SqlNodeList propertyList,
+                            List<XSqlTableConstraint> tableConstraints,
+                            SqlNodeList partitionKeyList,
+                            @Nullable XSqlWatermark watermark,
+                            SqlCharStringLiteral comment,
+                            boolean isTemporary,
+                            XSqlTimeAttributes timeAttributes) {
         super(operator, pos, replace, ifNotExists);
         this.tableName = tableName;
         this.columnList = columnList;
         this.propertyList = propertyList;
         this.tableConstraints = tableConstraints;
         this.partitionKeyList = partitionKeyList;
+        this.watermark = watermark;
         this.comment = comment;
         this.isTemporary = isTemporary;
+        this.timeAttributes = timeAttributes;
+        this.partitionSpec = partitionSpec(partitionKeyList);
     }
 
 
@@ -73,7 +134,96 @@ public class XSqlCreateTable extends SqlCreate implements ExtendedSqlNode {
                 new SqlNodeList(tableConstraints, SqlParserPos.ZERO),
                 propertyList,
                 partitionKeyList,
-                comment);
+                comment,
+                watermark);
+    }
+
+    @Override
+    public XSqlCreateTable withOperands(List<SqlNode> operands) {
+        final List<SqlNode> constraints = ((SqlNodeList) operands.get(2)).getList();
+        boolean sameConstraints = constraints.size() == tableConstraints.size();
+        for (int i = 0; sameConstraints && i < constraints.size(); i++) {
+            sameConstraints = constraints.get(i) == tableConstraints.get(i);
+        }
+        if (operands.get(0) == tableName
+                && operands.get(1) == columnList
+                && sameConstraints
+                && operands.get(3) == propertyList
+                && operands.get(4) == partitionKeyList
+                && operands.get(5) == comment
+                && operands.get(6) == watermark) {
+            return this;
+        }
+        return new XSqlCreateTable(
+                getOperator(),
+                getParserPosition(),
+                getReplace(),
+                ifNotExists,
+                (SqlIdentifier) operands.get(0),
+                (SqlNodeList) operands.get(1),
+                (SqlNodeList) operands.get(3),
+                sameConstraints
+                        ? tableConstraints
+                        : constraints.stream()
+                                .map(XSqlTableConstraint.class::cast)
+                                .collect(Collectors.toList()),
+                (SqlNodeList) operands.get(4),
+                (XSqlWatermark) operands.get(6),
+                (SqlCharStringLiteral) operands.get(5),
+                isTemporary);
+    }
+
+    /**
+     * Returns the structural hash code of this statement. It is not cached, as the column list
+     * can change in place, but combines the cached hash codes of the columns and is cheap even
+     * for wide tables.
+     */
+    @Override
+    public int structuralHash() {
+        int hash = SqlNodeHashes.hashAll(getOperandList());
+        hash = 31 * hash + Boolean.hashCode(getReplace());
+        hash = 31 * hash + Boolean.hashCode(ifNotExists);
+        return 31 * hash + Boolean.hashCode(isTemporary);
+    }
+
+    /**
+     * Compares this statement with another one, failing fast on different flags or on columns
+     * with different cached hash codes. Unlike {@link SqlCall#equalsDeep}, this compares the
+     * {@code OR REPLACE}, {@code IF NOT EXISTS} and {@code TEMPORARY} flags too.
+     */
+    @Override
+    public boolean equalsDeep(@Nullable SqlNode node, Litmus litmus) {
+        if (node == this) {
+            return litmus.succeed();
+        }
+        if (!(node instanceof XSqlCreateTable)) {
+            return litmus.fail("{} != {}", this, node);
+        }
+        final XSqlCreateTable that = (XSqlCreateTable) node;
+        if (getReplace() != that.getReplace()
+                || ifNotExists != that.ifNotExists
+                || isTemporary != that.isTemporary
+                || !sameColumnHashes(that)) {
+            return litmus.fail("{} != {}", this, node);
+        }
+        return super.equalsDeep(node, litmus);
+    }
+
+    /**
+     * Compares the hash codes of the columns, which the columns cache. Unlike {@link
+     * #structuralHash()}, this does not hash the rest of the statement again.
+     */
+    private boolean sameColumnHashes(XSqlCreateTable that) {
+        if (columnList.size() != that.columnList.size()) {
+            return false;
+        }
+        for (int i = 0; i < columnList.size(); i++) {
+            if (SqlNodeHashes.hash(columnList.get(i))
+                    != SqlNodeHashes.hash(that.columnList.get(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public SqlIdentifier getTableName() {
@@ -92,10 +242,73 @@ public class XSqlCreateTable extends SqlCreate implements ExtendedSqlNode {
         return partitionKeyList;
     }
 
+    /**
+     * Returns the options of the WITH clause, decoded by the {@link XSqlOptionSchema#register
+     * registered} schema of the table's connector or, if there is none, leniently as strings.
+     *
+     * <p>The options are decoded once: {@link #validated()} decodes them already and keeps them,
+     * so after validation this is a field read.
+     *
+     * @throws SqlValidateException if the options do not match the schema of the connector
+     */
+    public XSqlTableOptions getOptions() throws SqlValidateException {
+        final XSqlOptionSchema schema = connectorSchema();
+        return getOptions(schema == null ? XSqlOptionSchema.LENIENT : schema);
+    }
+
+    /**
+     * Returns the options of the WITH clause decoded by a schema, cached for the schema used
+     * last.
+     *
+     * @throws SqlValidateException if the options do not match the schema
+     */
+    public XSqlTableOptions getOptions(XSqlOptionSchema schema) throws SqlValidateException {
+        XSqlTableOptions options = this.options;
+        if (options == null || options.getSchema() != schema) {
+            options = schema.decode(propertyList.getList(), propertyList.getParserPosition());
+            this.options = options;
+        }
+        return options;
+    }
+
+    /**
+     * Returns the keys of {@code PARTITIONED BY}, which are all {@link
+     * XSqlPartitionSpec.ValueKind#DYNAMIC dynamic}.
+     */
+    public XSqlPartitionSpec getPartitionSpec() {
+        return partitionSpec;
+    }
+
     public List<XSqlTableConstraint> getTableConstraints() {
         return tableConstraints;
     }
 
+    public Optional<XSqlWatermark> getWatermark() {
+        return Optional.ofNullable(watermark);
+    }
+
+    /**
+     * Returns the rowtime, watermark delay and processing time columns of the table. They are
+     * analyzed once when the statement is built, reading them does not walk any expression.
+     */
+    public XSqlTimeAttributes getTimeAttributes() {
+        return timeAttributes;
+    }
+
+    /**
+     * Returns the created table and its columns. They are collected once, and again only if the
+     * column list was changed in place, which comparing the column instances tells.
+     */
+    @Override
+    public SqlReferences getReferences() {
+        CollectedReferences references = this.references;
+        if (references == null || !references.isCollectedFrom(columnList)) {
+            references = new CollectedReferences(columnList.toArray(), SqlReferences.collect(this));
+            this.references = references;
+        }
+        return references.references;
+    }
+
     public Optional<SqlCharStringLiteral> getComment() {
         return Optional.ofNullable(comment);
     }
@@ -154,7 +367,7 @@ public class XSqlCreateTable extends SqlCreate implements ExtendedSqlNode {
             writer.keyword("IF NOT EXISTS");
         }
         tableName.unparse(writer, leftPrec, rightPrec);
-        if (columnList.size() > 0 || tableConstraints.size() > 0) {
+        if (columnList.size() > 0 || tableConstraints.size() > 0 || watermark != null) {
             SqlWriter.Frame frame =
                     writer.startList(SqlWriter.FrameTypeEnum.create("sds"), "(", ")");
             for (SqlNode column : columnList) {
@@ -167,10 +380,10 @@ public class XSqlCreateTable extends SqlCreate implements ExtendedSqlNode {
                     constraint.unparse(writer, leftPrec, rightPrec);
                 }
             }
-//            if (watermark != null) {
-//                printIndent(writer);
-//                watermark.unparse(writer, leftPrec, rightPrec);
-//            }
+            if (watermark != null) {
+                printIndent(writer);
+                watermark.unparse(writer, leftPrec, rightPrec);
+            }
 
             writer.newlineAndIndent();
             writer.endList(frame);
@@ -217,12 +430,139 @@ public class XSqlCreateTable extends SqlCreate implements ExtendedSqlNode {
     }
 
     /**
-     * This validation is used to
-     * @throws SqlValidateException
+     * Validates the statement in place, marking the primary key columns NOT NULL.
+     *
+     * <p>This changes the column types of the parsed tree. Trees that are cached or shared between
+     * threads should be validated with {@link #validated()} instead.
+     *
+     * @throws SqlValidateException if the statement defines more than one primary key, a
+     *     watermark on a column it does not declare, a partition key twice or options that do
+     *     not match the registered schema of its connector
      */
     @Override
     public void validate() throws SqlValidateException {
+        validateWatermark();
+        validatePartitionKeys();
+        validateOptions();
+        final Set<String> primaryKeyColumns = primaryKeyColumns();
+        for (SqlNode column : columnList) {
+            if (isNullablePrimaryKey(column, primaryKeyColumns)) {
+                SqlRegularColumn regularColumn = (SqlRegularColumn) column;
+                regularColumn.setType(regularColumn.getType().withNullable(false));
+            }
+        }
+    }
+
+    /**
+     * Validates the statement without changing it, see {@link #validate()}.
+     *
+     * @return this statement if its primary key columns are NOT NULL already, otherwise a copy
+     *     with NOT NULL primary key columns that shares all other nodes with this statement
+     * @throws SqlValidateException if the statement defines more than one primary key, a
+     *     watermark on a column it does not declare, a partition key twice or options that do
+     *     not match the registered schema of its connector
+     */
+    @Override
+    public XSqlCreateTable validated() throws SqlValidateException {
+        validateWatermark();
+        validatePartitionKeys();
+        final XSqlTableOptions options = validateOptions();
+        final Set<String> primaryKeyColumns = primaryKeyColumns();
+        List<SqlNode> columns = null;
+        for (int i = 0; i < columnList.size(); i++) {
+            final SqlNode column = columnList.get(i);
+            if (isNullablePrimaryKey(column, primaryKeyColumns)) {
+                if (columns == null) {
+                    columns = new ArrayList<>(columnList.getList());
+                }
+                SqlRegularColumn regularColumn = (SqlRegularColumn) column;
+                columns.set(i, regularColumn.withType(regularColumn.getType().withNullable(false)));
+            }
+        }
+        if (columns == null) {
+            return this;
+        }
+        final XSqlCreateTable validated = new XSqlCreateTable(
+                getOperator(),
+                getParserPosition(),
+                getReplace(),
+                ifNotExists,
+                tableName,
+                new SqlNodeList(columns, columnList.getParserPosition()),
+                propertyList,
+                tableConstraints,
+                partitionKeyList,
+                watermark,
+                comment,
+                isTemporary,
+                // Only the column types changed, the time attributes do not depend on them.
+                timeAttributes);
+        validated.options = options;
+        return validated;
+    }
+
+    /**
+     * Decodes the options by the registered schema of the connector, so that misspelled or
+     * invalid options fail the statement. Returns null if no schema is registered.
+     */
+    private @Nullable XSqlTableOptions validateOptions() throws SqlValidateException {
+        final XSqlOptionSchema schema = connectorSchema();
+        return schema == null ? null : getOptions(schema);
+    }
 
+    private @Nullable XSqlOptionSchema connectorSchema() {
+        for (SqlNode property : propertyList) {
+            final XSqlTableOption option = (XSqlTableOption) property;
+            if (option.getKeyString().equals(XSqlOptionSchema.CONNECTOR)) {
+                return XSqlOptionSchema.forConnector(option.getValueString());
+            }
+        }
+        return null;
+    }
+
+    private void validatePartitionKeys() throws SqlValidateException {
+        if (partitionSpec.size() == partitionKeyList.size()) {
+            return;
+        }
+        for (int i = 0; i < partitionKeyList.size(); i++) {
+            final SqlIdentifier key = (SqlIdentifier) partitionKeyList.get(i);
+            if (partitionSpec.indexOf(key.getSimple()) != i) {
+                throw new SqlValidateException(
+                        key.getParserPosition(), "Duplicate partition key " + key.getSimple());
+            }
+        }
+    }
+
+    private static XSqlPartitionSpec partitionSpec(SqlNodeList partitionKeyList) {
+        if (partitionKeyList.size() == 0) {
+            return XSqlPartitionSpec.EMPTY;
+        }
+        final List<String> keys = new ArrayList<>(partitionKeyList.size());
+        for (SqlNode key : partitionKeyList) {
+            keys.add(((SqlIdentifier) key).getSimple());
+        }
+        return XSqlPartitionSpec.ofKeys(keys);
+    }
+
+    private void validateWatermark() throws SqlValidateException {
+        if (watermark == null) {
+            return;
+        }
+        final String rowtime = watermark.getEventTimeColumnName().names.get(0);
+        for (SqlNode column : columnList) {
+            if (((XSqlTableColumn) column).getName().getSimple().equals(rowtime)) {
+                return;
+            }
+        }
+        throw new SqlValidateException(
+                watermark.getEventTimeColumnName().getParserPosition(),
+                String.format(
+                        "The rowtime attribute field '%s' is not defined in the table schema",
+                        rowtime));
+    }
+
+    /** Returns the names of the primary key columns, empty if there is no primary key. */
+    private Set<String> primaryKeyColumns() throws SqlValidateException {
         List<XSqlTableConstraint> constraints =
                 getFullConstraints().stream()
                         .filter(XSqlTableConstraint::isPrimaryKey)
@@ -232,19 +572,18 @@ public class XSqlCreateTable extends SqlCreate implements ExtendedSqlNode {
             throw new SqlValidateException(
                     constraints.get(1).getParserPosition(), "Duplicate primary key definition");
         } else if (constraints.size() == 1) {
-            Set<String> primaryKeyColumns =
-                    Arrays.stream(constraints.get(0).getColumnNames()).collect(Collectors.toSet());
-            for (SqlNode column : columnList) {
-                XSqlTableColumn tableColumn = (XSqlTableColumn) column;
-                if (tableColumn instanceof SqlRegularColumn
-                        && primaryKeyColumns.contains(tableColumn.getName().getSimple())) {
-                    SqlRegularColumn regularColumn = (SqlRegularColumn) column;
-                    SqlDataTypeSpec notNullType = regularColumn.getType().withNullable(false);
-                    regularColumn.setType(notNullType);
-                }
-            }
+            return Arrays.stream(constraints.get(0).getColumnNames()).collect(Collectors.toSet());
         }
+        return Collections.emptySet();
+    }
 
+    private static boolean isNullablePrimaryKey(SqlNode column, Set<String> primaryKeyColumns) {
+        if (!(column instanceof SqlRegularColumn)) {
+            return false;
+        }
+        SqlRegularColumn regularColumn = (SqlRegularColumn) column;
+        return primaryKeyColumns.contains(regularColumn.getName().getSimple())
+                && !Boolean.FALSE.equals(regularColumn.getType().getNullable());
     }
 
     /**
@@ -254,6 +593,30 @@ public class XSqlCreateTable extends SqlCreate implements ExtendedSqlNode {
     public static class TableCreationContext {
         public List<SqlNode> columnList = new ArrayList<>();
         public List<XSqlTableConstraint> constraints = new ArrayList<>();
+        public @Nullable XSqlWatermark watermark;
+    }
+
+    /** References collected from the columns of the statement. */
+    private static final class CollectedReferences {
+        final SqlNode[] columns;
+        final SqlReferences references;
+
+        CollectedReferences(SqlNode[] columns, SqlReferences references) {
+            this.columns = columns;
+            this.references = references;
+        }
+
+        boolean isCollectedFrom(SqlNodeList columnList) {
+            if (columns.length != columnList.size()) {
+                return false;
+            }
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] != columnList.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
     /**
      * Returns the fulltablename
@@ -0,0 +1,95 @@
+package ddl;
+
+import extended.CopyOnWriteSqlNode;
+import extended.ReferencingSqlNode;
+import extended.SqlReferences;
+import org.apache.calcite.sql.SqlDrop;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlOperator;
+import org.apache.calcite.sql.SqlSpecialOperator;
+import org.apache.calcite.sql.SqlWriter;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.util.ImmutableNullableList;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * DROP TABLE DDL sql call.
+ */
+public class XSqlDropTable extends SqlDrop implements CopyOnWriteSqlNode, ReferencingSqlNode {
+    private static final SqlOperator OPERATOR =
+            new SqlSpecialOperator("DROP TABLE", SqlKind.DROP_TABLE);
+
+    private final SqlIdentifier tableName;
+
+    private final boolean isTemporary;
+
+    /** The referenced table, collected on first use. */
+    private volatile @Nullable SqlReferences references;
+
+    public XSqlDropTable(
+            SqlParserPos pos, SqlIdentifier tableName, boolean ifExists, boolean isTemporary) {
+        super(OPERATOR, pos, ifExists);
+        this.tableName = tableName;
+        this.isTemporary = isTemporary;
+    }
+
+    @Override
+    public @Nonnull List<SqlNode> getOperandList() {
+        return ImmutableNullableList.of(tableName);
+    }
+
+    @Override
+    public XSqlDropTable withOperands(List<SqlNode> operands) {
+        if (operands.get(0) == tableName) {
+            return this;
+        }
+        return new XSqlDropTable(
+                getParserPosition(), (SqlIdentifier) operands.get(0), ifExists, isTemporary);
+    }
+
+    public SqlIdentifier getTableName() {
+        return tableName;
+    }
+
+    public boolean getIfExists() {
+        return ifExists;
+    }
+
+    public boolean isTemporary() {
+        return isTemporary;
+    }
+
+    /** Returns the dropped table, collected once. */
+    @Override
+    public SqlReferences getReferences() {
+        SqlReferences references = this.references;
+        if (references == null) {
+            references = SqlReferences.collect(this);
+            this.references = references;
+        }
+        return references;
+    }
+
+    @Override
+    public void unparse(SqlWriter writer, int leftPrec, int rightPrec) {
+        writer.keyword("DROP");
+        if (isTemporary) {
+            writer.keyword("TEMPORARY");
+        }
+        writer.keyword("TABLE");
+        if (ifExists) {
+            writer.keyword("IF EXISTS");
+        }
+        tableName.unparse(writer, leftPrec, rightPrec);
+    }
+
+    /** Returns the name parts of the dropped table, e.g. {@code [catalog, db, table]}. */
+    public String[] fullTableName() {
+        return tableName.names.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,421 @@
+package ddl;
+
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlWriter;
+import org.apache.calcite.sql.parser.SqlParserPos;
+
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The partition columns and values of a statement, e.g. of {@code INSERT INTO t PARTITION
+ * (dt = '2026-10-19', hr = 3) ...} or of {@code PARTITIONED BY (dt, hr)}.
+ *
+ * <p>The grammar builds the spec directly from the parsed literals, so loaders read typed values
+ * instead of converting {@link SqlLiteral}s on every insert. Keys and values are kept in parallel
+ * arrays in declaration order: integers as {@code long}s, strings and other numbers as their
+ * text. Keys without a value are {@link ValueKind#DYNAMIC dynamic}, their value is only known
+ * when the rows are written; all keys of {@code PARTITIONED BY} are.
+ *
+ * <p>{@link #appendPath} renders the partition path, e.g. {@code dt=2026-10-19/hr=3}, into a
+ * given builder without creating any intermediate object. Instances are immutable.
+ */
+public final class XSqlPartitionSpec {
+
+    /** The spec of a statement without partitions. */
+    public static final XSqlPartitionSpec EMPTY = new Builder().build();
+
+    /** The path name of a partition whose value is null or empty, as used by Hive and Flink. */
+    public static final String DEFAULT_PARTITION_NAME = "__DEFAULT_PARTITION__";
+
+    /** The kinds of partition values. */
+    public enum ValueKind {
+        /** A character string, or a date, time or other literal in its SQL text. */
+        STRING,
+        /** An exact number without fraction that fits into a {@code long}. */
+        INTEGER,
+        /** Any other number, in its plain text without exponent. */
+        DECIMAL,
+        BOOLEAN,
+        NULL,
+        /** No value, the value is taken from the rows. */
+        DYNAMIC
+    }
+
+    /** Characters that are escaped as {@code %XX} in partition paths, like Hive does. */
+    private static final boolean[] ESCAPED = new boolean[128];
+
+    static {
+        for (int c = 0; c < ' '; c++) {
+            ESCAPED[c] = true;
+        }
+        for (char c : "\"#%'*/:=?\\\u007F{[]^".toCharArray()) {
+            ESCAPED[c] = true;
+        }
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final String[] keys;
+    private final ValueKind[] kinds;
+    /** The INTEGER values, BOOLEAN values as 0 and 1. */
+    private final long[] longs;
+    /** The STRING and DECIMAL values. */
+    private final @Nullable String[] strings;
+
+    private XSqlPartitionSpec(
+            String[] keys, ValueKind[] kinds, long[] longs, @Nullable String[] strings) {
+        this.keys = keys;
+        this.kinds = kinds;
+        this.longs = longs;
+        this.strings = strings;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns a spec of dynamic partition keys, e.g. those of {@code PARTITIONED BY}. A key given
+     * more than once is kept once.
+     */
+    public static XSqlPartitionSpec ofKeys(List<String> keys) {
+        if (keys.isEmpty()) {
+            return EMPTY;
+        }
+        final Builder builder = new Builder();
+        for (String key : keys) {
+            builder.addDynamic(key);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    public String getKey(int i) {
+        return keys[i];
+    }
+
+    /** Returns the keys in declaration order. */
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /** Returns the position of a key, -1 if the spec does not contain it. */
+    public int indexOf(String key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public ValueKind getKind(int i) {
+        return kinds[i];
+    }
+
+    /**
+     * Returns an INTEGER value.
+     *
+     * @throws IllegalStateException if the value is of another kind
+     */
+    public long getLong(int i) {
+        checkKind(i, ValueKind.INTEGER);
+        return longs[i];
+    }
+
+    /**
+     * Returns a BOOLEAN value.
+     *
+     * @throws IllegalStateException if the value is of another kind
+     */
+    public boolean getBoolean(int i) {
+        checkKind(i, ValueKind.BOOLEAN);
+        return longs[i] != 0;
+    }
+
+    /**
+     * Returns a value as string: the text of STRING and DECIMAL values, the decimal digits of
+     * INTEGER values, {@code true} or {@code false} for BOOLEAN values, and null for NULL and
+     * DYNAMIC ones.
+     */
+    public @Nullable String getString(int i) {
+        switch (kinds[i]) {
+            case STRING:
+            case DECIMAL:
+                return strings[i];
+            case INTEGER:
+                return Long.toString(longs[i]);
+            case BOOLEAN:
+                return Boolean.toString(longs[i] != 0);
+            default:
+                return null;
+        }
+    }
+
+    /** Returns whether all keys have a value, so that the spec denotes a single partition. */
+    public boolean isStatic() {
+        return staticPrefixSize() == keys.length;
+    }
+
+    /** Returns the number of leading keys that have a value. */
+    public int staticPrefixSize() {
+        int i = 0;
+        while (i < kinds.length && kinds[i] != ValueKind.DYNAMIC) {
+            i++;
+        }
+        return i;
+    }
+
+    /** Returns the static values by key in declaration order, NULL values as null. */
+    public Map<String, String> toStringMap() {
+        final Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (kinds[i] != ValueKind.DYNAMIC) {
+                values.put(keys[i], getString(i));
+            }
+        }
+        return values;
+    }
+
+    /** Returns the partition path, see {@link #appendPath(StringBuilder, String)}. */
+    public String toPath() {
+        return appendPath(new StringBuilder(16 * keys.length), DEFAULT_PARTITION_NAME).toString();
+    }
+
+    /**
+     * Appends the partition path of the leading keys that have a value, e.g. {@code
+     * dt=2026-10-19/hr=3}, nothing if the first key is dynamic.
+     *
+     * <p>Keys and values are escaped like Hive does: characters that are not allowed in paths,
+     * e.g. {@code /}, {@code =} and {@code :}, are written as {@code %XX}. Null and empty values
+     * are written as the given default partition name.
+     *
+     * @return the given builder
+     */
+    public StringBuilder appendPath(StringBuilder path, String defaultPartitionName) {
+        for (int i = 0; i < keys.length; i++) {
+            if (kinds[i] == ValueKind.DYNAMIC) {
+                break;
+            }
+            if (i > 0) {
+                path.append('/');
+            }
+            appendEscaped(path, keys[i]);
+            path.append('=');
+            switch (kinds[i]) {
+                case INTEGER:
+                    path.append(longs[i]);
+                    break;
+                case BOOLEAN:
+                    path.append(longs[i] != 0);
+                    break;
+                case NULL:
+                    path.append(defaultPartitionName);
+                    break;
+                default:
+                    final String value = requireNonNull(strings[i]);
+                    if (value.isEmpty()) {
+                        path.append(defaultPartitionName);
+                    } else {
+                        appendEscaped(path, value);
+                    }
+            }
+        }
+        return path;
+    }
+
+    /** Unparses the spec as {@code (key = value, ...)}, dynamic keys without value. */
+    public void unparse(SqlWriter writer) {
+        final SqlWriter.Frame frame = writer.startList("(", ")");
+        for (int i = 0; i < keys.length; i++) {
+            writer.sep(",", false);
+            writer.identifier(keys[i], true);
+            if (kinds[i] == ValueKind.DYNAMIC) {
+                continue;
+            }
+            writer.keyword("=");
+            switch (kinds[i]) {
+                case STRING:
+                    SqlLiteral.createCharString(requireNonNull(strings[i]), SqlParserPos.ZERO)
+                            .unparse(writer, 0, 0);
+                    break;
+                case BOOLEAN:
+                    writer.keyword(longs[i] != 0 ? "TRUE" : "FALSE");
+                    break;
+                case NULL:
+                    writer.keyword("NULL");
+                    break;
+                default:
+                    writer.literal(getString(i));
+            }
+        }
+        writer.endList(frame);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        XSqlPartitionSpec that = (XSqlPartitionSpec) o;
+        return Arrays.equals(keys, that.keys)
+                && Arrays.equals(kinds, that.kinds)
+                && Arrays.equals(longs, that.longs)
+                && Arrays.equals(strings, that.strings);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Arrays.hashCode(keys);
+        hash = 31 * hash + Arrays.hashCode(kinds);
+        hash = 31 * hash + Arrays.hashCode(longs);
+        return 31 * hash + Arrays.hashCode(strings);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("(");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(keys[i]);
+            if (kinds[i] != ValueKind.DYNAMIC) {
+                builder.append('=').append(getString(i));
+            }
+        }
+        return builder.append(')').toString();
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private void checkKind(int i, ValueKind kind) {
+        if (kinds[i] != kind) {
+            throw new IllegalStateException(
+                    String.format(
+                            "Partition value of %s is %s, not %s", keys[i], kinds[i], kind));
+        }
+    }
+
+    private static void appendEscaped(StringBuilder path, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c < ESCAPED.length && ESCAPED[c]) {
+                path.append('%').append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+            } else {
+                path.append(c);
+            }
+        }
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** Builder for {@link XSqlPartitionSpec}, used by the grammar. */
+    public static final class Builder {
+        private String[] keys = new String[4];
+        private ValueKind[] kinds = new ValueKind[4];
+        private long[] longs = new long[4];
+        private String[] strings = new String[4];
+        private int size;
+
+        private Builder() {}
+
+        /**
+         * Adds a key with the value of a parsed literal.
+         *
+         * @return false if the key was added before, the spec is left unchanged then
+         * @throws IllegalArgumentException if the value is not a literal
+         */
+        public boolean add(String key, SqlNode value) {
+            if (!(value instanceof SqlLiteral)) {
+                throw new IllegalArgumentException("Partition value must be a literal: " + value);
+            }
+            final SqlLiteral literal = (SqlLiteral) value;
+            switch (literal.getTypeName()) {
+                case NULL:
+                    return add(key, ValueKind.NULL, 0, null);
+                case BOOLEAN:
+                    return add(key, ValueKind.BOOLEAN, literal.booleanValue() ? 1 : 0, null);
+                case DECIMAL:
+                case DOUBLE:
+                    final BigDecimal number = literal.getValueAs(BigDecimal.class);
+                    if (number.scale() <= 0) {
+                        try {
+                            return add(key, ValueKind.INTEGER, number.longValueExact(), null);
+                        } catch (ArithmeticException e) {
+                            // Too large for a long.
+                        }
+                    }
+                    return add(key, ValueKind.DECIMAL, 0, number.toPlainString());
+                case CHAR:
+                    return add(key, ValueKind.STRING, 0, literal.getValueAs(String.class));
+                default:
+                    return add(key, ValueKind.STRING, 0, literal.toValue());
+            }
+        }
+
+        /** Adds a key with a string value, see {@link #add(String, SqlNode)}. */
+        public boolean addString(String key, String value) {
+            return add(key, ValueKind.STRING, 0, requireNonNull(value));
+        }
+
+        /** Adds a key with an integer value, see {@link #add(String, SqlNode)}. */
+        public boolean addLong(String key, long value) {
+            return add(key, ValueKind.INTEGER, value, null);
+        }
+
+        /** Adds a key without value, see {@link #add(String, SqlNode)}. */
+        public boolean addDynamic(String key) {
+            return add(key, ValueKind.DYNAMIC, 0, null);
+        }
+
+        private boolean add(
+                String key, ValueKind kind, long longValue, @Nullable String stringValue) {
+            requireNonNull(key);
+            for (int i = 0; i < size; i++) {
+                if (keys[i].equals(key)) {
+                    return false;
+                }
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                kinds = Arrays.copyOf(kinds, size * 2);
+                longs = Arrays.copyOf(longs, size * 2);
+                strings = Arrays.copyOf(strings, size * 2);
+            }
+            keys[size] = key;
+            kinds[size] = kind;
+            longs[size] = longValue;
+            strings[size] = stringValue;
+            size++;
+            return true;
+        }
+
+        public XSqlPartitionSpec build() {
+            return new XSqlPartitionSpec(
+                    Arrays.copyOf(keys, size),
+                    Arrays.copyOf(kinds, size),
+                    Arrays.copyOf(longs, size),
+                    Arrays.copyOf(strings, size));
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package ddl;
 
 import ddl.constraints.XSqlTableConstraint;
+import extended.CopyOnWriteSqlNode;
+import extended.HashedSqlNode;
+import extended.SqlNodeHashes;
 import org.apache.calcite.sql.*;
 import org.apache.calcite.sql.parser.SqlParserPos;
 import org.apache.calcite.util.ImmutableNullableList;
+import org.apache.calcite.util.Litmus;
 import org.apache.calcite.util.NlsString;
+import types.XSqlTypeNameSpecs;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -13,7 +18,8 @@ import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
 
-public abstract class XSqlTableColumn extends SqlCall {
+public abstract class XSqlTableColumn extends SqlCall
+        implements CopyOnWriteSqlNode, HashedSqlNode {
 
     private static final SqlSpecialOperator OPERATOR =
             new SqlSpecialOperator("COLUMN_DECL", SqlKind.COLUMN_DECL);
@@ -22,6 +28,9 @@ public abstract class XSqlTableColumn extends SqlCall {
 
     protected final SqlNode comment;
 
+    /** The structural hash code, 0 until computed. */
+    private int hash;
+
     private XSqlTableColumn(SqlParserPos pos, SqlIdentifier name, @Nullable SqlNode comment) {
         super(pos);
         this.name = requireNonNull(name, "Column name should not be null");
@@ -30,6 +39,55 @@ public abstract class XSqlTableColumn extends SqlCall {
 
     protected abstract void unparseColumn(SqlWriter writer, int leftPrec, int rightPrec);
 
+    /** Accepts a generic visitor, dispatching on the concrete column type. */
+    public abstract <R> R accept(ColumnVisitor<R> visitor);
+
+    @Override
+    public abstract XSqlTableColumn withOperands(List<SqlNode> operands);
+
+    /** Computes the structural hash code of the column specific parts. */
+    protected abstract int hashColumn();
+
+    /** Compares the column specific parts with a column of the same class. */
+    protected abstract boolean equalsColumn(XSqlTableColumn column, Litmus litmus);
+
+    /**
+     * Returns the structural hash code of this column, computed once. Unlike {@link
+     * SqlNodeHashes#hash} of a {@link SqlDataTypeSpec}, it covers the nullability of the type.
+     */
+    @Override
+    public int structuralHash() {
+        int hash = this.hash;
+        if (hash == 0) {
+            hash = 31 * (31 * name.names.hashCode() + SqlNodeHashes.hash(comment)) + hashColumn();
+            this.hash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Compares this column with another one, failing fast on different structural hash codes.
+     * Unlike {@link SqlDataTypeSpec#equalsDeep}, the types of columns compare their nullability
+     * too, {@code NOT NULL} is part of the definition of a column.
+     */
+    @Override
+    public boolean equalsDeep(@Nullable SqlNode node, Litmus litmus) {
+        if (node == this) {
+            return litmus.succeed();
+        }
+        if (node == null
+                || node.getClass() != getClass()
+                || structuralHash() != ((XSqlTableColumn) node).structuralHash()) {
+            return litmus.fail("{} != {}", this, node);
+        }
+        final XSqlTableColumn that = (XSqlTableColumn) node;
+        if (!name.equalsDeep(that.name, litmus)
+                || !SqlNode.equalDeep(comment, that.comment, litmus)) {
+            return litmus.fail("{} != {}", this, node);
+        }
+        return equalsColumn(that, litmus);
+    }
+
     @Override
     public @Nonnull SqlOperator getOperator() {
         return OPERATOR;
@@ -55,6 +113,11 @@ public abstract class XSqlTableColumn extends SqlCall {
         return Optional.ofNullable(comment);
     }
 
+    /** Drops the cached structural hash code after an in-place change. */
+    protected void resetHash() {
+        this.hash = 0;
+    }
+
     /** A regular, physical column. */
     public static class SqlRegularColumn extends XSqlTableColumn {
 
@@ -62,6 +125,9 @@ public abstract class XSqlTableColumn extends SqlCall {
 
         private final @Nullable XSqlTableConstraint constraint;
 
+        /** The digest of the type including its nullability, null until computed. */
+        private @Nullable String typeDigest;
+
         public SqlRegularColumn(
                 SqlParserPos pos,
                 SqlIdentifier name,
@@ -77,14 +143,68 @@ public abstract class XSqlTableColumn extends SqlCall {
             return type;
         }
 
+        /**
+         * Changes the type of this column in place. Trees that are cached or shared between threads
+         * must not be changed, use {@link #withType(SqlDataTypeSpec)} for them.
+         */
         public void setType(SqlDataTypeSpec type) {
             this.type = type;
+            this.typeDigest = null;
+            resetHash();
+        }
+
+        /** Returns a copy of this column with the given type, sharing all other nodes. */
+        public SqlRegularColumn withType(SqlDataTypeSpec type) {
+            return new SqlRegularColumn(getParserPosition(), name, comment, type, constraint);
         }
 
         public Optional<XSqlTableConstraint> getConstraint() {
             return Optional.ofNullable(constraint);
         }
 
+        @Override
+        public <R> R accept(ColumnVisitor<R> visitor) {
+            return visitor.visit(this);
+        }
+
+        @Override
+        protected int hashColumn() {
+            return 31 * typeDigest().hashCode() + SqlNodeHashes.hash(constraint);
+        }
+
+        @Override
+        protected boolean equalsColumn(XSqlTableColumn column, Litmus litmus) {
+            final SqlRegularColumn that = (SqlRegularColumn) column;
+            if (!typeDigest().equals(that.typeDigest())) {
+                return litmus.fail("{} != {}", this, that);
+            }
+            return SqlNode.equalDeep(constraint, that.constraint, litmus);
+        }
+
+        private String typeDigest() {
+            String typeDigest = this.typeDigest;
+            if (typeDigest == null) {
+                this.typeDigest = typeDigest = XSqlTypeNameSpecs.digest(type);
+            }
+            return typeDigest;
+        }
+
+        @Override
+        public SqlRegularColumn withOperands(List<SqlNode> operands) {
+            if (operands.get(0) == name
+                    && operands.get(1) == type
+                    && operands.get(2) == constraint
+                    && operands.get(3) == comment) {
+                return this;
+            }
+            return new SqlRegularColumn(
+                    getParserPosition(),
+                    (SqlIdentifier) operands.get(0),
+                    operands.get(3),
+                    (SqlDataTypeSpec) operands.get(1),
+                    (XSqlTableConstraint) operands.get(2));
+        }
+
         @Override
         protected void unparseColumn(SqlWriter writer, int leftPrec, int rightPrec) {
             type.unparse(writer, leftPrec, rightPrec);
@@ -112,6 +232,9 @@ public abstract class XSqlTableColumn extends SqlCall {
 
         private final boolean isVirtual;
 
+        /** The digest of the type including its nullability, null until computed. */
+        private @Nullable String typeDigest;
+
         public SqlMetadataColumn(
                 SqlParserPos pos,
                 SqlIdentifier name,
@@ -138,6 +261,49 @@ public abstract class XSqlTableColumn extends SqlCall {
             return isVirtual;
         }
 
+        @Override
+        public <R> R accept(ColumnVisitor<R> visitor) {
+            return visitor.visit(this);
+        }
+
+        @Override
+        protected int hashColumn() {
+            int hash = typeDigest().hashCode();
+            hash = 31 * hash + SqlNodeHashes.hash(metadataAlias);
+            return 31 * hash + Boolean.hashCode(isVirtual);
+        }
+
+        @Override
+        protected boolean equalsColumn(XSqlTableColumn column, Litmus litmus) {
+            final SqlMetadataColumn that = (SqlMetadataColumn) column;
+            if (!typeDigest().equals(that.typeDigest()) || isVirtual != that.isVirtual) {
+                return litmus.fail("{} != {}", this, that);
+            }
+            return SqlNode.equalDeep(metadataAlias, that.metadataAlias, litmus);
+        }
+
+        private String typeDigest() {
+            String typeDigest = this.typeDigest;
+            if (typeDigest == null) {
+                this.typeDigest = typeDigest = XSqlTypeNameSpecs.digest(type);
+            }
+            return typeDigest;
+        }
+
+        @Override
+        public SqlMetadataColumn withOperands(List<SqlNode> operands) {
+            if (operands.get(0) == name && operands.get(1) == type && operands.get(2) == comment) {
+                return this;
+            }
+            return new SqlMetadataColumn(
+                    getParserPosition(),
+                    (SqlIdentifier) operands.get(0),
+                    operands.get(2),
+                    (SqlDataTypeSpec) operands.get(1),
+                    metadataAlias,
+                    isVirtual);
+        }
+
         @Override
         protected void unparseColumn(SqlWriter writer, int leftPrec, int rightPrec) {
             type.unparse(writer, leftPrec, rightPrec);
@@ -176,6 +342,33 @@ public abstract class XSqlTableColumn extends SqlCall {
             return expr;
         }
 
+        @Override
+        public <R> R accept(ColumnVisitor<R> visitor) {
+            return visitor.visit(this);
+        }
+
+        @Override
+        protected int hashColumn() {
+            return SqlNodeHashes.hash(expr);
+        }
+
+        @Override
+        protected boolean equalsColumn(XSqlTableColumn column, Litmus litmus) {
+            return SqlNode.equalDeep(expr, ((SqlComputedColumn) column).expr, litmus);
+        }
+
+        @Override
+        public SqlComputedColumn withOperands(List<SqlNode> operands) {
+            if (operands.get(0) == name && operands.get(1) == expr && operands.get(2) == comment) {
+                return this;
+            }
+            return new SqlComputedColumn(
+                    getParserPosition(),
+                    (SqlIdentifier) operands.get(0),
+                    operands.get(2),
+                    operands.get(1));
+        }
+
         @Override
         protected void unparseColumn(SqlWriter writer, int leftPrec, int rightPrec) {
             writer.keyword("AS");
@@ -187,4 +380,18 @@ public abstract class XSqlTableColumn extends SqlCall {
             return ImmutableNullableList.of(name, expr, comment);
         }
     }
+
+    /**
+     * Visitor over the concrete column types, so callers can dispatch on the column kind without
+     * {@code instanceof} checks.
+     *
+     * @param <R> the return type of the visit methods
+     */
+    public interface ColumnVisitor<R> {
+        R visit(SqlRegularColumn column);
+
+        R visit(SqlMetadataColumn column);
+
+        R visit(SqlComputedColumn column);
+    }
 }
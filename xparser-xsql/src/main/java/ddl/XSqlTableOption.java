@@ -1,5 +1,6 @@
 package ddl;
 
+import extended.CopyOnWriteSqlNode;
 import org.apache.calcite.sql.*;
 import org.apache.calcite.sql.parser.SqlParserPos;
 import org.apache.calcite.util.ImmutableNullableList;
@@ -9,14 +10,18 @@ import java.util.List;
 
 import static java.util.Objects.requireNonNull;
 
-public class XSqlTableOption extends SqlCall{
-    /** Use this operator only if you don't have a better one. */
-    protected static final SqlOperator OPERATOR =
+public class XSqlTableOption extends SqlCall implements CopyOnWriteSqlNode {
+    /** The operator of all table options. */
+    public static final SqlOperator OPERATOR =
             new SqlSpecialOperator("TableOption", SqlKind.OTHER);
 
     private final SqlNode key;
     private final SqlNode value;
 
+    // Decoded on first use, racing threads decode the same strings.
+    private String keyString;
+    private String valueString;
+
     public XSqlTableOption(SqlNode key, SqlNode value, SqlParserPos pos) {
         super(pos);
         this.key = requireNonNull(key, "Option key is missing");
@@ -32,11 +37,21 @@ public class XSqlTableOption extends SqlCall{
     }
 
     public String getKeyString() {
-        return ((NlsString) SqlLiteral.value(key)).getValue();
+        String keyString = this.keyString;
+        if (keyString == null) {
+            keyString = ((NlsString) SqlLiteral.value(key)).getValue();
+            this.keyString = keyString;
+        }
+        return keyString;
     }
 
     public String getValueString() {
-        return ((NlsString) SqlLiteral.value(value)).getValue();
+        String valueString = this.valueString;
+        if (valueString == null) {
+            valueString = ((NlsString) SqlLiteral.value(value)).getValue();
+            this.valueString = valueString;
+        }
+        return valueString;
     }
 
     @Override
@@ -49,6 +64,14 @@ public class XSqlTableOption extends SqlCall{
         return ImmutableNullableList.of(key, value);
     }
 
+    @Override
+    public XSqlTableOption withOperands(List<SqlNode> operands) {
+        if (operands.get(0) == key && operands.get(1) == value) {
+            return this;
+        }
+        return new XSqlTableOption(operands.get(0), operands.get(1), getParserPosition());
+    }
+
     @Override
     public void unparse(SqlWriter writer, int leftPrec, int rightPrec) {
         key.unparse(writer, leftPrec, rightPrec);
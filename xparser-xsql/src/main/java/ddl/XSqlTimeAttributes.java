@@ -0,0 +1,233 @@
+package ddl;
+
+import ddl.XSqlTableColumn.SqlComputedColumn;
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlIntervalLiteral;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.type.SqlTypeFamily;
+import org.apache.calcite.sql.util.SqlBasicVisitor;
+import org.apache.calcite.util.Litmus;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * The time attributes of a table, analyzed once when the CREATE TABLE statement is parsed so that
+ * streaming planners do not walk the watermark and computed column expressions again for every
+ * job.
+ *
+ * <p>Describes the rowtime column of the {@code WATERMARK FOR} clause, the delay of the watermark
+ * if it is a constant, the columns the rowtime and the watermark are derived from, and the
+ * columns defined as {@code PROCTIME()}. Instances are immutable and can be shared by all
+ * threads, see {@link XSqlCreateTable#getTimeAttributes()}.
+ */
+public final class XSqlTimeAttributes {
+
+    /** The time attributes of a table without watermark and processing time columns. */
+    public static final XSqlTimeAttributes NONE =
+            new XSqlTimeAttributes(null, -1, Collections.emptyList(), Collections.emptyList());
+
+    private final @Nullable String rowtimeColumn;
+    private final long watermarkDelayMillis;
+    private final List<String> referencedColumns;
+    private final List<String> proctimeColumns;
+
+    private XSqlTimeAttributes(
+            @Nullable String rowtimeColumn,
+            long watermarkDelayMillis,
+            List<String> referencedColumns,
+            List<String> proctimeColumns) {
+        this.rowtimeColumn = rowtimeColumn;
+        this.watermarkDelayMillis = watermarkDelayMillis;
+        this.referencedColumns = referencedColumns;
+        this.proctimeColumns = proctimeColumns;
+    }
+
+    /**
+     * Analyzes the time attributes of a table.
+     *
+     * @param columns the columns of the table
+     * @param watermark the watermark of the table, null if it declares none
+     */
+    public static XSqlTimeAttributes analyze(
+            List<SqlNode> columns, @Nullable XSqlWatermark watermark) {
+        Map<String, SqlNode> computedColumns = null;
+        List<String> proctimeColumns = null;
+        for (SqlNode column : columns) {
+            if (!(column instanceof SqlComputedColumn)) {
+                continue;
+            }
+            final SqlComputedColumn computed = (SqlComputedColumn) column;
+            if (computedColumns == null) {
+                computedColumns = new HashMap<>();
+            }
+            computedColumns.put(computed.getName().getSimple(), computed.getExpr());
+            if (isProctime(computed.getExpr())) {
+                if (proctimeColumns == null) {
+                    proctimeColumns = new ArrayList<>(1);
+                }
+                proctimeColumns.add(computed.getName().getSimple());
+            }
+        }
+        if (watermark == null && proctimeColumns == null) {
+            return NONE;
+        }
+        final List<String> proctime =
+                proctimeColumns == null
+                        ? Collections.emptyList()
+                        : Collections.unmodifiableList(proctimeColumns);
+        if (watermark == null) {
+            return new XSqlTimeAttributes(null, -1, Collections.emptyList(), proctime);
+        }
+        final SqlIdentifier rowtime = watermark.getEventTimeColumnName();
+        return new XSqlTimeAttributes(
+                String.join(".", rowtime.names),
+                watermarkDelayMillis(rowtime, watermark.getWatermarkStrategy()),
+                referencedColumns(
+                        rowtime,
+                        watermark.getWatermarkStrategy(),
+                        computedColumns == null ? Collections.emptyMap() : computedColumns),
+                proctime);
+    }
+
+    /** Returns the rowtime column of the watermark, with its path if it is a nested field. */
+    public Optional<String> getRowtimeColumn() {
+        return Optional.ofNullable(rowtimeColumn);
+    }
+
+    /**
+     * Returns the delay of the watermark behind the rowtime in milliseconds, e.g. 5000 for {@code
+     * ts - INTERVAL '5' SECOND} and 0 for {@code ts}. Empty if the table has no watermark or the
+     * delay is not a constant day-time interval.
+     */
+    public OptionalLong getWatermarkDelayMillis() {
+        return watermarkDelayMillis < 0
+                ? OptionalLong.empty()
+                : OptionalLong.of(watermarkDelayMillis);
+    }
+
+    /**
+     * Returns the top-level columns the rowtime and the watermark are derived from, in the order
+     * they are referenced, including the columns computed columns refer to in turn. Empty if the
+     * table has no watermark.
+     */
+    public List<String> getReferencedColumns() {
+        return referencedColumns;
+    }
+
+    /** Returns the columns defined as {@code PROCTIME()}, in declaration order. */
+    public List<String> getProctimeColumns() {
+        return proctimeColumns;
+    }
+
+    /** Returns whether the table has a watermark or a processing time column. */
+    public boolean hasTimeAttributes() {
+        return rowtimeColumn != null || !proctimeColumns.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        XSqlTimeAttributes that = (XSqlTimeAttributes) o;
+        return watermarkDelayMillis == that.watermarkDelayMillis
+                && Objects.equals(rowtimeColumn, that.rowtimeColumn)
+                && referencedColumns.equals(that.referencedColumns)
+                && proctimeColumns.equals(that.proctimeColumns);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                rowtimeColumn, watermarkDelayMillis, referencedColumns, proctimeColumns);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "TimeAttributes(rowtime: %s, watermarkDelayMillis: %s, referencedColumns: %s, "
+                        + "proctime: %s)",
+                rowtimeColumn,
+                watermarkDelayMillis < 0 ? "unknown" : watermarkDelayMillis,
+                referencedColumns,
+                proctimeColumns);
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private static boolean isProctime(SqlNode expr) {
+        return expr instanceof SqlCall
+                && ((SqlCall) expr).operandCount() == 0
+                && ((SqlCall) expr).getOperator().getName().equalsIgnoreCase("PROCTIME");
+    }
+
+    /**
+     * Returns the delay of {@code rowtime} or {@code rowtime - INTERVAL ...} in milliseconds, -1
+     * for any other strategy.
+     */
+    private static long watermarkDelayMillis(SqlIdentifier rowtime, SqlNode strategy) {
+        if (strategy instanceof SqlIdentifier) {
+            return rowtime.equalsDeep(strategy, Litmus.IGNORE) ? 0 : -1;
+        }
+        if (strategy.getKind() != SqlKind.MINUS) {
+            return -1;
+        }
+        final List<SqlNode> operands = ((SqlCall) strategy).getOperandList();
+        if (!rowtime.equalsDeep(operands.get(0), Litmus.IGNORE)
+                || !(operands.get(1) instanceof SqlIntervalLiteral)) {
+            return -1;
+        }
+        final SqlIntervalLiteral interval = (SqlIntervalLiteral) operands.get(1);
+        if (interval.getTypeName().getFamily() != SqlTypeFamily.INTERVAL_DAY_TIME) {
+            // Months have no constant length.
+            return -1;
+        }
+        final Long millis = interval.getValueAs(Long.class);
+        return millis < 0 ? -1 : millis;
+    }
+
+    /** Collects the columns of the rowtime and the strategy, resolving computed columns. */
+    private static List<String> referencedColumns(
+            SqlIdentifier rowtime, SqlNode strategy, Map<String, SqlNode> computedColumns) {
+        final Set<String> referenced = new LinkedHashSet<>();
+        final Deque<SqlNode> pending = new ArrayDeque<>();
+        pending.add(rowtime);
+        pending.add(strategy);
+        final SqlBasicVisitor<Void> collector =
+                new SqlBasicVisitor<Void>() {
+                    @Override
+                    public Void visit(SqlIdentifier id) {
+                        final String column = id.names.get(0);
+                        // Computed columns are expanded once, which also stops cycles.
+                        if (!id.isStar() && referenced.add(column)) {
+                            final SqlNode expr = computedColumns.get(column);
+                            if (expr != null) {
+                                pending.add(expr);
+                            }
+                        }
+                        return null;
+                    }
+                };
+        while (!pending.isEmpty()) {
+            pending.poll().accept(collector);
+        }
+        return Collections.unmodifiableList(new ArrayList<>(referenced));
+    }
+}
@@ -0,0 +1,75 @@
+package ddl;
+
+import extended.CopyOnWriteSqlNode;
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlOperator;
+import org.apache.calcite.sql.SqlSpecialOperator;
+import org.apache.calcite.sql.SqlWriter;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.util.ImmutableNullableList;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Watermark statement in CREATE TABLE DDL, e.g. {@code WATERMARK FOR ts AS ts - INTERVAL '5'
+ * SECOND}.
+ */
+public class XSqlWatermark extends SqlCall implements CopyOnWriteSqlNode {
+
+    private static final SqlSpecialOperator OPERATOR =
+            new SqlSpecialOperator("WATERMARK", SqlKind.OTHER);
+
+    private final SqlIdentifier eventTimeColumnName;
+    private final SqlNode watermarkStrategy;
+
+    public XSqlWatermark(
+            SqlParserPos pos, SqlIdentifier eventTimeColumnName, SqlNode watermarkStrategy) {
+        super(pos);
+        this.eventTimeColumnName =
+                requireNonNull(eventTimeColumnName, "Event time column name should not be null");
+        this.watermarkStrategy =
+                requireNonNull(watermarkStrategy, "Watermark strategy should not be null");
+    }
+
+    public SqlIdentifier getEventTimeColumnName() {
+        return eventTimeColumnName;
+    }
+
+    public SqlNode getWatermarkStrategy() {
+        return watermarkStrategy;
+    }
+
+    @Override
+    public @Nonnull SqlOperator getOperator() {
+        return OPERATOR;
+    }
+
+    @Override
+    public @Nonnull List<SqlNode> getOperandList() {
+        return ImmutableNullableList.of(eventTimeColumnName, watermarkStrategy);
+    }
+
+    @Override
+    public XSqlWatermark withOperands(List<SqlNode> operands) {
+        if (operands.get(0) == eventTimeColumnName && operands.get(1) == watermarkStrategy) {
+            return this;
+        }
+        return new XSqlWatermark(
+                getParserPosition(), (SqlIdentifier) operands.get(0), operands.get(1));
+    }
+
+    @Override
+    public void unparse(SqlWriter writer, int leftPrec, int rightPrec) {
+        writer.keyword("WATERMARK");
+        writer.keyword("FOR");
+        eventTimeColumnName.unparse(writer, leftPrec, rightPrec);
+        writer.keyword("AS");
+        watermarkStrategy.unparse(writer, leftPrec, rightPrec);
+    }
+}
@@ -1,5 +1,6 @@
 package ddl.constraints;
 
+import extended.CopyOnWriteSqlNode;
 import org.apache.calcite.sql.*;
 import org.apache.calcite.sql.parser.SqlParserPos;
 import org.apache.calcite.util.ImmutableNullableList;
@@ -8,7 +9,7 @@ import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Optional;
 
-public class XSqlTableConstraint extends SqlCall{
+public class XSqlTableConstraint extends SqlCall implements CopyOnWriteSqlNode {
 
 
     private static final SqlOperator OPERATOR =
@@ -86,6 +87,23 @@ public class XSqlTableConstraint extends SqlCall{
         return ImmutableNullableList.of(constraintName, uniqueSpec, columns, enforcement);
     }
 
+    @Override
+    public XSqlTableConstraint withOperands(List<SqlNode> operands) {
+        if (operands.get(0) == constraintName
+                && operands.get(1) == uniqueSpec
+                && operands.get(2) == columns
+                && operands.get(3) == enforcement) {
+            return this;
+        }
+        return new XSqlTableConstraint(
+                (SqlIdentifier) operands.get(0),
+                (SqlLiteral) operands.get(1),
+                (SqlNodeList) operands.get(2),
+                (SqlLiteral) operands.get(3),
+                isTableConstraint,
+                getParserPosition());
+    }
+
     @Override
     public void unparse(SqlWriter writer, int leftPrec, int rightPrec) {
         if (this.constraintName != null) {
@@ -0,0 +1,285 @@
+package ddl.options;
+
+import ddl.XSqlTableOption;
+import error.SqlValidateException;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.parser.SqlParserPos;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The options a connector accepts in the WITH clause of a table, used to decode them into
+ * {@link XSqlTableOptions} once.
+ *
+ * <p>A schema is strict by default: options it does not declare, and that do not start with one
+ * of its {@link Builder#prefix(String) free-form prefixes}, are rejected with the closest
+ * declared key as hint, e.g. {@code Unsupported option 'sink.paralelism', did you mean
+ * 'sink.parallelism'?}.
+ *
+ * <p>Schemas {@link #register(String, XSqlOptionSchema) registered} for a connector are applied
+ * by {@link ddl.XSqlCreateTable#validated()} to the tables whose {@code connector} option names
+ * that connector, so that option errors are reported when the statement is parsed rather than
+ * when a job is started.
+ */
+public final class XSqlOptionSchema {
+
+    /** The option naming the connector of a table. */
+    public static final String CONNECTOR = "connector";
+
+    /** Accepts any option as {@link XSqlOptionType#STRING}. */
+    public static final XSqlOptionSchema LENIENT = builder().strict(false).build();
+
+    private static final Map<String, XSqlOptionSchema> SCHEMAS = new ConcurrentHashMap<>();
+
+    private final Map<String, XSqlOptionSpec> options;
+    private final List<String> prefixes;
+    private final boolean strict;
+
+    private XSqlOptionSchema(Builder builder) {
+        this.options = Collections.unmodifiableMap(new LinkedHashMap<>(builder.options));
+        this.prefixes = Collections.unmodifiableList(new ArrayList<>(builder.prefixes));
+        this.strict = builder.strict;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Registers the schema of a connector, replacing a schema registered before. */
+    public static void register(String connector, XSqlOptionSchema schema) {
+        SCHEMAS.put(requireNonNull(connector), requireNonNull(schema));
+    }
+
+    /** Returns the schema registered for a connector, null if there is none. */
+    public static @Nullable XSqlOptionSchema forConnector(@Nullable String connector) {
+        return connector == null ? null : SCHEMAS.get(connector);
+    }
+
+    public @Nullable XSqlOptionSpec getOption(String key) {
+        return options.get(key);
+    }
+
+    public Collection<XSqlOptionSpec> getOptions() {
+        return options.values();
+    }
+
+    public boolean isStrict() {
+        return strict;
+    }
+
+    /**
+     * Decodes the {@link XSqlTableOption}s of a WITH clause.
+     *
+     * @throws SqlValidateException at the offending option if an option is unknown, given twice
+     *     or invalid, or at the given position if a required option is missing
+     */
+    public XSqlTableOptions decode(List<SqlNode> properties, SqlParserPos pos)
+            throws SqlValidateException {
+        final List<String> keys = new ArrayList<>(properties.size());
+        final List<String> values = new ArrayList<>(properties.size());
+        for (SqlNode property : properties) {
+            final XSqlTableOption option = (XSqlTableOption) property;
+            keys.add(option.getKeyString());
+            values.add(option.getValueString());
+        }
+        final Decoder decoder = new Decoder(keys, values);
+        final String error = decoder.decode();
+        if (error != null) {
+            throw new SqlValidateException(
+                    decoder.failed < 0 ? pos : properties.get(decoder.failed).getParserPosition(),
+                    error);
+        }
+        return requireNonNull(decoder.result);
+    }
+
+    /**
+     * Decodes options given as strings.
+     *
+     * @throws IllegalArgumentException if an option is unknown, missing or invalid
+     */
+    public XSqlTableOptions decode(Map<String, String> properties) {
+        final Decoder decoder =
+                new Decoder(
+                        new ArrayList<>(properties.keySet()),
+                        new ArrayList<>(properties.values()));
+        final String error = decoder.decode();
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        return requireNonNull(decoder.result);
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private boolean isFreeForm(String key) {
+        if (!strict) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the declared key closest to a misspelled one, null if none is close. */
+    private @Nullable String closestKey(String key) {
+        String closest = null;
+        int closestDistance = Math.max(2, key.length() / 4) + 1;
+        for (String candidate : options.keySet()) {
+            final int distance = editDistance(key, candidate, closestDistance);
+            if (distance < closestDistance) {
+                closest = candidate;
+                closestDistance = distance;
+            }
+        }
+        return closest;
+    }
+
+    /** Returns the Levenshtein distance of two strings, or {@code limit} if it is not smaller. */
+    private static int editDistance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) >= limit) {
+            return limit;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                final int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] =
+                        Math.min(Math.min(current[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin >= limit) {
+                return limit;
+            }
+            final int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], limit);
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** Decodes one set of options, remembering the option that failed. */
+    private final class Decoder {
+        private final List<String> keys;
+        private final List<String> values;
+        /** The index of the option that failed, -1 for a missing option. */
+        private int failed = -1;
+
+        private @Nullable XSqlTableOptions result;
+
+        private Decoder(List<String> keys, List<String> values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        /** Returns the error message, null if the options are valid. */
+        private @Nullable String decode() {
+            final int size = keys.size() + XSqlOptionSchema.this.options.size();
+            final XSqlTableOptions.Builder builder =
+                    new XSqlTableOptions.Builder(XSqlOptionSchema.this, size);
+            final Map<String, Integer> given = new HashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                final String key = keys.get(i);
+                failed = i;
+                if (given.put(key, i) != null) {
+                    return String.format("Duplicate option '%s'", key);
+                }
+                final XSqlOptionSpec spec = XSqlOptionSchema.this.options.get(key);
+                if (spec == null) {
+                    if (!isFreeForm(key)) {
+                        final String closest = closestKey(key);
+                        return closest == null
+                                ? String.format("Unsupported option '%s'", key)
+                                : String.format(
+                                        "Unsupported option '%s', did you mean '%s'?",
+                                        key, closest);
+                    }
+                    builder.add(key, XSqlOptionType.STRING, 0, values.get(i), false);
+                    continue;
+                }
+                try {
+                    final long value = spec.decode(values.get(i));
+                    builder.add(key, spec.getType(), value, values.get(i), false);
+                } catch (IllegalArgumentException e) {
+                    return e.getMessage();
+                }
+            }
+            failed = -1;
+            for (XSqlOptionSpec spec : XSqlOptionSchema.this.options.values()) {
+                if (given.containsKey(spec.getKey())) {
+                    continue;
+                }
+                final String defaultValue = spec.getDefaultValue();
+                if (defaultValue != null) {
+                    builder.add(
+                            spec.getKey(),
+                            spec.getType(),
+                            spec.decode(defaultValue),
+                            defaultValue,
+                            true);
+                } else if (spec.isRequired()) {
+                    return String.format("Missing required option '%s'", spec.getKey());
+                }
+            }
+            result = builder.build();
+            return null;
+        }
+    }
+
+    /** Builder for {@link XSqlOptionSchema}. */
+    public static final class Builder {
+        private final Map<String, XSqlOptionSpec> options = new LinkedHashMap<>();
+        private final List<String> prefixes = new ArrayList<>();
+        private boolean strict = true;
+
+        private Builder() {}
+
+        /** Declares an option. */
+        public Builder option(XSqlOptionSpec option) {
+            if (options.putIfAbsent(option.getKey(), option) != null) {
+                throw new IllegalArgumentException(
+                        "Option " + option.getKey() + " is declared twice");
+            }
+            return this;
+        }
+
+        /**
+         * Accepts any option starting with a prefix as {@link XSqlOptionType#STRING}, e.g. {@code
+         * properties.} for the options a connector passes on to its client.
+         */
+        public Builder prefix(String prefix) {
+            prefixes.add(requireNonNull(prefix));
+            return this;
+        }
+
+        /** Sets whether undeclared options are rejected, default is true. */
+        public Builder strict(boolean strict) {
+            this.strict = strict;
+            return this;
+        }
+
+        public XSqlOptionSchema build() {
+            return new XSqlOptionSchema(this);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package ddl.options;
+
+import javax.annotation.Nullable;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The definition of a table option in an {@link XSqlOptionSchema}: its key, type, default value
+ * and validation, e.g.
+ *
+ * <pre>{@code
+ * XSqlOptionSpec.builder("sink.parallelism", XSqlOptionType.INT)
+ *         .validator(value -> (Long) value > 0, "must be positive")
+ *         .build();
+ * }</pre>
+ */
+public final class XSqlOptionSpec {
+
+    private final String key;
+    private final XSqlOptionType type;
+    private final @Nullable String defaultValue;
+    private final boolean required;
+    private final @Nullable Predicate<Object> validator;
+    private final @Nullable String validatorMessage;
+
+    private XSqlOptionSpec(Builder builder) {
+        this.key = builder.key;
+        this.type = builder.type;
+        this.defaultValue = builder.defaultValue;
+        this.required = builder.required;
+        this.validator = builder.validator;
+        this.validatorMessage = builder.validatorMessage;
+    }
+
+    public static Builder builder(String key, XSqlOptionType type) {
+        return new Builder(key, type);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public XSqlOptionType getType() {
+        return type;
+    }
+
+    /** Returns the text of the default value, null if the option has none. */
+    public @Nullable String getDefaultValue() {
+        return defaultValue;
+    }
+
+    public boolean isRequired() {
+        return required;
+    }
+
+    @Override
+    public String toString() {
+        return key + " " + type + (defaultValue == null ? "" : " DEFAULT '" + defaultValue + "'");
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    /**
+     * Decodes and validates a value of this option.
+     *
+     * @throws IllegalArgumentException if the text is not a valid value of this option
+     */
+    long decode(String text) {
+        final long value;
+        try {
+            value = type == XSqlOptionType.STRING ? 0 : type.decode(text);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid %s value '%s' for option '%s'", type, text, key), e);
+        }
+        if (validator != null && !validator.test(boxed(text, value))) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Invalid value '%s' for option '%s': %s", text, key, validatorMessage));
+        }
+        return value;
+    }
+
+    /** Returns the value as passed to the validator. */
+    private Object boxed(String text, long value) {
+        switch (type) {
+            case STRING:
+                return text;
+            case DOUBLE:
+                return Double.longBitsToDouble(value);
+            case BOOLEAN:
+                return value != 0;
+            default:
+                return value;
+        }
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** Builder for {@link XSqlOptionSpec}. */
+    public static final class Builder {
+        private final String key;
+        private final XSqlOptionType type;
+        private @Nullable String defaultValue;
+        private boolean required;
+        private @Nullable Predicate<Object> validator;
+        private @Nullable String validatorMessage;
+
+        private Builder(String key, XSqlOptionType type) {
+            this.key = requireNonNull(key);
+            this.type = requireNonNull(type);
+        }
+
+        /** Sets the default value, as it would be written in the WITH clause. */
+        public Builder defaultValue(String defaultValue) {
+            this.defaultValue = requireNonNull(defaultValue);
+            return this;
+        }
+
+        /** Marks the option as required, it must be given if it has no default value. */
+        public Builder required() {
+            this.required = true;
+            return this;
+        }
+
+        /**
+         * Sets a validation of the decoded value: a {@code String} for {@link
+         * XSqlOptionType#STRING}, a {@code Double} for {@link XSqlOptionType#DOUBLE}, a {@code
+         * Boolean} for {@link XSqlOptionType#BOOLEAN} and a {@code Long} for all other types.
+         *
+         * @param message describes valid values in the error of an invalid one
+         */
+        public Builder validator(Predicate<Object> validator, String message) {
+            this.validator = requireNonNull(validator);
+            this.validatorMessage = requireNonNull(message);
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the default value is not a valid value of the
+         *     option
+         */
+        public XSqlOptionSpec build() {
+            final XSqlOptionSpec spec = new XSqlOptionSpec(this);
+            if (defaultValue != null) {
+                spec.decode(defaultValue);
+            }
+            return spec;
+        }
+    }
+}
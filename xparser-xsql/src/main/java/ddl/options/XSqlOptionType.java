@@ -0,0 +1,93 @@
+package ddl.options;
+
+import java.util.Locale;
+
+/**
+ * Types of table options. Every type but {@link #STRING} decodes its text into a {@code long},
+ * doubles as their raw bits, so that {@link XSqlTableOptions} can keep all values in one
+ * primitive array.
+ */
+public enum XSqlOptionType {
+    STRING,
+    INT,
+    LONG,
+    DOUBLE,
+    BOOLEAN,
+    /** A duration in milliseconds, e.g. {@code 10s}, {@code 5 min} or {@code 1h}. */
+    DURATION,
+    /** A size in bytes, e.g. {@code 512kb}, {@code 64 mb} or {@code 1gb}. */
+    MEMORY_SIZE;
+
+    /**
+     * Decodes the text of an option of this type, see {@link XSqlTableOptions}.
+     *
+     * @throws IllegalArgumentException if the text is not a value of this type
+     */
+    long decode(String text) {
+        final String trimmed = text.trim();
+        switch (this) {
+            case INT:
+                return Integer.parseInt(trimmed);
+            case LONG:
+                return Long.parseLong(trimmed);
+            case DOUBLE:
+                return Double.doubleToRawLongBits(Double.parseDouble(trimmed));
+            case BOOLEAN:
+                if (trimmed.equalsIgnoreCase("true")) {
+                    return 1;
+                } else if (trimmed.equalsIgnoreCase("false")) {
+                    return 0;
+                }
+                throw new IllegalArgumentException("Not a boolean: " + text);
+            case DURATION:
+                return parseWithUnit(trimmed, DURATION_UNITS, DURATION_MULTIPLIERS);
+            case MEMORY_SIZE:
+                return parseWithUnit(trimmed, MEMORY_UNITS, MEMORY_MULTIPLIERS);
+            default:
+                throw new IllegalStateException("Strings are not decoded");
+        }
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private static final String[][] DURATION_UNITS = {
+        {"", "ms", "milli", "millis", "millisecond", "milliseconds"},
+        {"s", "sec", "secs", "second", "seconds"},
+        {"min", "mins", "minute", "minutes"},
+        {"h", "hour", "hours"},
+        {"d", "day", "days"}
+    };
+
+    private static final long[] DURATION_MULTIPLIERS = {1, 1000, 60_000, 3_600_000, 86_400_000};
+
+    private static final String[][] MEMORY_UNITS = {
+        {"", "b", "bytes"},
+        {"k", "kb", "kibibytes"},
+        {"m", "mb", "mebibytes"},
+        {"g", "gb", "gibibytes"},
+        {"t", "tb", "tebibytes"}
+    };
+
+    private static final long[] MEMORY_MULTIPLIERS = {1, 1L << 10, 1L << 20, 1L << 30, 1L << 40};
+
+    /** Parses a non-negative number followed by an optional unit, e.g. {@code 10 s}. */
+    private static long parseWithUnit(String text, String[][] units, long[] multipliers) {
+        int end = 0;
+        while (end < text.length() && Character.isDigit(text.charAt(end))) {
+            end++;
+        }
+        if (end == 0) {
+            throw new IllegalArgumentException("Missing number: " + text);
+        }
+        final long number = Long.parseLong(text.substring(0, end));
+        final String unit = text.substring(end).trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < units.length; i++) {
+            for (String name : units[i]) {
+                if (name.equals(unit)) {
+                    return Math.multiplyExact(number, multipliers[i]);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unknown unit '" + unit + "': " + text);
+    }
+}
@@ -0,0 +1,227 @@
+package ddl.options;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The options of a table, decoded once by an {@link XSqlOptionSchema}.
+ *
+ * <p>The values are kept in parallel arrays, the decoded numbers, booleans, durations and sizes
+ * in a {@code long[]}, so reading an option is a hash lookup plus an array access without any
+ * parsing or boxing. Options with a common dotted prefix, e.g. all {@code properties.*} options,
+ * are indexed by that prefix. Options that are not given but have a default value are included.
+ * Instances are immutable and can be shared by all threads.
+ */
+public final class XSqlTableOptions {
+
+    private final XSqlOptionSchema schema;
+    private final String[] keys;
+    private final XSqlOptionType[] types;
+    private final long[] values;
+    private final String[] texts;
+    private final boolean[] defaulted;
+    private final Map<String, Integer> index;
+    /** The options by every dotted prefix of their key, e.g. {@code a.} and {@code a.b.}. */
+    private final Map<String, int[]> prefixIndex;
+
+    private XSqlTableOptions(Builder builder) {
+        this.schema = builder.schema;
+        this.keys = Arrays.copyOf(builder.keys, builder.size);
+        this.types = Arrays.copyOf(builder.types, builder.size);
+        this.values = Arrays.copyOf(builder.values, builder.size);
+        this.texts = Arrays.copyOf(builder.texts, builder.size);
+        this.defaulted = Arrays.copyOf(builder.defaulted, builder.size);
+        this.index = new HashMap<>(keys.length * 2);
+        final Map<String, List<Integer>> prefixes = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            index.put(keys[i], i);
+            for (int dot = keys[i].indexOf('.'); dot >= 0; dot = keys[i].indexOf('.', dot + 1)) {
+                prefixes.computeIfAbsent(keys[i].substring(0, dot + 1), p -> new ArrayList<>())
+                        .add(i);
+            }
+        }
+        this.prefixIndex = new HashMap<>(prefixes.size() * 2);
+        prefixes.forEach(
+                (prefix, indexes) ->
+                        prefixIndex.put(
+                                prefix, indexes.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /** Returns the schema the options were decoded by. */
+    public XSqlOptionSchema getSchema() {
+        return schema;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /** Returns whether an option was given, rather than taken from its default value. */
+    public boolean isGiven(String key) {
+        final Integer i = index.get(key);
+        return i != null && !defaulted[i];
+    }
+
+    /** Returns the keys, the given options in declaration order followed by the defaults. */
+    public List<String> keys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    public @Nullable XSqlOptionType getType(String key) {
+        final Integer i = index.get(key);
+        return i == null ? null : types[i];
+    }
+
+    /** Returns the text of an option as written, null if there is no such option. */
+    public @Nullable String getString(String key) {
+        final Integer i = index.get(key);
+        return i == null ? null : texts[i];
+    }
+
+    public String getString(String key, String fallback) {
+        final String value = getString(key);
+        return value == null ? fallback : value;
+    }
+
+    /**
+     * Returns an {@link XSqlOptionType#INT} option, or the fallback if there is no such option.
+     * An undeclared option of a lenient schema is parsed on every call.
+     *
+     * @throws IllegalStateException if the option is declared with another type
+     * @throws IllegalArgumentException if an undeclared option is not an int
+     */
+    public int getInt(String key, int fallback) {
+        final Integer i = index.get(key);
+        return i == null ? fallback : (int) value(i, XSqlOptionType.INT);
+    }
+
+    /** Returns a {@link XSqlOptionType#LONG} option, see {@link #getInt}. */
+    public long getLong(String key, long fallback) {
+        final Integer i = index.get(key);
+        return i == null ? fallback : value(i, XSqlOptionType.LONG);
+    }
+
+    /** Returns a {@link XSqlOptionType#DOUBLE} option, see {@link #getInt}. */
+    public double getDouble(String key, double fallback) {
+        final Integer i = index.get(key);
+        return i == null ? fallback : Double.longBitsToDouble(value(i, XSqlOptionType.DOUBLE));
+    }
+
+    /** Returns a {@link XSqlOptionType#BOOLEAN} option, see {@link #getInt}. */
+    public boolean getBoolean(String key, boolean fallback) {
+        final Integer i = index.get(key);
+        return i == null ? fallback : value(i, XSqlOptionType.BOOLEAN) != 0;
+    }
+
+    /** Returns a {@link XSqlOptionType#DURATION} option in milliseconds, see {@link #getInt}. */
+    public long getDurationMillis(String key, long fallback) {
+        final Integer i = index.get(key);
+        return i == null ? fallback : value(i, XSqlOptionType.DURATION);
+    }
+
+    /** Returns a {@link XSqlOptionType#MEMORY_SIZE} option in bytes, see {@link #getInt}. */
+    public long getMemoryBytes(String key, long fallback) {
+        final Integer i = index.get(key);
+        return i == null ? fallback : value(i, XSqlOptionType.MEMORY_SIZE);
+    }
+
+    /** Returns the keys of the options starting with a dotted prefix, e.g. {@code properties.}. */
+    public List<String> keysWithPrefix(String prefix) {
+        final int[] indexes = prefixIndex.get(prefix);
+        if (indexes == null) {
+            return Collections.emptyList();
+        }
+        final List<String> result = new ArrayList<>(indexes.length);
+        for (int i : indexes) {
+            result.add(keys[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the texts of the options starting with a dotted prefix, by their key without the
+     * prefix, e.g. {@code bootstrap.servers} for {@code properties.bootstrap.servers}.
+     */
+    public Map<String, String> withPrefix(String prefix) {
+        final int[] indexes = prefixIndex.get(prefix);
+        if (indexes == null) {
+            return Collections.emptyMap();
+        }
+        final Map<String, String> result = new LinkedHashMap<>();
+        for (int i : indexes) {
+            result.put(keys[i].substring(prefix.length()), texts[i]);
+        }
+        return result;
+    }
+
+    /** Returns the texts of all options by key, see {@link #keys()}. */
+    public Map<String, String> toStringMap() {
+        final Map<String, String> result = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            result.put(keys[i], texts[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return toStringMap().toString();
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private long value(int i, XSqlOptionType type) {
+        if (types[i] == type) {
+            return values[i];
+        } else if (types[i] == XSqlOptionType.STRING && schema.getOption(keys[i]) == null) {
+            return type.decode(texts[i]);
+        }
+        throw new IllegalStateException(
+                String.format("Option '%s' is of type %s, not %s", keys[i], types[i], type));
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** Collects the decoded options, used by {@link XSqlOptionSchema}. */
+    static final class Builder {
+        private final XSqlOptionSchema schema;
+        private final String[] keys;
+        private final XSqlOptionType[] types;
+        private final long[] values;
+        private final String[] texts;
+        private final boolean[] defaulted;
+        private int size;
+
+        Builder(XSqlOptionSchema schema, int capacity) {
+            this.schema = schema;
+            this.keys = new String[capacity];
+            this.types = new XSqlOptionType[capacity];
+            this.values = new long[capacity];
+            this.texts = new String[capacity];
+            this.defaulted = new boolean[capacity];
+        }
+
+        void add(String key, XSqlOptionType type, long value, String text, boolean isDefault) {
+            keys[size] = key;
+            types[size] = type;
+            values[size] = value;
+            texts[size] = text;
+            defaulted[size] = isDefault;
+            size++;
+        }
+
+        XSqlTableOptions build() {
+            return new XSqlTableOptions(this);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package dml;
+
+import ddl.XSqlPartitionSpec;
+import extended.CopyOnWriteSqlNode;
+import extended.ReferencingSqlNode;
+import extended.SqlReferences;
+import org.apache.calcite.sql.SqlInsert;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.sql.SqlWriter;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.util.Litmus;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An INSERT, INSERT OVERWRITE or UPSERT statement with static partitions, e.g. {@code INSERT INTO t
+ * PARTITION (dt = '2026-10-19') SELECT ...}.
+ *
+ * <p>The partitions are parsed into an {@link XSqlPartitionSpec} right away, they and the
+ * OVERWRITE keyword are not part of the operands.
+ */
+public class XSqlRichInsert extends SqlInsert implements CopyOnWriteSqlNode, ReferencingSqlNode {
+
+    private final XSqlPartitionSpec partitionSpec;
+
+    private final boolean overwrite;
+
+    /** The written and read tables and columns, collected on first use. */
+    private volatile @Nullable SqlReferences references;
+
+    public XSqlRichInsert(
+            SqlParserPos pos,
+            SqlNodeList keywords,
+            SqlNode targetTable,
+            SqlNode source,
+            @Nullable SqlNodeList columnList,
+            XSqlPartitionSpec partitionSpec,
+            boolean overwrite) {
+        super(pos, keywords, targetTable, source, columnList);
+        this.partitionSpec = requireNonNull(partitionSpec);
+        this.overwrite = overwrite;
+    }
+
+    /** Returns the static partitions, {@link XSqlPartitionSpec#EMPTY} if there are none. */
+    public XSqlPartitionSpec getPartitionSpec() {
+        return partitionSpec;
+    }
+
+    /** Whether the statement replaces the data of the target, {@code INSERT OVERWRITE}. */
+    public boolean isOverwrite() {
+        return overwrite;
+    }
+
+    /**
+     * Returns the written target table and columns, including the static partitions, and the
+     * tables and columns read by the source. They are collected once, the statement must not be
+     * changed in place afterwards; copies made by {@link #withOperands} collect their own.
+     */
+    @Override
+    public SqlReferences getReferences() {
+        SqlReferences references = this.references;
+        if (references == null) {
+            references = SqlReferences.collect(this);
+            this.references = references;
+        }
+        return references;
+    }
+
+    @Override
+    public XSqlRichInsert withOperands(List<SqlNode> operands) {
+        final List<SqlNode> current = getOperandList();
+        if (operands.get(0) == current.get(0)
+                && operands.get(1) == getTargetTable()
+                && operands.get(2) == getSource()
+                && operands.get(3) == getTargetColumnList()) {
+            return this;
+        }
+        return new XSqlRichInsert(
+                getParserPosition(),
+                (SqlNodeList) operands.get(0),
+                operands.get(1),
+                operands.get(2),
+                (SqlNodeList) operands.get(3),
+                partitionSpec,
+                overwrite);
+    }
+
+    @Override
+    public boolean equalsDeep(@Nullable SqlNode node, Litmus litmus) {
+        if (node instanceof XSqlRichInsert
+                && (overwrite != ((XSqlRichInsert) node).overwrite
+                        || !partitionSpec.equals(((XSqlRichInsert) node).partitionSpec))) {
+            return litmus.fail("{} != {}", this, node);
+        }
+        return super.equalsDeep(node, litmus);
+    }
+
+    @Override
+    public void unparse(SqlWriter writer, int leftPrec, int rightPrec) {
+        if (partitionSpec.isEmpty() && !overwrite) {
+            super.unparse(writer, leftPrec, rightPrec);
+            return;
+        }
+        writer.startList(SqlWriter.FrameTypeEnum.SELECT);
+        writer.sep(isUpsert() ? "UPSERT INTO" : overwrite ? "INSERT OVERWRITE" : "INSERT INTO");
+        final int opLeft = getOperator().getLeftPrec();
+        final int opRight = getOperator().getRightPrec();
+        getTargetTable().unparse(writer, opLeft, opRight);
+        if (!partitionSpec.isEmpty()) {
+            writer.keyword("PARTITION");
+            partitionSpec.unparse(writer);
+        }
+        if (getTargetColumnList() != null) {
+            getTargetColumnList().unparse(writer, opLeft, opRight);
+        }
+        writer.newlineAndIndent();
+        getSource().unparse(writer, 0, 0);
+    }
+}
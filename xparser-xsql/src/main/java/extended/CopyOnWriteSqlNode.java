@@ -0,0 +1,25 @@
+package extended;
+
+import org.apache.calcite.sql.SqlNode;
+
+import java.util.List;
+
+/**
+ * A node that can be copied with different operands, sharing the operands instead of copying
+ * them. Implemented by the extended sql nodes, whose operators cannot create calls, so that
+ * {@link SqlNode#clone} does not work for them.
+ *
+ * @see SqlNodeCopier
+ */
+public interface CopyOnWriteSqlNode {
+
+    /**
+     * Returns a node like this one with the given operands.
+     *
+     * @param operands the operands, in the order of {@link
+     *     org.apache.calcite.sql.SqlCall#getOperandList()}
+     * @return this node if every operand is the same instance as before, otherwise a new node
+     *     which references the given operands
+     */
+    SqlNode withOperands(List<SqlNode> operands);
+}
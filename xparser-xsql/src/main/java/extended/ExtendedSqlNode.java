@@ -1,6 +1,7 @@
 package extended;
 
 import error.SqlValidateException;
+import org.apache.calcite.sql.SqlNode;
 
 /**
  * An remark interface which should be inherited by extended sql nodes which are not supported by
@@ -10,5 +11,21 @@ import error.SqlValidateException;
  * org.apache.calcite.sql.validate.SqlValidatorImpl}.
  */
 public interface ExtendedSqlNode {
+    /** Validates the node, normalizing it in place where the rules require it. */
     void validate() throws SqlValidateException;
+
+    /**
+     * Validates the node without changing it, so that parsed trees can be cached and read by many
+     * threads without copies or locks.
+     *
+     * <p>Returns the node itself if validation normalizes nothing, otherwise a new node with the
+     * normalized children that shares all other children with this node. The default
+     * implementation is for nodes whose {@link #validate()} does not change them.
+     *
+     * @return the validated, normalized node
+     */
+    default SqlNode validated() throws SqlValidateException {
+        validate();
+        return (SqlNode) this;
+    }
 }
\ No newline at end of file
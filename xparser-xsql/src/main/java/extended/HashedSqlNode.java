@@ -0,0 +1,15 @@
+package extended;
+
+/**
+ * A node that knows its structural hash code, usually because it caches it.
+ *
+ * @see SqlNodeHashes
+ */
+public interface HashedSqlNode {
+
+    /**
+     * Returns the structural hash code of this node. Nodes that are {@link
+     * org.apache.calcite.sql.SqlNode#equalsDeep deeply equal} have the same hash code.
+     */
+    int structuralHash();
+}
@@ -0,0 +1,13 @@
+package extended;
+
+/**
+ * A statement that keeps the tables and columns it references, usually because it collects them
+ * once on first use.
+ *
+ * @see SqlReferences
+ */
+public interface ReferencingSqlNode {
+
+    /** Returns the tables and columns this statement references. */
+    SqlReferences getReferences();
+}
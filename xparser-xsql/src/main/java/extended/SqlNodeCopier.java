@@ -0,0 +1,195 @@
+package extended;
+
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlCharStringLiteral;
+import org.apache.calcite.sql.SqlCollectionTypeNameSpec;
+import org.apache.calcite.sql.SqlDataTypeSpec;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.sql.SqlRowTypeNameSpec;
+import org.apache.calcite.sql.SqlTypeNameSpec;
+import org.apache.calcite.sql.type.SqlTypeName;
+import types.XExtendedSqlCollectionTypeNameSpec;
+import types.XExtendedSqlRowTypeNameSpec;
+import types.XSqlMapTypeNameSpec;
+import types.XSqlTypeNameSpecs;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Copies of parsed trees, for trees taken from a cache that must not be changed.
+ *
+ * <p>{@link #replace} and {@link #rewrite} copy on write: they copy only the nodes on the path
+ * from the root to a changed node and share every untouched subtree with the original tree.
+ * Replacing one column of a table with a thousand columns copies the column, the column list and
+ * the table, not the other columns. {@link #copy} copies every node, like {@link SqlNode#clone} but
+ * also for the extended nodes, which {@link SqlNode#clone} does not support.
+ *
+ * <p>The extended nodes are rebuilt through {@link CopyOnWriteSqlNode}, {@link SqlNodeList}s and
+ * the nested type name specifications inside {@link SqlDataTypeSpec}s are rebuilt here, any other
+ * {@link SqlCall} through {@link org.apache.calcite.sql.SqlOperator#createCall} like Calcite's
+ * {@link org.apache.calcite.sql.util.SqlShuttle} does.
+ */
+public final class SqlNodeCopier {
+
+    private SqlNodeCopier() {}
+
+    /**
+     * Replaces a node of a tree, identified by identity.
+     *
+     * @return the root of the new tree, or the given root if the target is not part of it
+     */
+    public static SqlNode replace(SqlNode root, SqlNode target, SqlNode replacement) {
+        return rewrite(root, node -> node == target ? replacement : node);
+    }
+
+    /**
+     * Rewrites a tree bottom up. The rewriter is called on every node after its children, with
+     * the node rebuilt if any of its children was rewritten, and returns the node itself to keep
+     * it.
+     *
+     * @return the root of the new tree, or the given root if the rewriter kept all nodes
+     */
+    public static SqlNode rewrite(SqlNode root, UnaryOperator<SqlNode> rewriter) {
+        return requireNode(copy(root, rewriter, false));
+    }
+
+    /** Returns a deep copy of a tree, which shares no node with the given tree. */
+    public static SqlNode copy(SqlNode root) {
+        return requireNode(copy(root, UnaryOperator.identity(), true));
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private static SqlNode requireNode(@Nullable SqlNode node) {
+        if (node == null) {
+            throw new IllegalArgumentException("The root of a tree must not be rewritten to null");
+        }
+        return node;
+    }
+
+    private static @Nullable SqlNode copy(
+            @Nullable SqlNode node, UnaryOperator<SqlNode> rewriter, boolean deep) {
+        if (node == null) {
+            return null;
+        }
+        final SqlNode copy;
+        if (node instanceof CopyOnWriteSqlNode) {
+            final List<SqlNode> operands =
+                    copyAll(((SqlCall) node).getOperandList(), rewriter, deep);
+            copy = operands == null ? node : ((CopyOnWriteSqlNode) node).withOperands(operands);
+        } else if (node instanceof SqlNodeList) {
+            final SqlNodeList list = (SqlNodeList) node;
+            final List<SqlNode> elements = copyAll(list.getList(), rewriter, deep);
+            copy =
+                    elements == null ? list : new SqlNodeList(elements, list.getParserPosition());
+        } else if (node instanceof SqlDataTypeSpec) {
+            final SqlDataTypeSpec spec = (SqlDataTypeSpec) node;
+            final SqlTypeNameSpec typeNameSpec =
+                    copyTypeNameSpec(spec.getTypeNameSpec(), rewriter, deep);
+            copy =
+                    typeNameSpec == spec.getTypeNameSpec() && !deep
+                            ? spec
+                            : new SqlDataTypeSpec(
+                                    typeNameSpec,
+                                    spec.getTimeZone(),
+                                    spec.getNullable(),
+                                    spec.getParserPosition());
+        } else if (node instanceof SqlCall) {
+            final SqlCall call = (SqlCall) node;
+            final List<SqlNode> operands = copyAll(call.getOperandList(), rewriter, deep);
+            copy =
+                    operands == null
+                            ? call
+                            : call.getOperator()
+                                    .createCall(
+                                            call.getFunctionQuantifier(),
+                                            call.getParserPosition(),
+                                            operands.toArray(new SqlNode[0]));
+        } else {
+            // Identifiers, literals and the other leaves.
+            copy = deep ? node.clone(node.getParserPosition()) : node;
+        }
+        return rewriter.apply(copy);
+    }
+
+    /**
+     * Copies the nodes of a list. Returns null if no node changed and the copy is not deep.
+     * Calls build their operand lists on demand, so the caller cannot tell by identity.
+     */
+    private static <T extends SqlNode> @Nullable List<T> copyAll(
+            List<T> nodes, UnaryOperator<SqlNode> rewriter, boolean deep) {
+        List<T> copies = deep ? new ArrayList<>(nodes.size()) : null;
+        for (int i = 0; i < nodes.size(); i++) {
+            final T node = nodes.get(i);
+            @SuppressWarnings("unchecked")
+            final T copy = (T) copy(node, rewriter, deep);
+            if (copy != node && copies == null) {
+                copies = new ArrayList<>(nodes.subList(0, i));
+            }
+            if (copies != null) {
+                copies.add(copy);
+            }
+        }
+        return copies;
+    }
+
+    /** Copies the nodes nested in a type name specification, the leaf specifications are shared. */
+    private static SqlTypeNameSpec copyTypeNameSpec(
+            SqlTypeNameSpec spec, UnaryOperator<SqlNode> rewriter, boolean deep) {
+        final SqlTypeNameSpec copy;
+        if (spec instanceof XExtendedSqlRowTypeNameSpec) {
+            final XExtendedSqlRowTypeNameSpec row = (XExtendedSqlRowTypeNameSpec) spec;
+            final List<SqlIdentifier> fieldNames = copyAll(row.getFieldNames(), rewriter, deep);
+            final List<SqlDataTypeSpec> fieldTypes = copyAll(row.getFieldTypes(), rewriter, deep);
+            final List<SqlCharStringLiteral> comments = copyAll(row.getComments(), rewriter, deep);
+            copy =
+                    row.withFields(
+                            fieldNames == null ? row.getFieldNames() : fieldNames,
+                            fieldTypes == null ? row.getFieldTypes() : fieldTypes,
+                            comments == null ? row.getComments() : comments);
+        } else if (spec instanceof XSqlMapTypeNameSpec) {
+            final XSqlMapTypeNameSpec map = (XSqlMapTypeNameSpec) spec;
+            copy =
+                    map.withTypes(
+                            (SqlDataTypeSpec) requireNode(copy(map.getKeyType(), rewriter, deep)),
+                            (SqlDataTypeSpec) requireNode(copy(map.getValType(), rewriter, deep)));
+        } else if (spec instanceof XExtendedSqlCollectionTypeNameSpec) {
+            final XExtendedSqlCollectionTypeNameSpec collection =
+                    (XExtendedSqlCollectionTypeNameSpec) spec;
+            copy =
+                    collection.withElementTypeName(
+                            copyTypeNameSpec(collection.getElementTypeName(), rewriter, deep));
+        } else if (spec instanceof SqlRowTypeNameSpec) {
+            final SqlRowTypeNameSpec row = (SqlRowTypeNameSpec) spec;
+            final List<SqlIdentifier> fieldNames = copyAll(row.getFieldNames(), rewriter, deep);
+            final List<SqlDataTypeSpec> fieldTypes = copyAll(row.getFieldTypes(), rewriter, deep);
+            copy =
+                    fieldNames == null && fieldTypes == null
+                            ? row
+                            : new SqlRowTypeNameSpec(
+                                    row.getParserPos(),
+                                    fieldNames == null ? row.getFieldNames() : fieldNames,
+                                    fieldTypes == null ? row.getFieldTypes() : fieldTypes);
+        } else if (spec instanceof SqlCollectionTypeNameSpec) {
+            final SqlCollectionTypeNameSpec collection = (SqlCollectionTypeNameSpec) spec;
+            final SqlTypeNameSpec elementTypeName =
+                    copyTypeNameSpec(collection.getElementTypeName(), rewriter, deep);
+            copy =
+                    elementTypeName == collection.getElementTypeName() && !deep
+                            ? collection
+                            : new SqlCollectionTypeNameSpec(
+                                    elementTypeName,
+                                    SqlTypeName.get(collection.getTypeName().getSimple()),
+                                    collection.getParserPos());
+        } else {
+            return spec;
+        }
+        // Changed specifications are interned like the parsed ones, a deep copy must not be.
+        return copy == spec || deep ? copy : XSqlTypeNameSpecs.intern(copy);
+    }
+}
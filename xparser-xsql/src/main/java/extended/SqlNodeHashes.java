@@ -0,0 +1,89 @@
+package extended;
+
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlDataTypeSpec;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlIntervalLiteral;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.util.Litmus;
+import types.XSqlTypeNameSpecs;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Structural hash codes of parsed trees, consistent with {@link SqlNode#equalsDeep}: deeply equal
+ * trees have the same hash code.
+ *
+ * <p>Calcite nodes do not override {@link Object#hashCode()}, so the hash code of a tree is
+ * computed bottom up from its nodes. Nodes implementing {@link HashedSqlNode} compute their own,
+ * the columns of a table cache it, so hashing a table again after a change to one column only
+ * rehashes that column. Type name specifications hash by their digest, see {@link
+ * XSqlTypeNameSpecs}, which the nested specifications cache as well.
+ */
+public final class SqlNodeHashes {
+
+    private SqlNodeHashes() {}
+
+    /** Returns the structural hash code of a node, 0 for null. */
+    public static int hash(@Nullable SqlNode node) {
+        if (node == null) {
+            return 0;
+        } else if (node instanceof HashedSqlNode) {
+            return ((HashedSqlNode) node).structuralHash();
+        } else if (node instanceof SqlIdentifier) {
+            return ((SqlIdentifier) node).names.hashCode();
+        } else if (node instanceof SqlIntervalLiteral) {
+            // The value hashes its qualifier by identity, which equalsDeep compares as SQL.
+            final SqlIntervalLiteral.IntervalValue value =
+                    ((SqlIntervalLiteral) node).getValueAs(SqlIntervalLiteral.IntervalValue.class);
+            return Objects.hash(
+                    value.getSign(),
+                    value.getIntervalLiteral(),
+                    value.getIntervalQualifier().toString());
+        } else if (node instanceof SqlLiteral) {
+            return node.hashCode();
+        } else if (node instanceof SqlNodeList) {
+            return hashAll(((SqlNodeList) node).getList());
+        } else if (node instanceof SqlDataTypeSpec) {
+            // Like SqlDataTypeSpec#equalsDeep, which ignores the nullability.
+            final SqlDataTypeSpec spec = (SqlDataTypeSpec) node;
+            return 31 * XSqlTypeNameSpecs.digest(spec.getTypeNameSpec()).hashCode()
+                    + Objects.hashCode(spec.getTimeZone());
+        } else if (node instanceof SqlCall) {
+            // Like SqlCall#equalsDeep, which compares operators by name ignoring case and
+            // ignores the function quantifier, so COUNT(DISTINCT a) equals COUNT(a).
+            final SqlCall call = (SqlCall) node;
+            final int hash = call.getOperator().getName().toUpperCase(Locale.ROOT).hashCode();
+            return 31 * hash + hashAll(call.getOperandList());
+        }
+        return node.getKind().ordinal();
+    }
+
+    /** Returns the combined structural hash code of a list of nodes. */
+    public static int hashAll(List<? extends SqlNode> nodes) {
+        int hash = 1;
+        for (SqlNode node : nodes) {
+            hash = 31 * hash + hash(node);
+        }
+        return hash;
+    }
+
+    /**
+     * Compares two trees with {@link SqlNode#equalsDeep}, failing fast if they have different
+     * structural hash codes.
+     */
+    public static boolean equalsDeep(
+            @Nullable SqlNode node1, @Nullable SqlNode node2, Litmus litmus) {
+        if (node1 == node2) {
+            return litmus.succeed();
+        } else if (node1 == null || node2 == null || hash(node1) != hash(node2)) {
+            return litmus.fail("{} != {}", node1, node2);
+        }
+        return node1.equalsDeep(node2, litmus);
+    }
+}
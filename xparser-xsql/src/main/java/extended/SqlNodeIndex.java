@@ -0,0 +1,121 @@
+package extended;
+
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.util.Litmus;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An index of parsed definitions by key, e.g. the {@code CREATE TABLE} statements of a catalog by
+ * table name, that finds deeply equal definitions by their structural hash code.
+ *
+ * <p>{@link #isUnchanged} tells whether a redeployed definition equals the indexed one and {@link
+ * #findIdentical} finds all keys with a definition equal to a given one. Both hash the given
+ * definition once, see {@link SqlNodeHashes}, and compare it deeply only with the definitions of
+ * the same hash code, which are the equal ones unless hash codes collide.
+ *
+ * <p>The indexed definitions must not be changed in place while indexed. This class is not thread
+ * safe.
+ *
+ * @param <K> the type of the keys
+ */
+public final class SqlNodeIndex<K> {
+
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+
+    private final Map<Integer, List<Entry<K>>> entriesByHash = new HashMap<>();
+
+    /**
+     * Indexes a definition.
+     *
+     * @return the definition previously indexed by the key, null if there was none
+     */
+    public @Nullable SqlNode put(K key, SqlNode definition) {
+        final Entry<K> entry =
+                new Entry<>(requireNonNull(key), definition, SqlNodeHashes.hash(definition));
+        final Entry<K> previous = entries.put(key, entry);
+        if (previous != null) {
+            unlink(previous);
+        }
+        entriesByHash.computeIfAbsent(entry.hash, hash -> new ArrayList<>(1)).add(entry);
+        return previous == null ? null : previous.definition;
+    }
+
+    /**
+     * Removes the definition of a key.
+     *
+     * @return the removed definition, null if there was none
+     */
+    public @Nullable SqlNode remove(K key) {
+        final Entry<K> previous = entries.remove(key);
+        if (previous == null) {
+            return null;
+        }
+        unlink(previous);
+        return previous.definition;
+    }
+
+    /** Returns the definition indexed by a key, null if there is none. */
+    public @Nullable SqlNode get(K key) {
+        final Entry<K> entry = entries.get(key);
+        return entry == null ? null : entry.definition;
+    }
+
+    /** Returns whether the definition of a key is deeply equal to the given definition. */
+    public boolean isUnchanged(K key, SqlNode definition) {
+        final Entry<K> entry = entries.get(key);
+        return entry != null
+                && entry.hash == SqlNodeHashes.hash(definition)
+                && entry.definition.equalsDeep(definition, Litmus.IGNORE);
+    }
+
+    /** Returns the keys whose definitions are deeply equal to the given definition. */
+    public List<K> findIdentical(SqlNode definition) {
+        final List<Entry<K>> candidates = entriesByHash.get(SqlNodeHashes.hash(definition));
+        if (candidates == null) {
+            return Collections.emptyList();
+        }
+        final List<K> keys = new ArrayList<>(1);
+        for (Entry<K> candidate : candidates) {
+            if (candidate.definition.equalsDeep(definition, Litmus.IGNORE)) {
+                keys.add(candidate.key);
+            }
+        }
+        return keys;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private void unlink(Entry<K> entry) {
+        final List<Entry<K>> sameHash = entriesByHash.get(entry.hash);
+        sameHash.remove(entry);
+        if (sameHash.isEmpty()) {
+            entriesByHash.remove(entry.hash);
+        }
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    private static final class Entry<K> {
+        private final K key;
+        private final SqlNode definition;
+        private final int hash;
+
+        private Entry(K key, SqlNode definition, int hash) {
+            this.key = key;
+            this.definition = requireNonNull(definition);
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package extended;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A table or a column of a table that a statement accesses, e.g. {@code READ db.orders.amount}
+ * for a query that reads the column {@code amount} of the table {@code db.orders}.
+ *
+ * <p>The table name has the parts written in the statement, one to three of catalog, database
+ * and table. {@link #qualify} fills in the missing parts with the defaults of a session.
+ *
+ * <p>References are interned: equal references are the same instance, so sets of references of
+ * many statements share their elements, and references compare by identity first.
+ */
+public final class SqlReference implements Comparable<SqlReference> {
+
+    /** How a statement accesses a table or column. */
+    public enum Access {
+        /** Read by a query, e.g. in the {@code FROM} clause or the expressions of a query. */
+        READ,
+        /** Written by {@code INSERT}, {@code UPDATE}, {@code DELETE} or {@code MERGE}. */
+        WRITE,
+        /** Created by {@code CREATE TABLE}. */
+        CREATE,
+        /** Dropped by {@code DROP TABLE}. */
+        DROP,
+        /** Changed by {@code ALTER TABLE}. */
+        ALTER
+    }
+
+    private static final Interner<SqlReference> INTERNER = Interners.newWeakInterner();
+
+    private final Access access;
+    private final ImmutableList<String> table;
+    private final @Nullable String column;
+    private final int hash;
+
+    private SqlReference(Access access, ImmutableList<String> table, @Nullable String column) {
+        this.access = access;
+        this.table = table;
+        this.column = column;
+        this.hash = Objects.hash(access, table, column);
+    }
+
+    /** Returns the interned reference to a table. */
+    public static SqlReference table(Access access, List<String> table) {
+        return of(access, table, null);
+    }
+
+    /** Returns the interned reference to a column of a table. */
+    public static SqlReference column(Access access, List<String> table, String column) {
+        return of(access, table, requireNonNull(column));
+    }
+
+    private static SqlReference of(Access access, List<String> table, @Nullable String column) {
+        if (table.isEmpty()) {
+            throw new IllegalArgumentException("Table name must not be empty");
+        }
+        return INTERNER.intern(
+                new SqlReference(requireNonNull(access), ImmutableList.copyOf(table), column));
+    }
+
+    public Access getAccess() {
+        return access;
+    }
+
+    /** Returns the parts of the table name as written, the table itself last. */
+    public List<String> getTable() {
+        return table;
+    }
+
+    /** Returns the catalog, or null if the table name does not have one. */
+    public @Nullable String getCatalog() {
+        return table.size() >= 3 ? table.get(table.size() - 3) : null;
+    }
+
+    /** Returns the database, or null if the table name does not have one. */
+    public @Nullable String getDatabase() {
+        return table.size() >= 2 ? table.get(table.size() - 2) : null;
+    }
+
+    public String getTableName() {
+        return table.get(table.size() - 1);
+    }
+
+    /** Returns the column, {@code *} for all columns, or null if this references a table. */
+    public @Nullable String getColumn() {
+        return column;
+    }
+
+    public boolean isColumn() {
+        return column != null;
+    }
+
+    /**
+     * Returns this reference with a table name of catalog, database and table, filling in the
+     * missing parts with the given defaults.
+     */
+    public SqlReference qualify(String defaultCatalog, String defaultDatabase) {
+        switch (table.size()) {
+            case 1:
+                return of(
+                        access,
+                        ImmutableList.of(defaultCatalog, defaultDatabase, table.get(0)),
+                        column);
+            case 2:
+                return of(
+                        access,
+                        ImmutableList.of(defaultCatalog, table.get(0), table.get(1)),
+                        column);
+            default:
+                return this;
+        }
+    }
+
+    /** Orders by access, table and column, table references before their columns. */
+    @Override
+    public int compareTo(SqlReference that) {
+        if (this == that) {
+            return 0;
+        }
+        int c = access.compareTo(that.access);
+        for (int i = 0; c == 0 && i < Math.min(table.size(), that.table.size()); i++) {
+            c = table.get(i).compareTo(that.table.get(i));
+        }
+        if (c == 0) {
+            c = Integer.compare(table.size(), that.table.size());
+        }
+        if (c == 0 && !Objects.equals(column, that.column)) {
+            c = column == null ? -1 : that.column == null ? 1 : column.compareTo(that.column);
+        }
+        return c;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SqlReference)) {
+            return false;
+        }
+        final SqlReference that = (SqlReference) o;
+        return hash == that.hash
+                && access == that.access
+                && table.equals(that.table)
+                && Objects.equals(column, that.column);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        final String name = String.join(".", table);
+        return access + " " + (column == null ? name : name + "." + column);
+    }
+}
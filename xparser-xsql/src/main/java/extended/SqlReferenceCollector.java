@@ -0,0 +1,472 @@
+package extended;
+
+import ddl.XSqlCreateTable;
+import ddl.XSqlDropTable;
+import ddl.XSqlTableColumn;
+import dml.XSqlRichInsert;
+import extended.SqlReference.Access;
+import org.apache.calcite.sql.SqlAlter;
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlCreate;
+import org.apache.calcite.sql.SqlDelete;
+import org.apache.calcite.sql.SqlDrop;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlInsert;
+import org.apache.calcite.sql.SqlJoin;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlMerge;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.sql.SqlOrderBy;
+import org.apache.calcite.sql.SqlSelect;
+import org.apache.calcite.sql.SqlSetOption;
+import org.apache.calcite.sql.SqlUpdate;
+import org.apache.calcite.sql.SqlWindow;
+import org.apache.calcite.sql.SqlWith;
+import org.apache.calcite.sql.SqlWithItem;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the {@link SqlReferences} of a statement in one pass over its tree.
+ *
+ * <p>Queries are visited with a {@link Scope} of the tables of their {@code FROM} clause by alias,
+ * which is registered before the expressions of the query are visited, so every identifier is
+ * resolved when it is reached and no node is visited twice.
+ */
+final class SqlReferenceCollector {
+
+    private final Set<SqlReference> references = new HashSet<>();
+
+    private SqlReferenceCollector() {}
+
+    static Set<SqlReference> collect(SqlNode statement) {
+        final SqlReferenceCollector collector = new SqlReferenceCollector();
+        collector.statement(statement);
+        return collector.references;
+    }
+
+    private void statement(SqlNode node) {
+        if (node instanceof XSqlCreateTable) {
+            final XSqlCreateTable create = (XSqlCreateTable) node;
+            final List<String> table = create.getTableName().names;
+            references.add(SqlReference.table(Access.CREATE, table));
+            for (SqlNode column : create.getColumnList()) {
+                references.add(
+                        SqlReference.column(
+                                Access.CREATE,
+                                table,
+                                ((XSqlTableColumn) column).getName().getSimple()));
+            }
+        } else if (node instanceof XSqlDropTable) {
+            references.add(
+                    SqlReference.table(Access.DROP, ((XSqlDropTable) node).getTableName().names));
+        } else if (node instanceof SqlInsert) {
+            insert((SqlInsert) node);
+        } else if (node instanceof SqlUpdate) {
+            final SqlUpdate update = (SqlUpdate) node;
+            final Scope scope = target(update.getTargetTable(), update.getAlias());
+            columns(Access.WRITE, scope.first(), update.getTargetColumnList());
+            expression(update.getSourceExpressionList(), scope);
+            expression(update.getCondition(), scope);
+        } else if (node instanceof SqlDelete) {
+            final SqlDelete delete = (SqlDelete) node;
+            expression(delete.getCondition(), target(delete.getTargetTable(), delete.getAlias()));
+        } else if (node instanceof SqlMerge) {
+            final SqlMerge merge = (SqlMerge) node;
+            final Scope scope = target(merge.getTargetTable(), merge.getAlias());
+            from(merge.getSourceTableRef(), scope);
+            expression(merge.getCondition(), scope);
+            if (merge.getUpdateCall() != null) {
+                columns(
+                        Access.WRITE,
+                        scope.first(),
+                        merge.getUpdateCall().getTargetColumnList());
+                expression(merge.getUpdateCall().getSourceExpressionList(), scope);
+            }
+            if (merge.getInsertCall() != null) {
+                columns(
+                        Access.WRITE,
+                        scope.first(),
+                        merge.getInsertCall().getTargetColumnList());
+                expression(merge.getInsertCall().getSource(), scope);
+            }
+        } else if (node instanceof SqlDrop
+                || (node instanceof SqlAlter && !(node instanceof SqlSetOption))
+                || node instanceof SqlCreate) {
+            ddl((SqlCall) node);
+        } else if (node.getKind() == SqlKind.EXPLAIN) {
+            statement(((SqlCall) node).operand(0));
+        } else if (node.isA(SqlKind.QUERY)) {
+            query(node, null);
+        }
+    }
+
+    private void insert(SqlInsert insert) {
+        final List<String> table = tableName(insert.getTargetTable());
+        if (table == null) {
+            return;
+        }
+        references.add(SqlReference.table(Access.WRITE, table));
+        if (insert.getTargetColumnList() == null) {
+            references.add(SqlReference.column(Access.WRITE, table, "*"));
+        } else {
+            columns(Access.WRITE, table, insert.getTargetColumnList());
+        }
+        if (insert instanceof XSqlRichInsert) {
+            for (String key : ((XSqlRichInsert) insert).getPartitionSpec().getKeys()) {
+                references.add(SqlReference.column(Access.WRITE, table, key));
+            }
+        }
+        query(insert.getSource(), null);
+    }
+
+    /**
+     * Other DDL statements access the table of their first identifier and read the tables of
+     * their queries, e.g. {@code CREATE VIEW ... AS SELECT ...}.
+     */
+    private void ddl(SqlCall ddl) {
+        final Access access =
+                ddl instanceof SqlDrop
+                        ? Access.DROP
+                        : ddl instanceof SqlAlter ? Access.ALTER : Access.CREATE;
+        boolean named = false;
+        for (SqlNode operand : ddl.getOperandList()) {
+            if (!named && operand instanceof SqlIdentifier) {
+                references.add(SqlReference.table(access, ((SqlIdentifier) operand).names));
+                named = true;
+            } else if (operand != null && operand.isA(SqlKind.QUERY)) {
+                query(operand, null);
+            }
+        }
+    }
+
+    /** Registers the table written by {@code UPDATE}, {@code DELETE} or {@code MERGE}. */
+    private Scope target(SqlNode targetTable, @Nullable SqlIdentifier alias) {
+        final Scope scope = new Scope(null);
+        final List<String> table = tableName(targetTable);
+        if (table != null) {
+            references.add(SqlReference.table(Access.WRITE, table));
+            scope.add(alias == null ? last(table) : alias.getSimple(), table);
+        }
+        return scope;
+    }
+
+    /** Visits a query, its expressions can reference the tables of enclosing queries. */
+    private void query(@Nullable SqlNode node, @Nullable Scope parent) {
+        if (node == null) {
+            return;
+        }
+        switch (node.getKind()) {
+            case SELECT:
+                select((SqlSelect) node, parent);
+                break;
+            case ORDER_BY:
+                final SqlOrderBy orderBy = (SqlOrderBy) node;
+                if (orderBy.query instanceof SqlSelect) {
+                    // The ORDER BY of a single query sees its tables and select aliases.
+                    final Scope scope = select((SqlSelect) orderBy.query, parent);
+                    aliased(orderBy.orderList, scope);
+                } else {
+                    query(orderBy.query, parent);
+                }
+                break;
+            case WITH:
+                final SqlWith with = (SqlWith) node;
+                final Scope scope = new Scope(parent);
+                for (SqlNode item : with.withList) {
+                    // A WITH query sees the ones before it.
+                    query(((SqlWithItem) item).query, scope);
+                    scope.ctes.add(((SqlWithItem) item).name.getSimple());
+                }
+                query(with.body, scope);
+                break;
+            case VALUES:
+                expression(node, parent);
+                break;
+            default:
+                if (node instanceof SqlCall) {
+                    // Set operations and table expressions.
+                    for (SqlNode operand : ((SqlCall) node).getOperandList()) {
+                        query(operand, parent);
+                    }
+                }
+                break;
+        }
+    }
+
+    private Scope select(SqlSelect select, @Nullable Scope parent) {
+        final Scope scope = new Scope(parent);
+        from(select.getFrom(), scope);
+        expression(select.getSelectList(), scope);
+        expression(select.getWhere(), scope);
+        // A column of the select list is named after itself, and already read by the item.
+        for (SqlNode item : select.getSelectList()) {
+            if (item.getKind() == SqlKind.AS) {
+                scope.selectAliases.add(((SqlCall) item).<SqlIdentifier>operand(1).getSimple());
+            } else if (item instanceof SqlIdentifier && !((SqlIdentifier) item).isStar()) {
+                scope.selectAliases.add(last(((SqlIdentifier) item).names));
+            }
+        }
+        aliased(select.getGroup(), scope);
+        aliased(select.getHaving(), scope);
+        aliased(select.getWindowList(), scope);
+        aliased(select.getOrderList(), scope);
+        return scope;
+    }
+
+    /** Registers the tables of a {@code FROM} clause and reads their join conditions. */
+    private void from(@Nullable SqlNode from, Scope scope) {
+        if (from == null) {
+            return;
+        }
+        switch (from.getKind()) {
+            case IDENTIFIER:
+                table((SqlIdentifier) from, null, scope);
+                break;
+            case AS:
+                final SqlCall as = (SqlCall) from;
+                final SqlNode operand = as.operand(0);
+                final String alias = as.<SqlIdentifier>operand(1).getSimple();
+                final List<String> table = tableName(operand);
+                if (table != null) {
+                    table(table, alias, scope);
+                    if (operand.getKind() == SqlKind.SNAPSHOT) {
+                        expression(((SqlCall) operand).operand(1), scope);
+                    }
+                } else {
+                    subquery(operand, scope);
+                    scope.add(alias, null);
+                }
+                break;
+            case JOIN:
+                final SqlJoin join = (SqlJoin) from;
+                from(join.getLeft(), scope);
+                from(join.getRight(), scope);
+                // ON, or the columns of both sides named by USING.
+                expression(join.getCondition(), scope);
+                break;
+            case TABLE_REF:
+            case SNAPSHOT:
+                final List<String> name = tableName(from);
+                if (name != null) {
+                    table(name, null, scope);
+                }
+                if (from.getKind() == SqlKind.SNAPSHOT) {
+                    expression(((SqlCall) from).operand(1), scope);
+                }
+                break;
+            default:
+                subquery(from, scope);
+                scope.add(null, null);
+                break;
+        }
+    }
+
+    /** Visits a subquery or table function of a {@code FROM} clause. */
+    private void subquery(SqlNode node, Scope scope) {
+        // Only LATERAL sees the tables before it.
+        final Scope parent = node.getKind() == SqlKind.LATERAL ? scope : scope.parent;
+        if (node.isA(SqlKind.QUERY)) {
+            query(node, parent);
+        } else if (node instanceof SqlCall) {
+            for (SqlNode operand : ((SqlCall) node).getOperandList()) {
+                if (operand != null && operand.isA(SqlKind.QUERY)) {
+                    query(operand, parent);
+                } else {
+                    expression(operand, parent);
+                }
+            }
+        }
+    }
+
+    private void table(SqlIdentifier identifier, @Nullable String alias, Scope scope) {
+        table(identifier.names, alias, scope);
+    }
+
+    private void table(List<String> table, @Nullable String alias, Scope scope) {
+        if (table.size() == 1 && scope.isCte(table.get(0))) {
+            scope.add(alias == null ? table.get(0) : alias, null);
+            return;
+        }
+        references.add(SqlReference.table(Access.READ, table));
+        scope.add(alias == null ? last(table) : alias, table);
+    }
+
+    /** Visits expressions that can reference the aliases of the select list. */
+    private void aliased(@Nullable SqlNode node, Scope scope) {
+        scope.aliasesVisible = true;
+        expression(node, scope);
+        scope.aliasesVisible = false;
+    }
+
+    private void expression(@Nullable SqlNode node, @Nullable Scope scope) {
+        if (node == null) {
+            return;
+        }
+        if (node instanceof SqlIdentifier) {
+            column((SqlIdentifier) node, scope);
+        } else if (node instanceof SqlNodeList) {
+            for (SqlNode item : (SqlNodeList) node) {
+                expression(item, scope);
+            }
+        } else if (node instanceof SqlWindow) {
+            // Not the names of the window and the window it refines.
+            expression(((SqlWindow) node).getPartitionList(), scope);
+            expression(((SqlWindow) node).getOrderList(), scope);
+        } else if (node.isA(SqlKind.QUERY)) {
+            query(node, scope);
+        } else if (node instanceof SqlCall) {
+            final SqlCall call = (SqlCall) node;
+            switch (call.getKind()) {
+                case AS:
+                    expression(call.operand(0), scope);
+                    break;
+                case OVER:
+                    expression(call.operand(0), scope);
+                    if (call.operand(1) instanceof SqlWindow) {
+                        expression(call.operand(1), scope);
+                    }
+                    break;
+                default:
+                    for (SqlNode operand : call.getOperandList()) {
+                        // Not the * of COUNT(*), which reads no column.
+                        if (!(operand instanceof SqlIdentifier)
+                                || !((SqlIdentifier) operand).isStar()) {
+                            expression(operand, scope);
+                        }
+                    }
+                    break;
+            }
+        }
+    }
+
+    /** Resolves a column identifier to the tables of the scopes. */
+    private void column(SqlIdentifier identifier, @Nullable Scope scope) {
+        final List<String> names = identifier.names;
+        if (names.size() == 1) {
+            final String name = identifier.isStar() ? "*" : names.get(0);
+            for (Scope s = scope; s != null; s = s.parent) {
+                if (s.aliasesVisible && s.selectAliases.contains(name)) {
+                    return;
+                }
+                if (!s.tables.isEmpty()) {
+                    for (List<String> table : s.tables) {
+                        if (table != null) {
+                            references.add(SqlReference.column(Access.READ, table, name));
+                        }
+                    }
+                    return;
+                }
+            }
+            return;
+        }
+        final String column = identifier.isStar() ? "*" : names.get(names.size() - 1);
+        for (Scope s = scope; s != null; s = s.parent) {
+            for (int i = 0; i < s.tables.size(); i++) {
+                final List<String> table = s.tables.get(i);
+                if (names.get(0).equals(s.aliases.get(i))) {
+                    // alias.column, or alias.column.field of a row column.
+                    if (table != null) {
+                        references.add(
+                                SqlReference.column(
+                                        Access.READ,
+                                        table,
+                                        identifier.isStar() ? "*" : names.get(1)));
+                    }
+                    return;
+                }
+                if (table != null && isPrefix(table, names)) {
+                    // database.table.column
+                    references.add(
+                            SqlReference.column(
+                                    Access.READ,
+                                    table,
+                                    identifier.isStar() ? "*" : names.get(table.size())));
+                    return;
+                }
+            }
+        }
+        // column.field of a row column of the only table, or a table outside of any scope.
+        if (scope != null && scope.tables.size() == 1 && scope.tables.get(0) != null) {
+            references.add(SqlReference.column(Access.READ, scope.first(), names.get(0)));
+        } else if (scope == null || scope.tables.isEmpty()) {
+            references.add(
+                    SqlReference.column(
+                            Access.READ, names.subList(0, names.size() - 1), column));
+        }
+    }
+
+    private void columns(Access access, @Nullable List<String> table, @Nullable SqlNodeList list) {
+        if (table == null || list == null) {
+            return;
+        }
+        for (SqlNode column : list) {
+            if (column instanceof SqlIdentifier) {
+                references.add(
+                        SqlReference.column(access, table, last(((SqlIdentifier) column).names)));
+            }
+        }
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    /** Returns the name of a table, possibly with hints or a period, or null. */
+    private static @Nullable List<String> tableName(@Nullable SqlNode node) {
+        if (node instanceof SqlIdentifier && !((SqlIdentifier) node).isStar()) {
+            return ((SqlIdentifier) node).names;
+        } else if (node != null
+                && (node.getKind() == SqlKind.TABLE_REF || node.getKind() == SqlKind.SNAPSHOT)) {
+            return tableName(((SqlCall) node).operand(0));
+        }
+        return null;
+    }
+
+    private static boolean isPrefix(List<String> table, List<String> names) {
+        return table.size() < names.size() && names.subList(0, table.size()).equals(table);
+    }
+
+    private static String last(List<String> names) {
+        return names.get(names.size() - 1);
+    }
+
+    // ~ Inner Classes ----------------------------------------------------------
+
+    /** The tables of a query by alias, null for subqueries and {@code WITH} queries. */
+    private static final class Scope {
+        final @Nullable Scope parent;
+        final List<String> aliases = new ArrayList<>(2);
+        final List<List<String>> tables = new ArrayList<>(2);
+        final Set<String> selectAliases = new HashSet<>();
+        final List<String> ctes = new ArrayList<>(0);
+        boolean aliasesVisible;
+
+        Scope(@Nullable Scope parent) {
+            this.parent = parent;
+        }
+
+        void add(@Nullable String alias, @Nullable List<String> table) {
+            aliases.add(alias);
+            tables.add(table);
+        }
+
+        /** Returns the first table, e.g. the target of {@code UPDATE}, or null. */
+        @Nullable
+        List<String> first() {
+            return tables.isEmpty() ? null : tables.get(0);
+        }
+
+        boolean isCte(String name) {
+            for (Scope s = this; s != null; s = s.parent) {
+                if (s.ctes.contains(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
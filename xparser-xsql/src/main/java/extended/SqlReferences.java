@@ -0,0 +1,141 @@
+package extended;
+
+import org.apache.calcite.sql.SqlNode;
+
+import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The tables and columns a statement accesses, for authorization checks before the statement is
+ * validated or planned.
+ *
+ * <p>The references are collected by one pass over the tree, see {@link #of(SqlNode)}:
+ *
+ * <ul>
+ *   <li>Tables of {@code FROM} clauses and their columns are {@link SqlReference.Access#READ
+ *       read}. Columns are resolved to their table through the aliases of the query. A column
+ *       without qualifier in a query of several tables references each of them, {@code *}
+ *       references all columns. Columns of subqueries, {@code WITH} queries and table functions
+ *       are not references, their own tables are.
+ *   <li>The target table of {@code INSERT} and its target columns, or {@code *} without a column
+ *       list, are {@link SqlReference.Access#WRITE written}, the tables of its source are read.
+ *       The same goes for {@code UPDATE}, {@code DELETE} and {@code MERGE}.
+ *   <li>The table of {@code CREATE TABLE} and its columns are {@link SqlReference.Access#CREATE
+ *       created}, the table of {@code DROP TABLE} is {@link SqlReference.Access#DROP dropped}.
+ *       Other {@code DROP} and {@code ALTER} statements reference their first identifier.
+ * </ul>
+ *
+ * <p>The set is immutable and compact: its interned references are kept in one sorted array,
+ * lookups are binary searches. Statements that implement {@link ReferencingSqlNode} keep their
+ * set, so it is collected once per parsed statement.
+ */
+public final class SqlReferences extends AbstractSet<SqlReference> {
+
+    public static final SqlReferences EMPTY = new SqlReferences(new SqlReference[0]);
+
+    /** Sorted, without duplicates. */
+    private final SqlReference[] references;
+
+    private SqlReferences(SqlReference[] references) {
+        this.references = references;
+    }
+
+    /**
+     * Returns the references of a statement, the ones it keeps if it is a {@link
+     * ReferencingSqlNode}.
+     */
+    public static SqlReferences of(@Nullable SqlNode statement) {
+        if (statement == null) {
+            return EMPTY;
+        } else if (statement instanceof ReferencingSqlNode) {
+            return ((ReferencingSqlNode) statement).getReferences();
+        }
+        return collect(statement);
+    }
+
+    /**
+     * Collects the references of a statement, for {@link ReferencingSqlNode#getReferences()}
+     * implementations. Use {@link #of(SqlNode)} otherwise.
+     */
+    public static SqlReferences collect(SqlNode statement) {
+        return copyOf(SqlReferenceCollector.collect(statement));
+    }
+
+    /** Returns a set of references. */
+    public static SqlReferences copyOf(Collection<SqlReference> references) {
+        if (references instanceof SqlReferences) {
+            return (SqlReferences) references;
+        }
+        final SqlReference[] array = references.toArray(new SqlReference[0]);
+        if (array.length == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(array);
+        int size = 1;
+        for (int i = 1; i < array.length; i++) {
+            if (array[i] != array[size - 1]) {
+                array[size++] = array[i];
+            }
+        }
+        return new SqlReferences(size == array.length ? array : Arrays.copyOf(array, size));
+    }
+
+    /**
+     * Returns the references with table names of catalog, database and table, see {@link
+     * SqlReference#qualify}.
+     */
+    public SqlReferences qualify(String defaultCatalog, String defaultDatabase) {
+        final SqlReference[] qualified = new SqlReference[references.length];
+        boolean changed = false;
+        for (int i = 0; i < references.length; i++) {
+            qualified[i] = references[i].qualify(defaultCatalog, defaultDatabase);
+            changed |= qualified[i] != references[i];
+        }
+        return changed ? copyOf(Arrays.asList(qualified)) : this;
+    }
+
+    /** Returns whether the statement accesses a table or any of its columns in a way. */
+    public boolean accesses(SqlReference.Access access, List<String> table) {
+        final int i = Arrays.binarySearch(references, SqlReference.table(access, table));
+        // The table reference comes first, followed by the references to its columns.
+        return i >= 0
+                || (-i - 1 < references.length
+                        && references[-i - 1].getAccess() == access
+                        && references[-i - 1].getTable().equals(table));
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof SqlReference && Arrays.binarySearch(references, o) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return references.length;
+    }
+
+    @Override
+    public Iterator<SqlReference> iterator() {
+        return new Iterator<SqlReference>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < references.length;
+            }
+
+            @Override
+            public SqlReference next() {
+                if (next == references.length) {
+                    throw new NoSuchElementException();
+                }
+                return references[next++];
+            }
+        };
+    }
+}
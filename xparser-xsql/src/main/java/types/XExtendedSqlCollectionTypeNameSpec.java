@@ -39,6 +39,8 @@ public class XExtendedSqlCollectionTypeNameSpec extends SqlCollectionTypeNameSpe
     private final SqlTypeName collectionTypeName;
     private final boolean unparseAsStandard;
 
+    private transient String digest;
+
     /**
      * Creates a {@code ExtendedSqlCollectionTypeNameSpec}.
      *
@@ -72,17 +74,40 @@ public class XExtendedSqlCollectionTypeNameSpec extends SqlCollectionTypeNameSpe
         return unparseAsStandard;
     }
 
+    /**
+     * Returns a specification like this one with the given element type, or this specification if
+     * the element type is the same instance.
+     */
+    public XExtendedSqlCollectionTypeNameSpec withElementTypeName(SqlTypeNameSpec elementTypeName) {
+        if (elementTypeName == getElementTypeName()) {
+            return this;
+        }
+        return new XExtendedSqlCollectionTypeNameSpec(
+                elementTypeName,
+                elementNullable,
+                collectionTypeName,
+                unparseAsStandard,
+                getParserPos());
+    }
+
     @Override
     public RelDataType deriveType(SqlValidator validator) {
-        RelDataType elementType = getElementTypeName().deriveType(validator);
-        elementType =
-                validator.getTypeFactory().createTypeWithNullability(elementType, elementNullable);
-        return createCollectionType(elementType, validator.getTypeFactory());
+        return XSqlTypeNameSpecs.deriveType(
+                this,
+                validator,
+                () -> {
+                    RelDataType elementType = getElementTypeName().deriveType(validator);
+                    elementType =
+                            validator
+                                    .getTypeFactory()
+                                    .createTypeWithNullability(elementType, elementNullable);
+                    return createCollectionType(elementType, validator.getTypeFactory());
+                });
     }
 
     @Override
     public void unparse(SqlWriter writer, int leftPrec, int rightPrec) {
-        if (unparseAsStandard) {
+        if (XSqlCollectionStyle.unparseAsStandard(writer, unparseAsStandard)) {
             this.getElementTypeName().unparse(writer, leftPrec, rightPrec);
             // Default is nullable.
             if (!elementNullable) {
@@ -104,18 +129,31 @@ public class XExtendedSqlCollectionTypeNameSpec extends SqlCollectionTypeNameSpe
 
     @Override
     public boolean equalsDeep(SqlTypeNameSpec spec, Litmus litmus) {
-        if (!(spec instanceof XExtendedSqlCollectionTypeNameSpec)) {
-            return litmus.fail("{} != {}", this, spec);
+        // Interned specifications are the same instance, the others compare by cached digest.
+        if (spec == this) {
+            return litmus.succeed();
         }
-        XExtendedSqlCollectionTypeNameSpec that = (XExtendedSqlCollectionTypeNameSpec) spec;
-        if (this.elementNullable != that.elementNullable) {
+        if (!(spec instanceof XExtendedSqlCollectionTypeNameSpec)
+                || !digest().equals(((XExtendedSqlCollectionTypeNameSpec) spec).digest())) {
             return litmus.fail("{} != {}", this, spec);
         }
-        return super.equalsDeep(spec, litmus);
+        return litmus.succeed();
     }
 
     // ~ Tools ------------------------------------------------------------------
 
+    /**
+     * Returns the structural digest of this specification, see {@link XSqlTypeNameSpecs}. Computed
+     * once, a racing computation produces an equal string.
+     */
+    String digest() {
+        String digest = this.digest;
+        if (digest == null) {
+            this.digest = digest = XSqlTypeNameSpecs.collectionDigest(this);
+        }
+        return digest;
+    }
+
     /**
      * Create collection data type.
      *
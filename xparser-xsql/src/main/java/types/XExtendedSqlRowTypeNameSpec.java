@@ -49,6 +49,8 @@ public class XExtendedSqlRowTypeNameSpec extends SqlTypeNameSpec {
 
     private final boolean unparseAsStandard;
 
+    private transient String digest;
+
     /**
      * Creates a ROW type specification.
      *
@@ -87,18 +89,36 @@ public class XExtendedSqlRowTypeNameSpec extends SqlTypeNameSpec {
         return unparseAsStandard;
     }
 
+    /**
+     * Returns a specification like this one with the given fields, or this specification if all of
+     * them are the same instances. The lists are not copied.
+     */
+    public XExtendedSqlRowTypeNameSpec withFields(
+            List<SqlIdentifier> fieldNames,
+            List<SqlDataTypeSpec> fieldTypes,
+            List<SqlCharStringLiteral> comments) {
+        if (sameElements(fieldNames, this.fieldNames)
+                && sameElements(fieldTypes, this.fieldTypes)
+                && sameElements(comments, this.comments)) {
+            return this;
+        }
+        return new XExtendedSqlRowTypeNameSpec(
+                getParserPos(), fieldNames, fieldTypes, comments, unparseAsStandard);
+    }
+
     @Override
     public void unparse(SqlWriter writer, int leftPrec, int rightPrec) {
         writer.print("ROW");
+        final boolean standard = XSqlCollectionStyle.unparseAsStandard(writer, unparseAsStandard);
         if (getFieldNames().size() == 0) {
-            if (unparseAsStandard) {
+            if (standard) {
                 writer.print("()");
             } else {
                 writer.print("<>");
             }
         } else {
             SqlWriter.Frame frame;
-            if (unparseAsStandard) {
+            if (standard) {
                 frame = writer.startList(SqlWriter.FrameTypeEnum.FUN_CALL, "(", ")");
             } else {
                 frame = writer.startList(SqlWriter.FrameTypeEnum.FUN_CALL, "<", ">");
@@ -123,36 +143,58 @@ public class XExtendedSqlRowTypeNameSpec extends SqlTypeNameSpec {
 
     @Override
     public boolean equalsDeep(SqlTypeNameSpec node, Litmus litmus) {
-        if (!(node instanceof SqlRowTypeNameSpec)) {
-            return litmus.fail("{} != {}", this, node);
-        }
-        XExtendedSqlRowTypeNameSpec that = (XExtendedSqlRowTypeNameSpec) node;
-        if (this.fieldNames.size() != that.fieldNames.size()) {
-            return litmus.fail("{} != {}", this, node);
-        }
-        for (int i = 0; i < fieldNames.size(); i++) {
-            if (!this.fieldNames.get(i).equalsDeep(that.fieldNames.get(i), litmus)) {
-                return litmus.fail("{} != {}", this, node);
-            }
+        // Interned specifications are the same instance, the others compare by cached digest,
+        // which covers field names, field types with their nullability and comments.
+        if (node == this) {
+            return litmus.succeed();
         }
-        if (this.fieldTypes.size() != that.fieldTypes.size()) {
+        if (!(node instanceof XExtendedSqlRowTypeNameSpec)
+                || !digest().equals(((XExtendedSqlRowTypeNameSpec) node).digest())) {
             return litmus.fail("{} != {}", this, node);
         }
-        for (int i = 0; i < fieldTypes.size(); i++) {
-            if (!this.fieldTypes.get(i).equals(that.fieldTypes.get(i))) {
-                return litmus.fail("{} != {}", this, node);
-            }
-        }
         return litmus.succeed();
     }
 
     @Override
     public RelDataType deriveType(SqlValidator sqlValidator) {
-        final RelDataTypeFactory typeFactory = sqlValidator.getTypeFactory();
-        return typeFactory.createStructType(
-                fieldTypes.stream()
-                        .map(dt -> dt.deriveType(sqlValidator))
-                        .collect(Collectors.toList()),
-                fieldNames.stream().map(SqlIdentifier::toString).collect(Collectors.toList()));
+        return XSqlTypeNameSpecs.deriveType(
+                this,
+                sqlValidator,
+                () -> {
+                    final RelDataTypeFactory typeFactory = sqlValidator.getTypeFactory();
+                    return typeFactory.createStructType(
+                            fieldTypes.stream()
+                                    .map(dt -> dt.deriveType(sqlValidator))
+                                    .collect(Collectors.toList()),
+                            fieldNames.stream()
+                                    .map(SqlIdentifier::toString)
+                                    .collect(Collectors.toList()));
+                });
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private static boolean sameElements(List<?> list, List<?> other) {
+        if (list.size() != other.size()) {
+            return false;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) != other.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the structural digest of this specification, see {@link XSqlTypeNameSpecs}. Computed
+     * once, a racing computation produces an equal string.
+     */
+    String digest() {
+        String digest = this.digest;
+        if (digest == null) {
+            this.digest = digest = XSqlTypeNameSpecs.rowDigest(this);
+        }
+        return digest;
     }
 }
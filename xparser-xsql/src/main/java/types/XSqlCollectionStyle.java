@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package types;
+
+import org.apache.calcite.sql.SqlWriter;
+
+/**
+ * How collection and row types are unparsed, e.g. {@code INT ARRAY} and {@code ROW(a INT)} in
+ * standard SQL style or {@code ARRAY<INT>} and {@code ROW<a INT>} in angle bracket style.
+ *
+ * <p>By default a type is unparsed in the style it was parsed in, see {@link
+ * XExtendedSqlCollectionTypeNameSpec#unparseAsStandard()}. A {@link SqlWriter} that implements
+ * {@link Styled} overrides that for all types it writes.
+ */
+public enum XSqlCollectionStyle {
+    /** The style the type was parsed in. */
+    AS_PARSED,
+    /** Standard SQL style, {@code INT ARRAY} and {@code ROW(a INT)}. */
+    STANDARD,
+    /** Angle bracket style, {@code ARRAY<INT>} and {@code ROW<a INT>}. */
+    ANGLE_BRACKETS;
+
+    /**
+     * Returns whether a type is unparsed in standard SQL style by a writer.
+     *
+     * @param writer the writer the type is unparsed to
+     * @param parsedAsStandard whether the type was parsed in standard SQL style
+     */
+    public static boolean unparseAsStandard(SqlWriter writer, boolean parsedAsStandard) {
+        if (!(writer instanceof Styled)) {
+            return parsedAsStandard;
+        }
+        switch (((Styled) writer).getCollectionStyle()) {
+            case STANDARD:
+                return true;
+            case ANGLE_BRACKETS:
+                return false;
+            default:
+                return parsedAsStandard;
+        }
+    }
+
+    /** A {@link SqlWriter} that unparses all collection and row types in one style. */
+    public interface Styled {
+        XSqlCollectionStyle getCollectionStyle();
+    }
+}
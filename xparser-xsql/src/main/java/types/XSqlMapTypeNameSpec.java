@@ -39,6 +39,8 @@ public class XSqlMapTypeNameSpec extends SqlTypeNameSpec {
     private final SqlDataTypeSpec keyType;
     private final SqlDataTypeSpec valType;
 
+    private transient String digest;
+
     /**
      * Creates a {@code SqlMapTypeNameSpec}.
      *
@@ -60,11 +62,28 @@ public class XSqlMapTypeNameSpec extends SqlTypeNameSpec {
         return valType;
     }
 
+    /**
+     * Returns a specification like this one with the given key and value types, or this
+     * specification if both are the same instances.
+     */
+    public XSqlMapTypeNameSpec withTypes(SqlDataTypeSpec keyType, SqlDataTypeSpec valType) {
+        if (keyType == this.keyType && valType == this.valType) {
+            return this;
+        }
+        return new XSqlMapTypeNameSpec(keyType, valType, getParserPos());
+    }
+
     @Override
     public RelDataType deriveType(SqlValidator validator) {
-        return validator
-                .getTypeFactory()
-                .createMapType(keyType.deriveType(validator), valType.deriveType(validator));
+        return XSqlTypeNameSpecs.deriveType(
+                this,
+                validator,
+                () ->
+                        validator
+                                .getTypeFactory()
+                                .createMapType(
+                                        keyType.deriveType(validator),
+                                        valType.deriveType(validator)));
     }
 
     @Override
@@ -88,16 +107,29 @@ public class XSqlMapTypeNameSpec extends SqlTypeNameSpec {
 
     @Override
     public boolean equalsDeep(SqlTypeNameSpec spec, Litmus litmus) {
-        if (!(spec instanceof XSqlMapTypeNameSpec)) {
-            return litmus.fail("{} != {}", this, spec);
+        // Interned specifications are the same instance, the others compare by cached digest,
+        // which unlike SqlDataTypeSpec#equalsDeep covers the nullability of key and value.
+        if (spec == this) {
+            return litmus.succeed();
         }
-        XSqlMapTypeNameSpec that = (XSqlMapTypeNameSpec) spec;
-        if (!this.keyType.equalsDeep(that.keyType, litmus)) {
-            return litmus.fail("{} != {}", this, spec);
-        }
-        if (!this.valType.equalsDeep(that.valType, litmus)) {
+        if (!(spec instanceof XSqlMapTypeNameSpec)
+                || !digest().equals(((XSqlMapTypeNameSpec) spec).digest())) {
             return litmus.fail("{} != {}", this, spec);
         }
         return litmus.succeed();
     }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    /**
+     * Returns the structural digest of this specification, see {@link XSqlTypeNameSpecs}. Computed
+     * once, a racing computation produces an equal string.
+     */
+    String digest() {
+        String digest = this.digest;
+        if (digest == null) {
+            this.digest = digest = XSqlTypeNameSpecs.mapDigest(this);
+        }
+        return digest;
+    }
 }
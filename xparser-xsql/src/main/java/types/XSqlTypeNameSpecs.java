@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package types;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.sql.SqlBasicTypeNameSpec;
+import org.apache.calcite.sql.SqlCharStringLiteral;
+import org.apache.calcite.sql.SqlCollectionTypeNameSpec;
+import org.apache.calcite.sql.SqlDataTypeSpec;
+import org.apache.calcite.sql.SqlRowTypeNameSpec;
+import org.apache.calcite.sql.SqlTypeNameSpec;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.sql.validate.SqlValidator;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Hash-consing of the nested type name specifications ({@code ROW}, {@code MAP}, {@code ARRAY}
+ * and {@code MULTISET}) and a cache of the types derived from them.
+ *
+ * <p>Wide schemas repeat the same nested types over and over, e.g. one {@code ARRAY<ROW<...>>}
+ * per column of a generated table. Both the interned specifications and the cached types are keyed
+ * by a structural digest, which covers everything that is observable on a specification: field
+ * names and comments, element nullability and whether the type unparses in standard SQL style.
+ * Two specifications with the same digest therefore unparse and derive identically.
+ *
+ * <p>An interned specification keeps the parser position of its first occurrence. The {@link
+ * SqlDataTypeSpec} wrapping it keeps its own position, so errors reported on a column still point
+ * to the right place.
+ */
+public final class XSqlTypeNameSpecs {
+
+    /** Maximum number of derived types cached per type factory. */
+    private static final int MAX_DERIVED_TYPES = 4096;
+
+    /** Canonical specifications by digest, dropped once no parsed tree references them. */
+    private static final ConcurrentMap<String, SqlTypeNameSpec> CANONICAL_SPECS =
+            CacheBuilder.newBuilder().weakValues().<String, SqlTypeNameSpec>build().asMap();
+
+    /** Derived types by digest, per type factory as types of different factories do not mix. */
+    private static final Cache<RelDataTypeFactory, Cache<String, RelDataType>> DERIVED_TYPES =
+            CacheBuilder.newBuilder().weakKeys().build();
+
+    private XSqlTypeNameSpecs() {}
+
+    /**
+     * Returns the canonical instance of a nested type name specification, or the given
+     * specification itself if it is the first of its structure or not a nested type.
+     */
+    public static SqlTypeNameSpec intern(SqlTypeNameSpec spec) {
+        if (!isNested(spec)) {
+            return spec;
+        }
+        final SqlTypeNameSpec canonical = CANONICAL_SPECS.putIfAbsent(digest(spec), spec);
+        return canonical != null ? canonical : spec;
+    }
+
+    /**
+     * Derives the type of a nested type name specification, returning the cached type if a
+     * structurally equal specification was derived by the same type factory before.
+     *
+     * <p>Nested specifications derive their children through this method as well, so a miss on
+     * the outer type still reuses the cached element and field types.
+     *
+     * @param spec the specification to derive the type of
+     * @param validator the validator providing the type factory
+     * @param derivation derives the type if it is not cached
+     */
+    static RelDataType deriveType(
+            SqlTypeNameSpec spec, SqlValidator validator, Supplier<RelDataType> derivation) {
+        final Cache<String, RelDataType> derivedTypes = derivedTypes(validator.getTypeFactory());
+        final String digest = digest(spec);
+        RelDataType type = derivedTypes.getIfPresent(digest);
+        if (type == null) {
+            // Not Cache#get(key, loader), the derivation recursively derives the children.
+            type = derivation.get();
+            derivedTypes.put(digest, type);
+        }
+        return type;
+    }
+
+    /**
+     * Returns the structural digest of a type name specification. The digest of the nested types
+     * is computed once per instance and kept on the instance.
+     */
+    public static String digest(SqlTypeNameSpec spec) {
+        if (spec instanceof XExtendedSqlCollectionTypeNameSpec) {
+            return ((XExtendedSqlCollectionTypeNameSpec) spec).digest();
+        } else if (spec instanceof XSqlMapTypeNameSpec) {
+            return ((XSqlMapTypeNameSpec) spec).digest();
+        } else if (spec instanceof XExtendedSqlRowTypeNameSpec) {
+            return ((XExtendedSqlRowTypeNameSpec) spec).digest();
+        }
+        final StringBuilder sb = new StringBuilder();
+        appendDigest(sb, spec);
+        return sb.toString();
+    }
+
+    /**
+     * Returns the structural digest of a data type, which unlike {@link SqlDataTypeSpec#equalsDeep}
+     * covers its nullability.
+     */
+    public static String digest(SqlDataTypeSpec dataType) {
+        final StringBuilder sb = new StringBuilder();
+        appendDigest(sb, dataType);
+        return sb.toString();
+    }
+
+    // ~ Tools ------------------------------------------------------------------
+
+    private static boolean isNested(SqlTypeNameSpec spec) {
+        return spec instanceof XExtendedSqlCollectionTypeNameSpec
+                || spec instanceof XSqlMapTypeNameSpec
+                || spec instanceof XExtendedSqlRowTypeNameSpec;
+    }
+
+    private static Cache<String, RelDataType> derivedTypes(RelDataTypeFactory typeFactory) {
+        try {
+            return DERIVED_TYPES.get(
+                    typeFactory,
+                    () -> CacheBuilder.newBuilder().maximumSize(MAX_DERIVED_TYPES).build());
+        } catch (ExecutionException e) {
+            throw new AssertionError("Creating an empty cache cannot fail", e);
+        }
+    }
+
+    static String collectionDigest(XExtendedSqlCollectionTypeNameSpec spec) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(spec.getCollectionTypeName()).append(spec.unparseAsStandard() ? '(' : '<');
+        sb.append(digest(spec.getElementTypeName()));
+        if (!spec.elementNullable()) {
+            sb.append(" NOT NULL");
+        }
+        return sb.append(spec.unparseAsStandard() ? ')' : '>').toString();
+    }
+
+    static String mapDigest(XSqlMapTypeNameSpec spec) {
+        final StringBuilder sb = new StringBuilder("MAP<");
+        appendDigest(sb, spec.getKeyType());
+        sb.append(',');
+        appendDigest(sb, spec.getValType());
+        return sb.append('>').toString();
+    }
+
+    static String rowDigest(XExtendedSqlRowTypeNameSpec spec) {
+        final StringBuilder sb = new StringBuilder("ROW");
+        sb.append(spec.unparseAsStandard() ? '(' : '<');
+        final List<SqlCharStringLiteral> comments = spec.getComments();
+        for (int i = 0; i < spec.getFieldNames().size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendString(sb, spec.getFieldNames().get(i).toString());
+            appendDigest(sb, spec.getFieldTypes().get(i));
+            final SqlCharStringLiteral comment = comments.get(i);
+            if (comment != null) {
+                sb.append(" COMMENT ");
+                appendString(sb, comment.getValueAs(String.class));
+            }
+        }
+        return sb.append(spec.unparseAsStandard() ? ')' : '>').toString();
+    }
+
+    private static void appendDigest(StringBuilder sb, SqlDataTypeSpec dataType) {
+        sb.append(digest(dataType.getTypeNameSpec()));
+        if (dataType.getNullable() != null) {
+            sb.append(dataType.getNullable() ? " NULL" : " NOT NULL");
+        }
+        if (dataType.getTimeZone() != null) {
+            sb.append(" TZ ").append(dataType.getTimeZone().getID());
+        }
+    }
+
+    private static void appendDigest(StringBuilder sb, SqlTypeNameSpec spec) {
+        if (spec instanceof SqlBasicTypeNameSpec) {
+            final SqlBasicTypeNameSpec basic = (SqlBasicTypeNameSpec) spec;
+            sb.append(basic.getTypeName().getSimple())
+                    .append('(')
+                    .append(basic.getPrecision())
+                    .append(',')
+                    .append(basic.getScale())
+                    .append(')');
+            if (basic.getCharSetName() != null) {
+                sb.append(" CHARACTER SET ").append(basic.getCharSetName());
+            }
+        } else if (spec instanceof SqlRowTypeNameSpec) {
+            // Calcite's own ROW(...), which the grammar produces for standard syntax.
+            final SqlRowTypeNameSpec row = (SqlRowTypeNameSpec) spec;
+            sb.append("SqlRow(");
+            for (int i = 0; i < row.getFieldNames().size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                appendString(sb, row.getFieldNames().get(i).toString());
+                appendDigest(sb, row.getFieldTypes().get(i));
+            }
+            sb.append(')');
+        } else if (spec instanceof SqlCollectionTypeNameSpec) {
+            final SqlCollectionTypeNameSpec collection = (SqlCollectionTypeNameSpec) spec;
+            sb.append(collection.getTypeName().getSimple()).append('[');
+            sb.append(digest(collection.getElementTypeName())).append(']');
+        } else {
+            // Any other specification, e.g. RAW or a user defined type, by its SQL text.
+            sb.append(spec.getClass().getSimpleName()).append(':');
+            appendString(sb, new SqlDataTypeSpec(spec, SqlParserPos.ZERO).toString());
+        }
+    }
+
+    /** Appends a length prefixed string, so that names cannot be confused with the structure. */
+    private static void appendString(StringBuilder sb, String s) {
+        sb.append(s.length()).append(':').append(s);
+    }
+}
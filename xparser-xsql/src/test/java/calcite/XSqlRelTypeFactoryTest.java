@@ -0,0 +1,146 @@
+package calcite;
+
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeSystem;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests for {@link XSqlRelTypeFactory} and {@link RawRelDataType}. */
+class XSqlRelTypeFactoryTest {
+
+    private static final String SNAPSHOT = encode("snapshot");
+
+    @Test
+    void testRawTypesAreCached() {
+        final XSqlRelTypeFactory factory = new XSqlRelTypeFactory();
+        final RelDataType type = factory.createRawType("org.my.Cached", SNAPSHOT);
+        assertSame(type, factory.createRawType("org.my.Cached", SNAPSHOT));
+        assertSame(type, factory.createRawType(new String("org.my.Cached"), encode("snapshot")));
+        assertNotSame(type, factory.createRawType("org.my.Cached", encode("other")));
+        assertNotSame(type, factory.createRawType("org.my.Other", SNAPSHOT));
+        assertEquals(3, factory.rawTypeCacheSize());
+
+        assertTrue(type.isNullable());
+        assertEquals("RAW('org.my.Cached', '" + SNAPSHOT + "')", type.getFullTypeString());
+    }
+
+    @Test
+    void testSnapshotIsDecodedOnFirstUse() {
+        final RawRelDataType type =
+                (RawRelDataType) new XSqlRelTypeFactory().createRawType("org.my.Lazy", SNAPSHOT);
+        assertFalse(type.isSerializerSnapshotDecoded());
+        assertNull(type.decodedSerializerSnapshot());
+
+        assertEquals(ByteBuffer.wrap(bytes("snapshot")), type.getSerializerSnapshot());
+        final byte[] decoded = type.decodedSerializerSnapshot();
+        assertTrue(type.isSerializerSnapshotDecoded());
+        assertEquals(ByteBuffer.wrap(bytes("snapshot")), type.getSerializerSnapshot());
+        assertSame(decoded, type.decodedSerializerSnapshot());
+        assertTrue(type.getSerializerSnapshot().isReadOnly());
+
+        // An invalid snapshot only fails when it is decoded.
+        final RawRelDataType invalid =
+                (RawRelDataType)
+                        new XSqlRelTypeFactory().createRawType("org.my.Invalid", "not base64!");
+        assertThrows(IllegalArgumentException.class, invalid::getSerializerSnapshot);
+        assertFalse(invalid.isSerializerSnapshotDecoded());
+    }
+
+    @Test
+    void testNullabilityVariantsShareTheSnapshot() {
+        final XSqlRelTypeFactory factory = new XSqlRelTypeFactory();
+        final RawRelDataType nullable =
+                (RawRelDataType) factory.createRawType("org.my.Shared", SNAPSHOT);
+        final RawRelDataType notNull =
+                (RawRelDataType) factory.createTypeWithNullability(nullable, false);
+        assertFalse(notNull.isNullable());
+        assertEquals(
+                "RAW('org.my.Shared', '" + SNAPSHOT + "') NOT NULL", notNull.getFullTypeString());
+        assertSame(notNull, factory.createTypeWithNullability(nullable, false));
+        assertSame(nullable, factory.createTypeWithNullability(notNull, true));
+
+        // The variant was created before the snapshot was decoded.
+        notNull.getSerializerSnapshot();
+        assertTrue(nullable.isSerializerSnapshotDecoded());
+        assertSame(notNull.decodedSerializerSnapshot(), nullable.decodedSerializerSnapshot());
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        final XSqlRelTypeFactory factory = new XSqlRelTypeFactory(RelDataTypeSystem.DEFAULT, 4);
+        for (int i = 0; i < 100; i++) {
+            factory.createRawType("org.my.Bounded" + i, SNAPSHOT);
+            assertTrue(factory.rawTypeCacheSize() <= 4, "size after " + i);
+        }
+        final RelDataType type = factory.createRawType("org.my.Bounded99", SNAPSHOT);
+        // An evicted type is created again, and still canonized to the live instance.
+        for (int i = 0; i < 10; i++) {
+            factory.createRawType("org.my.Evicting" + i, SNAPSHOT);
+        }
+        assertSame(type, factory.createRawType("org.my.Bounded99", SNAPSHOT));
+    }
+
+    @Test
+    void testConcurrentCreation() throws Exception {
+        final XSqlRelTypeFactory factory = new XSqlRelTypeFactory();
+        final int threads = 8;
+        final int classes = 16;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<List<RelDataType>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    start.await();
+                                    final List<RelDataType> types = new ArrayList<>();
+                                    for (int i = 0; i < classes; i++) {
+                                        final RelDataType type =
+                                                factory.createRawType(
+                                                        "org.my.Concurrent" + i, SNAPSHOT);
+                                        ((RawRelDataType) type).getSerializerSnapshot();
+                                        types.add(type);
+                                    }
+                                    return types;
+                                }));
+            }
+            start.countDown();
+            final List<RelDataType> expected = futures.get(0).get();
+            for (Future<List<RelDataType>> future : futures) {
+                final List<RelDataType> types = future.get();
+                for (int i = 0; i < classes; i++) {
+                    assertSame(expected.get(i), types.get(i));
+                }
+            }
+            assertEquals(classes, factory.rawTypeCacheSize());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String encode(String s) {
+        return Base64.getEncoder().encodeToString(bytes(s));
+    }
+}
@@ -0,0 +1,109 @@
+package ddl;
+
+import ddl.XSqlTableColumn.SqlRegularColumn;
+import error.SqlValidateException;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.util.Litmus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static xparser.impl.XSqlTestParser.parseCreateTable;
+
+/** Tests for the validation of {@link XSqlCreateTable}. */
+class XSqlCreateTableTest {
+
+    private static final String NULLABLE_KEY =
+            "CREATE TABLE t (a INT, b VARCHAR, c BIGINT, PRIMARY KEY (a) NOT ENFORCED)";
+
+    @Test
+    void testValidatedLeavesTheTreeUnchanged() throws Exception {
+        final XSqlCreateTable table = parseCreateTable(NULLABLE_KEY);
+        final String unparsed = table.toString();
+        final SqlNode keyType = column(table, 0).getType();
+
+        final XSqlCreateTable validated = table.validated();
+        assertNotSame(table, validated);
+        assertEquals(unparsed, table.toString());
+        assertSame(keyType, column(table, 0).getType());
+        assertTrue(column(table, 0).getType().getNullable());
+        assertFalse(column(validated, 0).getType().getNullable());
+
+        // The other columns are shared with the original tree.
+        assertSame(table.getColumnList().get(1), validated.getColumnList().get(1));
+        assertSame(table.getColumnList().get(2), validated.getColumnList().get(2));
+        assertSame(table.getTableName(), validated.getTableName());
+    }
+
+    @Test
+    void testValidatedAgreesWithValidate() throws Exception {
+        final XSqlCreateTable validated = parseCreateTable(NULLABLE_KEY).validated();
+        final XSqlCreateTable inPlace = parseCreateTable(NULLABLE_KEY);
+        inPlace.validate();
+        assertTrue(inPlace.equalsDeep(validated, Litmus.THROW));
+        assertEquals(inPlace.toString(), validated.toString());
+    }
+
+    @Test
+    void testValidatedIsIdempotent() throws Exception {
+        final XSqlCreateTable validated = parseCreateTable(NULLABLE_KEY).validated();
+        assertSame(validated, validated.validated());
+
+        final XSqlCreateTable notNull =
+                parseCreateTable("CREATE TABLE t (a INT NOT NULL, PRIMARY KEY (a) NOT ENFORCED)");
+        assertSame(notNull, notNull.validated());
+        final XSqlCreateTable noKey = parseCreateTable("CREATE TABLE t (a INT)");
+        assertSame(noKey, noKey.validated());
+    }
+
+    @Test
+    void testValidatedRejectsInvalidStatements() throws Exception {
+        final XSqlCreateTable duplicateKey =
+                parseCreateTable("CREATE TABLE t (a INT) PARTITIONED BY (a, a)");
+        final String unparsed = duplicateKey.toString();
+        assertThrows(SqlValidateException.class, duplicateKey::validated);
+        assertEquals(unparsed, duplicateKey.toString());
+
+        assertThrows(
+                SqlValidateException.class,
+                () -> parseCreateTable("CREATE TABLE t (a INT, WATERMARK FOR b AS b)").validated());
+    }
+
+    @Test
+    void testConcurrentValidationOfASharedTree() throws Exception {
+        final XSqlCreateTable table = parseCreateTable(NULLABLE_KEY);
+        final String unparsed = table.toString();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<XSqlCreateTable>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                futures.add(executor.submit(table::validated));
+            }
+            final Set<String> results = ConcurrentHashMap.newKeySet();
+            for (Future<XSqlCreateTable> future : futures) {
+                results.add(future.get().toString());
+            }
+            assertEquals(1, results.size());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(unparsed, table.toString());
+        assertTrue(column(table, 0).getType().getNullable());
+    }
+
+    private static SqlRegularColumn column(XSqlCreateTable table, int i) {
+        return (SqlRegularColumn) table.getColumnList().get(i);
+    }
+}
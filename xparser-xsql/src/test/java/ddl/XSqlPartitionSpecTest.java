@@ -0,0 +1,171 @@
+package ddl;
+
+import ddl.XSqlPartitionSpec.ValueKind;
+import dml.XSqlRichInsert;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.util.Litmus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static xparser.impl.XSqlTestParser.parse;
+import static xparser.impl.XSqlTestParser.parseCreateTable;
+
+/** Tests for {@link XSqlPartitionSpec}. */
+class XSqlPartitionSpecTest {
+
+    private static final SqlParserPos POS = SqlParserPos.ZERO;
+
+    @Test
+    void testParsedValuesAreTyped() throws SqlParseException {
+        final XSqlPartitionSpec spec =
+                partitionSpec(
+                        "INSERT INTO t PARTITION (s = 'a', i = 3, big = 99999999999999999999,"
+                                + " d = 1.50, b = true, n = NULL, dt = DATE '2026-10-19')"
+                                + " SELECT * FROM src");
+        assertEquals(Arrays.asList("S", "I", "BIG", "D", "B", "N", "DT"), spec.getKeys());
+        assertEquals(ValueKind.STRING, spec.getKind(0));
+        assertEquals("a", spec.getString(0));
+        assertEquals(ValueKind.INTEGER, spec.getKind(1));
+        assertEquals(3, spec.getLong(1));
+        assertEquals(ValueKind.DECIMAL, spec.getKind(2));
+        assertEquals("99999999999999999999", spec.getString(2));
+        assertEquals(ValueKind.DECIMAL, spec.getKind(3));
+        assertEquals("1.50", spec.getString(3));
+        assertEquals(ValueKind.BOOLEAN, spec.getKind(4));
+        assertTrue(spec.getBoolean(4));
+        assertEquals(ValueKind.NULL, spec.getKind(5));
+        assertNull(spec.getString(5));
+        assertEquals(ValueKind.STRING, spec.getKind(6));
+        assertEquals("2026-10-19", spec.getString(6));
+        assertTrue(spec.isStatic());
+        assertEquals(4, spec.indexOf("B"));
+        assertEquals(-1, spec.indexOf("missing"));
+        assertThrows(IllegalStateException.class, () -> spec.getLong(0));
+    }
+
+    @Test
+    void testPath() {
+        final XSqlPartitionSpec.Builder builder = XSqlPartitionSpec.builder();
+        builder.addString("dt", "2026-10-19");
+        builder.addLong("hr", 3);
+        final XSqlPartitionSpec spec = builder.build();
+        assertEquals("dt=2026-10-19/hr=3", spec.toPath());
+
+        final StringBuilder path = new StringBuilder("/warehouse/t/");
+        assertSame(path, spec.appendPath(path, "x"));
+        assertEquals("/warehouse/t/dt=2026-10-19/hr=3", path.toString());
+    }
+
+    @Test
+    void testPathEscapesLikeHive() throws SqlParseException {
+        final XSqlPartitionSpec spec =
+                partitionSpec(
+                        "INSERT INTO t PARTITION (a = 'x/y=z:1', b = '', c = NULL, d = 'ok')"
+                                + " SELECT * FROM src");
+        assertEquals(
+                "A=x%2Fy%3Dz%3A1/B=__DEFAULT_PARTITION__/C=__DEFAULT_PARTITION__/D=ok",
+                spec.toPath());
+        assertEquals(
+                "A=x%2Fy%3Dz%3A1/B=none/C=none/D=ok",
+                spec.appendPath(new StringBuilder(), "none").toString());
+    }
+
+    @Test
+    void testDynamicKeys() {
+        final XSqlPartitionSpec.Builder builder = XSqlPartitionSpec.builder();
+        assertTrue(builder.addString("dt", "2026-10-19"));
+        assertTrue(builder.addDynamic("hr"));
+        assertTrue(builder.addString("region", "eu"));
+        assertFalse(builder.addLong("dt", 1));
+        final XSqlPartitionSpec spec = builder.build();
+
+        assertFalse(spec.isStatic());
+        assertEquals(1, spec.staticPrefixSize());
+        // The path stops at the first dynamic key, the map has all static values.
+        assertEquals("dt=2026-10-19", spec.toPath());
+        final Map<String, String> values = new LinkedHashMap<>();
+        values.put("dt", "2026-10-19");
+        values.put("region", "eu");
+        assertEquals(values, spec.toStringMap());
+    }
+
+    @Test
+    void testCreateTableKeysAreDynamic() throws SqlParseException {
+        final XSqlCreateTable table =
+                parseCreateTable("CREATE TABLE t (a INT, b INT) PARTITIONED BY (b, a)");
+        final XSqlPartitionSpec spec = table.getPartitionSpec();
+        assertEquals(Arrays.asList("B", "A"), spec.getKeys());
+        assertEquals(0, spec.staticPrefixSize());
+        assertEquals("", spec.toPath());
+        assertEquals(XSqlPartitionSpec.ofKeys(Arrays.asList("B", "A")), spec);
+        final XSqlCreateTable unpartitioned = parseCreateTable("CREATE TABLE t (a INT)");
+        assertTrue(unpartitioned.getPartitionSpec().isEmpty());
+    }
+
+    @Test
+    void testInsertWithoutPartitionAndDuplicateKeys() throws SqlParseException {
+        assertSame(XSqlPartitionSpec.EMPTY, partitionSpec("INSERT INTO t SELECT * FROM src"));
+        final SqlParseException e =
+                assertThrows(
+                        SqlParseException.class,
+                        () -> parse("INSERT INTO t PARTITION (a = 1, a = 2) SELECT * FROM src"));
+        assertTrue(e.getMessage().contains("Duplicate partition key A"), e.getMessage());
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> XSqlPartitionSpec.builder().add("a", new SqlIdentifier("b", POS)));
+    }
+
+    @Test
+    void testEqualsAndUnparse() throws SqlParseException {
+        final String sql =
+                "INSERT INTO t PARTITION (s = 'a', i = 3, b = false, n = NULL) SELECT * FROM src";
+        final XSqlPartitionSpec spec = partitionSpec(sql);
+        assertEquals(spec, partitionSpec(sql));
+        assertEquals(spec.hashCode(), partitionSpec(sql).hashCode());
+        final String unparsed = parse(sql).toString();
+        assertTrue(
+                unparsed.contains("PARTITION (`S` = 'a', `I` = 3, `B` = FALSE, `N` = NULL)"),
+                unparsed);
+        final XSqlPartitionSpec.Builder parsed = XSqlPartitionSpec.builder();
+        parsed.add("x", SqlLiteral.createExactNumeric("7", POS));
+        final XSqlPartitionSpec.Builder built = XSqlPartitionSpec.builder();
+        built.addLong("x", 7);
+        assertEquals(built.build(), parsed.build());
+    }
+
+    @Test
+    void testInsertOverwrite() throws SqlParseException {
+        for (String sql :
+                Arrays.asList(
+                        "INSERT OVERWRITE t PARTITION (dt = '2020-01-01') SELECT * FROM src",
+                        "INSERT OVERWRITE t SELECT * FROM src")) {
+            final XSqlRichInsert insert = (XSqlRichInsert) parse(sql);
+            assertTrue(insert.isOverwrite(), sql);
+            final String unparsed = insert.toString();
+            assertTrue(unparsed.startsWith("INSERT OVERWRITE `T`"), unparsed);
+            assertEquals(sql.contains("PARTITION"), unparsed.contains("PARTITION"), unparsed);
+        }
+        assertFalse(((XSqlRichInsert) parse("INSERT INTO t SELECT * FROM src")).isOverwrite());
+        assertFalse(
+                parse("INSERT OVERWRITE t SELECT * FROM src")
+                        .equalsDeep(parse("INSERT INTO t SELECT * FROM src"), Litmus.IGNORE));
+        assertThrows(
+                SqlParseException.class, () -> parse("UPSERT OVERWRITE t SELECT * FROM src"));
+    }
+
+    private static XSqlPartitionSpec partitionSpec(String sql) throws SqlParseException {
+        return ((XSqlRichInsert) parse(sql)).getPartitionSpec();
+    }
+}
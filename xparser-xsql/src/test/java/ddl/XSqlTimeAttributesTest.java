@@ -0,0 +1,107 @@
+package ddl;
+
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static xparser.impl.XSqlTestParser.parseCreateTable;
+
+/** Tests for {@link XSqlTimeAttributes}. */
+class XSqlTimeAttributesTest {
+
+    @Test
+    void testBoundedOutOfOrderness() throws SqlParseException {
+        final XSqlTimeAttributes attributes =
+                analyze("ts TIMESTAMP(3), WATERMARK FOR ts AS ts - INTERVAL '5' SECOND");
+        assertEquals("TS", attributes.getRowtimeColumn().get());
+        assertEquals(OptionalLong.of(5000), attributes.getWatermarkDelayMillis());
+        assertEquals(Collections.singletonList("TS"), attributes.getReferencedColumns());
+        assertTrue(attributes.getProctimeColumns().isEmpty());
+        assertTrue(attributes.hasTimeAttributes());
+
+        final XSqlTimeAttributes minutes =
+                analyze(
+                        "ts TIMESTAMP(3),"
+                                + " WATERMARK FOR ts AS ts - INTERVAL '1:30' MINUTE TO SECOND");
+        assertEquals(OptionalLong.of(90_000), minutes.getWatermarkDelayMillis());
+    }
+
+    @Test
+    void testComputedRowtimeAndProctime() throws SqlParseException {
+        final XSqlTimeAttributes attributes =
+                analyze(
+                        "epoch BIGINT, ts AS TO_TIMESTAMP(epoch), pt AS PROCTIME(),"
+                                + " WATERMARK FOR ts AS ts");
+        assertEquals("TS", attributes.getRowtimeColumn().get());
+        assertEquals(OptionalLong.of(0), attributes.getWatermarkDelayMillis());
+        assertEquals(Arrays.asList("TS", "EPOCH"), attributes.getReferencedColumns());
+        assertEquals(Collections.singletonList("PT"), attributes.getProctimeColumns());
+    }
+
+    @Test
+    void testDelayIsOnlyKnownForConstantDayTimeIntervals() throws SqlParseException {
+        assertFalse(
+                analyze("ts TIMESTAMP(3), WATERMARK FOR ts AS ts - INTERVAL '1' MONTH")
+                        .getWatermarkDelayMillis()
+                        .isPresent());
+        assertFalse(
+                analyze("ts TIMESTAMP(3), d INT, WATERMARK FOR ts AS ts - d")
+                        .getWatermarkDelayMillis()
+                        .isPresent());
+        final XSqlTimeAttributes other =
+                analyze("ts TIMESTAMP(3), ts2 TIMESTAMP(3), WATERMARK FOR ts AS ts2");
+        assertFalse(other.getWatermarkDelayMillis().isPresent());
+        assertEquals(Arrays.asList("TS", "TS2"), other.getReferencedColumns());
+    }
+
+    @Test
+    void testCyclicComputedColumnsAreExpandedOnce() throws SqlParseException {
+        final XSqlTimeAttributes attributes =
+                analyze("a AS b + 1, b AS a + 1, WATERMARK FOR a AS a");
+        assertEquals(Arrays.asList("A", "B"), attributes.getReferencedColumns());
+    }
+
+    @Test
+    void testTablesWithoutTimeAttributesShareNone() throws SqlParseException {
+        final XSqlTimeAttributes none = analyze("a INT, b AS a + 1");
+        assertSame(XSqlTimeAttributes.NONE, none);
+        assertFalse(none.hasTimeAttributes());
+        assertFalse(none.getRowtimeColumn().isPresent());
+
+        final XSqlTimeAttributes proctime = analyze("a INT, pt AS proctime()");
+        assertFalse(proctime.getRowtimeColumn().isPresent());
+        assertFalse(proctime.getWatermarkDelayMillis().isPresent());
+        assertEquals(Collections.singletonList("PT"), proctime.getProctimeColumns());
+        assertTrue(proctime.hasTimeAttributes());
+    }
+
+    @Test
+    void testAnalyzedOnceAndKeptByValidation() throws Exception {
+        final XSqlCreateTable table =
+                parseCreateTable(
+                        "CREATE TABLE t (id INT, ts TIMESTAMP(3),"
+                                + " WATERMARK FOR ts AS ts - INTERVAL '1' SECOND,"
+                                + " PRIMARY KEY (id) NOT ENFORCED)");
+        assertSame(table.getTimeAttributes(), table.getTimeAttributes());
+        final XSqlCreateTable validated = table.validated();
+        assertNotSame(table, validated);
+        assertSame(table.getTimeAttributes(), validated.getTimeAttributes());
+
+        final XSqlTimeAttributes other =
+                analyze("id INT, ts TIMESTAMP(3), WATERMARK FOR ts AS ts - INTERVAL '1' SECOND");
+        assertEquals(table.getTimeAttributes(), other);
+        assertEquals(table.getTimeAttributes().hashCode(), other.hashCode());
+    }
+
+    private static XSqlTimeAttributes analyze(String columns) throws SqlParseException {
+        return parseCreateTable("CREATE TABLE t (" + columns + ")").getTimeAttributes();
+    }
+}
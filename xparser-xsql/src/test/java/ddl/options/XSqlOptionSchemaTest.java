@@ -0,0 +1,198 @@
+package ddl.options;
+
+import ddl.XSqlCreateTable;
+import error.SqlValidateException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static xparser.impl.XSqlTestParser.parseCreateTable;
+
+/** Tests for {@link XSqlOptionSchema} and {@link XSqlTableOptions}. */
+class XSqlOptionSchemaTest {
+
+    private static final XSqlOptionSchema KAFKA =
+            XSqlOptionSchema.builder()
+                    .option(XSqlOptionSpec.builder("connector", XSqlOptionType.STRING).build())
+                    .option(
+                            XSqlOptionSpec.builder("topic", XSqlOptionType.STRING)
+                                    .required()
+                                    .build())
+                    .option(
+                            XSqlOptionSpec.builder("sink.parallelism", XSqlOptionType.INT)
+                                    .validator(value -> (Long) value > 0, "must be positive")
+                                    .build())
+                    .option(
+                            XSqlOptionSpec.builder("scan.interval", XSqlOptionType.DURATION)
+                                    .defaultValue("10 s")
+                                    .build())
+                    .option(XSqlOptionSpec.builder("buffer", XSqlOptionType.MEMORY_SIZE).build())
+                    .option(XSqlOptionSpec.builder("ratio", XSqlOptionType.DOUBLE).build())
+                    .option(XSqlOptionSpec.builder("offsets", XSqlOptionType.LONG).build())
+                    .option(XSqlOptionSpec.builder("exactly.once", XSqlOptionType.BOOLEAN).build())
+                    .prefix("properties.")
+                    .build();
+
+    static {
+        XSqlOptionSchema.register("test-kafka", KAFKA);
+    }
+
+    @Test
+    void testDecodeTypedValues() {
+        final Map<String, String> given = new LinkedHashMap<>();
+        given.put("topic", "orders");
+        given.put("sink.parallelism", " 4 ");
+        given.put("buffer", "64 mb");
+        given.put("ratio", "0.25");
+        given.put("offsets", "12345678901");
+        given.put("exactly.once", "TRUE");
+        final XSqlTableOptions options = KAFKA.decode(given);
+
+        assertEquals("orders", options.getString("topic"));
+        assertEquals(4, options.getInt("sink.parallelism", -1));
+        assertEquals(64L << 20, options.getMemoryBytes("buffer", -1));
+        assertEquals(0.25, options.getDouble("ratio", -1), 0);
+        assertEquals(12345678901L, options.getLong("offsets", -1));
+        assertTrue(options.getBoolean("exactly.once", false));
+        // Defaults are filled in, but were not given.
+        assertEquals(10_000, options.getDurationMillis("scan.interval", -1));
+        assertTrue(options.contains("scan.interval"));
+        assertFalse(options.isGiven("scan.interval"));
+        assertTrue(options.isGiven("topic"));
+        // Absent options fall back.
+        assertEquals(7, options.getInt("missing", 7));
+        assertNull(options.getString("connector"));
+        assertThrows(IllegalStateException.class, () -> options.getLong("sink.parallelism", 0));
+    }
+
+    @Test
+    void testDurationAndMemoryUnits() {
+        final String[][] durations = {
+            {"250", "250"},
+            {"3ms", "3"},
+            {"2 min", "120000"},
+            {"1h", "3600000"},
+            {"2 days", "172800000"}
+        };
+        for (String[] duration : durations) {
+            assertEquals(
+                    Long.parseLong(duration[1]),
+                    XSqlOptionType.DURATION.decode(duration[0]),
+                    duration[0]);
+        }
+        assertEquals(512L << 10, XSqlOptionType.MEMORY_SIZE.decode("512kb"));
+        assertEquals(1L << 30, XSqlOptionType.MEMORY_SIZE.decode("1 GB"));
+        assertThrows(IllegalArgumentException.class, () -> XSqlOptionType.DURATION.decode("s"));
+        assertThrows(IllegalArgumentException.class, () -> XSqlOptionType.DURATION.decode("1 y"));
+        assertThrows(IllegalArgumentException.class, () -> XSqlOptionType.BOOLEAN.decode("yes"));
+        assertThrows(
+                ArithmeticException.class,
+                () -> XSqlOptionType.MEMORY_SIZE.decode("99999999999 tb"));
+    }
+
+    @Test
+    void testInvalidOptions() {
+        assertError(
+                "Unsupported option 'sink.paralelism', did you mean 'sink.parallelism'?",
+                "topic", "t",
+                "sink.paralelism", "1");
+        assertError("Unsupported option 'foo'", "topic", "t", "foo", "1");
+        assertError("Missing required option 'topic'", "buffer", "1kb");
+        final IllegalArgumentException e =
+                assertThrows(
+                        IllegalArgumentException.class,
+                        () -> KAFKA.decode(options("topic", "t", "sink.parallelism", "0")));
+        assertTrue(e.getMessage().contains("must be positive"), e.getMessage());
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> KAFKA.decode(options("topic", "t", "sink.parallelism", "many")));
+    }
+
+    @Test
+    void testPrefixes() {
+        final XSqlTableOptions options =
+                KAFKA.decode(
+                        options(
+                                "topic", "t",
+                                "properties.bootstrap.servers", "host:9092",
+                                "properties.group.id", "g"));
+        assertEquals(
+                Arrays.asList("properties.bootstrap.servers", "properties.group.id"),
+                options.keysWithPrefix("properties."));
+        final Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("bootstrap.servers", "host:9092");
+        properties.put("group.id", "g");
+        assertEquals(properties, options.withPrefix("properties."));
+        assertEquals(
+                Collections.singletonMap("id", "g"), options.withPrefix("properties.group."));
+        assertTrue(options.withPrefix("other.").isEmpty());
+    }
+
+    @Test
+    void testLenientSchemaKeepsStrings() {
+        final XSqlTableOptions options =
+                XSqlOptionSchema.LENIENT.decode(options("a", "1", "b.c", "x"));
+        assertEquals(XSqlOptionType.STRING, options.getType("a"));
+        assertEquals(1, options.getInt("a", 0));
+        assertEquals(options("a", "1", "b.c", "x"), options.toStringMap());
+        assertThrows(IllegalArgumentException.class, () -> options.getInt("b.c", 0));
+    }
+
+    @Test
+    void testValidationDecodesOnce() throws Exception {
+        final XSqlCreateTable table =
+                parseCreateTable(
+                        "CREATE TABLE t (a INT) WITH ('connector' = 'test-kafka',"
+                                + " 'topic' = 'orders', 'sink.parallelism' = '2')");
+        final XSqlCreateTable validated = table.validated();
+        final XSqlTableOptions options = validated.getOptions();
+        assertSame(KAFKA, options.getSchema());
+        assertSame(options, validated.getOptions());
+        assertEquals(2, options.getInt("sink.parallelism", -1));
+
+        final SqlValidateException e =
+                assertThrows(
+                        SqlValidateException.class,
+                        () ->
+                                parseCreateTable(
+                                        "CREATE TABLE t (a INT) WITH ('connector' = 'test-kafka',"
+                                                + " 'topic' = 'orders', 'sink.paralelism' = '2')")
+                                        .validated());
+        assertTrue(e.getMessage().contains("did you mean 'sink.parallelism'"), e.getMessage());
+        assertEquals(1, e.getErrorPosition().getLineNum());
+        // The position of the failed option, which the grammar puts at its value.
+        assertEquals(98, e.getErrorPosition().getColumnNum());
+
+        // Without a registered schema the options are decoded leniently.
+        final XSqlTableOptions lenient =
+                parseCreateTable("CREATE TABLE t (a INT) WITH ('connector' = 'unknown', 'x' = 'y')")
+                        .getOptions();
+        assertSame(XSqlOptionSchema.LENIENT, lenient.getSchema());
+        assertEquals("y", lenient.getString("x"));
+    }
+
+    private static void assertError(String message, String... keysAndValues) {
+        final IllegalArgumentException e =
+                assertThrows(
+                        IllegalArgumentException.class,
+                        () -> KAFKA.decode(options(keysAndValues)));
+        assertEquals(message, e.getMessage());
+    }
+
+    private static Map<String, String> options(String... keysAndValues) {
+        final Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            options.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,158 @@
+package extended;
+
+import ddl.XSqlCreateTable;
+import ddl.XSqlTableColumn.SqlRegularColumn;
+import org.apache.calcite.sql.SqlBasicTypeNameSpec;
+import org.apache.calcite.sql.SqlDataTypeSpec;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlSelect;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.util.Litmus;
+import org.junit.jupiter.api.Test;
+import types.XExtendedSqlCollectionTypeNameSpec;
+import types.XExtendedSqlRowTypeNameSpec;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static xparser.impl.XSqlTestParser.parse;
+import static xparser.impl.XSqlTestParser.parseCreateTable;
+
+/** Tests for {@link SqlNodeCopier}. */
+class SqlNodeCopierTest {
+
+    private static final SqlParserPos POS = SqlParserPos.ZERO;
+
+    private static final String TABLE =
+            "CREATE TABLE t (\n"
+                    + "  a INT,\n"
+                    + "  b VARCHAR ARRAY COMMENT 'tags',\n"
+                    + "  c AS a + 1,\n"
+                    + "  WATERMARK FOR d AS d - INTERVAL '1' SECOND,\n"
+                    + "  d TIMESTAMP(3),\n"
+                    + "  PRIMARY KEY (a) NOT ENFORCED\n"
+                    + ") PARTITIONED BY (a) WITH ('k' = 'v')";
+
+    @Test
+    void testReplaceSharesUntouchedSubtrees() throws SqlParseException {
+        final XSqlCreateTable table = parseCreateTable(TABLE);
+        final String unparsed = table.toString();
+        final SqlRegularColumn column = (SqlRegularColumn) table.getColumnList().get(0);
+        final SqlNode replacement = column.withType(notNull(column.getType()));
+
+        final XSqlCreateTable copy =
+                (XSqlCreateTable) SqlNodeCopier.replace(table, column, replacement);
+        assertNotSame(table, copy);
+        assertEquals(unparsed, table.toString());
+        assertSame(replacement, copy.getColumnList().get(0));
+        for (int i = 1; i < table.getColumnList().size(); i++) {
+            assertSame(table.getColumnList().get(i), copy.getColumnList().get(i));
+        }
+        assertSame(table.getTableName(), copy.getTableName());
+        assertSame(table.getPropertyList(), copy.getPropertyList());
+        assertSame(table.getPartitionKeyList(), copy.getPartitionKeyList());
+        assertTrue(copy.toString().contains("`A` INTEGER NOT NULL"), copy.toString());
+    }
+
+    @Test
+    void testReplaceOfAMissingNodeKeepsTheTree() throws SqlParseException {
+        final XSqlCreateTable table = parseCreateTable(TABLE);
+        final SqlIdentifier other = new SqlIdentifier("A", POS);
+        assertSame(table, SqlNodeCopier.replace(table, other, other));
+        assertSame(table, SqlNodeCopier.rewrite(table, node -> node));
+    }
+
+    @Test
+    void testRewriteInsideNestedTypes() {
+        final XExtendedSqlRowTypeNameSpec row =
+                new XExtendedSqlRowTypeNameSpec(
+                        POS,
+                        Arrays.asList(new SqlIdentifier("X", POS), new SqlIdentifier("Y", POS)),
+                        Arrays.asList(
+                                new SqlDataTypeSpec(
+                                        new SqlBasicTypeNameSpec(SqlTypeName.INTEGER, POS), POS),
+                                new SqlDataTypeSpec(
+                                        new SqlBasicTypeNameSpec(SqlTypeName.VARCHAR, POS), POS)),
+                        Arrays.asList(null, null),
+                        true);
+        final SqlDataTypeSpec type =
+                new SqlDataTypeSpec(
+                        new XExtendedSqlCollectionTypeNameSpec(
+                                row, true, SqlTypeName.ARRAY, true, POS),
+                        POS);
+        final String unparsed = type.toString();
+
+        final SqlDataTypeSpec copy =
+                (SqlDataTypeSpec) SqlNodeCopier.rewrite(type, rename("Y", "Z"));
+        assertEquals(unparsed, type.toString());
+        assertEquals(unparsed.replace("`Y`", "`Z`"), copy.toString());
+        final XExtendedSqlRowTypeNameSpec copiedRow =
+                (XExtendedSqlRowTypeNameSpec)
+                        ((XExtendedSqlCollectionTypeNameSpec) copy.getTypeNameSpec())
+                                .getElementTypeName();
+        assertSame(row.getFieldNames().get(0), copiedRow.getFieldNames().get(0));
+        assertSame(row.getFieldTypes().get(1), copiedRow.getFieldTypes().get(1));
+    }
+
+    @Test
+    void testRewriteOfCalciteCalls() throws SqlParseException {
+        final SqlSelect select = (SqlSelect) parse("SELECT a + 1, b FROM t WHERE a > 2");
+        final SqlNode copy = SqlNodeCopier.rewrite(select, rename("B", "C"));
+        assertEquals(select.toString().replace("`B`", "`C`"), copy.toString());
+        assertSame(select.getWhere(), ((SqlSelect) copy).getWhere());
+        assertSame(select.getSelectList().get(0), ((SqlSelect) copy).getSelectList().get(0));
+    }
+
+    @Test
+    void testCopySharesNoNode() throws SqlParseException {
+        final XSqlCreateTable table = parseCreateTable(TABLE);
+        final SqlNode copy = SqlNodeCopier.copy(table);
+        assertTrue(table.equalsDeep(copy, Litmus.THROW));
+        assertEquals(table.toString(), copy.toString());
+
+        final Map<SqlNode, Boolean> original = new IdentityHashMap<>();
+        SqlNodeCopier.rewrite(
+                table,
+                node -> {
+                    original.put(node, true);
+                    return node;
+                });
+        SqlNodeCopier.rewrite(
+                copy,
+                node -> {
+                    assertFalse(original.containsKey(node), () -> "shared " + node);
+                    return node;
+                });
+    }
+
+    @Test
+    void testRootMustNotBeRewrittenToNull() throws SqlParseException {
+        final XSqlCreateTable table = parseCreateTable(TABLE);
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> SqlNodeCopier.rewrite(table, node -> node == table ? null : node));
+    }
+
+    /** Renames the simple identifiers with the given name. */
+    private static UnaryOperator<SqlNode> rename(String from, String to) {
+        return node ->
+                node instanceof SqlIdentifier && ((SqlIdentifier) node).getSimple().equals(from)
+                        ? new SqlIdentifier(to, node.getParserPosition())
+                        : node;
+    }
+
+    private static SqlDataTypeSpec notNull(SqlDataTypeSpec type) {
+        return type.withNullable(false);
+    }
+}
@@ -0,0 +1,126 @@
+package extended;
+
+import ddl.XSqlCreateTable;
+import ddl.XSqlTableColumn.SqlRegularColumn;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.util.Litmus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static xparser.impl.XSqlTestParser.parse;
+import static xparser.impl.XSqlTestParser.parseCreateTable;
+
+/** Tests for {@link SqlNodeHashes} and {@link SqlNodeIndex}. */
+class SqlNodeHashesTest {
+
+    private static final String TABLE =
+            "CREATE TABLE t (\n"
+                    + "  a INT NOT NULL,\n"
+                    + "  b VARCHAR ARRAY COMMENT 'tags',\n"
+                    + "  c AS a + 1,\n"
+                    + "  ts TIMESTAMP(3),\n"
+                    + "  WATERMARK FOR ts AS ts - INTERVAL '1' SECOND,\n"
+                    + "  PRIMARY KEY (a) NOT ENFORCED\n"
+                    + ") PARTITIONED BY (a) WITH ('k' = 'v')";
+
+    @Test
+    void testEqualTreesHaveEqualHashes() throws SqlParseException {
+        final SqlNode first = parse(TABLE);
+        final SqlNode second = parse(TABLE);
+        assertTrue(first.equalsDeep(second, Litmus.THROW));
+        assertEquals(SqlNodeHashes.hash(first), SqlNodeHashes.hash(second));
+        assertTrue(SqlNodeHashes.equalsDeep(first, second, Litmus.THROW));
+    }
+
+    @Test
+    void testHashIsConsistentWithEqualsDeep() throws SqlParseException {
+        final String[][] pairs = {
+            {"SELECT COUNT(DISTINCT a) FROM t", "SELECT COUNT(a) FROM t"},
+            {"SELECT count(a) FROM t", "SELECT COUNT(a) FROM t"},
+            {"SELECT a + 1 FROM t", "SELECT a + 2 FROM t"},
+            {"SELECT INTERVAL '1' SECOND", "SELECT INTERVAL '1' MINUTE"},
+            {TABLE, TABLE.replace("a INT NOT NULL", "a INT")},
+            {TABLE, TABLE.replace("'tags'", "'labels'")},
+            {TABLE, TABLE.replace("CREATE TABLE", "CREATE TEMPORARY TABLE")},
+            {TABLE, TABLE.replace("'k' = 'v'", "'k' = 'w'")},
+        };
+        for (String[] pair : pairs) {
+            final SqlNode first = parse(pair[0]);
+            final SqlNode second = parse(pair[1]);
+            if (first.equalsDeep(second, Litmus.IGNORE)) {
+                assertEquals(SqlNodeHashes.hash(first), SqlNodeHashes.hash(second), pair[0]);
+                assertTrue(SqlNodeHashes.equalsDeep(first, second, Litmus.IGNORE), pair[0]);
+            } else {
+                assertFalse(SqlNodeHashes.equalsDeep(first, second, Litmus.IGNORE), pair[0]);
+                assertFalse(second.equalsDeep(first, Litmus.IGNORE), pair[1]);
+            }
+        }
+        // Calcite compares calls without their quantifier.
+        assertTrue(parse(pairs[0][0]).equalsDeep(parse(pairs[0][1]), Litmus.IGNORE));
+    }
+
+    @Test
+    void testRowFieldNullability() throws SqlParseException {
+        final SqlNode nullable = parse("CREATE TABLE t (c ROW(a INT))");
+        final SqlNode notNull = parse("CREATE TABLE t (c ROW(a INT NOT NULL))");
+        assertFalse(nullable.equalsDeep(notNull, Litmus.IGNORE));
+        assertFalse(notNull.equalsDeep(nullable, Litmus.IGNORE));
+        assertNotEquals(SqlNodeHashes.hash(nullable), SqlNodeHashes.hash(notNull));
+        assertTrue(
+                nullable.equalsDeep(parse("CREATE TABLE t (c ROW(a INT NULL))"), Litmus.IGNORE));
+        final SqlNode angleBrackets = parse("CREATE TABLE t (c ROW<a INT>)");
+        assertFalse(
+                angleBrackets.equalsDeep(
+                        parse("CREATE TABLE t (c ROW<a INT NOT NULL>)"), Litmus.IGNORE));
+    }
+
+    @Test
+    void testInPlaceChangesResetTheColumnHash() throws SqlParseException {
+        final XSqlCreateTable table = parseCreateTable(TABLE);
+        final XSqlCreateTable other = parseCreateTable(TABLE);
+        final int hash = SqlNodeHashes.hash(table);
+        assertTrue(table.equalsDeep(other, Litmus.IGNORE));
+
+        final SqlRegularColumn column = (SqlRegularColumn) table.getColumnList().get(0);
+        column.setType(column.getType().withNullable(true));
+        assertNotEquals(hash, SqlNodeHashes.hash(table));
+        assertFalse(table.equalsDeep(other, Litmus.IGNORE));
+
+        column.setType(column.getType().withNullable(false));
+        assertEquals(hash, SqlNodeHashes.hash(table));
+        assertTrue(table.equalsDeep(other, Litmus.IGNORE));
+    }
+
+    @Test
+    void testIndex() throws SqlParseException {
+        final SqlNodeIndex<String> index = new SqlNodeIndex<>();
+        index.put("t1", parse(TABLE));
+        index.put("t2", parse(TABLE));
+        index.put("t3", parse(TABLE.replace("'v'", "'w'")));
+
+        assertTrue(index.isUnchanged("t1", parse(TABLE)));
+        assertFalse(index.isUnchanged("t3", parse(TABLE)));
+        assertFalse(index.isUnchanged("t4", parse(TABLE)));
+        assertEquals(Arrays.asList("t1", "t2"), sorted(index.findIdentical(parse(TABLE))));
+
+        index.put("t2", parse(TABLE.replace("'v'", "'w'")));
+        assertEquals(Collections.singletonList("t1"), index.findIdentical(parse(TABLE)));
+        assertEquals(Arrays.asList("t2", "t3"), sorted(index.findIdentical(index.get("t3"))));
+        index.remove("t1");
+        assertTrue(index.findIdentical(parse(TABLE)).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    private static <T extends Comparable<T>> List<T> sorted(List<T> list) {
+        Collections.sort(list);
+        return list;
+    }
+}
@@ -0,0 +1,146 @@
+package extended;
+
+import ddl.XSqlCreateTable;
+import ddl.XSqlTableColumn.SqlRegularColumn;
+import extended.SqlReference.Access;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static xparser.impl.XSqlTestParser.parse;
+import static xparser.impl.XSqlTestParser.parseCreateTable;
+
+/** Tests for {@link SqlReferences} and {@link SqlReference}. */
+class SqlReferencesTest {
+
+    @Test
+    void testColumnsResolveThroughAliases() throws SqlParseException {
+        assertReferences(
+                "SELECT o.amount, c.name FROM db.orders AS o JOIN customers c ON o.cid = c.id"
+                        + " WHERE o.amount > 1 ORDER BY amount",
+                "READ CUSTOMERS",
+                "READ CUSTOMERS.ID",
+                "READ CUSTOMERS.NAME",
+                "READ DB.ORDERS",
+                "READ DB.ORDERS.AMOUNT",
+                "READ DB.ORDERS.CID");
+        // A column without qualifier references every table of its query.
+        assertReferences("SELECT x FROM t, u", "READ T", "READ T.X", "READ U", "READ U.X");
+        assertReferences("SELECT * FROM t", "READ T", "READ T.*");
+        assertReferences("SELECT COUNT(*) FROM t", "READ T");
+    }
+
+    @Test
+    void testQueriesOfQueries() throws SqlParseException {
+        // Columns of WITH queries and derived tables are not references, their tables' are.
+        assertReferences("WITH w AS (SELECT a FROM t) SELECT w.a FROM w", "READ T", "READ T.A");
+        assertReferences("SELECT a FROM (SELECT b AS a FROM t) AS s", "READ T", "READ T.B");
+        // Correlated columns resolve to the outer query.
+        assertReferences(
+                "SELECT a FROM t WHERE EXISTS (SELECT 1 FROM u WHERE u.b = t.a)",
+                "READ T",
+                "READ T.A",
+                "READ U",
+                "READ U.B");
+        // GROUP BY and HAVING see the aliases of the select list, window names are not columns.
+        assertReferences(
+                "SELECT a AS k, SUM(b) FROM t GROUP BY k HAVING SUM(b) > 1",
+                "READ T",
+                "READ T.A",
+                "READ T.B");
+        assertReferences(
+                "SELECT a, ROW_NUMBER() OVER w FROM t WINDOW w AS (ORDER BY a)",
+                "READ T",
+                "READ T.A");
+    }
+
+    @Test
+    void testWritesCreatesAndDrops() throws SqlParseException {
+        assertReferences(
+                "INSERT INTO cat.db.t (a, b) SELECT x, y FROM s",
+                "READ S",
+                "READ S.X",
+                "READ S.Y",
+                "WRITE CAT.DB.T",
+                "WRITE CAT.DB.T.A",
+                "WRITE CAT.DB.T.B");
+        assertReferences(
+                "INSERT INTO t SELECT * FROM s", "READ S", "READ S.*", "WRITE T", "WRITE T.*");
+        assertReferences(
+                "CREATE TABLE t (a INT, b AS a + 1)", "CREATE T", "CREATE T.A", "CREATE T.B");
+        assertReferences("DROP TABLE IF EXISTS db.t", "DROP DB.T");
+    }
+
+    @Test
+    void testStatementsKeepTheirReferences() throws SqlParseException {
+        for (String sql :
+                Arrays.asList(
+                        "INSERT INTO t SELECT a FROM s",
+                        "DROP TABLE t",
+                        "CREATE TABLE t (a INT)")) {
+            final SqlNode node = parse(sql);
+            assertTrue(node instanceof ReferencingSqlNode, sql);
+            assertSame(SqlReferences.of(node), SqlReferences.of(node), sql);
+        }
+
+        // A column list changed in place is collected again.
+        final XSqlCreateTable table = parseCreateTable("CREATE TABLE t (a INT, b INT)");
+        final SqlReferences before = table.getReferences();
+        table.getColumnList().set(1, column("c"));
+        final SqlReferences after = table.getReferences();
+        assertNotSame(before, after);
+        assertTrue(after.contains(SqlReference.column(Access.CREATE, list("T"), "C")));
+        assertFalse(after.contains(SqlReference.column(Access.CREATE, list("T"), "B")));
+    }
+
+    @Test
+    void testLookupsAndQualification() throws SqlParseException {
+        final SqlReferences references =
+                SqlReferences.of(parse("INSERT INTO db.t SELECT a FROM s JOIN c.d.u ON s.k = u.k"));
+        assertTrue(references.accesses(Access.WRITE, list("DB", "T")));
+        assertTrue(references.accesses(Access.READ, list("S")));
+        assertFalse(references.accesses(Access.WRITE, list("S")));
+        assertFalse(references.accesses(Access.READ, list("T")));
+
+        final SqlReferences qualified = references.qualify("cat", "default");
+        assertTrue(qualified.accesses(Access.WRITE, list("cat", "DB", "T")));
+        assertTrue(qualified.accesses(Access.READ, list("cat", "default", "S")));
+        assertTrue(qualified.accesses(Access.READ, list("C", "D", "U")));
+        assertEquals(references.size(), qualified.size());
+
+        final SqlReference reference = SqlReference.column(Access.READ, list("C", "D", "U"), "K");
+        assertEquals("C", reference.getCatalog());
+        assertEquals("D", reference.getDatabase());
+        assertEquals("U", reference.getTableName());
+        assertTrue(reference.isColumn());
+        assertSame(reference, SqlReference.column(Access.READ, list("C", "D", "U"), "K"));
+        assertSame(reference, reference.qualify("x", "y"));
+        assertTrue(SqlReferences.of(null).isEmpty());
+    }
+
+    private static void assertReferences(String sql, String... expected)
+            throws SqlParseException {
+        final SqlReferences references = SqlReferences.of(parse(sql));
+        assertEquals(Arrays.asList(expected).toString(), references.toString(), sql);
+        for (SqlReference reference : references) {
+            assertTrue(references.contains(reference), sql);
+        }
+    }
+
+    private static List<String> list(String... names) {
+        return Arrays.asList(names);
+    }
+
+    private static SqlRegularColumn column(String name) throws SqlParseException {
+        final XSqlCreateTable table = parseCreateTable("CREATE TABLE x (" + name + " INT)");
+        return (SqlRegularColumn) table.getColumnList().get(0);
+    }
+}
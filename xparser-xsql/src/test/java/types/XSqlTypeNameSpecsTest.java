@@ -0,0 +1,134 @@
+package types;
+
+import ddl.XSqlCreateTable;
+import ddl.XSqlTableColumn.SqlRegularColumn;
+import org.apache.calcite.sql.SqlBasicTypeNameSpec;
+import org.apache.calcite.sql.SqlCharStringLiteral;
+import org.apache.calcite.sql.SqlDataTypeSpec;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlTypeNameSpec;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static xparser.impl.XSqlTestParser.parseCreateTable;
+
+/** Tests for {@link XSqlTypeNameSpecs}. */
+class XSqlTypeNameSpecsTest {
+
+    private static final SqlParserPos POS = SqlParserPos.ZERO;
+
+    @Test
+    void testParsedCollectionTypesAreInterned() throws SqlParseException {
+        final XSqlCreateTable table =
+                parseCreateTable(
+                        "CREATE TABLE t (a INT ARRAY ARRAY, b INT ARRAY ARRAY,"
+                                + " c INT NOT NULL ARRAY ARRAY, d INT)");
+        assertSame(typeNameSpec(table, 0), typeNameSpec(table, 1));
+        // The columns keep their own data type specs, and with them their positions.
+        assertNotSame(type(table, 0), type(table, 1));
+        assertNotSame(typeNameSpec(table, 0), typeNameSpec(table, 2));
+
+        // Across statements too.
+        assertSame(
+                typeNameSpec(table, 0),
+                typeNameSpec(parseCreateTable("CREATE TABLE s (x INT ARRAY ARRAY)"), 0));
+    }
+
+    @Test
+    void testOnlyNestedTypesAreInterned() {
+        final SqlTypeNameSpec basic = basic(SqlTypeName.INTEGER);
+        assertSame(basic, XSqlTypeNameSpecs.intern(basic));
+        assertNotSame(
+                XSqlTypeNameSpecs.intern(basic(SqlTypeName.INTEGER)),
+                XSqlTypeNameSpecs.intern(basic(SqlTypeName.INTEGER)));
+    }
+
+    @Test
+    void testEqualRowAndMapTypesAreInterned() {
+        final SqlTypeNameSpec row = XSqlTypeNameSpecs.intern(row("x", "y", null, true));
+        assertSame(row, XSqlTypeNameSpecs.intern(row("x", "y", null, true)));
+
+        final SqlTypeNameSpec map = XSqlTypeNameSpecs.intern(map(SqlTypeName.VARCHAR, row));
+        assertSame(map, XSqlTypeNameSpecs.intern(map(SqlTypeName.VARCHAR, row)));
+    }
+
+    @Test
+    void testDigestCoversObservableStructure() {
+        final String row = XSqlTypeNameSpecs.digest(row("x", "y", null, true));
+        assertEquals(row, XSqlTypeNameSpecs.digest(row("x", "y", null, true)));
+        assertNotEquals(row, XSqlTypeNameSpecs.digest(row("x", "z", null, true)));
+        assertNotEquals(row, XSqlTypeNameSpecs.digest(row("x", "y", "comment", true)));
+        assertNotEquals(row, XSqlTypeNameSpecs.digest(row("x", "y", null, false)));
+        // Field names are length prefixed, so they cannot be confused with the structure.
+        assertNotEquals(
+                XSqlTypeNameSpecs.digest(row("a,1:b", "c", null, true)),
+                XSqlTypeNameSpecs.digest(row("a", "b,1:c", null, true)));
+
+        final SqlTypeNameSpec integer = basic(SqlTypeName.INTEGER);
+        assertNotEquals(
+                XSqlTypeNameSpecs.digest(collection(integer, true, SqlTypeName.ARRAY)),
+                XSqlTypeNameSpecs.digest(collection(integer, false, SqlTypeName.ARRAY)));
+        assertNotEquals(
+                XSqlTypeNameSpecs.digest(collection(integer, true, SqlTypeName.ARRAY)),
+                XSqlTypeNameSpecs.digest(collection(integer, true, SqlTypeName.MULTISET)));
+        assertNotEquals(
+                XSqlTypeNameSpecs.digest(map(SqlTypeName.VARCHAR, integer)),
+                XSqlTypeNameSpecs.digest(map(SqlTypeName.BIGINT, integer)));
+    }
+
+    @Test
+    void testDigestOfDataTypeCoversNullability() {
+        final SqlTypeNameSpec integer = basic(SqlTypeName.INTEGER);
+        assertNotEquals(
+                XSqlTypeNameSpecs.digest(new SqlDataTypeSpec(integer, POS).withNullable(true)),
+                XSqlTypeNameSpecs.digest(new SqlDataTypeSpec(integer, POS).withNullable(false)));
+    }
+
+    private static SqlBasicTypeNameSpec basic(SqlTypeName typeName) {
+        return new SqlBasicTypeNameSpec(typeName, POS);
+    }
+
+    private static XExtendedSqlCollectionTypeNameSpec collection(
+            SqlTypeNameSpec element, boolean elementNullable, SqlTypeName collectionType) {
+        return new XExtendedSqlCollectionTypeNameSpec(
+                element, elementNullable, collectionType, true, POS);
+    }
+
+    private static XSqlMapTypeNameSpec map(SqlTypeName key, SqlTypeNameSpec value) {
+        return new XSqlMapTypeNameSpec(
+                new SqlDataTypeSpec(basic(key), POS), new SqlDataTypeSpec(value, POS), POS);
+    }
+
+    private static XExtendedSqlRowTypeNameSpec row(
+            String first, String second, String comment, boolean unparseAsStandard) {
+        final List<SqlIdentifier> names =
+                Arrays.asList(new SqlIdentifier(first, POS), new SqlIdentifier(second, POS));
+        final List<SqlDataTypeSpec> types =
+                Arrays.asList(
+                        new SqlDataTypeSpec(basic(SqlTypeName.INTEGER), POS),
+                        new SqlDataTypeSpec(basic(SqlTypeName.VARCHAR), POS));
+        final List<SqlCharStringLiteral> comments =
+                Arrays.asList(
+                        null,
+                        comment == null ? null : SqlLiteral.createCharString(comment, POS));
+        return new XExtendedSqlRowTypeNameSpec(POS, names, types, comments, unparseAsStandard);
+    }
+
+    private static SqlDataTypeSpec type(XSqlCreateTable table, int column) {
+        return ((SqlRegularColumn) table.getColumnList().get(column)).getType();
+    }
+
+    private static SqlTypeNameSpec typeNameSpec(XSqlCreateTable table, int column) {
+        return type(table, column).getTypeNameSpec();
+    }
+}
@@ -0,0 +1,114 @@
+package xparser.impl;
+
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.parser.SqlParserImplFactory;
+import org.apache.calcite.sql.validate.SqlConformance;
+import org.apache.calcite.sql.validate.SqlConformanceEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Tests for the generated {@link XSqlFastFailParserImpl}. */
+class XSqlFastFailParserImplTest {
+
+    private static final String[] MALFORMED = {
+        "SELECT FROM t",
+        "SELECT a FROM",
+        "SELECT a,, b FROM t",
+        "SELECT a FROM t WHERE",
+        "SELECT * FROM t GROUP a",
+        "SELECT (a + FROM t",
+        "SELECT a FROM t WHERE b IN (SELECT c FROM s WHERE)",
+        "INSERT INTO t VALUES (1, 2",
+        "CREATE TABLE t (a INT,)",
+        "CREATE TABLE t (a INT) WITH ('k' = )",
+        "DROP TABLE",
+        "SELECT a\nFROM t\nWHERE b = = 1",
+    };
+
+    @Test
+    void testCachedMessagesEqualTheGeneratedParser() {
+        for (SqlConformance conformance :
+                Arrays.asList(SqlConformanceEnum.DEFAULT, SqlConformanceEnum.LENIENT)) {
+            for (String sql : MALFORMED) {
+                final SqlParseException expected =
+                        fail(XSqlParserImpl.FACTORY, conformance, sql);
+                final SqlParseException uncached =
+                        fail(XSqlFastFailParserImpl.FACTORY, conformance, sql);
+                final SqlParseException cached =
+                        fail(XSqlFastFailParserImpl.FACTORY, conformance, sql);
+                assertSameError(expected, uncached);
+                assertSameError(expected, cached);
+            }
+        }
+    }
+
+    @Test
+    void testStatementsFailingAlikeShareTheExpectedTokens() {
+        final SqlConformance conformance = SqlConformanceEnum.DEFAULT;
+        // Only the identifiers differ, which are all tokens of one kind.
+        final SqlParseException first =
+                fail(XSqlFastFailParserImpl.FACTORY, conformance, "SELECT col_a FROM t WHERE x = ");
+        final SqlParseException second =
+                fail(XSqlFastFailParserImpl.FACTORY, conformance, "SELECT col_bb FROM u WHERE y =");
+        assertSame(first.getExpectedTokenSequences(), second.getExpectedTokenSequences());
+        assertSameError(
+                fail(XSqlParserImpl.FACTORY, conformance, "SELECT col_bb FROM u WHERE y ="),
+                second);
+    }
+
+    @Test
+    void testLongStatementsAreKeyedByAWindow() {
+        final StringBuilder sql = new StringBuilder("SELECT c0");
+        for (int i = 1; i < 500; i++) {
+            sql.append(", c").append(i);
+        }
+        final String malformed = sql.append(" FROM t WHERE").toString();
+        final SqlConformance conformance = SqlConformanceEnum.DEFAULT;
+        assertSameError(
+                fail(XSqlParserImpl.FACTORY, conformance, malformed),
+                fail(XSqlFastFailParserImpl.FACTORY, conformance, malformed));
+        assertSameError(
+                fail(XSqlParserImpl.FACTORY, conformance, malformed),
+                fail(XSqlFastFailParserImpl.FACTORY, conformance, malformed));
+    }
+
+    @Test
+    void testExceptionsHaveNoStackTrace() {
+        final SqlParseException e =
+                fail(XSqlFastFailParserImpl.FACTORY, SqlConformanceEnum.DEFAULT, "SELECT FROM");
+        assertEquals(0, e.getStackTrace().length);
+        assertEquals(0, e.getCause().getStackTrace().length);
+    }
+
+    private static void assertSameError(SqlParseException expected, SqlParseException actual) {
+        assertEquals(expected.getMessage(), actual.getMessage());
+        assertEquals(expected.getPos(), actual.getPos());
+        final int[][] expectedTokens = expected.getExpectedTokenSequences();
+        final int[][] actualTokens = actual.getExpectedTokenSequences();
+        assertEquals(expectedTokens.length, actualTokens.length, expected.getMessage());
+        for (int i = 0; i < expectedTokens.length; i++) {
+            assertArrayEquals(expectedTokens[i], actualTokens[i]);
+        }
+    }
+
+    private static SqlParseException fail(
+            SqlParserImplFactory factory, SqlConformance conformance, String sql) {
+        return assertThrows(
+                SqlParseException.class,
+                () ->
+                        SqlParser.create(
+                                        sql,
+                                        SqlParser.config()
+                                                .withParserFactory(factory)
+                                                .withConformance(conformance))
+                                .parseStmt(),
+                sql);
+    }
+}
@@ -0,0 +1,74 @@
+package xparser.impl;
+
+import org.apache.calcite.sql.parser.SqlAbstractParserImpl;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests for the generated {@link XSqlKeywords}. */
+class XSqlKeywordsTest {
+
+    @Test
+    void testKeywordsAreTheKeywordTokensOfTheParser() {
+        final Set<String> tokens = new TreeSet<>();
+        for (String image : XSqlParserImplConstants.tokenImage) {
+            if (image.matches("\"[A-Z][A-Z0-9_\\-]*\"")) {
+                tokens.add(image.substring(1, image.length() - 1));
+            }
+        }
+        assertEquals(new ArrayList<>(tokens), XSqlKeywords.keywords());
+    }
+
+    @Test
+    void testReservedKeywordsMatchTheParser() {
+        final SqlAbstractParserImpl.Metadata metadata =
+                XSqlParserImpl.FACTORY.getParser(new StringReader("")).getMetadata();
+        final List<String> mismatches = new ArrayList<>();
+        for (String keyword : XSqlKeywords.keywords()) {
+            if (XSqlKeywords.isReservedKeyword(keyword) != metadata.isReservedWord(keyword)) {
+                mismatches.add(keyword);
+            }
+            assertTrue(
+                    XSqlKeywords.isReservedKeyword(keyword)
+                            != XSqlKeywords.isNonReservedKeyword(keyword));
+        }
+        assertEquals(new ArrayList<>(), mismatches);
+    }
+
+    @Test
+    void testLookupIgnoresCase() {
+        for (String keyword : XSqlKeywords.keywords()) {
+            assertTrue(XSqlKeywords.isKeyword(keyword.toLowerCase(Locale.ROOT)), keyword);
+        }
+        assertTrue(XSqlKeywords.isReservedKeyword("Select"));
+        assertTrue(XSqlKeywords.isNonReservedKeyword("partitioned"));
+    }
+
+    @Test
+    void testNonKeywords() {
+        assertFalse(XSqlKeywords.isKeyword(""));
+        assertFalse(XSqlKeywords.isKeyword("SELECTS"));
+        assertFalse(XSqlKeywords.isKeyword("SELEC"));
+        assertFalse(XSqlKeywords.isKeyword("ORDERS"));
+        assertFalse(XSqlKeywords.isKeyword("sélect"));
+        assertFalse(XSqlKeywords.isKeyword("a_rather_long_identifier_that_is_no_keyword"));
+    }
+
+    @Test
+    void testLookupOfRange() {
+        final String sql = "INSERT INTO orders SELECT * FROM t";
+        assertTrue(XSqlKeywords.isReservedKeyword(sql, 0, 6));
+        assertTrue(XSqlKeywords.isKeyword(sql, 7, 11));
+        assertFalse(XSqlKeywords.isKeyword(sql, 12, 18));
+        assertFalse(XSqlKeywords.isKeyword(sql, 0, 5));
+    }
+}
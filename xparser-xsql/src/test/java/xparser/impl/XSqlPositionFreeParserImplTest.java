@@ -0,0 +1,67 @@
+package xparser.impl;
+
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.parser.SqlParserImplFactory;
+import org.apache.calcite.sql.parser.SqlParserPos;
+import org.apache.calcite.sql.util.SqlShuttle;
+import org.apache.calcite.util.Litmus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Tests for the generated {@link XSqlPositionFreeParserImpl}. */
+class XSqlPositionFreeParserImplTest {
+
+    private static final String SQL =
+            "SELECT a, \"b\" + 1\nFROM t\nWHERE c IN (SELECT d FROM s)";
+
+    @Test
+    void testTreeEqualsTheTreeWithPositions() throws SqlParseException {
+        final SqlNode withPositions = parse(XSqlParserImpl.FACTORY, SQL);
+        final SqlNode positionFree = parse(XSqlPositionFreeParserImpl.FACTORY, SQL);
+        assertTrue(withPositions.equalsDeep(positionFree, Litmus.IGNORE));
+        assertEquals(withPositions.toString(), positionFree.toString());
+    }
+
+    @Test
+    void testIdentifiersHaveNoPosition() throws SqlParseException {
+        final List<SqlParserPos> positions = new ArrayList<>();
+        parse(XSqlPositionFreeParserImpl.FACTORY, SQL)
+                .accept(
+                        new SqlShuttle() {
+                            @Override
+                            public SqlNode visit(SqlIdentifier id) {
+                                positions.add(id.getParserPosition());
+                                return id;
+                            }
+                        });
+        assertEquals(6, positions.size());
+        for (SqlParserPos pos : positions) {
+            assertEquals(0, pos.getLineNum());
+            assertEquals(0, pos.getColumnNum());
+        }
+    }
+
+    @Test
+    void testSyntaxErrorsKeepTheirPosition() {
+        final SqlParseException e =
+                assertThrows(
+                        SqlParseException.class,
+                        () -> parse(XSqlPositionFreeParserImpl.FACTORY, "SELECT a\nFROM FROM"));
+        assertEquals(2, e.getPos().getLineNum());
+        assertEquals(6, e.getPos().getColumnNum());
+    }
+
+    private static SqlNode parse(SqlParserImplFactory factory, String sql)
+            throws SqlParseException {
+        return SqlParser.create(sql, SqlParser.config().withParserFactory(factory)).parseQuery();
+    }
+}
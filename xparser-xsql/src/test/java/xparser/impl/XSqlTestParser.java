@@ -0,0 +1,25 @@
+package xparser.impl;
+
+import ddl.XSqlCreateTable;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.sql.parser.SqlParser;
+
+/** Parses single statements with {@link XSqlParserImpl} for the tests of the AST classes. */
+public final class XSqlTestParser {
+
+    private static final SqlParser.Config CONFIG =
+            SqlParser.config().withParserFactory(XSqlParserImpl.FACTORY);
+
+    private XSqlTestParser() {}
+
+    /** Parses a statement with the default configuration of {@link SqlParser}. */
+    public static SqlNode parse(String sql) throws SqlParseException {
+        return SqlParser.create(sql, CONFIG).parseStmt();
+    }
+
+    /** Parses a statement that must be a {@code CREATE TABLE}. */
+    public static XSqlCreateTable parseCreateTable(String sql) throws SqlParseException {
+        return (XSqlCreateTable) parse(sql);
+    }
+}